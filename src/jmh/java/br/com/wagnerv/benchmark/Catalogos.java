@@ -0,0 +1,93 @@
+package br.com.wagnerv.benchmark; // Pacote dos benchmarks (JMH) dos caminhos mais usados do catálogo.
+
+import br.com.wagnerv.indice.IndiceBusca;                 // Ouvinte de produção: índice da busca.
+import br.com.wagnerv.model.Livro;                        // Os livros de teste.
+import br.com.wagnerv.repository.LivroRepository;         // O catálogo.
+import br.com.wagnerv.repository.LivroRepositoryCompacto; // Implementação em colunas ("biblioteca.armazenamento=compacto").
+import br.com.wagnerv.repository.LivroRepositoryMemoria;  // A implementação padrão em produção.
+import br.com.wagnerv.util.CacheFragmentosHtml;           // Ouvinte de produção: cache dos cards.
+
+import java.util.ArrayList; // Lotes de livros.
+import java.util.List;      // Interface de lista.
+import java.util.Random;    // Dados de teste com semente fixa (mesmos livros em toda execução).
+
+/**
+ * Monta catálogos de teste para os benchmarks, parecidos com os de produção: títulos e autores
+ * com acentos, anos variados e ISBNs gerados pelo próprio sistema.
+ */
+final class Catalogos {
+
+    static final String CONTEXTO = "/biblioteca"; // Context path usado nos cards.
+
+    private static final String[] PALAVRAS = {
+            "Memórias", "Póstumas", "Brás", "Cubas", "Dom", "Casmurro", "Iracema", "Sertões", "Vidas",
+            "Secas", "Grande", "Veredas", "Capitães", "Areia", "Macunaíma", "Alienista", "Quincas",
+            "Borba", "Senhora", "Cortiço", "Triste", "Fim", "Policarpo", "Quaresma", "Ateneu",
+    };
+
+    private static final String[] AUTORES = {
+            "Machado de Assis", "José de Alencar", "Euclides da Cunha", "Graciliano Ramos",
+            "Guimarães Rosa", "Jorge Amado", "Mário de Andrade", "Aluísio Azevedo", "Lima Barreto",
+            "Raul Pompeia", "Clarice Lispector", "Cecília Meireles",
+    };
+
+    private Catalogos() {
+    }
+
+    /**
+     * @param quantidade Quantos livros criar.
+     * @param semente    Semente do sorteio (mesma semente, mesmos livros).
+     * @return Livros novos, já validados.
+     */
+    static List<Livro> livros(int quantidade, long semente) {
+        Random sorteio = new Random(semente);
+        List<Livro> livros = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            livros.add(livro(sorteio));
+        }
+        return livros;
+    }
+
+    static Livro livro(Random sorteio) {
+        Livro livro = new Livro();
+        int palavras = 1 + sorteio.nextInt(4);
+        StringBuilder titulo = new StringBuilder();
+        for (int p = 0; p < palavras; p++) {
+            if (p > 0) {
+                titulo.append(' ');
+            }
+            titulo.append(PALAVRAS[sorteio.nextInt(PALAVRAS.length)]);
+        }
+        livro.setTitulo(titulo.toString().toUpperCase());
+        livro.setAutor(AUTORES[sorteio.nextInt(AUTORES.length)].toUpperCase());
+        livro.setAno(1800 + sorteio.nextInt(225));
+        return livro;
+    }
+
+    /**
+     * @param armazenamento "objetos" ou "compacto", como a configuração "biblioteca.armazenamento".
+     * @return Um catálogo vazio.
+     */
+    static LivroRepository repositorio(String armazenamento) {
+        return "compacto".equals(armazenamento) ? new LivroRepositoryCompacto() : new LivroRepositoryMemoria();
+    }
+
+    /**
+     * Cria um catálogo com {@code quantidade} livros.
+     *
+     * @param comOuvintes Se {@code true}, liga o índice de busca e o cache de cards, como em produção
+     *                    (toda escrita passa a pagar a manutenção deles).
+     */
+    static LivroRepository catalogo(int quantidade, boolean comOuvintes) {
+        LivroRepository repositorio = new LivroRepositoryMemoria();
+        if (comOuvintes) {
+            repositorio.adicionarListener(new IndiceBusca());
+            repositorio.adicionarListener(new CacheFragmentosHtml(CONTEXTO, 64L * 1024 * 1024, repositorio::buscarPorId));
+        }
+        int lote = 10_000;
+        for (int feitos = 0; feitos < quantidade; feitos += lote) {
+            repositorio.adicionarTodos(livros(Math.min(lote, quantidade - feitos), feitos));
+        }
+        return repositorio;
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.wagnerv.benchmark; // Pacote dos benchmarks (JMH) dos caminhos mais usados do catálogo.
+
+import java.io.Writer; // O destino "de mentira" da resposta.
+
+/**
+ * Um {@link Writer} que joga fora tudo o que recebe, mas conta os caracteres (para o JIT não
+ * "sumir" com a escrita). Faz o papel da resposta HTTP sem medir a rede junto.
+ */
+final class EscritorDescartavel extends Writer {
+
+    long caracteres;
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        caracteres += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        caracteres += len;
+    }
+
+    @Override
+    public void write(int c) {
+        caracteres++;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.wagnerv.benchmark; // Pacote dos benchmarks (JMH) dos caminhos mais usados do catálogo.
+
+import br.com.wagnerv.model.Livro;                         // Os livros excluídos e reincluídos.
+import br.com.wagnerv.persistencia.PersistenciaCatalogo;   // Diário em disco, como em produção.
+import br.com.wagnerv.repository.CatalogoSnapshot;         // Para pegar os livros na ordem de inserção.
+import br.com.wagnerv.repository.LivroRepository;          // O catálogo.
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;              // Erros do diário.
+import java.nio.file.Files;              // Diretório temporário do diário.
+import java.nio.file.Path;               // Caminho do diretório.
+import java.util.Comparator;             // Para apagar o diretório de trás pra frente.
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger; // Qual livro cada operação exclui.
+import java.util.stream.Stream;          // Para listar os arquivos a apagar.
+
+/**
+ * Mede o caminho de exclusão do {@code LivroServlet.doPost} ("action=delete"): remover pelo ID
+ * e, quando há persistência, esperar a exclusão chegar ao disco.
+ *
+ * Para o catálogo não encolher durante a medição, cada operação exclui um livro e o inclui de
+ * novo no fim (o custo medido é "exclusão + reinclusão"). Os livros são percorridos em ordem,
+ * então as exclusões se espalham pelo catálogo inteiro e as compactações entram na conta.
+ *
+ * Modos:
+ * - "memoria": só o repositório;
+ * - "ouvintes": repositório + índice de busca + cache de cards (o que roda em produção);
+ * - "diario": como "ouvintes", mais o diário em disco e a espera pela gravação (group commit).
+ *   Com várias threads ({@code excluirConcorrente}), várias exclusões dividem o mesmo fsync.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ExclusaoBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int tamanho;
+
+    @Param({"memoria", "ouvintes", "diario"})
+    public String modo;
+
+    private LivroRepository catalogo;
+    private Livro[] livros;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private PersistenciaCatalogo persistencia;
+    private Path diretorio;
+
+    @Setup(Level.Trial)
+    public void montar() throws IOException {
+        catalogo = Catalogos.catalogo(0, !modo.equals("memoria"));
+        if (modo.equals("diario")) {
+            diretorio = Files.createTempDirectory("benchmark-diario");
+            persistencia = new PersistenciaCatalogo(diretorio, 100_000);
+            persistencia.restaurar(catalogo); // Diretório vazio: só liga o diário.
+        }
+        for (int feitos = 0; feitos < tamanho; feitos += 10_000) {
+            catalogo.adicionarTodos(Catalogos.livros(Math.min(10_000, tamanho - feitos), feitos));
+        }
+        CatalogoSnapshot snapshot = catalogo.snapshot();
+        livros = new Livro[snapshot.tamanho()];
+        int i = 0;
+        for (Livro livro : snapshot) {
+            livros[i++] = livro;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void desmontar() throws IOException {
+        if (persistencia != null) {
+            persistencia.close();
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean excluir() throws IOException {
+        return excluirEReincluir();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean excluirConcorrente() throws IOException {
+        return excluirEReincluir();
+    }
+
+    private boolean excluirEReincluir() throws IOException {
+        Livro livro = livros[Math.floorMod(cursor.getAndIncrement(), livros.length)];
+        boolean removido = catalogo.remover(livro.getId());
+        if (persistencia != null) {
+            persistencia.aguardarDurabilidade(); // O que o doPost faz antes de redirecionar.
+        }
+        catalogo.adicionar(livro);
+        return removido;
+    }
+}
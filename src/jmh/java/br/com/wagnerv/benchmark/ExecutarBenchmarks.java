@@ -0,0 +1,66 @@
+package br.com.wagnerv.benchmark; // Pacote dos benchmarks (JMH) dos caminhos mais usados do catálogo.
+// Os benchmarks ficam em src/jmh/java, separados do código da aplicação: eles não vão para o .war.
+
+import org.openjdk.jmh.profile.GCProfiler;     // Mede a alocação de memória por operação.
+import org.openjdk.jmh.runner.Runner;          // Executa os benchmarks.
+import org.openjdk.jmh.runner.RunnerException; // Erros da execução.
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa a suíte de benchmarks com o perfilador de alocação ligado.
+ *
+ * Além do tempo, cada resultado traz {@code gc.alloc.rate.norm}: quantos bytes cada operação
+ * aloca. Esse é o número que mais denuncia regressões (um objeto a mais por livro listado
+ * aparece ali antes de aparecer no tempo).
+ *
+ * Como rodar (da raiz do projeto; o Maven compila os benchmarks junto com os testes e o
+ * processador de anotações do JMH gera as classes):
+ * <pre>
+ * mvn test-compile exec:exec@benchmarks                                          (tudo)
+ * mvn test-compile exec:exec@benchmarks -Djmh.args="Listagem"                    (só o que casar)
+ * mvn test-compile exec:exec@benchmarks -Djmh.args="Exclusao -p tamanho=10000"
+ * </pre>
+ * Qualquer argumento depois do filtro é repassado ao JMH como na linha de comando dele
+ * ({@code org.openjdk.jmh.Main}), por exemplo {@code -p tamanho=100}, {@code -t 4} ou {@code -f 3}.
+ */
+public final class ExecutarBenchmarks {
+
+    private ExecutarBenchmarks() {
+    }
+
+    public static void main(String[] argumentos) throws RunnerException {
+        boolean temFiltro = argumentos.length > 0 && !argumentos[0].startsWith("-");
+        String filtro = temFiltro ? argumentos[0] : "br\\.com\\.wagnerv\\.benchmark\\..*";
+        ChainedOptionsBuilder opcoes = new OptionsBuilder()
+                .include(filtro)
+                .addProfiler(GCProfiler.class);
+        for (int i = temFiltro ? 1 : 0; i + 1 < argumentos.length; i += 2) {
+            String opcao = argumentos[i];
+            String valor = argumentos[i + 1];
+            switch (opcao) {
+                case "-p": {
+                    int igual = valor.indexOf('=');
+                    opcoes.param(valor.substring(0, igual), valor.substring(igual + 1).split(","));
+                    break;
+                }
+                case "-t":
+                    opcoes.threads(Integer.parseInt(valor));
+                    break;
+                case "-f":
+                    opcoes.forks(Integer.parseInt(valor));
+                    break;
+                case "-wi":
+                    opcoes.warmupIterations(Integer.parseInt(valor));
+                    break;
+                case "-i":
+                    opcoes.measurementIterations(Integer.parseInt(valor));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opção não suportada: " + opcao
+                            + " (use org.openjdk.jmh.Main para as demais)");
+            }
+        }
+        new Runner(opcoes.build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.wagnerv.benchmark; // Pacote dos benchmarks (JMH) dos caminhos mais usados do catálogo.
+
+import br.com.wagnerv.model.Livro;                 // Os livros listados.
+import br.com.wagnerv.repository.CatalogoSnapshot; // A fotografia lida pela listagem.
+import br.com.wagnerv.repository.LivroRepository;  // O catálogo.
+import br.com.wagnerv.util.CacheFragmentosHtml;    // Cache dos cards, como em produção.
+import br.com.wagnerv.util.GerarHtmlLivro;         // O código medido.
+
+import jakarta.servlet.http.HttpServletRequest; // O 'gerar' antigo recebe a requisição.
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;       // O 'escrever' declara IOException.
+import java.lang.reflect.Proxy;   // Requisição "de mentira" que só sabe o context path.
+import java.util.List;            // A página de livros.
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a geração do HTML da listagem ({@link GerarHtmlLivro}) conforme o catálogo cresce:
+ * - {@code gerarPagina}: o {@code gerar} que monta uma String (uma página de 100 livros);
+ * - {@code escreverPagina}: a versão em streaming usada pela JSP, sem cache;
+ * - {@code escreverPaginaComCache}: a mesma, com os cards vindos do {@link CacheFragmentosHtml};
+ * - {@code paginaDoMeio}: só achar a página no meio do catálogo (custo da paginação em si);
+ * - {@code escreverCatalogoInteiro}: o catálogo inteiro em streaming (o que a página fazia antes da paginação).
+ *
+ * Cada medida roda com os dois armazenamentos: no "compacto" os livros são montados a cada leitura.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ListagemBenchmark {
+
+    private static final int LIMITE = 100; // Livros por página (o padrão da listagem).
+
+    @Param({"100", "10000", "1000000"})
+    public int tamanho;
+
+    @Param({"objetos", "compacto"})
+    public String armazenamento;
+
+    private CatalogoSnapshot snapshot;
+    private CacheFragmentosHtml cache;
+    private HttpServletRequest requisicao;
+    private int inicioMeio;
+
+    @Setup(Level.Trial)
+    public void montar() {
+        LivroRepository catalogo = Catalogos.repositorio(armazenamento);
+        // Cache grande o bastante para a página medida; ele se preenche a cada inclusão, como em produção.
+        cache = new CacheFragmentosHtml(Catalogos.CONTEXTO, 256L * 1024 * 1024, catalogo::buscarPorId);
+        catalogo.adicionarListener(cache);
+        for (int feitos = 0; feitos < tamanho; feitos += 10_000) {
+            catalogo.adicionarTodos(Catalogos.livros(Math.min(10_000, tamanho - feitos), feitos));
+        }
+        snapshot = catalogo.snapshot();
+        inicioMeio = Math.max(0, tamanho / 2 - LIMITE / 2);
+        requisicao = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().equals("getContextPath")) {
+                        return Catalogos.CONTEXTO;
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    @Benchmark
+    public String gerarPagina() {
+        return GerarHtmlLivro.gerar(requisicao, snapshot.pagina(inicioMeio, LIMITE));
+    }
+
+    @Benchmark
+    public long escreverPagina() throws IOException {
+        return GerarHtmlLivro.escrever(Catalogos.CONTEXTO, snapshot.pagina(inicioMeio, LIMITE), new EscritorDescartavel());
+    }
+
+    @Benchmark
+    public long escreverPaginaComCache() throws IOException {
+        return GerarHtmlLivro.escrever(Catalogos.CONTEXTO, snapshot.pagina(inicioMeio, LIMITE),
+                new EscritorDescartavel(), cache);
+    }
+
+    @Benchmark
+    public List<Livro> paginaDoMeio() {
+        return snapshot.pagina(inicioMeio, LIMITE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long escreverCatalogoInteiro() throws IOException {
+        return GerarHtmlLivro.escrever(Catalogos.CONTEXTO, snapshot, new EscritorDescartavel(), cache);
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.wagnerv.benchmark; // Pacote dos benchmarks (JMH) dos caminhos mais usados do catálogo.
+
+import br.com.wagnerv.exception.LivroException; // Lançada pelo validar() com dados inválidos.
+import br.com.wagnerv.model.Livro;              // O código medido.
+import br.com.wagnerv.util.GeradorISBN;         // Gera o ISBN quando o livro entra no catálogo.
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a criação e a validação de livros, com 1 thread e com todas as threads da máquina
+ * (os métodos "...Concorrente"), para mostrar se há disputa entre requisições simultâneas:
+ * - {@code criarLivro}: {@code new Livro()} + setters (ID do GeradorIds; o ISBN só é gerado quando
+ *   o livro entra no catálogo);
+ * - {@code gerarIsbn}: só o ISBN (o que o repositório faz a cada livro novo);
+ * - {@code validarValido} / {@code validarInvalido}: o {@code validar()} aceitando e recusando
+ *   (recusar cria uma exceção, que é bem mais cara).
+ *
+ * Os ISBNs gerados aqui nunca são liberados (não há livro para excluir), então o conjunto de ISBNs
+ * usados cresce durante a execução, como num servidor cujo catálogo só aumenta.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LivroBenchmark {
+
+    private Livro valido;
+    private Livro invalido;
+
+    @Setup
+    public void montar() {
+        valido = new Livro();
+        valido.setTitulo("DOM CASMURRO");
+        valido.setAutor("MACHADO DE ASSIS");
+        valido.setAno(1899);
+        invalido = new Livro();
+        invalido.setTitulo("DOM CASMURRO");
+        invalido.setAutor("  ");
+        invalido.setAno(1899);
+    }
+
+    @Benchmark
+    public Livro criarLivro() {
+        return criar();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Livro criarLivroConcorrente() {
+        return criar();
+    }
+
+    @Benchmark
+    public String gerarIsbn() {
+        return GeradorISBN.gerar();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String gerarIsbnConcorrente() {
+        return GeradorISBN.gerar();
+    }
+
+    @Benchmark
+    public boolean validarValido() {
+        try {
+            valido.validar();
+            return true;
+        } catch (LivroException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validarInvalido() {
+        try {
+            invalido.validar();
+            return true;
+        } catch (LivroException e) {
+            return false;
+        }
+    }
+
+    private static Livro criar() {
+        Livro livro = new Livro();
+        livro.setTitulo("MEMÓRIAS PÓSTUMAS DE BRÁS CUBAS");
+        livro.setAutor("MACHADO DE ASSIS");
+        livro.setAno(1881);
+        return livro;
+    }
+}
@@ -0,0 +1,264 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+
+import br.com.wagnerv.config.CatalogoAplicacao;  // Catálogo do servidor embutido (pré-carga).
+import br.com.wagnerv.model.Livro;               // Livros da pré-carga.
+import br.com.wagnerv.repository.CatalogoSnapshot; // IDs que as exclusões vão usar.
+import br.com.wagnerv.util.Json;                 // Leitura da API, no modo "--url".
+
+import java.io.IOException;                 // Erros de rede e de disco.
+import java.io.OutputStreamWriter;          // Relatório na saída padrão.
+import java.io.Writer;                      // Destino do relatório.
+import java.net.URI;                        // Endereço da API.
+import java.net.http.HttpClient;            // Coleta dos IDs no modo "--url".
+import java.net.http.HttpRequest;           // Requisições da coleta.
+import java.net.http.HttpResponse;          // Respostas da coleta.
+import java.nio.charset.StandardCharsets;   // Relatório em UTF-8.
+import java.nio.file.Files;                 // Arquivo do relatório.
+import java.nio.file.Paths;                 // Caminhos.
+import java.time.Duration;                  // Tempos do teste.
+import java.time.Instant;                   // Quando o teste rodou (vai no relatório).
+import java.util.ArrayList;                 // Listas de livros e IDs.
+import java.util.Arrays;                    // Corta a lista de IDs.
+import java.util.Collections;               // Embaralha os IDs.
+import java.util.LinkedHashMap;             // Configuração, na ordem em que é mostrada.
+import java.util.List;                      // Interface de lista.
+import java.util.Map;                       // Interface de mapa.
+import java.util.Random;                    // Livros da pré-carga e ordem das exclusões, com semente.
+
+/**
+ * Teste de carga HTTP da aplicação de ponta a ponta: o Servlet, o forward para a JSP, o
+ * redirecionamento depois do POST, o filtro de métricas e a disputa pelo catálogo entre quem
+ * lê e quem escreve. Os benchmarks do JMH medem pedaços; este mede o conjunto.
+ *
+ * Por padrão, sobe a aplicação num Tomcat embutido em 127.0.0.1 (com o catálogo em memória e
+ * pré-carregado), manda uma mistura de listagens, inclusões, exclusões e inclusões inválidas
+ * numa taxa fixa ("malha aberta", veja {@link GeradorCarga}) e escreve um relatório JSON com a
+ * vazão e os percentis de latência corrigidos, para comparar versões antes de publicar.
+ *
+ * Como rodar (a partir da raiz do projeto; o Maven compila o teste de carga junto com os testes):
+ * <pre>
+ * mvn test-compile exec:exec@carga
+ * mvn test-compile exec:exec@carga -Dcarga.args="--taxa 500 --duracao 60 \
+ *      --mistura listar=90,adicionar=5,excluir=4,invalido=1 --saida v1.4.json --rotulo v1.4"
+ * mvn test-compile exec:exec@carga -Dcarga.args="--url http://homologacao:8080/biblioteca"
+ * </pre>
+ *
+ * Opções (padrão entre parênteses):
+ * <pre>
+ * --taxa N            requisições por segundo (200)
+ * --duracao S         segundos de medição (30)
+ * --aquecimento S     segundos de tráfego antes da medição, sem medir (10)
+ * --mistura TEXTO     proporção das operações (listar=80,adicionar=10,excluir=7,invalido=3)
+ * --chegadas TIPO     "constante" (intervalos iguais) ou "poisson" (intervalos sorteados) (constante)
+ * --semente N         semente dos sorteios: mesma semente, mesma sequência de requisições (42)
+ * --catalogo N        livros pré-carregados no servidor embutido (10000)
+ * --limite N          livros por página nas listagens (100)
+ * --pendentes N       máximo de requisições em andamento; acima disso, não envia e conta (10000)
+ * --tempo-limite S    tempo máximo de uma requisição (30)
+ * --seguir-redirecionamentos   inclui no tempo do POST o GET da listagem que vem depois
+ * --webapp PASTA      pasta da aplicação web (src/main/webapp)
+ * --dados VALOR       "biblioteca.dados" do servidor embutido: "memoria" ou uma pasta (memoria)
+ * --param CHAVE=VALOR outro parâmetro do servidor embutido (pode repetir), ex: biblioteca.async=true
+ * --url ENDERECO      testa um servidor que já está no ar, em vez de subir o embutido
+ * --rotulo TEXTO      identifica a versão testada no relatório
+ * --saida ARQUIVO     onde gravar o relatório JSON; "-" para a saída padrão (relatorio-carga.json)
+ * </pre>
+ */
+public final class ExecutarTesteCarga {
+
+    private ExecutarTesteCarga() {
+    }
+
+    public static void main(String[] argumentos) throws Exception {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        Map<String, String> parametros = new LinkedHashMap<>();
+        for (int i = 0; i < argumentos.length; i++) {
+            String nome = argumentos[i];
+            if (!nome.startsWith("--")) {
+                throw new IllegalArgumentException("Opção inválida: " + nome);
+            }
+            if (nome.equals("--seguir-redirecionamentos")) {
+                opcoes.put(nome.substring(2), "true");
+                continue;
+            }
+            if (i + 1 >= argumentos.length) {
+                throw new IllegalArgumentException("Opção sem valor: " + nome);
+            }
+            String valor = argumentos[++i];
+            if (nome.equals("--param")) {
+                int igual = valor.indexOf('=');
+                if (igual < 0) {
+                    throw new IllegalArgumentException("Use --param chave=valor: " + valor);
+                }
+                parametros.put(valor.substring(0, igual), valor.substring(igual + 1));
+            } else {
+                opcoes.put(nome.substring(2), valor);
+            }
+        }
+
+        double taxa = Double.parseDouble(opcoes.getOrDefault("taxa", "200"));
+        Duration duracao = Duration.ofSeconds(Long.parseLong(opcoes.getOrDefault("duracao", "30")));
+        Duration aquecimento = Duration.ofSeconds(Long.parseLong(opcoes.getOrDefault("aquecimento", "10")));
+        MisturaOperacoes mistura = new MisturaOperacoes(opcoes.getOrDefault("mistura", "listar=80,adicionar=10,excluir=7,invalido=3"));
+        String chegadas = opcoes.getOrDefault("chegadas", "constante");
+        if (!chegadas.equals("constante") && !chegadas.equals("poisson")) {
+            throw new IllegalArgumentException("--chegadas deve ser \"constante\" ou \"poisson\": " + chegadas);
+        }
+        long semente = Long.parseLong(opcoes.getOrDefault("semente", "42"));
+        int catalogo = Integer.parseInt(opcoes.getOrDefault("catalogo", "10000"));
+        int limite = Integer.parseInt(opcoes.getOrDefault("limite", "100"));
+        int pendentes = Integer.parseInt(opcoes.getOrDefault("pendentes", "10000"));
+        Duration tempoLimite = Duration.ofSeconds(Long.parseLong(opcoes.getOrDefault("tempo-limite", "30")));
+        boolean seguir = Boolean.parseBoolean(opcoes.getOrDefault("seguir-redirecionamentos", "false"));
+        String urlExterna = opcoes.get("url");
+        String saida = opcoes.getOrDefault("saida", "relatorio-carga.json");
+        if (taxa <= 0) {
+            throw new IllegalArgumentException("--taxa precisa ser maior que zero");
+        }
+
+        // Quantas exclusões o teste deve fazer (com folga): é o tanto de IDs que precisamos ter.
+        double fracaoExclusoes = (double) mistura.peso(Operacao.EXCLUIR)
+                / (mistura.peso(Operacao.LISTAR) + mistura.peso(Operacao.ADICIONAR)
+                + mistura.peso(Operacao.EXCLUIR) + mistura.peso(Operacao.INVALIDO));
+        int exclusoesPrevistas = (int) Math.ceil(taxa * (duracao.getSeconds() + aquecimento.getSeconds()) * fracaoExclusoes * 1.2);
+
+        Map<String, Object> configuracao = new LinkedHashMap<>();
+        configuracao.put("rotulo", opcoes.getOrDefault("rotulo", ""));
+        configuracao.put("inicio", Instant.now().toString());
+        configuracao.put("alvo", urlExterna == null ? "embutido" : urlExterna);
+        configuracao.put("taxa", taxa);
+        configuracao.put("duracaoSegundos", duracao.getSeconds());
+        configuracao.put("aquecimentoSegundos", aquecimento.getSeconds());
+        configuracao.put("mistura", mistura.toString());
+        configuracao.put("chegadas", chegadas);
+        configuracao.put("semente", semente);
+        configuracao.put("limitePagina", limite);
+        configuracao.put("maxPendentes", pendentes);
+        configuracao.put("tempoLimiteSegundos", tempoLimite.getSeconds());
+        configuracao.put("seguirRedirecionamentos", seguir);
+
+        Writer resumo = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        ServidorEmbutido servidor = null;
+        try {
+            String url;
+            int tamanhoCatalogo;
+            int[] idsExclusao;
+            if (urlExterna == null) {
+                parametros.putIfAbsent("biblioteca.dados", opcoes.getOrDefault("dados", "memoria"));
+                servidor = new ServidorEmbutido(Paths.get(opcoes.getOrDefault("webapp", "src/main/webapp")),
+                        "/biblioteca", parametros);
+                url = servidor.getUrl();
+                CatalogoAplicacao aplicacao = servidor.getCatalogo();
+                preCarregar(aplicacao, catalogo, semente);
+                CatalogoSnapshot snapshot = aplicacao.getLivros().snapshot();
+                tamanhoCatalogo = snapshot.tamanho();
+                idsExclusao = idsEmbaralhados(snapshot, exclusoesPrevistas, semente);
+                configuracao.put("catalogo", tamanhoCatalogo);
+                for (Map.Entry<String, String> p : parametros.entrySet()) {
+                    configuracao.put("param." + p.getKey(), p.getValue());
+                }
+            } else {
+                url = urlExterna.endsWith("/") ? urlExterna.substring(0, urlExterna.length() - 1) : urlExterna;
+                List<Integer> ids = new ArrayList<>();
+                tamanhoCatalogo = coletarIds(url, exclusoesPrevistas, ids, tempoLimite);
+                idsExclusao = embaralhar(ids, semente);
+                configuracao.put("catalogo", tamanhoCatalogo);
+            }
+            resumo.write("Alvo: " + url + " (" + tamanhoCatalogo + " livros); " + taxa + " req/s por "
+                    + duracao.getSeconds() + " s, depois de " + aquecimento.getSeconds() + " s de aquecimento.\n");
+            resumo.flush();
+
+            GeradorCarga gerador = new GeradorCarga(url, mistura, taxa, chegadas.equals("poisson"), semente, limite,
+                    (tamanhoCatalogo + limite - 1) / limite, idsExclusao, pendentes, tempoLimite, seguir);
+            long duracaoNanos = gerador.executar(aquecimento, duracao);
+
+            RelatorioCarga.escreverResumo(resumo, gerador, duracaoNanos);
+            resumo.flush();
+            if (saida.equals("-")) {
+                RelatorioCarga.escreverJson(resumo, configuracao, gerador, duracaoNanos);
+                resumo.flush();
+            } else {
+                try (Writer arquivo = Files.newBufferedWriter(Paths.get(saida), StandardCharsets.UTF_8)) {
+                    RelatorioCarga.escreverJson(arquivo, configuracao, gerador, duracaoNanos);
+                }
+                resumo.write("Relatório: " + Paths.get(saida).toAbsolutePath() + "\n");
+                resumo.flush();
+            }
+        } finally {
+            if (servidor != null) {
+                servidor.close();
+            }
+        }
+    }
+
+    // Enche o catálogo do servidor embutido direto pelo repositório (muito mais rápido que pelo HTTP).
+    private static void preCarregar(CatalogoAplicacao aplicacao, int quantidade, long semente) throws IOException {
+        String[] palavras = {"Memórias", "Póstumas", "Dom", "Casmurro", "Iracema", "Sertões", "Vidas", "Secas",
+                "Grande", "Veredas", "Capitães", "Areia", "Macunaíma", "Alienista", "Senhora", "Cortiço"};
+        String[] autores = {"Machado de Assis", "José de Alencar", "Euclides da Cunha", "Graciliano Ramos",
+                "Guimarães Rosa", "Jorge Amado", "Mário de Andrade", "Aluísio Azevedo", "Lima Barreto"};
+        Random sorteio = new Random(semente);
+        List<Livro> lote = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Livro livro = new Livro();
+            livro.setTitulo((palavras[sorteio.nextInt(palavras.length)] + " " + palavras[sorteio.nextInt(palavras.length)]
+                    + " " + i).toUpperCase());
+            livro.setAutor(autores[sorteio.nextInt(autores.length)].toUpperCase());
+            livro.setAno(1800 + sorteio.nextInt(225));
+            lote.add(livro);
+            if (lote.size() == 10_000 || i == quantidade - 1) {
+                aplicacao.getLivros().adicionarTodos(lote);
+                lote.clear();
+            }
+        }
+        aplicacao.aguardarGravacao();
+    }
+
+    // Os IDs que as exclusões vão usar, em ordem sorteada (espalhados pelo catálogo, não só no começo).
+    private static int[] idsEmbaralhados(CatalogoSnapshot snapshot, int quantidade, long semente) {
+        List<Integer> ids = new ArrayList<>(snapshot.tamanho());
+        for (Livro livro : snapshot) {
+            ids.add(livro.getId());
+        }
+        int[] embaralhados = embaralhar(ids, semente);
+        return Arrays.copyOf(embaralhados, Math.min(quantidade, embaralhados.length));
+    }
+
+    private static int[] embaralhar(List<Integer> ids, long semente) {
+        Collections.shuffle(ids, new Random(semente));
+        int[] resultado = new int[ids.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = ids.get(i);
+        }
+        return resultado;
+    }
+
+    /**
+     * No modo "--url", pega IDs de livros pela API ("/api/livros"), página por página, até ter o
+     * suficiente para as exclusões.
+     *
+     * @return O tamanho do catálogo informado pela API.
+     */
+    @SuppressWarnings("unchecked")
+    private static int coletarIds(String url, int quantidade, List<Integer> ids, Duration tempoLimite)
+            throws IOException, InterruptedException {
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(tempoLimite).build();
+        int total = 0;
+        for (int pagina = 1; ; pagina++) {
+            HttpRequest requisicao = HttpRequest.newBuilder(URI.create(url + "/api/livros?limite=1000&pagina=" + pagina))
+                    .timeout(tempoLimite).build();
+            HttpResponse<String> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (resposta.statusCode() != 200) {
+                throw new IOException("A API respondeu " + resposta.statusCode() + " ao listar os livros");
+            }
+            Map<String, Object> corpo = Json.lerObjeto(resposta.body());
+            total = ((Number) corpo.get("total")).intValue();
+            for (Object livro : (List<Object>) corpo.get("livros")) {
+                ids.add(((Number) ((Map<String, Object>) livro).get("id")).intValue());
+            }
+            if (ids.size() >= quantidade || pagina >= ((Number) corpo.get("totalPaginas")).intValue()) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+
+import java.net.URI;                                  // Endereços das requisições.
+import java.net.URLEncoder;                           // Campos do formulário.
+import java.net.http.HttpClient;                      // Cliente HTTP do JDK (assíncrono).
+import java.net.http.HttpRequest;                     // Requisição montada.
+import java.net.http.HttpResponse;                    // Resposta recebida.
+import java.nio.charset.StandardCharsets;             // Formulário em UTF-8.
+import java.time.Duration;                            // Tempos de espera.
+import java.util.Map;                                 // Status -> quantidade.
+import java.util.Random;                              // Sorteios com semente (teste reproduzível).
+import java.util.concurrent.ConcurrentHashMap;        // Contagem por status HTTP.
+import java.util.concurrent.atomic.AtomicInteger;     // Requisições em andamento.
+import java.util.concurrent.atomic.AtomicLongArray;   // Respostas por segundo.
+import java.util.concurrent.atomic.LongAdder;         // Contadores sem disputa.
+import java.util.concurrent.locks.LockSupport;        // Espera até o instante da próxima requisição.
+
+/**
+ * Gera o tráfego do teste de carga em "malha aberta" (open loop): as requisições saem numa taxa
+ * fixa, nos instantes marcados, quer as anteriores já tenham respondido ou não, como usuários
+ * de verdade, que não esperam uns pelos outros.
+ *
+ * A latência de cada requisição é contada a partir do instante em que ela DEVERIA ter saído,
+ * não de quando saiu de fato. É a correção da "omissão coordenada": se o servidor trava por
+ * 2 s, um gerador que espera a resposta para mandar a próxima deixa de mandar (e de medir)
+ * justamente as requisições que sofreriam com a trava, e o p99 sai bonito e errado. Aqui as
+ * requisições atrasadas contam o atraso inteiro. O tempo "de serviço" (do envio real até a
+ * resposta) também é medido, para comparar os dois.
+ *
+ * Tudo o que é sorteado (operação, página, livro, ID a excluir, intervalos de Poisson) sai de
+ * um único {@link Random} com semente, na thread que agenda as requisições: a mesma semente
+ * produz a mesma sequência de requisições.
+ */
+final class GeradorCarga {
+
+    // Autores das inclusões (poucos nomes, para as facetas e a busca terem o que agrupar).
+    private static final String[] AUTORES = {"Machado de Assis", "Clarice Lispector", "Jorge Amado",
+            "Cecília Meireles", "Graciliano Ramos", "Rachel de Queiroz", "Carlos Drummond de Andrade", "Lima Barreto"};
+
+    private final HttpClient cliente;
+    private final String url;
+    private final MisturaOperacoes mistura;
+    private final double taxa;          // Requisições por segundo.
+    private final boolean poisson;      // Intervalos exponenciais (chegadas de Poisson) em vez de fixos.
+    private final Random aleatorio;
+    private final int limitePagina;     // Livros por página nas listagens.
+    private final int paginas;          // Páginas sorteadas nas listagens.
+    private final int[] idsExclusao;    // IDs que as exclusões vão usando, em ordem.
+    private final int maxPendentes;     // Acima disso, a requisição nem é enviada (e conta como não enviada).
+    private final Duration tempoLimite;
+
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private final Estatisticas[] estatisticas = new Estatisticas[Operacao.values().length];
+    private int proximaExclusao;        // Só a thread que agenda usa.
+    private int adicionados;            // Só a thread que agenda usa.
+    private int exclusoesSemLivro;      // Só a thread que agenda usa.
+    private AtomicLongArray porSegundo = new AtomicLongArray(1);
+    private long inicioMedicao;
+
+    GeradorCarga(String url, MisturaOperacoes mistura, double taxa, boolean poisson, long semente,
+                 int limitePagina, int paginas, int[] idsExclusao, int maxPendentes, Duration tempoLimite,
+                 boolean seguirRedirecionamentos) {
+        this.url = url;
+        this.mistura = mistura;
+        this.taxa = taxa;
+        this.poisson = poisson;
+        this.aleatorio = new Random(semente);
+        this.limitePagina = limitePagina;
+        this.paginas = Math.max(1, paginas);
+        this.idsExclusao = idsExclusao;
+        this.maxPendentes = maxPendentes;
+        this.tempoLimite = tempoLimite;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(tempoLimite)
+                .followRedirects(seguirRedirecionamentos ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER)
+                .build();
+        for (Operacao operacao : Operacao.values()) {
+            estatisticas[operacao.ordinal()] = new Estatisticas();
+        }
+    }
+
+    /**
+     * Roda o teste: aquecimento (requisições enviadas, mas não medidas) e depois a medição.
+     * Volta quando todas as requisições terminaram (ou passaram do tempo limite).
+     *
+     * @return A duração da medição, em nanossegundos.
+     */
+    long executar(Duration aquecimento, Duration medicao) throws InterruptedException {
+        double intervalo = 1_000_000_000.0 / taxa;
+        porSegundo = new AtomicLongArray((int) medicao.getSeconds() + 1); // +1 para as que terminam depois do fim.
+        long inicio = System.nanoTime() + 10_000_000L;
+        inicioMedicao = inicio + aquecimento.toNanos();
+        long fim = inicioMedicao + medicao.toNanos();
+
+        double deslocamento = 0;
+        while (true) {
+            long previsto = inicio + (long) deslocamento;
+            if (previsto >= fim) {
+                break;
+            }
+            esperarAte(previsto);
+            Operacao operacao = mistura.sortear(aleatorio);
+            HttpRequest requisicao = montar(operacao);
+            Estatisticas medida = previsto >= inicioMedicao ? estatisticas[operacao.ordinal()] : null;
+            if (medida != null) {
+                medida.agendadas.increment();
+            }
+            if (pendentes.get() >= maxPendentes) {
+                if (medida != null) {
+                    medida.naoEnviadas.increment();
+                }
+            } else {
+                enviar(requisicao, previsto, medida);
+            }
+            deslocamento += poisson ? -Math.log(1 - aleatorio.nextDouble()) * intervalo : intervalo;
+        }
+
+        // Espera as que ainda estão em andamento (no máximo o tempo limite de uma requisição, com folga).
+        long prazo = System.nanoTime() + tempoLimite.toNanos() + 5_000_000_000L;
+        while (pendentes.get() > 0 && System.nanoTime() < prazo) {
+            Thread.sleep(10);
+        }
+        return Math.max(1, fim - inicioMedicao);
+    }
+
+    private void enviar(HttpRequest requisicao, long previsto, Estatisticas medida) {
+        pendentes.incrementAndGet();
+        long envio = System.nanoTime();
+        cliente.sendAsync(requisicao, informacao -> HttpResponse.BodySubscribers.mapping(
+                        HttpResponse.BodySubscribers.ofByteArray(), corpo -> corpo.length))
+                .whenComplete((resposta, erro) -> {
+                    long agora = System.nanoTime();
+                    pendentes.decrementAndGet();
+                    if (medida == null) {
+                        return; // Aquecimento.
+                    }
+                    if (erro != null) {
+                        medida.errosRede.increment();
+                        return;
+                    }
+                    medida.corrigida.registrar(agora - previsto);
+                    medida.servico.registrar(agora - envio);
+                    medida.bytes.add(resposta.body());
+                    medida.status.computeIfAbsent(resposta.statusCode(), s -> new LongAdder()).increment();
+                    int segundo = (int) Math.min((agora - inicioMedicao) / 1_000_000_000L, porSegundo.length() - 1);
+                    porSegundo.incrementAndGet(Math.max(0, segundo));
+                });
+    }
+
+    // Monta a requisição da operação (os sorteios acontecem aqui, na thread que agenda).
+    private HttpRequest montar(Operacao operacao) {
+        switch (operacao) {
+            case LISTAR:
+                return requisicao("/livros?pagina=" + (1 + aleatorio.nextInt(paginas)) + "&limite=" + limitePagina)
+                        .GET().build();
+            case ADICIONAR:
+                adicionados++;
+                return formulario("action=add"
+                        + "&titulo=" + codificar("Livro de carga " + adicionados)
+                        + "&autor=" + codificar(AUTORES[aleatorio.nextInt(AUTORES.length)])
+                        + "&ano=" + (1900 + aleatorio.nextInt(125)));
+            case EXCLUIR:
+                // Sem IDs sobrando, exclui um ID que não existe (o Servlet só redireciona).
+                int id = Integer.MAX_VALUE;
+                if (proximaExclusao < idsExclusao.length) {
+                    id = idsExclusao[proximaExclusao++];
+                } else {
+                    exclusoesSemLivro++;
+                }
+                return formulario("action=delete&id=" + id);
+            case INVALIDO:
+                // Metade sem título, metade com o ano em texto: os dois caminhos de erro da validação.
+                return aleatorio.nextBoolean()
+                        ? formulario("action=add&titulo=&autor=" + codificar(AUTORES[0]) + "&ano=1900")
+                        : formulario("action=add&titulo=" + codificar("Livro inválido") + "&autor=" + codificar(AUTORES[0]) + "&ano=abc");
+            default:
+                throw new IllegalStateException("Operação sem requisição: " + operacao);
+        }
+    }
+
+    private HttpRequest.Builder requisicao(String caminho) {
+        return HttpRequest.newBuilder(URI.create(url + caminho)).timeout(tempoLimite);
+    }
+
+    private HttpRequest formulario(String corpo) {
+        return requisicao("/livros")
+                .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static String codificar(String texto) {
+        return URLEncoder.encode(texto, StandardCharsets.UTF_8);
+    }
+
+    // Espera até o instante marcado. Se já passou (o gerador atrasou), envia na hora: a latência
+    // continua contando do instante marcado.
+    private static void esperarAte(long instante) {
+        long falta;
+        while ((falta = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(falta);
+        }
+    }
+
+    Estatisticas estatisticas(Operacao operacao) {
+        return estatisticas[operacao.ordinal()];
+    }
+
+    /**
+     * @return Respostas recebidas em cada segundo da medição (a última posição junta as que
+     *         chegaram depois do fim).
+     */
+    long[] respostasPorSegundo() {
+        long[] valores = new long[porSegundo.length()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = porSegundo.get(i);
+        }
+        return valores;
+    }
+
+    /**
+     * @return Quantas exclusões usaram um ID que não existia (os IDs pré-carregados acabaram).
+     */
+    int exclusoesSemLivro() {
+        return exclusoesSemLivro;
+    }
+
+    /**
+     * O que foi medido de uma operação (só a parte da medição, sem o aquecimento).
+     */
+    static final class Estatisticas {
+        final RegistroLatencias corrigida = new RegistroLatencias(); // Do instante marcado até a resposta.
+        final RegistroLatencias servico = new RegistroLatencias();   // Do envio real até a resposta.
+        final LongAdder agendadas = new LongAdder();    // Marcadas para sair durante a medição.
+        final LongAdder naoEnviadas = new LongAdder();  // Descartadas por excesso de requisições em andamento.
+        final LongAdder errosRede = new LongAdder();    // Sem resposta: conexão recusada, tempo esgotado...
+        final LongAdder bytes = new LongAdder();        // Bytes dos corpos das respostas.
+        final ConcurrentHashMap<Integer, LongAdder> status = new ConcurrentHashMap<>();
+
+        /**
+         * @return Quantas tiveram resposta HTTP (qualquer status).
+         */
+        long respondidas() {
+            return corrigida.getContagem();
+        }
+
+        /**
+         * @return Quantas falharam: sem resposta ou com status 5xx (inclui o 503 da fila cheia).
+         */
+        long falhas() {
+            long total = errosRede.sum();
+            for (Map.Entry<Integer, LongAdder> e : status.entrySet()) {
+                if (e.getKey() >= 500) {
+                    total += e.getValue().sum();
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+
+import java.util.Random; // Sorteio (com semente) da próxima operação.
+
+/**
+ * A proporção de cada {@link Operacao} no tráfego, lida de um texto como
+ * {@code "listar=80,adicionar=10,excluir=7,invalido=3"}.
+ *
+ * Os pesos não precisam somar 100: cada operação sai na proporção do seu peso sobre a soma.
+ * Operações que não aparecem no texto têm peso zero.
+ */
+final class MisturaOperacoes {
+
+    private final int[] pesos = new int[Operacao.values().length];
+    private final int total;
+
+    MisturaOperacoes(String texto) {
+        int soma = 0;
+        for (String parte : texto.split(",")) {
+            String item = parte.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            int igual = item.indexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException("Item da mistura sem peso (use operacao=peso): " + item);
+            }
+            Operacao operacao = Operacao.doRotulo(item.substring(0, igual).trim());
+            int peso = Integer.parseInt(item.substring(igual + 1).trim());
+            if (peso < 0) {
+                throw new IllegalArgumentException("Peso negativo na mistura: " + item);
+            }
+            pesos[operacao.ordinal()] = peso;
+            soma += peso;
+        }
+        if (soma == 0) {
+            throw new IllegalArgumentException("A mistura precisa de pelo menos uma operação com peso: " + texto);
+        }
+        this.total = soma;
+    }
+
+    /**
+     * @return A próxima operação, sorteada na proporção dos pesos.
+     */
+    Operacao sortear(Random aleatorio) {
+        int sorteio = aleatorio.nextInt(total);
+        Operacao[] operacoes = Operacao.values();
+        for (int i = 0; i < operacoes.length; i++) {
+            sorteio -= pesos[i];
+            if (sorteio < 0) {
+                return operacoes[i];
+            }
+        }
+        throw new IllegalStateException("Sorteio fora da soma dos pesos"); // Não acontece: sorteio < total.
+    }
+
+    /**
+     * @return O peso da operação (0 se ela não está na mistura).
+     */
+    int peso(Operacao operacao) {
+        return pesos[operacao.ordinal()];
+    }
+
+    /**
+     * @return A mistura normalizada ("listar=80,adicionar=10,..."), para o relatório.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Operacao operacao : Operacao.values()) {
+            if (pesos[operacao.ordinal()] > 0) {
+                sb.append(sb.length() == 0 ? "" : ",").append(operacao.getRotulo()).append('=').append(pesos[operacao.ordinal()]);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+// O teste de carga fica em src/loadtest/java, separado do código da aplicação: ele não vai para o .war.
+
+/**
+ * Os tipos de requisição que o teste de carga manda para "/livros", como um usuário faria na tela.
+ */
+enum Operacao {
+
+    LISTAR("listar"),       // GET de uma página da listagem (Servlet + forward para a JSP).
+    ADICIONAR("adicionar"), // POST do formulário de inclusão (responde com o redirecionamento).
+    EXCLUIR("excluir"),     // POST do botão de excluir de um card (responde com o redirecionamento).
+    INVALIDO("invalido");   // POST de inclusão recusado pela validação (volta a página com o erro).
+
+    private final String rotulo;
+
+    Operacao(String rotulo) {
+        this.rotulo = rotulo;
+    }
+
+    /**
+     * @return O nome da operação na mistura ("listar=80,adicionar=10...") e no relatório.
+     */
+    String getRotulo() {
+        return rotulo;
+    }
+
+    /**
+     * @return A operação com esse rótulo.
+     * @throws IllegalArgumentException Se não existir.
+     */
+    static Operacao doRotulo(String rotulo) {
+        for (Operacao operacao : values()) {
+            if (operacao.rotulo.equals(rotulo)) {
+                return operacao;
+            }
+        }
+        throw new IllegalArgumentException("Operação desconhecida na mistura: " + rotulo);
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+
+import java.util.concurrent.atomic.AtomicLong;      // Maior valor visto.
+import java.util.concurrent.atomic.AtomicLongArray; // Os baldes, incrementados sem lock.
+import java.util.concurrent.atomic.LongAdder;       // Contagem e soma.
+
+/**
+ * Histograma das latências de uma operação durante toda a medição, em nanossegundos.
+ *
+ * Mesma ideia do {@code br.com.wagnerv.metricas.Histograma} da aplicação (baldes logarítmicos,
+ * registro sem lock e sem alocar), mas sem janelas (o teste quer a distribuição da medição
+ * inteira) e com mais precisão: cada potência de 2 é dividida em 128 baldes, então um quantil
+ * erra no máximo ~0,8%.
+ */
+final class RegistroLatencias {
+
+    private static final int BITS_SUB = 7;
+    private static final int SUB = 1 << BITS_SUB;
+    // Acima de 2^41 ns (~37 minutos) tudo cai no último balde.
+    private static final int EXPOENTE_MAXIMO = 40;
+    private static final int BALDES = (EXPOENTE_MAXIMO - BITS_SUB + 2) * SUB;
+
+    private final AtomicLongArray baldes = new AtomicLongArray(BALDES);
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        baldes.incrementAndGet(indice(valor));
+        contagem.increment();
+        soma.add(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    long getContagem() {
+        return contagem.sum();
+    }
+
+    long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * @return A média em nanossegundos (0 se não houve valores).
+     */
+    double media() {
+        long n = contagem.sum();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    /**
+     * @param quantil Entre 0 e 1 (ex: 0.99).
+     * @return O valor do quantil em nanossegundos (0 se não houve valores).
+     */
+    long quantil(double quantil) {
+        long total = 0;
+        long[] copia = new long[BALDES];
+        for (int i = 0; i < BALDES; i++) {
+            copia[i] = baldes.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(quantil * total));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return Math.min(representante(i), maximo.get()); // O balde nunca passa do maior valor visto.
+            }
+        }
+        return maximo.get();
+    }
+
+    // Os 128 primeiros valores têm um balde cada; depois, 128 baldes por potência de 2.
+    private static int indice(long valor) {
+        if (valor < SUB) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        if (expoente > EXPOENTE_MAXIMO) {
+            return BALDES - 1;
+        }
+        int sub = (int) (valor >>> (expoente - BITS_SUB)) & (SUB - 1);
+        return (expoente - BITS_SUB + 1) * SUB + sub;
+    }
+
+    // O meio do balde.
+    private static long representante(int indice) {
+        if (indice < SUB) {
+            return indice;
+        }
+        int deslocamento = indice / SUB - 1;
+        long inicio = (long) (SUB + indice % SUB) << deslocamento;
+        return inicio + ((1L << deslocamento) - 1) / 2;
+    }
+}
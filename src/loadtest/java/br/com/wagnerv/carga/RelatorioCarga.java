@@ -0,0 +1,149 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+
+import br.com.wagnerv.util.Json; // Textos escapados no JSON do relatório.
+
+import java.io.IOException;  // Erros de escrita.
+import java.util.Locale;     // Números com ponto decimal, qualquer que seja o idioma da máquina.
+import java.util.Map;        // Configuração do teste e status por operação.
+import java.util.TreeMap;    // Status em ordem.
+import java.util.concurrent.atomic.LongAdder; // Contadores das estatísticas.
+
+/**
+ * Escreve o resultado do teste de carga em JSON (para guardar e comparar versões antes de
+ * publicar) e um resumo em texto (para quem está olhando o terminal).
+ *
+ * Formato do JSON (tempos em milissegundos):
+ * <pre>
+ * {
+ *   "formato": 1,
+ *   "configuracao": {...os parâmetros do teste...},
+ *   "ambiente": {"java": "17.0.9", "so": "Linux", "processadores": 8},
+ *   "duracaoSegundos": 30.0,
+ *   "operacoes": {
+ *     "listar": {
+ *       "agendadas": 2400, "respondidas": 2400, "falhas": 0, "naoEnviadas": 0,
+ *       "vazao": 80.0,                         (respostas por segundo)
+ *       "bytesPorResposta": 51234,
+ *       "status": {"200": 2400},
+ *       "latenciaMs": {"media":..., "p50":..., "p90":..., "p99":..., "p999":..., "max":...},
+ *       "servicoMs":  {...mesmos campos...}
+ *     }, ...
+ *   },
+ *   "exclusoesSemLivro": 0,
+ *   "respostasPorSegundo": [80, 81, ...]
+ * }
+ * </pre>
+ * "latenciaMs" é a latência corrigida (desde o instante marcado para a requisição sair);
+ * "servicoMs" conta só do envio real até a resposta. Se as duas se afastam, o servidor (ou o
+ * gerador) não está dando conta da taxa pedida.
+ */
+final class RelatorioCarga {
+
+    private static final double[] QUANTIS = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] NOMES_QUANTIS = {"p50", "p90", "p99", "p999"};
+
+    private RelatorioCarga() {
+    }
+
+    static void escreverJson(Appendable saida, Map<String, Object> configuracao, GeradorCarga gerador,
+                             long duracaoNanos) throws IOException {
+        double segundos = duracaoNanos / 1e9;
+        saida.append("{\n  \"formato\": 1,\n  \"configuracao\": {");
+        boolean primeiro = true;
+        for (Map.Entry<String, Object> item : configuracao.entrySet()) {
+            saida.append(primeiro ? "\n    " : ",\n    ");
+            Json.escreverTexto(saida, item.getKey());
+            saida.append(": ");
+            Object valor = item.getValue();
+            if (valor instanceof Number || valor instanceof Boolean) {
+                saida.append(String.valueOf(valor));
+            } else {
+                Json.escreverTexto(saida, valor == null ? null : valor.toString());
+            }
+            primeiro = false;
+        }
+        saida.append("\n  },\n  \"ambiente\": {\"java\": ");
+        Json.escreverTexto(saida, System.getProperty("java.version"));
+        saida.append(", \"so\": ");
+        Json.escreverTexto(saida, System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        saida.append(", \"processadores\": ").append(String.valueOf(Runtime.getRuntime().availableProcessors()))
+                .append("},\n  \"duracaoSegundos\": ").append(numero(segundos))
+                .append(",\n  \"operacoes\": {");
+        primeiro = true;
+        for (Operacao operacao : Operacao.values()) {
+            GeradorCarga.Estatisticas e = gerador.estatisticas(operacao);
+            if (e.agendadas.sum() == 0) {
+                continue;
+            }
+            saida.append(primeiro ? "\n    \"" : ",\n    \"").append(operacao.getRotulo()).append("\": ");
+            escreverOperacao(saida, e, segundos);
+            primeiro = false;
+        }
+        saida.append("\n  },\n  \"exclusoesSemLivro\": ").append(String.valueOf(gerador.exclusoesSemLivro()))
+                .append(",\n  \"respostasPorSegundo\": [");
+        long[] porSegundo = gerador.respostasPorSegundo();
+        for (int i = 0; i < porSegundo.length; i++) {
+            saida.append(i == 0 ? "" : ", ").append(String.valueOf(porSegundo[i]));
+        }
+        saida.append("]\n}\n");
+    }
+
+    private static void escreverOperacao(Appendable saida, GeradorCarga.Estatisticas e, double segundos)
+            throws IOException {
+        long respondidas = e.respondidas();
+        saida.append("{\"agendadas\": ").append(String.valueOf(e.agendadas.sum()))
+                .append(", \"respondidas\": ").append(String.valueOf(respondidas))
+                .append(", \"falhas\": ").append(String.valueOf(e.falhas()))
+                .append(", \"naoEnviadas\": ").append(String.valueOf(e.naoEnviadas.sum()))
+                .append(", \"vazao\": ").append(numero(respondidas / segundos))
+                .append(", \"bytesPorResposta\": ").append(String.valueOf(respondidas == 0 ? 0 : e.bytes.sum() / respondidas))
+                .append(",\n      \"status\": {");
+        boolean primeiro = true;
+        for (Map.Entry<Integer, LongAdder> s : new TreeMap<>(e.status).entrySet()) {
+            saida.append(primeiro ? "\"" : ", \"").append(String.valueOf(s.getKey())).append("\": ")
+                    .append(String.valueOf(s.getValue().sum()));
+            primeiro = false;
+        }
+        saida.append("},\n      \"latenciaMs\": ");
+        escreverLatencias(saida, e.corrigida);
+        saida.append(",\n      \"servicoMs\": ");
+        escreverLatencias(saida, e.servico);
+        saida.append('}');
+    }
+
+    private static void escreverLatencias(Appendable saida, RegistroLatencias latencias) throws IOException {
+        saida.append("{\"media\": ").append(numero(latencias.media() / 1e6));
+        for (int i = 0; i < QUANTIS.length; i++) {
+            saida.append(", \"").append(NOMES_QUANTIS[i]).append("\": ").append(numero(latencias.quantil(QUANTIS[i]) / 1e6));
+        }
+        saida.append(", \"max\": ").append(numero(latencias.getMaximo() / 1e6)).append('}');
+    }
+
+    /**
+     * O resumo para o terminal: uma linha por operação, com vazão e percentis (latência corrigida).
+     */
+    static void escreverResumo(Appendable saida, GeradorCarga gerador, long duracaoNanos) throws IOException {
+        double segundos = duracaoNanos / 1e9;
+        saida.append(String.format(Locale.ROOT, "%-10s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+                "operacao", "resp/s", "falhas", "n.envs", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Operacao operacao : Operacao.values()) {
+            GeradorCarga.Estatisticas e = gerador.estatisticas(operacao);
+            if (e.agendadas.sum() == 0) {
+                continue;
+            }
+            RegistroLatencias l = e.corrigida;
+            saida.append(String.format(Locale.ROOT, "%-10s %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operacao.getRotulo(), e.respondidas() / segundos, e.falhas(), e.naoEnviadas.sum(),
+                    l.quantil(0.5) / 1e6, l.quantil(0.9) / 1e6, l.quantil(0.99) / 1e6, l.quantil(0.999) / 1e6,
+                    l.getMaximo() / 1e6));
+        }
+        if (gerador.exclusoesSemLivro() > 0) {
+            saida.append("Aviso: ").append(String.valueOf(gerador.exclusoesSemLivro()))
+                    .append(" exclusões usaram um ID inexistente (aumente --catalogo).\n");
+        }
+    }
+
+    private static String numero(double valor) {
+        return String.format(Locale.ROOT, "%.3f", valor);
+    }
+}
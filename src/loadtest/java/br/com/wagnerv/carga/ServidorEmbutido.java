@@ -0,0 +1,120 @@
+package br.com.wagnerv.carga; // Pacote do teste de carga HTTP da aplicação.
+
+import br.com.wagnerv.config.CatalogoAplicacao; // O catálogo da aplicação que subiu (para pré-carregar livros).
+
+import org.apache.catalina.Context;                         // A aplicação dentro do Tomcat.
+import org.apache.catalina.LifecycleException;              // Erros ao subir/descer o Tomcat.
+import org.apache.catalina.WebResourceRoot;                 // Os arquivos da aplicação.
+import org.apache.catalina.connector.Connector;             // A porta HTTP.
+import org.apache.catalina.loader.WebappLoader;             // Carregador de classes da aplicação.
+import org.apache.catalina.startup.Tomcat;                  // Tomcat embutido.
+import org.apache.catalina.webresources.DirResourceSet;     // Classes compiladas numa pasta...
+import org.apache.catalina.webresources.JarResourceSet;     // ...ou num .jar.
+import org.apache.catalina.webresources.StandardRoot;       // Raiz dos arquivos da aplicação.
+import org.apache.tomcat.util.scan.StandardJarScanner;      // Para não varrer o classpath inteiro na subida.
+
+import java.io.Closeable;      // Desce o Tomcat no fim do teste.
+import java.io.IOException;    // Erros de disco.
+import java.net.URISyntaxException; // Caminho das classes.
+import java.nio.file.Files;    // Pasta temporária do Tomcat.
+import java.nio.file.Path;     // Caminhos.
+import java.nio.file.Paths;    // Caminhos.
+import java.util.Comparator;   // Apaga a pasta temporária de dentro para fora.
+import java.util.Map;          // Parâmetros de contexto.
+import java.util.stream.Stream; // Arquivos da pasta temporária.
+
+/**
+ * Sobe a aplicação inteira (Servlets, filtro de métricas, inicializador do catálogo e a
+ * {@code view/index.jsp}) num Tomcat embutido, em 127.0.0.1 e numa porta livre.
+ *
+ * As classes da aplicação vêm do próprio classpath do teste (a pasta ou o .jar onde está o
+ * {@link CatalogoAplicacao}) e são "montadas" em /WEB-INF/classes, para o Tomcat achar as
+ * anotações {@code @WebServlet}/{@code @WebFilter}/{@code @WebListener}. O carregador da
+ * aplicação delega para o do teste, então as duas partes enxergam as mesmas classes e o teste
+ * pode pegar o {@link CatalogoAplicacao} para pré-carregar livros sem passar pelo HTTP.
+ */
+final class ServidorEmbutido implements Closeable {
+
+    private final Tomcat tomcat;
+    private final Context contexto;
+    private final Path base;
+    private final String url;
+
+    /**
+     * @param webapp         A pasta da aplicação web (a que tem {@code view/index.jsp} e {@code WEB-INF}).
+     * @param caminhoContexto O caminho da aplicação na URL (ex: "/biblioteca").
+     * @param parametros     Parâmetros de contexto (ex: "biblioteca.dados" → "memoria").
+     */
+    ServidorEmbutido(Path webapp, String caminhoContexto, Map<String, String> parametros)
+            throws IOException, LifecycleException {
+        if (!Files.isRegularFile(webapp.resolve("view/index.jsp"))) {
+            throw new IllegalArgumentException("Pasta da aplicação web sem view/index.jsp: " + webapp.toAbsolutePath());
+        }
+        base = Files.createTempDirectory("biblioteca-carga-tomcat");
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(base.toString());
+        Connector conector = tomcat.getConnector();
+        conector.setPort(0); // Porta livre, escolhida pelo sistema.
+        conector.setProperty("address", "127.0.0.1");
+
+        contexto = tomcat.addWebapp(caminhoContexto, webapp.toAbsolutePath().toString());
+        ((StandardJarScanner) contexto.getJarScanner()).setScanClassPath(false);
+
+        WebResourceRoot recursos = new StandardRoot(contexto);
+        Path classes = pastaDasClasses();
+        if (Files.isDirectory(classes)) {
+            recursos.addPreResources(new DirResourceSet(recursos, "/WEB-INF/classes", classes.toString(), "/"));
+        } else {
+            recursos.addPreResources(new JarResourceSet(recursos, "/WEB-INF/classes", classes.toString(), "/"));
+        }
+        contexto.setResources(recursos);
+
+        WebappLoader carregador = new WebappLoader();
+        carregador.setDelegate(true); // Primeiro o classpath do teste: as mesmas classes dos dois lados.
+        contexto.setLoader(carregador);
+        contexto.setParentClassLoader(ServidorEmbutido.class.getClassLoader());
+
+        for (Map.Entry<String, String> parametro : parametros.entrySet()) {
+            contexto.addParameter(parametro.getKey(), parametro.getValue());
+        }
+
+        tomcat.start();
+        url = "http://127.0.0.1:" + conector.getLocalPort() + caminhoContexto;
+    }
+
+    /**
+     * @return O endereço da aplicação (ex: "http://127.0.0.1:41234/biblioteca").
+     */
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return O catálogo montado pelo inicializador da aplicação.
+     */
+    CatalogoAplicacao getCatalogo() {
+        return CatalogoAplicacao.de(contexto.getServletContext());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            tomcat.stop();
+            tomcat.destroy();
+        } catch (LifecycleException e) {
+            System.err.println("Erro ao parar o Tomcat embutido: " + e.getMessage());
+        }
+        try (Stream<Path> arquivos = Files.walk(base)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+        }
+    }
+
+    // Onde estão as classes da aplicação no classpath do teste (uma pasta ou um .jar).
+    private static Path pastaDasClasses() {
+        try {
+            return Paths.get(CatalogoAplicacao.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Não foi possível achar as classes da aplicação", e);
+        }
+    }
+}
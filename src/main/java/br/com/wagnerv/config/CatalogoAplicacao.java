@@ -0,0 +1,223 @@
+package br.com.wagnerv.config; // Pacote da "montagem" da aplicação.
+// Aqui ficam as classes que criam e ligam as peças (catálogo, cache, índices, persistência)
+// quando a aplicação sobe, e desligam tudo quando ela para.
+
+import br.com.wagnerv.eventos.CanalEventos;                 // Atualizações ao vivo das páginas abertas.
+import br.com.wagnerv.exception.LivroException;             // Livro recusado (repetido, por exemplo).
+import br.com.wagnerv.execucao.ExecucaoAssincrona;          // Executores das requisições assíncronas.
+import br.com.wagnerv.indice.IndiceDuplicatas;              // Recusa livros já cadastrados.
+import br.com.wagnerv.indice.IndiceBusca;                   // Índice da busca por título/autor.
+import br.com.wagnerv.indice.IndiceFacetas;                 // Filtros e contagens por ano/autor.
+import br.com.wagnerv.metricas.MetricasRequisicoes;         // Tempos e erros das requisições.
+import br.com.wagnerv.model.Livro;                          // O livro a incluir.
+import br.com.wagnerv.persistencia.PersistenciaCatalogo;    // Diário + snapshots no disco.
+import br.com.wagnerv.replicacao.NoReplicacao;              // Papel deste servidor na replicação.
+import br.com.wagnerv.repository.LivroRepository;           // O catálogo.
+import br.com.wagnerv.repository.RegraInclusao;             // Conferência feita com o lock, antes de incluir.
+import br.com.wagnerv.util.CacheFragmentosHtml;             // Cache dos cards HTML.
+import br.com.wagnerv.util.FiltroLivros;                    // Filtro por ano/autor da exclusão em lote.
+
+import jakarta.servlet.ServletContext; // Onde o objeto fica guardado para os Servlets.
+
+import java.io.IOException;  // Erros de disco ao esperar a gravação.
+import java.util.Collection; // IDs da exclusão em lote.
+
+/**
+ * Reúne as peças que formam o catálogo da aplicação. Existe um único objeto desta classe por
+ * aplicação, criado pelo {@link InicializadorCatalogo} e guardado no {@link ServletContext};
+ * os Servlets pegam as peças daqui em vez de cada um criar as suas.
+ */
+public class CatalogoAplicacao {
+
+    // Nome do atributo do ServletContext onde o objeto fica guardado.
+    public static final String ATRIBUTO = CatalogoAplicacao.class.getName();
+
+    // Resposta às inclusões/exclusões feitas numa réplica.
+    public static final String MENSAGEM_SOMENTE_LEITURA =
+            "Este servidor é uma réplica somente leitura: inclusões e exclusões são feitas no servidor principal.";
+
+    private final LivroRepository livros;
+    private final CacheFragmentosHtml cacheFragmentos;
+    private final IndiceBusca indiceBusca;
+    private final IndiceFacetas indiceFacetas;
+    private final PersistenciaCatalogo persistencia; // null quando o catálogo é só em memória.
+    private final MetricasRequisicoes metricas;
+    private final ExecucaoAssincrona execucao; // null quando as requisições rodam nas threads do Tomcat.
+    private final NoReplicacao replicacao; // null quando a replicação está desligada.
+    private final CanalEventos eventos;
+    private final IndiceDuplicatas duplicatas; // null quando a conferência de repetidos está desligada.
+
+    CatalogoAplicacao(LivroRepository livros, CacheFragmentosHtml cacheFragmentos, IndiceBusca indiceBusca,
+                      IndiceFacetas indiceFacetas, PersistenciaCatalogo persistencia, MetricasRequisicoes metricas,
+                      ExecucaoAssincrona execucao, NoReplicacao replicacao, CanalEventos eventos,
+                      IndiceDuplicatas duplicatas) {
+        this.livros = livros;
+        this.cacheFragmentos = cacheFragmentos;
+        this.indiceBusca = indiceBusca;
+        this.indiceFacetas = indiceFacetas;
+        this.persistencia = persistencia;
+        this.metricas = metricas;
+        this.execucao = execucao;
+        this.replicacao = replicacao;
+        this.eventos = eventos;
+        this.duplicatas = duplicatas;
+    }
+
+    /**
+     * Pega o catálogo da aplicação.
+     *
+     * @param contexto O contexto da aplicação web.
+     * @return O catálogo criado na subida da aplicação.
+     * @throws IllegalStateException Se o {@link InicializadorCatalogo} não rodou.
+     */
+    public static CatalogoAplicacao de(ServletContext contexto) {
+        CatalogoAplicacao catalogo = (CatalogoAplicacao) contexto.getAttribute(ATRIBUTO);
+        if (catalogo == null) {
+            throw new IllegalStateException("O catálogo ainda não foi inicializado.");
+        }
+        return catalogo;
+    }
+
+    public LivroRepository getLivros() {
+        return livros;
+    }
+
+    public CacheFragmentosHtml getCacheFragmentos() {
+        return cacheFragmentos;
+    }
+
+    public IndiceBusca getIndiceBusca() {
+        return indiceBusca;
+    }
+
+    public IndiceFacetas getIndiceFacetas() {
+        return indiceFacetas;
+    }
+
+    public MetricasRequisicoes getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * @return Os executores das requisições assíncronas, ou {@code null} se o modo assíncrono está desligado.
+     */
+    public ExecucaoAssincrona getExecucao() {
+        return execucao;
+    }
+
+    /**
+     * @return O papel deste servidor na replicação, ou {@code null} se a replicação está desligada.
+     */
+    public NoReplicacao getReplicacao() {
+        return replicacao;
+    }
+
+    /**
+     * @return O canal das atualizações ao vivo das páginas abertas.
+     */
+    public CanalEventos getEventos() {
+        return eventos;
+    }
+
+    /**
+     * @return O índice de livros repetidos, ou {@code null} se a conferência está desligada.
+     */
+    public IndiceDuplicatas getDuplicatas() {
+        return duplicatas;
+    }
+
+    /**
+     * @return Se livros apenas parecidos com um já cadastrado também são barrados (e podem ser
+     *         confirmados pelo usuário).
+     */
+    public boolean isConferenciaAproximada() {
+        return duplicatas != null && duplicatas.isAproximado();
+    }
+
+    /**
+     * A regra de inclusão dos livros novos (cadastro, API, importação).
+     *
+     * @param aceitarParecidos Se o usuário já confirmou que o livro parecido não é repetido.
+     * @return A conferência de repetidos, ou uma regra que aceita tudo se ela está desligada.
+     */
+    public RegraInclusao regraInclusao(boolean aceitarParecidos) {
+        return duplicatas == null ? livro -> { } : duplicatas.regra(aceitarParecidos);
+    }
+
+    /**
+     * Inclui um livro novo, conferindo antes (com o lock de escrita do catálogo) se ele já não está
+     * cadastrado, e espera a gravação no disco.
+     *
+     * @param livro            O livro.
+     * @param aceitarParecidos Se o usuário já confirmou que o livro parecido não é repetido.
+     * @throws LivroException Se o livro já está no catálogo ({@code LivroDuplicadoException}).
+     * @throws IOException    Se a gravação falhar.
+     */
+    public void adicionar(Livro livro, boolean aceitarParecidos) throws LivroException, IOException {
+        livros.adicionar(livro, regraInclusao(aceitarParecidos));
+        aguardarGravacao();
+    }
+
+    /**
+     * @return Se este servidor é uma réplica: o catálogo só muda pelo primário, e inclusões e
+     *         exclusões feitas aqui precisam ser recusadas.
+     */
+    public boolean isSomenteLeitura() {
+        return replicacao != null && replicacao.isReplica();
+    }
+
+    /**
+     * Espera as alterações feitas até agora chegarem ao disco. Sem persistência, volta na hora.
+     *
+     * @throws IOException Se a gravação falhar.
+     */
+    public void aguardarGravacao() throws IOException {
+        if (persistencia != null) {
+            persistencia.aguardarDurabilidade();
+        }
+    }
+
+    /**
+     * Exclui vários livros numa única escrita do catálogo e espera a gravação no disco. No diário
+     * o lote é um registro só: se o servidor cair no meio da gravação, a recuperação traz ou o
+     * catálogo de antes, ou o de depois de todas as exclusões, nunca um meio-termo.
+     *
+     * @param ids Os IDs (os que não existem são ignorados).
+     * @return Quantos livros foram excluídos.
+     * @throws IOException Se a gravação falhar.
+     */
+    public int excluirTodos(Collection<Integer> ids) throws IOException {
+        int removidos = livros.removerTodos(ids);
+        if (removidos > 0) {
+            aguardarGravacao();
+        }
+        return removidos;
+    }
+
+    /**
+     * Exclui todos os livros que casam com o filtro, numa única escrita (e num único registro do
+     * diário, como em {@link #excluirTodos(Collection)}): os IDs saem do
+     * {@link IndiceFacetas} com o lock de escrita do catálogo, então nenhum livro que entre
+     * durante a exclusão escapa (ou é pego) pela metade.
+     *
+     * @param filtro O filtro; precisa estar ativo (um filtro vazio excluiria o catálogo inteiro).
+     * @return Quantos livros foram excluídos.
+     * @throws IllegalArgumentException Se o filtro está vazio.
+     * @throws IOException Se a gravação falhar.
+     */
+    public int excluirPorFiltro(FiltroLivros filtro) throws IOException {
+        if (!filtro.isAtivo()) {
+            throw new IllegalArgumentException("Informe ao menos um filtro (anoDe, anoAte ou autor) para excluir em lote.");
+        }
+        int removidos = livros.removerSelecionados(() -> indiceFacetas.filtrar(filtro.getAnoDe(), filtro.getAnoAte(),
+                filtro.getAutor(), 0, Integer.MAX_VALUE).getIds());
+        if (removidos > 0) {
+            aguardarGravacao();
+        }
+        return removidos;
+    }
+
+    PersistenciaCatalogo getPersistencia() {
+        return persistencia;
+    }
+}
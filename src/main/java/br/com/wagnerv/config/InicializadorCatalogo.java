@@ -0,0 +1,364 @@
+package br.com.wagnerv.config; // Pacote da "montagem" da aplicação.
+
+import br.com.wagnerv.eventos.CanalEventos;                 // Atualizações ao vivo das páginas abertas.
+import br.com.wagnerv.execucao.ExecucaoAssincrona;          // Executores das requisições assíncronas.
+import br.com.wagnerv.execucao.ExecutorAdmissao;            // Executor com limite de simultâneas e de fila.
+import br.com.wagnerv.identificador.AlocadorFaixas;         // Fonte compartilhada de faixas de IDs.
+import br.com.wagnerv.identificador.AlocadorFaixasArquivo;  // Faixas de IDs guardadas num arquivo com lock.
+import br.com.wagnerv.identificador.AlocadorFaixasMemoria;  // Faixas de IDs só na memória.
+import br.com.wagnerv.identificador.GeradorIds;             // Entrega os IDs dos livros novos.
+import br.com.wagnerv.indice.IndiceBusca;                   // Índice da busca por título/autor.
+import br.com.wagnerv.indice.IndiceDuplicatas;              // Recusa livros já cadastrados.
+import br.com.wagnerv.indice.IndiceFacetas;                 // Filtros e contagens por ano/autor.
+import br.com.wagnerv.metricas.MetricasRequisicoes;         // Tempos e erros das requisições ("/metrics").
+import br.com.wagnerv.model.Livro;                          // Para ligar o gerador de IDs.
+import br.com.wagnerv.persistencia.PersistenciaCatalogo;    // Diário + snapshots no disco.
+import br.com.wagnerv.replicacao.NoReplicacao;              // Papel deste servidor na replicação.
+import br.com.wagnerv.repository.LivroRepository;           // Contrato do catálogo.
+import br.com.wagnerv.repository.LivroRepositoryCompacto;   // Catálogo em colunas, para catálogos enormes.
+import br.com.wagnerv.repository.LivroRepositoryMemoria;    // Catálogo em memória, indexado por ID.
+import br.com.wagnerv.util.CacheFragmentosHtml;             // Cache dos cards HTML.
+
+import jakarta.servlet.ServletContext;          // O contexto da aplicação web.
+import jakarta.servlet.ServletContextEvent;     // Evento de subida/descida da aplicação.
+import jakarta.servlet.ServletContextListener;  // "Ouvinte" do ciclo de vida da aplicação.
+import jakarta.servlet.annotation.WebListener;  // Registra este ouvinte sem precisar do web.xml.
+
+import java.io.IOException;                     // Erros de disco.
+import java.lang.management.ManagementFactory;  // Acesso ao servidor JMX da JVM.
+import java.nio.file.Path;                      // Diretório de dados.
+import java.nio.file.Paths;                     // Para montar o caminho do diretório de dados.
+import javax.management.JMException;            // Erros ao registrar o cache no JMX.
+import javax.management.ObjectName;             // Nome com que o cache aparece no JMX.
+
+/**
+ * Monta o catálogo quando a aplicação sobe e desmonta quando ela para.
+ *
+ * Na subida: cria o repositório, liga o índice de busca, restaura os livros do disco
+ * (snapshot + diário), liga o cache de cards e publica tudo no {@link ServletContext}.
+ * Na descida: grava um último snapshot e fecha o diário.
+ *
+ * Configuração (propriedade de sistema "-D..." ou, se não houver, parâmetro de contexto):
+ * - "biblioteca.dados": diretório do diário e dos snapshots. Sem essa configuração, os livros vão para
+ *   "dados/<contexto>" dentro do CATALINA_BASE (fora do Tomcat, "biblioteca-unicesumar/<contexto>" na
+ *   pasta do usuário). "memoria" desliga a persistência: o catálogo some quando o servidor para, e a
+ *   subida avisa isso no log. O diretório usado também aparece no log da subida.
+ * - "biblioteca.armazenamento": "objetos" (padrão: um objeto Livro por livro) ou "compacto" (colunas de
+ *   tipos primitivos, autores sem repetição e títulos em bytes; para catálogos de milhões de livros).
+ * - "biblioteca.snapshot.registros": registros no diário que disparam um novo snapshot (padrão: 100000).
+ * - "biblioteca.cache.maxBytes": tamanho máximo do cache de cards (padrão: 64 MB).
+ * - "biblioteca.ids": de onde vêm as faixas de IDs: "arquivo" (padrão quando há persistência) ou
+ *   "memoria" (padrão sem persistência).
+ * - "biblioteca.ids.arquivo": o arquivo das faixas de IDs (padrão: "ids.seq" no diretório de dados).
+ *   Vários Tomcats na mesma máquina que apontam para o mesmo arquivo nunca repetem IDs.
+ * - "biblioteca.ids.faixa": quantos IDs cada servidor reserva de uma vez, no começo (padrão: 1000).
+ * - "biblioteca.assincrono": "true" (padrão) para o LivroServlet e a importação atenderem fora das
+ *   threads do Tomcat, com limites próprios para leituras e escritas; "false" para atender nelas.
+ * - "biblioteca.leituras.simultaneas" / "biblioteca.leituras.fila": listagens e buscas rodando ao
+ *   mesmo tempo (padrão: número de processadores) e esperando a vez (padrão: 200).
+ * - "biblioteca.escritas.simultaneas" / "biblioteca.escritas.fila": inclusões e exclusões rodando ao
+ *   mesmo tempo (padrão: 64) e esperando a vez (padrão: 1000).
+ * - "biblioteca.fila.esperaMaximaMs": quanto uma requisição pode esperar na fila antes de receber 503
+ *   (padrão: 10000).
+ * - "biblioteca.retryAfter": segundos sugeridos no cabeçalho Retry-After das respostas 503 (padrão: 2).
+ * - "biblioteca.replicacao.porta": liga este servidor como primário da replicação, enviando as
+ *   alterações do catálogo para as réplicas que conectarem nesta porta TCP.
+ * - "biblioteca.replicacao.primario": "host:porta" do primário; liga este servidor como réplica
+ *   somente leitura (inclusões e exclusões são recusadas com 405). Não combina com a anterior.
+ * - "biblioteca.replicacao.historico": quantas alterações o primário guarda para réplicas que
+ *   reconectam (padrão: 100000); réplicas mais atrasadas que isso recebem o catálogo completo.
+ * - "biblioteca.eventos.maxConexoes": páginas que podem receber as atualizações ao vivo ao mesmo
+ *   tempo (padrão: 1000). Cada uma é só uma conexão aberta, sem thread própria.
+ * - "biblioteca.eventos.historico": quantas alterações ficam guardadas para as páginas que
+ *   reconectam (padrão: 1000); páginas mais atrasadas que isso recebem "recarregar".
+ * - "biblioteca.duplicatas": conferência de livros repetidos no cadastro, na API e na importação:
+ *   "exata" (padrão: mesmo título, autor e ano, sem contar acentos, maiúsculas e pontuação),
+ *   "aproximada" (também barra os parecidos, que o usuário pode confirmar) ou "desligada".
+ */
+@WebListener
+public class InicializadorCatalogo implements ServletContextListener {
+
+    // Nome do cache no JMX, para poder tirá-lo de lá quando a aplicação for desligada.
+    private ObjectName nomeJmxCache;
+
+    // Arquivo das faixas de IDs (null quando os IDs vêm só da memória), fechado na descida.
+    private AlocadorFaixasArquivo alocadorArquivo;
+
+    @Override
+    public void contextInitialized(ServletContextEvent evento) {
+        ServletContext contexto = evento.getServletContext();
+        LivroRepository livros = criarRepositorio(contexto);
+
+        // Os índices entram antes da restauração para já indexar os livros do disco.
+        IndiceBusca indiceBusca = new IndiceBusca();
+        livros.adicionarListener(indiceBusca);
+        IndiceFacetas indiceFacetas = new IndiceFacetas();
+        livros.adicionarListener(indiceFacetas);
+        IndiceDuplicatas duplicatas = criarIndiceDuplicatas(contexto, livros);
+
+        PersistenciaCatalogo persistencia = null;
+        String dados = configuracao(contexto, "biblioteca.dados", null);
+        if (dados == null) {
+            dados = diretorioDadosPadrao(contexto).toString();
+        }
+
+        // O gerador de IDs precisa estar ligado antes da restauração: cada livro restaurado reserva o seu ID.
+        Livro.usarGeradorIds(new GeradorIds(criarAlocadorIds(contexto, dados),
+                Integer.parseInt(configuracao(contexto, "biblioteca.ids.faixa", "1000"))));
+        if ("memoria".equals(dados)) {
+            contexto.log("ATENÇÃO: catálogo só em memória (biblioteca.dados=memoria): os livros cadastrados"
+                    + " somem quando o servidor parar. Remova essa configuração, ou aponte-a para um diretório,"
+                    + " para guardá-los no disco.");
+        } else {
+            Path diretorio = Paths.get(dados).toAbsolutePath();
+            contexto.log("Persistência do catálogo ligada em " + diretorio + " (biblioteca.dados).");
+            persistencia = new PersistenciaCatalogo(diretorio,
+                    Long.parseLong(configuracao(contexto, "biblioteca.snapshot.registros", "100000")));
+            long inicio = System.nanoTime();
+            try {
+                int quantidade = persistencia.restaurar(livros);
+                contexto.log("Catálogo restaurado de " + diretorio + ": " + quantidade + " livros em "
+                        + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+                if (livros instanceof LivroRepositoryCompacto) {
+                    contexto.log("Catálogo compacto: ~" + ((LivroRepositoryCompacto) livros).bytesAproximados() / (1024 * 1024)
+                            + " MB em memória.");
+                }
+            } catch (IOException e) {
+                // Subir com o catálogo vazio apagaria a biblioteca no próximo snapshot: melhor não subir.
+                throw new IllegalStateException("Não foi possível restaurar o catálogo de " + diretorio, e);
+            }
+        }
+
+        // O cache de cards entra depois da restauração: ele se preenche sozinho nas primeiras listagens,
+        // sem gastar a subida montando cards de livros que talvez nem sejam vistos.
+        CacheFragmentosHtml cacheFragmentos = new CacheFragmentosHtml(contexto.getContextPath(),
+                Long.parseLong(configuracao(contexto, "biblioteca.cache.maxBytes", String.valueOf(64L * 1024 * 1024))),
+                livros::buscarPorId);
+        livros.adicionarListener(cacheFragmentos);
+        // A JSP pega o cache daqui para escrever os cards já prontos.
+        contexto.setAttribute(CacheFragmentosHtml.ATRIBUTO, cacheFragmentos);
+        registrarCacheNoJmx(contexto, cacheFragmentos);
+
+        // A replicação entra depois da restauração: os livros do disco não são alterações novas
+        // (as réplicas atrasadas recebem esses livros no catálogo completo).
+        NoReplicacao replicacao = criarReplicacao(contexto, livros, persistencia,
+                persistencia == null ? null : Paths.get(dados));
+
+        // As atualizações ao vivo também só valem para as alterações de agora em diante (inclusive
+        // as que chegam do primário, numa réplica).
+        CanalEventos eventos = new CanalEventos(contexto.getContextPath(),
+                Integer.parseInt(configuracao(contexto, "biblioteca.eventos.historico", "1000")),
+                Integer.parseInt(configuracao(contexto, "biblioteca.eventos.maxConexoes", "1000")));
+        livros.adicionarListener(eventos);
+
+        // As métricas das requisições ficam junto do catálogo: o filtro registra, o "/metrics" publica.
+        contexto.setAttribute(CatalogoAplicacao.ATRIBUTO, new CatalogoAplicacao(livros, cacheFragmentos,
+                indiceBusca, indiceFacetas, persistencia, new MetricasRequisicoes(), criarExecucao(contexto), replicacao,
+                eventos, duplicatas));
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent evento) {
+        ServletContext contexto = evento.getServletContext();
+        if (nomeJmxCache != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(nomeJmxCache);
+            } catch (JMException e) {
+                System.err.println("Erro ao remover o cache de fragmentos do JMX: " + e.getMessage());
+            }
+        }
+        CatalogoAplicacao catalogo = (CatalogoAplicacao) contexto.getAttribute(CatalogoAplicacao.ATRIBUTO);
+        // As conexões das atualizações ao vivo ficariam abertas para sempre: fecha antes de tudo.
+        if (catalogo != null) {
+            catalogo.getEventos().close();
+        }
+        // Primeiro as requisições em andamento terminam; depois a persistência fecha (com o que elas gravaram).
+        if (catalogo != null && catalogo.getExecucao() != null) {
+            catalogo.getExecucao().close();
+        }
+        // A replicação para antes da persistência: a réplica só anota a posição depois de gravar no disco.
+        if (catalogo != null && catalogo.getReplicacao() != null) {
+            try {
+                catalogo.getReplicacao().close();
+            } catch (IOException e) {
+                System.err.println("Erro ao desligar a replicação: " + e.getMessage());
+            }
+        }
+        if (catalogo != null && catalogo.getPersistencia() != null) {
+            try {
+                catalogo.getPersistencia().close();
+                // Só com tudo no disco o primário pode dizer às réplicas que a numeração continua valendo.
+                if (catalogo.getReplicacao() != null) {
+                    catalogo.getReplicacao().registrarDesligamentoNormal();
+                }
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar a persistência do catálogo: " + e.getMessage());
+            }
+        }
+        if (alocadorArquivo != null) {
+            try {
+                alocadorArquivo.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o arquivo de IDs: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Escolhe como o catálogo fica guardado na memória.
+     */
+    private LivroRepository criarRepositorio(ServletContext contexto) {
+        String tipo = configuracao(contexto, "biblioteca.armazenamento", "objetos");
+        if ("objetos".equals(tipo)) {
+            return new LivroRepositoryMemoria();
+        }
+        if ("compacto".equals(tipo)) {
+            return new LivroRepositoryCompacto();
+        }
+        throw new IllegalStateException("Valor inválido para biblioteca.armazenamento: " + tipo);
+    }
+
+    /**
+     * Liga a conferência de livros repetidos (ou nenhuma). Entra antes da restauração, como os
+     * outros índices, para já conhecer os livros do disco.
+     */
+    private IndiceDuplicatas criarIndiceDuplicatas(ServletContext contexto, LivroRepository livros) {
+        String modo = configuracao(contexto, "biblioteca.duplicatas", "exata");
+        if ("desligada".equals(modo)) {
+            return null;
+        }
+        if (!"exata".equals(modo) && !"aproximada".equals(modo)) {
+            throw new IllegalStateException("Valor inválido para biblioteca.duplicatas: " + modo);
+        }
+        IndiceDuplicatas duplicatas = new IndiceDuplicatas(livros::buscarPorId, "aproximada".equals(modo));
+        livros.adicionarListener(duplicatas);
+        return duplicatas;
+    }
+
+    /**
+     * Cria os executores das requisições assíncronas (ou nenhum, se o modo assíncrono estiver desligado).
+     */
+    private ExecucaoAssincrona criarExecucao(ServletContext contexto) {
+        if (!Boolean.parseBoolean(configuracao(contexto, "biblioteca.assincrono", "true"))) {
+            return null;
+        }
+        // Listagens gastam CPU montando HTML: mais simultâneas que processadores só disputariam a CPU.
+        ExecutorAdmissao leituras = new ExecutorAdmissao("leituras",
+                Integer.parseInt(configuracao(contexto, "biblioteca.leituras.simultaneas",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(configuracao(contexto, "biblioteca.leituras.fila", "200")));
+        // Escritas passam a maior parte do tempo esperando o disco, e várias juntas dividem a mesma
+        // gravação (group commit do diário): aqui vale ter bem mais simultâneas.
+        ExecutorAdmissao escritas = new ExecutorAdmissao("escritas",
+                Integer.parseInt(configuracao(contexto, "biblioteca.escritas.simultaneas", "64")),
+                Integer.parseInt(configuracao(contexto, "biblioteca.escritas.fila", "1000")));
+        contexto.log("Requisições assíncronas em threads " + (leituras.isThreadsVirtuais() ? "virtuais" : "comuns")
+                + ": leituras " + leituras.getLimite() + ", escritas " + escritas.getLimite() + " simultâneas.");
+        return new ExecucaoAssincrona(leituras, escritas,
+                Long.parseLong(configuracao(contexto, "biblioteca.fila.esperaMaximaMs", "10000")),
+                Integer.parseInt(configuracao(contexto, "biblioteca.retryAfter", "2")));
+    }
+
+    /**
+     * Liga este servidor como primário ou como réplica, se a configuração pedir.
+     *
+     * @return O papel na replicação, ou {@code null} se a replicação estiver desligada.
+     */
+    private NoReplicacao criarReplicacao(ServletContext contexto, LivroRepository livros,
+                                         PersistenciaCatalogo persistencia, Path diretorio) {
+        String porta = configuracao(contexto, "biblioteca.replicacao.porta", null);
+        String primario = configuracao(contexto, "biblioteca.replicacao.primario", null);
+        if (porta != null && primario != null) {
+            // Dois servidores aceitando escritas gerariam IDs e alterações que o outro não conhece.
+            throw new IllegalStateException(
+                    "Use biblioteca.replicacao.porta (primário) ou biblioteca.replicacao.primario (réplica), não os dois.");
+        }
+        try {
+            if (porta != null) {
+                NoReplicacao no = NoReplicacao.primario(Integer.parseInt(porta),
+                        Integer.parseInt(configuracao(contexto, "biblioteca.replicacao.historico", "100000")),
+                        livros, diretorio);
+                contexto.log("Replicação: primário na porta " + porta + ", época "
+                        + Long.toHexString(no.getFeed().getEpoca()) + ".");
+                return no;
+            }
+            if (primario != null) {
+                int separador = primario.lastIndexOf(':');
+                if (separador <= 0) {
+                    throw new IllegalStateException("Valor inválido para biblioteca.replicacao.primario: " + primario);
+                }
+                NoReplicacao no = NoReplicacao.replica(primario.substring(0, separador),
+                        Integer.parseInt(primario.substring(separador + 1)), livros, persistencia, diretorio);
+                contexto.log("Replicação: réplica somente leitura de " + primario + ".");
+                return no;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível ligar a replicação.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Diretório de dados quando "biblioteca.dados" não foi configurado: "dados/<contexto>" dentro do
+     * CATALINA_BASE, ao lado de logs/ e webapps/. Cada aplicação tem a sua pasta, então duas cópias
+     * do sistema no mesmo Tomcat não escrevem no mesmo diário.
+     */
+    static Path diretorioDadosPadrao(ServletContext contexto) {
+        String caminho = contexto.getContextPath();
+        String nome = caminho.isEmpty() ? "ROOT" : caminho.substring(1).replace('/', '#');
+        String base = System.getProperty("catalina.base");
+        Path raiz = base != null
+                ? Paths.get(base, "dados")
+                : Paths.get(System.getProperty("user.home"), "biblioteca-unicesumar");
+        return raiz.resolve(nome);
+    }
+
+    /**
+     * Escolhe de onde vêm as faixas de IDs dos livros novos.
+     */
+    private AlocadorFaixas criarAlocadorIds(ServletContext contexto, String dados) {
+        boolean persistente = !"memoria".equals(dados);
+        String tipo = configuracao(contexto, "biblioteca.ids", persistente ? "arquivo" : "memoria");
+        if ("memoria".equals(tipo)) {
+            return new AlocadorFaixasMemoria();
+        }
+        if (!"arquivo".equals(tipo)) {
+            throw new IllegalStateException("Valor inválido para biblioteca.ids: " + tipo);
+        }
+        Path padrao = persistente
+                ? Paths.get(dados, "ids.seq")
+                : Paths.get(System.getProperty("user.home"), "biblioteca-unicesumar", "ids.seq");
+        Path arquivo = Paths.get(configuracao(contexto, "biblioteca.ids.arquivo", padrao.toString()));
+        try {
+            alocadorArquivo = new AlocadorFaixasArquivo(arquivo);
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível abrir o arquivo de IDs " + arquivo, e);
+        }
+        return alocadorArquivo;
+    }
+
+    /**
+     * Publica os contadores do cache (acertos, falhas, despejos...) no JMX, para que dê pra
+     * acompanhar em produção (JConsole, VisualVM...) se ele está funcionando.
+     */
+    private void registrarCacheNoJmx(ServletContext contexto, CacheFragmentosHtml cache) {
+        try {
+            ObjectName nome = new ObjectName("br.com.wagnerv:type=CacheFragmentosHtml,contexto="
+                    + ObjectName.quote(contexto.getContextPath()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(cache, nome);
+            nomeJmxCache = nome;
+        } catch (JMException e) {
+            // Sem JMX a aplicação funciona normalmente; só perdemos a visibilidade dos contadores.
+            System.err.println("Erro ao registrar o cache de fragmentos no JMX: " + e.getMessage());
+        }
+    }
+
+    // Lê uma configuração: primeiro a propriedade de sistema, depois o parâmetro de contexto.
+    static String configuracao(ServletContext contexto, String nome, String padrao) {
+        String valor = System.getProperty(nome);
+        if (valor == null) {
+            valor = contexto.getInitParameter(nome);
+        }
+        return valor == null || valor.trim().isEmpty() ? padrao : valor.trim();
+    }
+}
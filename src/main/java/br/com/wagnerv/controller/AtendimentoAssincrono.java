@@ -0,0 +1,93 @@
+package br.com.wagnerv.controller; // Pacote dos controladores (Servlets).
+
+import br.com.wagnerv.execucao.ExecucaoAssincrona; // Limites de espera e o Retry-After das respostas 503.
+import br.com.wagnerv.execucao.ExecutorAdmissao;   // Executor de leituras ou de escritas.
+import br.com.wagnerv.metricas.Acao;               // Requisição recusada (para as métricas).
+import br.com.wagnerv.metricas.MedicaoRequisicao;  // A medição segue a requisição até a outra thread.
+
+import jakarta.servlet.AsyncContext;             // Requisição atendida fora da thread do Tomcat.
+import jakarta.servlet.ServletException;         // Erros do Servlet.
+import jakarta.servlet.http.HttpServletRequest;  // A requisição.
+import jakarta.servlet.http.HttpServletResponse; // A resposta.
+
+import java.io.IOException; // Erros de I/O.
+
+/**
+ * Atende uma requisição em modo assíncrono: libera a thread do Tomcat e entrega o atendimento
+ * para um executor (de leituras ou de escritas). Se a fila do executor estiver cheia, responde
+ * 503 na hora. Usado pelos Servlets que alteram ou listam o catálogo ({@code LivroServlet},
+ * {@code ImportacaoServlet}); eles precisam de {@code asyncSupported = true}.
+ */
+final class AtendimentoAssincrono {
+
+    private AtendimentoAssincrono() {
+        // Só métodos estáticos.
+    }
+
+    /**
+     * @param execucao    Os executores e os limites do modo assíncrono.
+     * @param executor    O executor das leituras ou das escritas.
+     * @param request     A requisição.
+     * @param response    A resposta.
+     * @param atendimento O que fazer com a requisição (o mesmo código do modo normal).
+     * @throws IOException Se não der para escrever a resposta 503.
+     */
+    static void atender(ExecucaoAssincrona execucao, ExecutorAdmissao executor, HttpServletRequest request,
+                        HttpServletResponse response, Atendimento atendimento) throws IOException {
+        // Passando request/response, o atendimento usa os mesmos objetos que chegaram aqui
+        // (inclusive os "embrulhos" do filtro de métricas).
+        AsyncContext assincrono = request.startAsync(request, response);
+        // Sem prazo do Tomcat: a espera na fila já é limitada abaixo e todo atendimento termina com complete().
+        assincrono.setTimeout(0);
+        long chegada = System.nanoTime();
+        Runnable tarefa = MedicaoRequisicao.naMesmaMedicao(() -> {
+            try {
+                if (System.nanoTime() - chegada > execucao.getEsperaMaximaNanos()) {
+                    recusar(execucao, response); // Esperou demais na fila: o usuário provavelmente já desistiu.
+                } else {
+                    atendimento.atender(request, response);
+                }
+            } catch (ServletException | IOException | RuntimeException e) {
+                System.err.println("Erro ao atender " + request.getMethod() + " " + request.getRequestURI()
+                        + ": " + e);
+                responderErro(response);
+            } finally {
+                assincrono.complete();
+            }
+        });
+        if (!executor.executar(tarefa)) {
+            recusar(execucao, response);
+            assincrono.complete();
+        }
+    }
+
+    /**
+     * Responde "503 - servidor ocupado", dizendo em quantos segundos vale a pena tentar de novo.
+     */
+    private static void recusar(ExecucaoAssincrona execucao, HttpServletResponse response) throws IOException {
+        MedicaoRequisicao.marcar(Acao.RECUSADA);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(execucao.getRetryAfterSegundos()));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Servidor ocupado. Tente novamente em alguns segundos.");
+    }
+
+    // Erro inesperado no atendimento assíncrono: o que o Tomcat faria no modo normal (500), se ainda der.
+    private static void responderErro(HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return; // Parte da resposta já foi enviada: não dá mais para trocar o status.
+        }
+        try {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Erro ao responder 500: " + e.getMessage());
+        }
+    }
+
+    /**
+     * O atendimento de uma requisição, para poder rodar em outra thread.
+     */
+    interface Atendimento {
+        void atender(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.wagnerv.controller; // Pacote dos controladores (Servlets).
+
+import br.com.wagnerv.config.CatalogoAplicacao;   // Peças do catálogo montadas na subida da aplicação.
+import br.com.wagnerv.eventos.CanalEventos;       // Entrega as inclusões e exclusões às páginas abertas.
+import br.com.wagnerv.metricas.Acao;              // O que a requisição fez (para as métricas).
+import br.com.wagnerv.metricas.MedicaoRequisicao; // Informa às métricas o que a requisição fez.
+
+import jakarta.servlet.AsyncContext;             // A requisição fica aberta depois do doGet.
+import jakarta.servlet.ServletException;         // Erros do Servlet.
+import jakarta.servlet.annotation.WebServlet;    // Mapeia o Servlet para uma URL.
+import jakarta.servlet.http.HttpServlet;         // Classe base para Servlets HTTP.
+import jakarta.servlet.http.HttpServletRequest;  // A requisição.
+import jakarta.servlet.http.HttpServletResponse; // A resposta.
+
+import java.io.IOException; // Erros de I/O.
+
+/**
+ * Atualizações "ao vivo" da página: {@code GET /livros/eventos}, no formato Server-Sent Events
+ * ({@code new EventSource(...)} no navegador).
+ *
+ * O Servlet só prepara a resposta e entrega a conexão ao {@link CanalEventos}; a thread do Tomcat
+ * volta na hora para o pool. Os eventos (livro adicionado, com o card pronto; livro removido;
+ * "recarregar") são escritos depois pela thread do canal.
+ *
+ * Parâmetro "desde" (ou o cabeçalho "Last-Event-ID", que o navegador manda sozinho ao reconectar):
+ * o ID do último evento que a página já tem. Os eventos seguintes são reenviados, então nada do
+ * que aconteceu entre montar a página e conectar se perde.
+ */
+@WebServlet(name = "eventosServlet", value = "/livros/eventos", asyncSupported = true)
+public class EventosServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private CanalEventos canal;
+
+    @Override
+    public void init() {
+        canal = CatalogoAplicacao.de(getServletContext()).getEventos();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        MedicaoRequisicao.marcar(Acao.EVENTOS);
+        String ultimoId = request.getHeader("Last-Event-ID");
+        if (ultimoId == null) {
+            ultimoId = request.getParameter("desde");
+        }
+
+        response.setContentType("text/event-stream;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.setHeader("X-Accel-Buffering", "no"); // Proxies (nginx) não seguram os eventos no buffer.
+
+        // Com request/response, o canal escreve pelo "embrulho" do filtro de métricas (que conta os bytes).
+        AsyncContext contexto = request.startAsync(request, response);
+        if (!canal.conectar(contexto, ultimoId)) {
+            // Páginas demais conectadas: esta fica sem atualizações ao vivo (o EventSource não
+            // insiste depois de um erro), mas continua funcionando como antes, recarregando.
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.setHeader("Retry-After", "30");
+            contexto.complete();
+        }
+    }
+}
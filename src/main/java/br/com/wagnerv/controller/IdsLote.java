@@ -0,0 +1,39 @@
+package br.com.wagnerv.controller; // Pacote dos controladores (Servlets).
+
+import java.util.ArrayList; // Os IDs lidos.
+import java.util.List;      // Interface de lista.
+
+/**
+ * Lê a lista de IDs da exclusão em lote, do jeito que ela chega do formulário ("1, 2, 3" ou
+ * um por linha) ou da API ("?ids=1,2,3").
+ */
+final class IdsLote {
+
+    private IdsLote() {
+        // Só métodos estáticos.
+    }
+
+    /**
+     * @param textos Os valores recebidos (cada um pode ter vários IDs separados por vírgula,
+     *               espaço ou quebra de linha). {@code null} vale como lista vazia.
+     * @return Os IDs, na ordem em que apareceram.
+     * @throws NumberFormatException Se algum pedaço não for um número inteiro.
+     */
+    static List<Integer> ler(String... textos) {
+        List<Integer> ids = new ArrayList<>();
+        if (textos == null) {
+            return ids;
+        }
+        for (String texto : textos) {
+            if (texto == null) {
+                continue;
+            }
+            for (String parte : texto.split("[,;\\s]+")) {
+                if (!parte.isEmpty()) {
+                    ids.add(Integer.parseInt(parte));
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.wagnerv.controller; // Pacote dos controladores (Servlets).
+
+import br.com.wagnerv.config.CatalogoAplicacao;          // Peças do catálogo montadas na subida da aplicação.
+import br.com.wagnerv.exception.LivroException;          // Arquivo que não pode ser importado.
+import br.com.wagnerv.execucao.ExecucaoAssincrona;       // Executores (com limites) das requisições assíncronas.
+import br.com.wagnerv.importacao.ImportadorLivros;       // Lê o arquivo e coloca os livros no catálogo.
+import br.com.wagnerv.importacao.ResultadoImportacao;    // O relatório da importação.
+import br.com.wagnerv.metricas.Acao;                     // O que a requisição fez (para as métricas).
+import br.com.wagnerv.metricas.MedicaoRequisicao;        // Informa às métricas o que a requisição fez.
+
+import jakarta.servlet.ServletException;         // Erros do Servlet.
+import jakarta.servlet.annotation.MultipartConfig; // Permite receber arquivos pelo formulário (multipart).
+import jakarta.servlet.annotation.WebServlet;    // Mapeia o Servlet para uma URL.
+import jakarta.servlet.http.HttpServlet;         // Classe base para Servlets HTTP.
+import jakarta.servlet.http.HttpServletRequest;  // A requisição.
+import jakarta.servlet.http.HttpServletResponse; // A resposta.
+import jakarta.servlet.http.Part;                // O arquivo enviado pelo formulário.
+
+import java.io.IOException;           // Erros de I/O.
+import java.io.InputStream;           // Os bytes do arquivo.
+import java.io.InputStreamReader;     // Bytes -> caracteres.
+import java.io.PrintWriter;           // Para escrever o relatório.
+import java.io.Reader;                // Os caracteres do arquivo.
+import java.nio.charset.Charset;      // Codificação informada pelo cliente.
+import java.nio.charset.StandardCharsets; // UTF-8, o padrão.
+
+/**
+ * Importação de livros em lote: {@code POST /livros/importar}.
+ *
+ * Aceita o arquivo de dois jeitos:
+ * - pelo formulário da página (multipart/form-data, campo "arquivo");
+ * - direto no corpo da requisição, por exemplo:
+ *   {@code curl --data-binary @acervo.csv -H "Content-Type: text/csv" .../livros/importar}.
+ *
+ * O formato (CSV ou JSON Lines) vem do parâmetro "formato", da extensão do arquivo ou do
+ * Content-Type; se nada disso ajudar, o próprio conteúdo decide. A resposta é um relatório em
+ * texto simples com o resumo e os erros linha a linha (inclusive os livros que já estavam
+ * cadastrados; com "aceitarParecidos=1", só os repetidos exatos são recusados).
+ *
+ * O arquivo é lido em streaming: um arquivo de 200 mil livros não fica inteiro na memória
+ * (no caso do formulário, o Tomcat guarda o upload num arquivo temporário em disco).
+ *
+ * No modo assíncrono (o padrão), a importação roda no executor de escritas, como as inclusões do
+ * {@code LivroServlet}: um upload de centenas de MB ocupa uma vaga de escrita, e não uma thread
+ * do Tomcat, e com a fila de escritas cheia o cliente recebe 503 na hora.
+ */
+@WebServlet(name = "importacaoServlet", value = "/livros/importar", asyncSupported = true)
+@MultipartConfig(fileSizeThreshold = 1024 * 1024, maxFileSize = 512L * 1024 * 1024, maxRequestSize = 512L * 1024 * 1024)
+public class ImportacaoServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private CatalogoAplicacao catalogo;
+    private ImportadorLivros importador;
+
+    // Executores do modo assíncrono (null quando as requisições são atendidas nas threads do Tomcat).
+    private ExecucaoAssincrona execucao;
+
+    @Override
+    public void init() {
+        catalogo = CatalogoAplicacao.de(getServletContext());
+        importador = new ImportadorLivros(catalogo.getLivros());
+        execucao = catalogo.getExecucao();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (execucao == null) {
+            importar(request, response);
+        } else {
+            AtendimentoAssincrono.atender(execucao, execucao.getEscritas(), request, response, this::importar);
+        }
+    }
+
+    // A importação em si (na thread do Tomcat ou na do executor de escritas).
+    private void importar(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        // Sem codificação informada pelo cliente, tanto os campos do formulário quanto o arquivo são UTF-8.
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        if (catalogo.isSomenteLeitura()) {
+            // Numa réplica o catálogo só muda pelo primário.
+            MedicaoRequisicao.marcar(Acao.RECUSADA);
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED, CatalogoAplicacao.MENSAGEM_SOMENTE_LEITURA);
+            return;
+        }
+        MedicaoRequisicao.marcar(Acao.IMPORTAR);
+
+        String tipoConteudo = request.getContentType();
+        InputStream corpo;
+        String nomeArquivo = null;
+        if (tipoConteudo != null && tipoConteudo.regionMatches(true, 0, "multipart/", 0, 10)) {
+            Part arquivo = request.getPart("arquivo");
+            if (arquivo == null || arquivo.getSize() == 0) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Escolha um arquivo para importar.");
+                return;
+            }
+            corpo = arquivo.getInputStream();
+            nomeArquivo = arquivo.getSubmittedFileName();
+            tipoConteudo = arquivo.getContentType();
+        } else {
+            corpo = request.getInputStream();
+        }
+
+        ImportadorLivros.Formato formato =
+                ImportadorLivros.Formato.detectar(request.getParameter("formato"), nomeArquivo, tipoConteudo);
+
+        ResultadoImportacao resultado;
+        try (Reader entrada = new InputStreamReader(corpo, codificacao(request, nomeArquivo))) {
+            // Livros já cadastrados (ou repetidos no próprio arquivo) viram linhas de erro no relatório.
+            resultado = importador.importar(entrada, formato,
+                    catalogo.regraInclusao("1".equals(request.getParameter("aceitarParecidos"))));
+        } catch (LivroException e) {
+            MedicaoRequisicao.erro(e);
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        } finally {
+            // Mesmo numa importação interrompida, os lotes que entraram precisam chegar ao disco.
+            catalogo.aguardarGravacao();
+        }
+
+        response.setContentType("text/plain; charset=UTF-8");
+        PrintWriter saida = response.getWriter();
+        resultado.escreverRelatorio(saida);
+        saida.flush();
+    }
+
+    /**
+     * A codificação do arquivo: a informada no Content-Type do corpo (envio direto) ou UTF-8.
+     * No formulário, o navegador não diz a codificação do arquivo, então vale UTF-8.
+     */
+    private static Charset codificacao(HttpServletRequest request, String nomeArquivo) {
+        if (nomeArquivo == null) {
+            String informada = request.getCharacterEncoding();
+            if (informada != null && Charset.isSupported(informada)) {
+                return Charset.forName(informada);
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,596 @@
+package br.com.wagnerv.controller; // Pacote dos controladores (Servlets).
+
+import br.com.wagnerv.config.CatalogoAplicacao;      // Peças do catálogo montadas na subida da aplicação.
+import br.com.wagnerv.exception.LivroDuplicadoException; // Livro já cadastrado (409).
+import br.com.wagnerv.exception.LivroException;      // Livro recusado pela validação.
+import br.com.wagnerv.indice.IndiceBusca;            // Busca por título/autor.
+import br.com.wagnerv.indice.IndiceFacetas;          // Filtros por ano/autor e contagens.
+import br.com.wagnerv.metricas.Acao;                 // O que a requisição fez (para as métricas).
+import br.com.wagnerv.metricas.CategoriaErro;        // Tipo do erro de validação (para as métricas).
+import br.com.wagnerv.metricas.MedicaoRequisicao;    // Informa às métricas o que a requisição fez.
+import br.com.wagnerv.model.Livro;                   // O modelo.
+import br.com.wagnerv.repository.CatalogoSnapshot;   // Fotografia do catálogo usada na listagem.
+import br.com.wagnerv.repository.LivroRepository;    // O catálogo.
+import br.com.wagnerv.util.FiltroLivros;             // Filtro por ano/autor (mesmos parâmetros da página).
+import br.com.wagnerv.util.GerarJsonLivro;           // Livro -> JSON.
+import br.com.wagnerv.util.Json;                     // Leitura do corpo JSON e escrita de textos.
+import br.com.wagnerv.util.Paginacao;                // Contas da paginação (mesmos parâmetros da página).
+
+import jakarta.servlet.ServletException;         // Erros do Servlet.
+import jakarta.servlet.annotation.WebServlet;    // Mapeia o Servlet para uma URL.
+import jakarta.servlet.http.HttpServlet;         // Classe base para Servlets HTTP.
+import jakarta.servlet.http.HttpServletRequest;  // A requisição.
+import jakarta.servlet.http.HttpServletResponse; // A resposta.
+
+import java.io.BufferedReader;          // Para ler o corpo do POST.
+import java.io.BufferedWriter;          // Junta os pedaços do JSON antes de mandar.
+import java.io.IOException;             // Erros de I/O.
+import java.io.OutputStreamWriter;      // Caracteres -> bytes (antes da compressão).
+import java.io.Writer;                  // Para onde o JSON é escrito.
+import java.nio.charset.StandardCharsets; // UTF-8.
+import java.security.SecureRandom;      // Número da subida, no ETag das listagens.
+import java.util.ArrayList;             // Livros encontrados na busca.
+import java.util.List;                  // Interface de lista.
+import java.util.Map;                   // O objeto JSON recebido no POST.
+import java.util.zip.GZIPOutputStream;  // Compressão gzip da resposta.
+
+/**
+ * API JSON do catálogo, para os quiosques e o aplicativo:
+ * <pre>
+ * GET    /api/livros?pagina=1&amp;limite=100   lista uma página do catálogo
+ * GET    /api/livros?q=machado&amp;limite=20   busca por título/autor
+ * GET    /api/livros?anoDe=1990&amp;anoAte=1999&amp;autor=...   filtra por ano/autor (em ordem de ano)
+ * GET    /api/livros?facetas=1               a listagem (ou o filtro) com as contagens por década/autor
+ * GET    /api/livros/{id}                    um livro
+ * POST   /api/livros                         cadastra ({"titulo":..., "autor":..., "ano":..., "isbn":...});
+ *                                             409 se já está cadastrado ({"erro":..., "idExistente":..., "aproximado":...});
+ *                                             "aceitarParecidos": true confirma um livro só parecido
+ * DELETE /api/livros/{id}                    exclui
+ * DELETE /api/livros?ids=1,2,3                exclui vários de uma vez ({"removidos": N})
+ * DELETE /api/livros?anoDe=..&amp;anoAte=..&amp;autor=..  exclui todos os livros do filtro ({"removidos": N})
+ * POST   /api/livros/excluir                  o mesmo, com o pedido no corpo:
+ *                                             {"ids": [1, 2, 3]} ou {"anoDe":..., "anoAte":..., "autor":...}
+ * </pre>
+ * As exclusões em lote fazem uma única escrita no catálogo (uma versão nova, um registro no
+ * diário) e exigem IDs ou um filtro: sem nenhum dos dois a resposta é 400, nunca "apaga tudo".
+ *
+ * Pensado para clientes que ficam consultando a API de tempos em tempos:
+ * - toda resposta de GET leva um ETag. Nas listagens, ele é a versão do catálogo (que muda a cada
+ *   inclusão ou exclusão) junto com um número sorteado na subida: a versão recomeça do zero quando
+ *   o servidor reinicia e é diferente em cada servidor, então "versão 42" sozinha não garante que
+ *   o catálogo é o mesmo que o cliente guardou. O cliente manda o ETag de volta em "If-None-Match" e, se nada mudou,
+ *   recebe só um "304 Not Modified", sem corpo; o servidor nem chega a montar o JSON;
+ * - se o cliente aceitar ("Accept-Encoding: gzip"), as listagens vão compactadas com gzip.
+ */
+@WebServlet(name = "livroApiServlet", value = "/api/livros/*")
+public class LivroApiServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    // Maior corpo aceito no POST (um livro em JSON tem bem menos que isso).
+    private static final int TAMANHO_MAXIMO_CORPO = 64 * 1024;
+
+    // Limite do corpo da exclusão em lote (a lista de IDs pode ser bem maior que um livro).
+    private static final int TAMANHO_MAXIMO_CORPO_LOTE = 1024 * 1024;
+
+    // Quantos autores entram nas facetas.
+    private static final int MAX_AUTORES_FACETA = 10;
+
+    private static final String TIPO_JSON = "application/json;charset=UTF-8";
+
+    // Sorteado na subida: separa as versões do catálogo desta subida (e deste servidor) das outras.
+    private final String geracao = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private CatalogoAplicacao catalogo;
+    private LivroRepository livros;
+    private IndiceBusca indiceBusca;
+    private IndiceFacetas indiceFacetas;
+
+    @Override
+    public void init() {
+        catalogo = CatalogoAplicacao.de(getServletContext());
+        livros = catalogo.getLivros();
+        indiceBusca = catalogo.getIndiceBusca();
+        indiceFacetas = catalogo.getIndiceFacetas();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String caminho = request.getPathInfo();
+        if (caminho != null && !caminho.equals("/")) {
+            Integer id = idDoCaminho(caminho);
+            if (id == null) {
+                erro(response, HttpServletResponse.SC_NOT_FOUND, "Recurso não encontrado.");
+                return;
+            }
+            MedicaoRequisicao.marcar(Acao.OBTER);
+            buscarUm(id, request, response);
+            return;
+        }
+
+        String consulta = request.getParameter("q");
+        boolean busca = consulta != null && !consulta.trim().isEmpty();
+        FiltroLivros filtro = FiltroLivros.de(request);
+        MedicaoRequisicao.marcar(busca ? Acao.BUSCAR : filtro.isAtivo() ? Acao.FILTRAR : Acao.LISTAR);
+
+        // Uma única fotografia: a versão do ETag e os livros do corpo são do mesmo instante.
+        CatalogoSnapshot snapshot = livros.snapshot();
+        String etag = "W/\"c" + geracao + "-" + snapshot.versao() + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache"); // Pode guardar, mas sempre confere o ETag antes de usar.
+        response.setHeader("Vary", "Accept-Encoding");
+        if (etagCombina(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(TIPO_JSON);
+        try (Writer saida = abrirSaida(request, response)) {
+            if (busca) {
+                List<Livro> encontrados = buscar(consulta, Paginacao.limiteDe(request));
+                saida.write("{\"versao\":" + snapshot.versao() + ",\"busca\":");
+                Json.escreverTexto(saida, consulta);
+                saida.write(",\"total\":" + encontrados.size() + ",\"livros\":");
+                GerarJsonLivro.escreverTodos(encontrados, saida);
+            } else if (filtro.isAtivo()) {
+                // A página e o total vêm dos índices por ano/autor; primeiro vale a página pedida, como veio.
+                Paginacao pedida = Paginacao.de(request, Integer.MAX_VALUE);
+                IndiceFacetas.Resultado resultado = filtrar(filtro, pedida);
+                Paginacao paginacao = new Paginacao(pedida.getPagina(), pedida.getLimite(), resultado.getTotal());
+                if (paginacao.getInicio() != pedida.getInicio()) {
+                    resultado = filtrar(filtro, paginacao); // Página depois da última: vale a última.
+                    paginacao = new Paginacao(paginacao.getPagina(), paginacao.getLimite(), resultado.getTotal());
+                }
+                escreverPaginacao(saida, snapshot.versao(), paginacao);
+                GerarJsonLivro.escreverTodos(livrosDosIds(resultado.getIds()), saida);
+            } else {
+                Paginacao paginacao = Paginacao.de(request, snapshot.tamanho());
+                escreverPaginacao(saida, snapshot.versao(), paginacao);
+                GerarJsonLivro.escreverTodos(snapshot.pagina(paginacao.getInicio(), paginacao.getLimite()), saida);
+            }
+            if (!busca && request.getParameter("facetas") != null) {
+                escreverFacetas(saida);
+            }
+            saida.write('}');
+        }
+    }
+
+    private void buscarUm(int id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Livro livro = livros.buscarPorId(id);
+        if (livro == null) {
+            erro(response, HttpServletResponse.SC_NOT_FOUND, "Livro " + id + " não encontrado.");
+            return;
+        }
+        // Um livro é pequeno: montar o JSON para calcular o ETag custa menos que mandá-lo de novo.
+        StringBuilder json = new StringBuilder(160);
+        GerarJsonLivro.escrever(livro, json);
+        String etag = "W/\"l" + id + "-" + Integer.toHexString(json.toString().hashCode()) + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+        if (etagCombina(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(TIPO_JSON);
+        response.getWriter().append(json);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String caminho = request.getPathInfo();
+        if ("/excluir".equals(caminho) || "/excluir/".equals(caminho)) {
+            excluirLoteJson(request, response);
+            return;
+        }
+        if (caminho != null && !caminho.equals("/")) {
+            erro(response, HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Use POST em /api/livros ou /api/livros/excluir.");
+            return;
+        }
+        if (recusarSeReplica(response)) {
+            return;
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        MedicaoRequisicao.marcar(Acao.ADICIONAR);
+
+        Map<String, Object> dados;
+        try {
+            String corpo = lerCorpo(request, TAMANHO_MAXIMO_CORPO);
+            if (corpo == null) {
+                erro(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Corpo da requisição grande demais.");
+                return;
+            }
+            dados = Json.lerObjeto(corpo);
+        } catch (IllegalArgumentException e) {
+            MedicaoRequisicao.erro(CategoriaErro.JSON_INVALIDO);
+            erro(response, HttpServletResponse.SC_BAD_REQUEST, "JSON inválido: " + e.getMessage() + ".");
+            return;
+        }
+
+        Livro livro;
+        try {
+            livro = montar(dados);
+        } catch (LivroException e) {
+            MedicaoRequisicao.erro(e);
+            erro(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        boolean aceitarParecidos = Boolean.TRUE.equals(dados.get("aceitarParecidos"))
+                || "1".equals(request.getParameter("aceitarParecidos"))
+                || "true".equals(request.getParameter("aceitarParecidos"));
+        try {
+            // Confere os repetidos e só responde "criado" depois que o livro está no disco.
+            catalogo.adicionar(livro, aceitarParecidos);
+        } catch (LivroDuplicadoException e) {
+            MedicaoRequisicao.erro(e);
+            duplicado(response, e);
+            return;
+        } catch (LivroException e) {
+            MedicaoRequisicao.erro(e);
+            erro(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_CREATED);
+        response.setHeader("Location", request.getContextPath() + "/api/livros/" + livro.getId());
+        response.setContentType(TIPO_JSON);
+        GerarJsonLivro.escrever(livro, response.getWriter());
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String caminho = request.getPathInfo();
+        if (caminho == null || caminho.equals("/")) {
+            excluirLoteParametros(request, response);
+            return;
+        }
+        Integer id = idDoCaminho(caminho);
+        if (id == null) {
+            erro(response, HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Use DELETE em /api/livros/{id} ou /api/livros?ids=....");
+            return;
+        }
+        if (recusarSeReplica(response)) {
+            return;
+        }
+        MedicaoRequisicao.marcar(Acao.EXCLUIR);
+        if (!livros.remover(id)) {
+            erro(response, HttpServletResponse.SC_NOT_FOUND, "Livro " + id + " não encontrado.");
+            return;
+        }
+        catalogo.aguardarGravacao();
+        response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+
+    /**
+     * DELETE /api/livros?ids=1,2,3 ou DELETE /api/livros?anoDe=..&amp;anoAte=..&amp;autor=..
+     */
+    private void excluirLoteParametros(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (recusarSeReplica(response)) {
+            return;
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        MedicaoRequisicao.marcar(Acao.EXCLUIR_LOTE);
+        String[] ids = request.getParameterValues("ids");
+        List<Integer> lista;
+        try {
+            lista = ids == null ? null : IdsLote.ler(ids);
+        } catch (NumberFormatException e) {
+            MedicaoRequisicao.erro(CategoriaErro.ID_INVALIDO);
+            erro(response, HttpServletResponse.SC_BAD_REQUEST, "Os IDs devem ser números separados por vírgula.");
+            return;
+        }
+        excluirLote(lista, FiltroLivros.de(request), response);
+    }
+
+    /**
+     * POST /api/livros/excluir com {"ids": [...]} ou {"anoDe":..., "anoAte":..., "autor":...} no corpo.
+     */
+    private void excluirLoteJson(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (recusarSeReplica(response)) {
+            return;
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        MedicaoRequisicao.marcar(Acao.EXCLUIR_LOTE);
+
+        List<Integer> ids = null;
+        FiltroLivros filtro;
+        try {
+            String corpo = lerCorpo(request, TAMANHO_MAXIMO_CORPO_LOTE);
+            if (corpo == null) {
+                erro(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Corpo da requisição grande demais.");
+                return;
+            }
+            Map<String, Object> dados = Json.lerObjeto(corpo);
+            Object valorIds = dados.get("ids");
+            if (valorIds != null) {
+                if (!(valorIds instanceof List)) {
+                    throw new IllegalArgumentException("\"ids\" deve ser uma lista de números");
+                }
+                ids = new ArrayList<>();
+                for (Object id : (List<?>) valorIds) {
+                    ids.add(inteiro(id, "ids"));
+                }
+            }
+            Object autor = dados.get("autor");
+            if (autor != null && !(autor instanceof String)) {
+                throw new IllegalArgumentException("\"autor\" deve ser um texto");
+            }
+            filtro = new FiltroLivros(inteiroOuNulo(dados.get("anoDe"), "anoDe"),
+                    inteiroOuNulo(dados.get("anoAte"), "anoAte"), (String) autor);
+        } catch (IllegalArgumentException e) {
+            MedicaoRequisicao.erro(CategoriaErro.JSON_INVALIDO);
+            erro(response, HttpServletResponse.SC_BAD_REQUEST, "JSON inválido: " + e.getMessage() + ".");
+            return;
+        }
+        excluirLote(ids, filtro, response);
+    }
+
+    /**
+     * Faz a exclusão em lote (pelos IDs, se vieram; senão pelo filtro) e responde {"removidos": N}.
+     * Pedir as duas coisas juntas é ambíguo, e não pedir nenhuma apagaria o catálogo: as duas dão 400.
+     */
+    private void excluirLote(List<Integer> ids, FiltroLivros filtro, HttpServletResponse response)
+            throws IOException {
+        if (ids != null && filtro.isAtivo()) {
+            erro(response, HttpServletResponse.SC_BAD_REQUEST, "Informe os IDs ou o filtro, não os dois.");
+            return;
+        }
+        if (ids == null && !filtro.isAtivo()) {
+            erro(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Informe os IDs (ids) ou um filtro (anoDe, anoAte, autor) para a exclusão em lote.");
+            return;
+        }
+        int removidos = ids != null ? catalogo.excluirTodos(ids) : catalogo.excluirPorFiltro(filtro);
+        response.setContentType(TIPO_JSON);
+        response.getWriter().write("{\"removidos\":" + removidos + "}");
+    }
+
+    // Número inteiro do JSON (o leitor devolve Long) ou texto com um número.
+    private static int inteiro(Object valor, String campo) {
+        try {
+            return valor instanceof Long ? Math.toIntExact((Long) valor) : Integer.parseInt(String.valueOf(valor).trim());
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + campo + "\" deve ter só números inteiros");
+        }
+    }
+
+    private static Integer inteiroOuNulo(Object valor, String campo) {
+        return valor == null ? null : inteiro(valor, campo);
+    }
+
+    /**
+     * Monta o livro com as mesmas regras do formulário: campos obrigatórios, título/autor em maiúsculas.
+     */
+    private static Livro montar(Map<String, Object> dados) throws LivroException {
+        Object titulo = dados.get("titulo");
+        Object autor = dados.get("autor");
+        Object ano = dados.get("ano");
+        Object isbn = dados.get("isbn");
+        if (!(titulo instanceof String) || !(autor instanceof String) || ano == null) {
+            throw new LivroException("Os campos titulo, autor e ano são obrigatórios.");
+        }
+        int anoNumero;
+        try {
+            anoNumero = ano instanceof Long ? Math.toIntExact((Long) ano) : Integer.parseInt(ano.toString().trim());
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new LivroException("Ano deve ser um número.");
+        }
+        Livro livro = new Livro();
+        livro.setTitulo(((String) titulo).trim().toUpperCase());
+        livro.setAutor(((String) autor).trim().toUpperCase());
+        livro.setAno(anoNumero);
+        if (isbn instanceof String && !((String) isbn).trim().isEmpty()) {
+            livro.setIsbn(((String) isbn).trim());
+        }
+        livro.validar();
+        return livro;
+    }
+
+    // O começo do JSON das listagens (com ou sem filtro), até o "livros":.
+    private static void escreverPaginacao(Writer saida, long versao, Paginacao paginacao) throws IOException {
+        saida.write("{\"versao\":" + versao
+                + ",\"pagina\":" + paginacao.getPagina()
+                + ",\"limite\":" + paginacao.getLimite()
+                + ",\"total\":" + paginacao.getTotalLivros()
+                + ",\"totalPaginas\":" + paginacao.getTotalPaginas()
+                + ",\"livros\":");
+    }
+
+    /**
+     * Escreve as contagens do catálogo inteiro (não só do filtro), já mantidas pelo índice:
+     * <pre>
+     * ,"facetas":{"decadas":[{"decada":1990,"total":12},...],"autores":[{"autor":"...","total":7},...]}
+     * </pre>
+     */
+    private void escreverFacetas(Writer saida) throws IOException {
+        saida.write(",\"facetas\":{\"decadas\":[");
+        boolean primeiro = true;
+        for (IndiceFacetas.Faceta decada : indiceFacetas.livrosPorDecada()) {
+            saida.write((primeiro ? "{\"decada\":" : ",{\"decada\":") + decada.getValor()
+                    + ",\"total\":" + decada.getQuantidade() + "}");
+            primeiro = false;
+        }
+        saida.write("],\"autores\":[");
+        primeiro = true;
+        for (IndiceFacetas.Faceta autor : indiceFacetas.autoresComMaisLivros(MAX_AUTORES_FACETA)) {
+            saida.write(primeiro ? "{\"autor\":" : ",{\"autor\":");
+            Json.escreverTexto(saida, autor.getValor());
+            saida.write(",\"total\":" + autor.getQuantidade() + "}");
+            primeiro = false;
+        }
+        saida.write("]}");
+    }
+
+    private IndiceFacetas.Resultado filtrar(FiltroLivros filtro, Paginacao paginacao) {
+        return indiceFacetas.filtrar(filtro.getAnoDe(), filtro.getAnoAte(), filtro.getAutor(),
+                paginacao.getInicio(), paginacao.getLimite());
+    }
+
+    /**
+     * Executa a busca no índice e transforma os IDs encontrados em livros.
+     */
+    private List<Livro> buscar(String consulta, int limite) {
+        return livrosDosIds(indiceBusca.buscar(consulta, limite));
+    }
+
+    /**
+     * Transforma os IDs devolvidos por um índice em livros, na mesma ordem.
+     */
+    private List<Livro> livrosDosIds(List<Integer> ids) {
+        List<Livro> encontrados = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Livro livro = livros.buscarPorId(id);
+            if (livro != null) { // Pode ter sido excluído entre a consulta ao índice e este momento.
+                encontrados.add(livro);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Abre o destino do JSON: compactado com gzip se o cliente aceitar, ou direto.
+     */
+    private static Writer abrirSaida(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (aceitaGzip(request.getHeader("Accept-Encoding"))) {
+            response.setHeader("Content-Encoding", "gzip");
+            return new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(response.getOutputStream(), 8192), StandardCharsets.UTF_8), 8192);
+        }
+        return response.getWriter();
+    }
+
+    /**
+     * Confere se o cliente aceita gzip: "gzip" ou "*" no Accept-Encoding, sem "q=0".
+     */
+    static boolean aceitaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] partes = item.split(";");
+            String nome = partes[0].trim();
+            if (!nome.equalsIgnoreCase("gzip") && !nome.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        if (Double.parseDouble(parametro.substring(2)) <= 0) {
+                            return false;
+                        }
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compara o If-None-Match do cliente com o ETag atual. Comparação "fraca" (ignora o W/),
+     * como manda o HTTP para o If-None-Match; o cabeçalho pode ter vários ETags separados por vírgula.
+     */
+    static boolean etagCombina(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String nosso = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String item : ifNoneMatch.split(",")) {
+            String deles = item.trim();
+            if (deles.equals("*")) {
+                return true;
+            }
+            if (deles.startsWith("W/")) {
+                deles = deles.substring(2);
+            }
+            if (deles.equals(nosso)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Integer idDoCaminho(String caminho) {
+        String texto = caminho.startsWith("/") ? caminho.substring(1) : caminho;
+        if (texto.endsWith("/")) {
+            texto = texto.substring(0, texto.length() - 1);
+        }
+        try {
+            return Integer.valueOf(texto);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lê o corpo inteiro da requisição como texto.
+     *
+     * @param maximo O tamanho máximo aceito, em caracteres.
+     * @return O corpo, ou {@code null} se passar de {@code maximo} caracteres.
+     */
+    private static String lerCorpo(HttpServletRequest request, int maximo) throws IOException {
+        StringBuilder corpo = new StringBuilder();
+        char[] buffer = new char[4096];
+        BufferedReader leitor = request.getReader();
+        int lidos;
+        while ((lidos = leitor.read(buffer)) != -1) {
+            corpo.append(buffer, 0, lidos);
+            if (corpo.length() > maximo) {
+                return null;
+            }
+        }
+        return corpo.toString();
+    }
+
+    /**
+     * Numa réplica o catálogo só muda pelo primário: responde 405 e avisa quais métodos valem aqui.
+     *
+     * @return Se a requisição foi recusada.
+     */
+    private boolean recusarSeReplica(HttpServletResponse response) throws IOException {
+        if (!catalogo.isSomenteLeitura()) {
+            return false;
+        }
+        MedicaoRequisicao.marcar(Acao.RECUSADA);
+        response.setHeader("Allow", "GET, HEAD");
+        erro(response, HttpServletResponse.SC_METHOD_NOT_ALLOWED, CatalogoAplicacao.MENSAGEM_SOMENTE_LEITURA);
+        return true;
+    }
+
+    /**
+     * Responde 409 com o livro que já existe: {"erro": "mensagem", "idExistente": 42, "aproximado": false}.
+     * Com "aproximado": true, o cliente pode repetir o pedido com "aceitarParecidos": true.
+     */
+    private static void duplicado(HttpServletResponse response, LivroDuplicadoException e) throws IOException {
+        response.setStatus(HttpServletResponse.SC_CONFLICT);
+        response.setContentType(TIPO_JSON);
+        Writer saida = response.getWriter();
+        saida.write("{\"erro\":");
+        Json.escreverTexto(saida, e.getMessage());
+        saida.write(",\"idExistente\":" + e.getIdExistente() + ",\"aproximado\":" + e.isAproximado() + "}");
+    }
+
+    /**
+     * Responde um erro em JSON: {"erro": "mensagem"}.
+     */
+    private static void erro(HttpServletResponse response, int status, String mensagem) throws IOException {
+        response.setStatus(status);
+        response.setContentType(TIPO_JSON);
+        Writer saida = response.getWriter();
+        saida.write("{\"erro\":");
+        Json.escreverTexto(saida, mensagem);
+        saida.write('}');
+    }
+}
@@ -1,9 +1,21 @@
 package br.com.wagnerv.controller; // Define o pacote onde a classe está localizada.
 // 'controller' indica que esta classe é responsável por controlar o fluxo da aplicação.
 
+import br.com.wagnerv.config.CatalogoAplicacao; // Peças do catálogo montadas na subida da aplicação.
 import br.com.wagnerv.exception.LivroException; // Importa a classe de exceção personalizada para Livro.
+import br.com.wagnerv.execucao.ExecucaoAssincrona; // Executores (com limites) das requisições assíncronas.
+import br.com.wagnerv.indice.IndiceBusca;     // Índice invertido para a busca por título/autor.
+import br.com.wagnerv.indice.IndiceFacetas;   // Filtros por ano/autor e contagens por década/autor.
+import br.com.wagnerv.metricas.Acao;           // O que a requisição fez (para as métricas).
+import br.com.wagnerv.metricas.CategoriaErro;  // Tipo do erro de validação (para as métricas).
+import br.com.wagnerv.metricas.MedicaoRequisicao; // Informa às métricas o que a requisição fez.
 import br.com.wagnerv.model.Livro;             // Importa a classe de modelo Livro (representa um livro).
-import br.com.wagnerv.util.GerarHtmlLivro;     // Importa a classe utilitária para gerar o HTML dos livros.
+import br.com.wagnerv.repository.CatalogoSnapshot;       // "Fotografia" do catálogo usada na listagem.
+import br.com.wagnerv.repository.LivroRepository;        // Contrato do catálogo de livros.
+import br.com.wagnerv.util.CacheFragmentosHtml; // Cache dos cards HTML já montados, um por livro.
+import br.com.wagnerv.util.FiltroLivros;       // Filtro da listagem por ano/autor.
+import br.com.wagnerv.util.GerarHtmlLivro;     // Escreve os cards direto na resposta (usado na busca "parcial").
+import br.com.wagnerv.util.Paginacao;          // Contas da paginação da listagem (página/limite).
 
 import jakarta.servlet.ServletException;         // Classes para manipulação de Servlets.
 import jakarta.servlet.annotation.WebServlet;    // Anotação para mapear o Servlet a uma URL.
@@ -12,9 +24,8 @@ import jakarta.servlet.http.HttpServletRequest;  // Objeto que representa a requ
 import jakarta.servlet.http.HttpServletResponse; // Objeto que representa a resposta HTTP.
 
 import java.io.IOException;     // Exceção de I/O (Input/Output).
-import java.util.ArrayList;     // Implementação de lista dinâmica.
-import java.util.Collections;   // Utilitários para coleções, incluindo sincronização.
-import java.util.List;          // Interface para lista de objetos.
+import java.util.ArrayList;                    // Lista com os livros encontrados na busca.
+import java.util.List;                         // Interface de lista.
 
 /**
  * Servlet principal responsável por gerenciar as operações CRUD (Create, Read, Update, Delete)
@@ -26,18 +37,44 @@ import java.util.List;          // Interface para lista de objetos.
  * - `value = "/livros"`: Mapeia este Servlet para a URL "/livros".
  * Isso significa que toda requisição para "http://seu_servidor/seu_app/livros"
  * será processada por este Servlet.
+ * - `asyncSupported = true`: permite atender a requisição em outra thread (modo assíncrono).
+ *
+ * Modo assíncrono (ligado por padrão, veja o InicializadorCatalogo): a thread do Tomcat só
+ * entrega a requisição para um executor e volta a atender outras. Leituras (listagem, busca) e
+ * escritas (inclusão, exclusão) têm executores separados, cada um com o seu limite de requisições
+ * simultâneas e a sua fila. Assim, num pico de listagens grandes, as inclusões e exclusões não
+ * ficam presas atrás delas; e quando uma fila enche, o usuário recebe na hora um "503 - servidor
+ * ocupado" com o cabeçalho Retry-After, em vez de ficar esperando até o navegador desistir.
  */
-@WebServlet(name = "livroServlet", value = "/livros")
+@WebServlet(name = "livroServlet", value = "/livros", asyncSupported = true)
 public class LivroServlet extends HttpServlet {
 
     // Identificador de serialização para garantir compatibilidade em diferentes versões.
     private static final long serialVersionUID = 1L;
 
-    // Lista estática e sincronizada para armazenar os objetos Livro em memória.
-    // 'static' significa que a lista é compartilhada por todas as instâncias do Servlet (na prática, uma única).
-    // 'synchronizedList' garante que a lista seja thread-safe, evitando problemas de concorrência
-    // quando múltiplos usuários acessam simultaneamente.
-    private List<Livro> livros;
+    // Quantos autores aparecem na faceta "autores com mais livros".
+    private static final int MAX_AUTORES_FACETA = 10;
+
+    // Catálogo onde os objetos Livro ficam armazenados em memória.
+    // O repositório é thread-safe: excluir por ID é O(1) e a listagem lê um snapshot
+    // sem lock, então quem está listando nunca trava (nem é travado por) quem está escrevendo.
+    private LivroRepository livros;
+
+    // Catálogo completo da aplicação: repositório, cache de cards, índice de busca e persistência.
+    // Quem cria tudo isso é o InicializadorCatalogo, quando a aplicação sobe.
+    private CatalogoAplicacao catalogo;
+
+    // Cache dos cards HTML: cada card é montado uma vez (quando o livro entra) e reaproveitado nas listagens.
+    private CacheFragmentosHtml cacheFragmentos;
+
+    // Índice invertido de título/autor usado pela busca ("/livros?q=...").
+    private IndiceBusca indiceBusca;
+
+    // Índices por ano e por autor usados nos filtros ("/livros?anoDe=1990&autor=...") e nas facetas.
+    private IndiceFacetas indiceFacetas;
+
+    // Executores do modo assíncrono (null quando as requisições são atendidas nas threads do Tomcat).
+    private ExecucaoAssincrona execucao;
 
     /**
      * Método de inicialização do Servlet.
@@ -45,11 +82,16 @@ public class LivroServlet extends HttpServlet {
      */
     @Override
     public void init() {
-        // Inicializa a lista de livros como uma ArrayList sincronizada.
-        livros = Collections.synchronizedList(new ArrayList<>());
+        // Pega as peças do catálogo montadas (e restauradas do disco) na subida da aplicação.
+        catalogo = CatalogoAplicacao.de(getServletContext());
+        livros = catalogo.getLivros();
+        cacheFragmentos = catalogo.getCacheFragmentos();
+        indiceBusca = catalogo.getIndiceBusca();
+        indiceFacetas = catalogo.getIndiceFacetas();
+        execucao = catalogo.getExecucao();
         // Exemplo: Para um trabalho, você pode adicionar alguns livros iniciais aqui para teste
-        // livros.add(new Livro(1, "O Pequeno Príncipe", "Antoine de Saint-Exupéry", 1943, "978-85-7973-045-8"));
-        // livros.add(new Livro(2, "Dom Casmurro", "Machado de Assis", 1899, "978-85-8021-036-7"));
+        // livros.adicionar(new Livro(1, "O Pequeno Príncipe", "Antoine de Saint-Exupéry", 1943, "978-85-7973-045-8"));
+        // livros.adicionar(new Livro(2, "Dom Casmurro", "Machado de Assis", 1899, "978-85-8021-036-7"));
     }
 
     /**
@@ -58,6 +100,10 @@ public class LivroServlet extends HttpServlet {
      * (ex: ao digitar a URL ou clicar em um link).
      * Sua principal função é exibir a lista de livros existente.
      *
+     * Se vier o parâmetro 'q' (ex: "/livros?q=machado"), mostra o resultado da busca em vez da listagem.
+     * Com 'anoDe', 'anoAte' ou 'autor' (ex: "/livros?anoDe=1990&anoAte=1999"), lista só os livros do filtro.
+     * Com 'parcial=1', devolve só os cards (sem o resto da página), para a busca "enquanto digita".
+     *
      * @param request  Objeto HttpServletRequest contendo a requisição do cliente.
      * @param response Objeto HttpServletResponse para enviar a resposta ao cliente.
      * @throws ServletException Exceção lançada por erros no Servlet.
@@ -66,13 +112,46 @@ public class LivroServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        // Gera o HTML formatado dos livros usando a classe utilitária GerarHtmlLivro.
-        // Isso separa a lógica de renderização HTML do Servlet, mantendo o código mais limpo.
-        String htmlLivros = GerarHtmlLivro.gerar(request, livros);
+        if (execucao == null) {
+            atenderGet(request, response);
+        } else {
+            AtendimentoAssincrono.atender(execucao, execucao.getLeituras(), request, response, this::atenderGet);
+        }
+    }
+
+    // O atendimento do GET em si (na thread do Tomcat ou na do executor de leituras).
+    private void atenderGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String consulta = request.getParameter("q");
+        if (consulta != null && !consulta.trim().isEmpty()) {
+            MedicaoRequisicao.marcar(Acao.BUSCAR);
+            List<Livro> encontrados = buscar(consulta, Paginacao.limiteDe(request));
+            if (request.getParameter("parcial") != null) {
+                // Só os cards: o JavaScript da página troca a lista pelo resultado.
+                response.setContentType("text/html;charset=UTF-8");
+                GerarHtmlLivro.escrever(request.getContextPath(), encontrados, response.getWriter(), cacheFragmentos);
+                return;
+            }
+            request.setAttribute("livrosPagina", encontrados);
+            request.setAttribute("busca", consulta);
+            request.getRequestDispatcher("/view/index.jsp").forward(request, response);
+            return;
+        }
 
-        // Define o HTML gerado como um atributo no objeto request.
-        // Este atributo estará disponível para o JSP.
-        request.setAttribute("htmlLivros", htmlLivros);
+        FiltroLivros filtro = FiltroLivros.de(request);
+        MedicaoRequisicao.marcar(filtro.isAtivo() ? Acao.FILTRAR : Acao.LISTAR);
+        // Anotado ANTES de separar a página: a página pede ao /livros/eventos tudo o que vier depois
+        // daqui, então nenhuma alteração feita enquanto ela é montada fica de fora.
+        request.setAttribute("ultimoEvento", catalogo.getEventos().getUltimoId());
+        // Separa apenas a página pedida do catálogo (parâmetros 'pagina' e 'limite').
+        // O HTML dos cards NÃO é montado aqui: a JSP chama o GerarHtmlLivro em modo streaming,
+        // escrevendo card por card direto na resposta. Assim a memória usada por requisição
+        // não cresce junto com o catálogo.
+        if (filtro.isAtivo()) {
+            prepararListagemFiltrada(request, filtro);
+        } else {
+            prepararListagem(request);
+        }
 
         // Encaminha (forward) a requisição para a página JSP (index.jsp) na pasta /view.
         // O forward mantém o mesmo objeto request e response, permitindo que o JSP acesse os atributos definidos.
@@ -83,7 +162,10 @@ public class LivroServlet extends HttpServlet {
     /**
      * Processa as requisições HTTP POST.
      * Este método é chamado quando um formulário HTML é submetido via método POST para "/livros".
-     * Lida com as ações de "deletar" e "adicionar" livros.
+     * Lida com as ações de "deletar" e "adicionar" livros, e com as exclusões em lote:
+     * - 'action=deleteMany': exclui os IDs do campo 'ids' ("1, 2, 3" ou um por linha);
+     * - 'action=deleteFilter': exclui todos os livros do filtro ('anoDe', 'anoAte', 'autor').
+     * As duas fazem uma única escrita no catálogo e voltam para a listagem com "?removidos=N".
      *
      * @param request  Objeto HttpServletRequest contendo a requisição do cliente (dados do formulário).
      * @param response Objeto HttpServletResponse para enviar a resposta ao cliente.
@@ -93,28 +175,55 @@ public class LivroServlet extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
+        if (execucao == null) {
+            atenderPost(request, response);
+        } else {
+            AtendimentoAssincrono.atender(execucao, execucao.getEscritas(), request, response, this::atenderPost);
+        }
+    }
+
+    // O atendimento do POST em si (na thread do Tomcat ou na do executor de escritas).
+    private void atenderPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        // O formulário é enviado em UTF-8 (a página é UTF-8). Sem isso, "Memórias" chegaria
+        // como "MemÃ³rias" e a busca sem acentos não encontraria o livro.
+        request.setCharacterEncoding("UTF-8");
+
+        // Numa réplica o catálogo só muda pelo primário: mostra a lista com o aviso, sem alterar nada.
+        if (catalogo.isSomenteLeitura()) {
+            MedicaoRequisicao.marcar(Acao.RECUSADA);
+            response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            response.setHeader("Allow", "GET, HEAD");
+            request.setAttribute("mensagemErro", CatalogoAplicacao.MENSAGEM_SOMENTE_LEITURA);
+            prepararListagem(request);
+            request.getRequestDispatcher("/view/index.jsp").forward(request, response);
+            return;
+        }
 
         // Obtém o parâmetro 'action' do formulário para determinar qual operação realizar.
         String action = request.getParameter("action");
 
         // --- Lógica para EXCLUIR um livro ---
         if ("delete".equals(action)) {
+            MedicaoRequisicao.marcar(Acao.EXCLUIR);
             // Obtém o ID do livro a ser excluído do parâmetro da requisição.
             String id = request.getParameter("id");
             if (id != null && !id.isEmpty()) {
                 try {
                     // Converte o ID de String para int.
                     int idParse = Integer.parseInt(id);
-                    // Bloco sincronizado para garantir segurança de thread ao modificar a lista.
-                    synchronized (livros) {
-                        // Remove o livro da lista se o ID corresponder.
-                        // Usa removeIf para remover condicionalmente, iterando pela lista.
-                        livros.removeIf(livro -> livro.getId() == idParse);
+                    // Remove o livro direto pelo ID, sem percorrer o catálogo.
+                    // O próprio repositório cuida da segurança de thread.
+                    if (livros.remover(idParse)) {
+                        // Só responde depois que a exclusão está gravada no disco.
+                        catalogo.aguardarGravacao();
                     }
                 } catch (NumberFormatException e) {
                     // Trata o caso em que o ID não é um número válido.
                     // Para um trabalho, você pode adicionar uma mensagem de erro aqui também.
                     System.err.println("Erro ao converter ID para exclusão: " + e.getMessage());
+                    MedicaoRequisicao.erro(CategoriaErro.ID_INVALIDO);
                 }
             }
             // Após a exclusão, redireciona o usuário para a página de listagem de livros.
@@ -124,6 +233,34 @@ public class LivroServlet extends HttpServlet {
             return; // Encerra o método após o redirecionamento para 'delete'.
         }
 
+        // --- Lógica para EXCLUIR VÁRIOS livros (lista de IDs ou filtro) ---
+        if ("deleteMany".equals(action) || "deleteFilter".equals(action)) {
+            MedicaoRequisicao.marcar(Acao.EXCLUIR_LOTE);
+            int removidos;
+            try {
+                if ("deleteMany".equals(action)) {
+                    List<Integer> ids = IdsLote.ler(request.getParameterValues("ids"));
+                    if (ids.isEmpty()) {
+                        recusarLote(request, response, "Informe ao menos um ID para excluir.");
+                        return;
+                    }
+                    removidos = catalogo.excluirTodos(ids);
+                } else {
+                    removidos = catalogo.excluirPorFiltro(FiltroLivros.de(request));
+                }
+            } catch (NumberFormatException e) {
+                MedicaoRequisicao.erro(CategoriaErro.ID_INVALIDO);
+                recusarLote(request, response, "Os IDs devem ser números separados por vírgula, espaço ou linha.");
+                return;
+            } catch (IllegalArgumentException e) {
+                recusarLote(request, response, e.getMessage()); // Filtro vazio.
+                return;
+            }
+            // Post/Redirect/Get, como na exclusão de um livro; a listagem mostra quantos saíram.
+            response.sendRedirect(request.getContextPath() + "/livros?removidos=" + removidos);
+            return;
+        }
+
         // --- Lógica para ADICIONAR um livro ---
         try {
             // Obtém os parâmetros do formulário de adição de livro.
@@ -157,28 +294,119 @@ public class LivroServlet extends HttpServlet {
             // Isso exemplifica a lógica de negócio dentro do modelo ou próxima a ele.
             livro.validar(); // Supondo que Livro.validar() possa lançar LivroException
 
-            // Bloco sincronizado para garantir segurança de thread ao adicionar à lista.
-            synchronized (livros) {
-                // Adiciona o novo livro à lista.
-                livros.add(livro);
-            }
+            // Adiciona o novo livro ao catálogo (o repositório é thread-safe). Se ele já estiver
+            // cadastrado, a LivroException (LivroDuplicadoException) cai no catch abaixo, como os
+            // outros erros de validação. "aceitarParecidos" vem da caixa "Cadastrar mesmo assim".
+            // Só responde depois que a inclusão está gravada no disco: se o servidor cair logo
+            // depois do redirecionamento, o livro não se perde.
+            catalogo.adicionar(livro, "1".equals(request.getParameter("aceitarParecidos")));
+            MedicaoRequisicao.marcar(Acao.ADICIONAR);
             // Redireciona o usuário para a página de listagem de livros após a adição bem-sucedida.
             response.sendRedirect(request.getContextPath() + "/livros");
 
         } catch (NumberFormatException e) {
             // Captura a exceção se o 'ano' não puder ser convertido para um número.
             request.setAttribute("mensagemErro", "Ano deve ser um número."); // Define mensagem de erro.
-            // Gera novamente o HTML dos livros para exibir a lista existente.
-            request.setAttribute("htmlLivros", GerarHtmlLivro.gerar(request, livros));
+            MedicaoRequisicao.erro(CategoriaErro.ANO); // Conta o erro nas métricas ("/metrics").
+            // Prepara novamente a página de livros para exibir a lista existente.
+            prepararListagem(request);
             // Encaminha para o JSP para exibir a página com a mensagem de erro e a lista.
             request.getRequestDispatcher("/view/index.jsp").forward(request, response);
         } catch (LivroException e) {
             // Captura a exceção personalizada LivroException (ex: validação do livro falhou).
             request.setAttribute("mensagemErro", e.getMessage()); // Define a mensagem de erro da exceção.
-            // Gera novamente o HTML dos livros para exibir a lista existente.
-            request.setAttribute("htmlLivros", GerarHtmlLivro.gerar(request, livros));
+            MedicaoRequisicao.erro(e); // Conta o erro nas métricas, pela categoria da mensagem.
+            // Prepara novamente a página de livros para exibir a lista existente.
+            prepararListagem(request);
             // Encaminha para o JSP para exibir a página com a mensagem de erro e a lista.
             request.getRequestDispatcher("/view/index.jsp").forward(request, response);
         }
     }
-}
\ No newline at end of file
+
+    // Volta para a listagem com a mensagem de erro da exclusão em lote (nada foi excluído).
+    private void recusarLote(HttpServletRequest request, HttpServletResponse response, String mensagem)
+            throws ServletException, IOException {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        request.setAttribute("mensagemErro", mensagem);
+        prepararListagem(request);
+        request.getRequestDispatcher("/view/index.jsp").forward(request, response);
+    }
+
+    /**
+     * Coloca na requisição os atributos que a JSP usa para desenhar a listagem:
+     * - "livrosPagina": os livros da página pedida (lidos de um snapshot do catálogo).
+     * - "paginacao": as contas da paginação, para os links "anterior/próxima".
+     * - "decadas" e "autoresMaisLivros": as facetas da lateral (veja {@link #prepararFacetas}).
+     *
+     * @param request A requisição que será encaminhada para a JSP.
+     */
+    private void prepararListagem(HttpServletRequest request) {
+        // Uma única fotografia garante que o total de páginas e os livros mostrados "batem".
+        CatalogoSnapshot snapshot = livros.snapshot();
+        Paginacao paginacao = Paginacao.de(request, snapshot.tamanho());
+        request.setAttribute("livrosPagina", snapshot.pagina(paginacao.getInicio(), paginacao.getLimite()));
+        request.setAttribute("paginacao", paginacao);
+        prepararFacetas(request);
+    }
+
+    /**
+     * Como {@link #prepararListagem}, mas só com os livros do filtro, em ordem de (ano, ID).
+     * A página e o total vêm dos índices por ano/autor, sem percorrer o catálogo. Também
+     * coloca o atributo "filtro", para a JSP mostrar o filtro ativo e mantê-lo nos links das páginas.
+     */
+    private void prepararListagemFiltrada(HttpServletRequest request, FiltroLivros filtro) {
+        // O total só é conhecido depois da consulta: primeiro vale a página pedida, como veio.
+        Paginacao pedida = Paginacao.de(request, Integer.MAX_VALUE);
+        IndiceFacetas.Resultado resultado = filtrar(filtro, pedida);
+        Paginacao paginacao = new Paginacao(pedida.getPagina(), pedida.getLimite(), resultado.getTotal());
+        if (paginacao.getInicio() != pedida.getInicio()) {
+            // Pediram uma página depois da última: mostra a última, como na listagem sem filtro.
+            resultado = filtrar(filtro, paginacao);
+            paginacao = new Paginacao(paginacao.getPagina(), paginacao.getLimite(), resultado.getTotal());
+        }
+        request.setAttribute("livrosPagina", livrosDosIds(resultado.getIds()));
+        request.setAttribute("paginacao", paginacao);
+        request.setAttribute("filtro", filtro);
+        prepararFacetas(request);
+    }
+
+    private IndiceFacetas.Resultado filtrar(FiltroLivros filtro, Paginacao paginacao) {
+        return indiceFacetas.filtrar(filtro.getAnoDe(), filtro.getAnoAte(), filtro.getAutor(),
+                paginacao.getInicio(), paginacao.getLimite());
+    }
+
+    /**
+     * Coloca as contagens da lateral da página: livros por década e os autores com mais livros.
+     * As duas já ficam calculadas nos índices (atualizados a cada inclusão/exclusão), então aqui
+     * é só copiar umas poucas dezenas de números.
+     */
+    private void prepararFacetas(HttpServletRequest request) {
+        request.setAttribute("decadas", indiceFacetas.livrosPorDecada());
+        request.setAttribute("autoresMaisLivros", indiceFacetas.autoresComMaisLivros(MAX_AUTORES_FACETA));
+    }
+
+    /**
+     * Executa a busca no índice e transforma os IDs encontrados em livros.
+     *
+     * @param consulta O texto digitado.
+     * @param limite Quantos livros devolver no máximo.
+     * @return Os livros encontrados, do mais para o menos relevante.
+     */
+    private List<Livro> buscar(String consulta, int limite) {
+        return livrosDosIds(indiceBusca.buscar(consulta, limite));
+    }
+
+    /**
+     * Transforma os IDs devolvidos por um índice em livros, na mesma ordem.
+     */
+    private List<Livro> livrosDosIds(List<Integer> ids) {
+        List<Livro> encontrados = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Livro livro = livros.buscarPorId(id);
+            if (livro != null) { // Pode ter sido excluído entre a consulta ao índice e agora.
+                encontrados.add(livro);
+            }
+        }
+        return encontrados;
+    }
+}
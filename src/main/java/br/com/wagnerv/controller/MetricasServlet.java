@@ -0,0 +1,128 @@
+package br.com.wagnerv.controller; // Pacote dos controladores (Servlets).
+
+import br.com.wagnerv.config.CatalogoAplicacao;        // Catálogo, cache e métricas da aplicação.
+import br.com.wagnerv.execucao.ExecucaoAssincrona;     // Executores das requisições assíncronas.
+import br.com.wagnerv.execucao.ExecutorAdmissao;       // Ocupação e recusas de cada executor.
+import br.com.wagnerv.metricas.MetricasRequisicoes;    // Tempos, tamanhos e erros das requisições.
+import br.com.wagnerv.replicacao.ClienteReplicacao;    // Situação da réplica.
+import br.com.wagnerv.replicacao.NoReplicacao;         // Papel deste servidor na replicação.
+import br.com.wagnerv.util.CacheFragmentosHtml;        // Contadores do cache de cards.
+
+import jakarta.servlet.ServletException;         // Erros do Servlet.
+import jakarta.servlet.annotation.WebServlet;    // Mapeia o Servlet para uma URL.
+import jakarta.servlet.http.HttpServlet;         // Classe base para Servlets HTTP.
+import jakarta.servlet.http.HttpServletRequest;  // A requisição.
+import jakarta.servlet.http.HttpServletResponse; // A resposta.
+
+import java.io.IOException; // Erros de I/O.
+import java.io.Writer;      // Onde as métricas são escritas.
+
+/**
+ * Publica as métricas da aplicação no formato de texto do Prometheus: {@code GET /metrics}.
+ *
+ * Além das métricas das requisições ({@link MetricasRequisicoes}), mostra o tamanho do catálogo
+ * e os contadores do cache de cards (os mesmos que aparecem no JMX), as páginas conectadas às
+ * atualizações ao vivo e, no modo assíncrono, a ocupação dos executores de leituras e escritas
+ * e, com a replicação ligada, a posição do primário ou o atraso da réplica.
+ *
+ * Exemplo de configuração no Prometheus:
+ * <pre>
+ * scrape_configs:
+ *   - job_name: biblioteca
+ *     metrics_path: /biblioteca/metrics
+ *     static_configs:
+ *       - targets: ['servidor:8080']
+ * </pre>
+ */
+@WebServlet(name = "metricasServlet", value = "/metrics")
+public class MetricasServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private CatalogoAplicacao catalogo;
+
+    @Override
+    public void init() {
+        catalogo = CatalogoAplicacao.de(getServletContext());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=UTF-8"); // Tipo do formato de texto do Prometheus.
+        response.setHeader("Cache-Control", "no-store");
+        // Monta tudo antes de escrever: a resposta sai de uma vez só, e um erro no meio não manda métricas pela metade.
+        StringBuilder texto = new StringBuilder(8192);
+        catalogo.getMetricas().escrever(texto, System.nanoTime());
+
+        MetricasRequisicoes.cabecalho(texto, "biblioteca_catalogo_livros", "gauge", "Livros no catálogo.");
+        texto.append("biblioteca_catalogo_livros ").append(catalogo.getLivros().tamanho()).append('\n');
+
+        CacheFragmentosHtml cache = catalogo.getCacheFragmentos();
+        MetricasRequisicoes.cabecalho(texto, "biblioteca_cache_cards_acertos_total", "counter",
+                "Cards HTML encontrados prontos no cache.");
+        texto.append("biblioteca_cache_cards_acertos_total ").append(cache.getAcertos()).append('\n');
+        MetricasRequisicoes.cabecalho(texto, "biblioteca_cache_cards_falhas_total", "counter",
+                "Cards HTML que precisaram ser montados de novo.");
+        texto.append("biblioteca_cache_cards_falhas_total ").append(cache.getFalhas()).append('\n');
+        MetricasRequisicoes.cabecalho(texto, "biblioteca_cache_cards_despejos_total", "counter",
+                "Cards HTML tirados do cache por falta de espaço.");
+        texto.append("biblioteca_cache_cards_despejos_total ").append(cache.getDespejos()).append('\n');
+        MetricasRequisicoes.cabecalho(texto, "biblioteca_cache_cards_bytes", "gauge",
+                "Tamanho aproximado dos cards no cache.");
+        texto.append("biblioteca_cache_cards_bytes ").append(cache.getTamanhoBytes()).append('\n');
+
+        MetricasRequisicoes.cabecalho(texto, "biblioteca_eventos_conexoes", "gauge",
+                "Páginas conectadas recebendo as atualizações ao vivo.");
+        texto.append("biblioteca_eventos_conexoes ").append(catalogo.getEventos().getConexoesAbertas()).append('\n');
+
+        ExecucaoAssincrona execucao = catalogo.getExecucao();
+        if (execucao != null) {
+            ExecutorAdmissao[] executores = {execucao.getLeituras(), execucao.getEscritas()};
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_executor_ativas", "gauge",
+                    "Requisições sendo atendidas agora, por executor.");
+            for (ExecutorAdmissao executor : executores) {
+                texto.append("biblioteca_executor_ativas{executor=\"").append(executor.getNome()).append("\"} ")
+                        .append(executor.getAtivas()).append('\n');
+            }
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_executor_fila", "gauge",
+                    "Requisições esperando a vez, por executor.");
+            for (ExecutorAdmissao executor : executores) {
+                texto.append("biblioteca_executor_fila{executor=\"").append(executor.getNome()).append("\"} ")
+                        .append(executor.getNaFila()).append('\n');
+            }
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_executor_recusadas_total", "counter",
+                    "Requisições recusadas com 503 por fila cheia, por executor.");
+            for (ExecutorAdmissao executor : executores) {
+                texto.append("biblioteca_executor_recusadas_total{executor=\"").append(executor.getNome())
+                        .append("\"} ").append(executor.getRecusadas()).append('\n');
+            }
+        }
+
+        NoReplicacao replicacao = catalogo.getReplicacao();
+        if (replicacao != null && !replicacao.isReplica()) {
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_replicacao_sequencia", "counter",
+                    "Número da última alteração enviada (primário) ou aplicada (réplica).");
+            texto.append("biblioteca_replicacao_sequencia ").append(replicacao.getFeed().getUltimaSequencia()).append('\n');
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_replicacao_replicas", "gauge",
+                    "Réplicas conectadas a este primário.");
+            texto.append("biblioteca_replicacao_replicas ").append(replicacao.getServidor().getReplicasConectadas())
+                    .append('\n');
+        } else if (replicacao != null) {
+            ClienteReplicacao cliente = replicacao.getCliente();
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_replicacao_sequencia", "counter",
+                    "Número da última alteração enviada (primário) ou aplicada (réplica).");
+            texto.append("biblioteca_replicacao_sequencia ").append(cliente.getSequencia()).append('\n');
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_replicacao_conectada", "gauge",
+                    "1 se a réplica está conectada ao primário.");
+            texto.append("biblioteca_replicacao_conectada ").append(cliente.isConectado() ? 1 : 0).append('\n');
+            MetricasRequisicoes.cabecalho(texto, "biblioteca_replicacao_atraso_alteracoes", "gauge",
+                    "Alterações do primário que a réplica ainda não aplicou (até onde ela sabe).");
+            texto.append("biblioteca_replicacao_atraso_alteracoes ").append(cliente.getAtraso()).append('\n');
+        }
+
+        Writer saida = response.getWriter();
+        saida.append(texto);
+        saida.flush();
+    }
+}
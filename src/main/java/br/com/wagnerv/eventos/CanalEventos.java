@@ -0,0 +1,341 @@
+package br.com.wagnerv.eventos; // Pacote das atualizações "ao vivo" da página (Server-Sent Events).
+// Quem está com a página do catálogo aberta recebe cada inclusão e exclusão assim que elas
+// acontecem, sem recarregar a página inteira.
+
+import br.com.wagnerv.model.Livro;                  // O livro adicionado ou removido.
+import br.com.wagnerv.repository.CatalogoListener;  // Para ser avisado de cada alteração do catálogo.
+import br.com.wagnerv.util.GerarHtmlLivro;          // O mesmo card da listagem.
+import br.com.wagnerv.util.Json;                    // O card vai dentro de um texto JSON.
+
+import jakarta.servlet.AsyncContext; // A conexão que fica aberta recebendo os eventos.
+
+import java.io.Closeable;                           // Para a thread e as conexões na descida da aplicação.
+import java.io.IOException;                         // Erros ao montar o evento.
+import java.nio.charset.StandardCharsets;           // Eventos em UTF-8.
+import java.util.ArrayList;                         // Conexões abertas (só a thread do canal mexe).
+import java.util.Iterator;                          // Para tirar as conexões fechadas da lista.
+import java.util.List;                              // Interface de lista.
+import java.util.concurrent.ConcurrentLinkedQueue;  // Conexões novas, esperando a thread do canal.
+import java.util.concurrent.ThreadLocalRandom;      // Para sortear a "época" da numeração.
+import java.util.concurrent.TimeUnit;               // Unidades de tempo da espera.
+import java.util.concurrent.atomic.AtomicInteger;   // Conexões abertas (para o limite e as métricas).
+import java.util.concurrent.locks.Condition;        // "Chegou novidade": acorda a thread do canal.
+import java.util.concurrent.locks.ReentrantLock;    // Protege o histórico.
+
+/**
+ * Canal de eventos do catálogo para as páginas abertas ({@code GET /livros/eventos}, no formato
+ * Server-Sent Events do navegador).
+ *
+ * Cada inclusão e exclusão recebe um número de sequência e vai para um histórico circular (como
+ * no {@code FeedAlteracoes} da replicação). Uma única thread, a do canal, lê o histórico, monta
+ * cada evento UMA vez (o card vem do mesmo {@link GerarHtmlLivro} da listagem) e entrega os
+ * mesmos bytes para todas as conexões. As escritas são não bloqueantes (Servlet 3.1): uma conexão
+ * lenta guarda o que falta enviar e a thread segue para as outras, sem precisar de uma thread por
+ * navegador. Quem acumula demais é desconectado e, ao voltar, recebe o que perdeu.
+ *
+ * Eventos enviados:
+ * <pre>
+ * id: 5f3a9c01:42
+ * event: adicionado
+ * data: {"id":1234,"html":"&lt;div class='livro-card' ...&gt;...&lt;/div&gt;"}
+ *
+ * id: 5f3a9c01:43
+ * event: removido
+ * data: {"id":1234}
+ *
+ * event: recarregar      (mudou coisa demais de uma vez, ou a página ficou para trás: recarregue)
+ * data: {}
+ * </pre>
+ * O "id" é "época:sequência": o navegador o manda de volta no cabeçalho "Last-Event-ID" quando
+ * reconecta, e o canal reenvia o que ficou faltando (se ainda estiver no histórico). A época muda
+ * a cada subida da aplicação, quando a numeração recomeça: um ID de outra época recebe "recarregar".
+ */
+public class CanalEventos implements CatalogoListener, Closeable {
+
+    // Acima disso numa rodada só (ex: uma importação), um "recarregar" sai mais barato que os cards.
+    private static final int MAX_EVENTOS_POR_RODADA = 200;
+
+    // Sem nenhum evento nesse tempo, manda um comentário vazio: mantém proxies com a conexão aberta
+    // e descobre os navegadores que já foram embora.
+    private static final long PULSO_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    // Quanto o navegador espera para reconectar depois de perder a conexão.
+    private static final int RECONEXAO_MS = 3000;
+
+    private static final byte[] RECARREGAR = "event: recarregar\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PULSO = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final String contextPath;
+    private final String epoca;
+    private final int maxConexoes;
+    private final EventoCatalogo[] historico; // Circular: a sequência S fica na posição S % tamanho.
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition novidade = trava.newCondition();
+    private volatile long ultima; // Escrita só com a trava.
+
+    private final ConcurrentLinkedQueue<ConexaoEventos> chegando = new ConcurrentLinkedQueue<>();
+    private final List<ConexaoEventos> conexoes = new ArrayList<>(); // Só a thread do canal mexe.
+    private final AtomicInteger abertas = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean fechado;
+
+    /**
+     * @param contextPath O caminho da aplicação (vai no formulário de exclusão do card).
+     * @param capacidade  Quantos eventos o histórico guarda para quem reconecta.
+     * @param maxConexoes Quantas páginas podem ficar conectadas ao mesmo tempo.
+     */
+    public CanalEventos(String contextPath, int capacidade, int maxConexoes) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida para o histórico de eventos: " + capacidade);
+        }
+        this.contextPath = contextPath;
+        this.epoca = Integer.toHexString(ThreadLocalRandom.current().nextInt());
+        this.maxConexoes = maxConexoes;
+        this.historico = new EventoCatalogo[capacidade];
+        this.thread = new Thread(this::executar, "eventos-catalogo");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        publicar(true, livro);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        publicar(false, livro);
+    }
+
+    // Chamado com o lock de escrita do repositório: só guarda o evento e acorda a thread do canal.
+    // O card é montado depois, fora do lock.
+    private void publicar(boolean adicao, Livro livro) {
+        trava.lock();
+        try {
+            long sequencia = ultima + 1;
+            historico[(int) (sequencia % historico.length)] = new EventoCatalogo(sequencia, adicao, livro);
+            ultima = sequencia;
+            novidade.signal();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * @return O ID do último evento ("época:sequência"). A página guarda esse ID antes de listar o
+     *         catálogo e, ao conectar, pede só o que veio depois dele.
+     */
+    public String getUltimoId() {
+        return epoca + ":" + ultima;
+    }
+
+    // A sequência de um ID recebido da página (sem ID: a atual, só os novos; de outra época ou
+    // inválido: -1).
+    private long sequenciaDe(String id) {
+        if (id == null || id.trim().isEmpty()) {
+            return ultima;
+        }
+        int separador = id.indexOf(':');
+        if (separador < 0 || !id.substring(0, separador).equals(epoca)) {
+            return -1;
+        }
+        try {
+            long sequencia = Long.parseLong(id.substring(separador + 1).trim());
+            return sequencia > ultima ? -1 : sequencia;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return Quantas páginas estão conectadas agora.
+     */
+    public int getConexoesAbertas() {
+        return abertas.get();
+    }
+
+    /**
+     * Liga uma conexão ao canal. A requisição já precisa estar em modo assíncrono; o canal
+     * cuida dela daqui em diante (e a encerra quando o navegador for embora).
+     *
+     * @param contexto A requisição assíncrona.
+     * @param ultimoId O ID do último evento que a página já tem (os seguintes são reenviados),
+     *                 ou {@code null} para receber só os novos.
+     * @return {@code false} se o limite de conexões foi atingido (nada foi feito com a requisição).
+     * @throws IOException Se não der para preparar a saída da resposta.
+     */
+    public boolean conectar(AsyncContext contexto, String ultimoId) throws IOException {
+        if (fechado || abertas.incrementAndGet() > maxConexoes) {
+            abertas.decrementAndGet();
+            return false;
+        }
+        ConexaoEventos conexao;
+        try {
+            conexao = new ConexaoEventos(contexto, abertas);
+        } catch (IOException | RuntimeException e) {
+            abertas.decrementAndGet();
+            throw e;
+        }
+        conexao.enviar(("retry: " + RECONEXAO_MS + "\n\n").getBytes(StandardCharsets.UTF_8));
+        conexao.setDesde(sequenciaDe(ultimoId));
+        chegando.add(conexao);
+        trava.lock();
+        try {
+            novidade.signal();
+        } finally {
+            trava.unlock();
+        }
+        return true;
+    }
+
+    // A thread do canal: espera novidade, monta os eventos uma vez e entrega para todas as conexões.
+    private void executar() {
+        long enviada = ultima; // Até onde as conexões em dia já receberam.
+        long ultimoEnvio = System.nanoTime();
+        List<EventoCatalogo> lote = new ArrayList<>();
+        while (!fechado) {
+            try {
+                boolean recarregar = false;
+                long anterior = enviada;
+                trava.lock();
+                try {
+                    long espera = PULSO_NANOS - (System.nanoTime() - ultimoEnvio);
+                    while (ultima == enviada && chegando.isEmpty() && espera > 0 && !fechado) {
+                        espera = novidade.awaitNanos(espera);
+                    }
+                    lote.clear();
+                    if (ultima - enviada > historico.length || ultima - enviada > MAX_EVENTOS_POR_RODADA) {
+                        recarregar = true; // Parte já saiu do histórico, ou é coisa demais para mandar card por card.
+                    } else {
+                        for (long s = enviada + 1; s <= ultima; s++) {
+                            lote.add(historico[(int) (s % historico.length)]);
+                        }
+                    }
+                    enviada = ultima;
+                } finally {
+                    trava.unlock();
+                }
+                if (fechado) {
+                    break;
+                }
+
+                // Conexões novas recebem o que perderam até o começo deste lote e entram na lista
+                // (o lote vai para elas junto com as outras). Uma conexão que chegou no meio do
+                // lote recebe de novo eventos que já tinha; repetidos na mesma ordem, eles levam a
+                // página ao mesmo estado (ela confere pelo ID do livro).
+                ConexaoEventos nova;
+                while ((nova = chegando.poll()) != null) {
+                    reenviar(nova, anterior);
+                    conexoes.add(nova);
+                }
+
+                byte[] dados = recarregar ? RECARREGAR : montar(lote);
+                if (dados.length == 0 && System.nanoTime() - ultimoEnvio >= PULSO_NANOS) {
+                    dados = PULSO;
+                }
+                if (dados.length > 0) {
+                    ultimoEnvio = System.nanoTime();
+                    for (ConexaoEventos conexao : conexoes) {
+                        conexao.enviar(dados);
+                    }
+                }
+                for (Iterator<ConexaoEventos> i = conexoes.iterator(); i.hasNext(); ) {
+                    if (i.next().isFechada()) {
+                        i.remove();
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException | IOException e) {
+                // Um erro montando um evento não pode parar o canal de todo mundo.
+                System.err.println("Erro no canal de eventos do catálogo: " + e.getMessage());
+            }
+        }
+        for (ConexaoEventos conexao : conexoes) {
+            conexao.fechar();
+        }
+        ConexaoEventos nova;
+        while ((nova = chegando.poll()) != null) {
+            nova.fechar();
+        }
+    }
+
+    // Manda para uma conexão nova os eventos entre a sequência dela e a última já enviada às outras.
+    private void reenviar(ConexaoEventos conexao, long ate) throws IOException {
+        long desde = conexao.getDesde();
+        if (desde < 0) {
+            conexao.enviar(RECARREGAR); // ID de outra subida da aplicação: a numeração não vale mais.
+            return;
+        }
+        if (desde >= ate) {
+            return; // Já está em dia.
+        }
+        if (ate - desde > Math.min(historico.length, MAX_EVENTOS_POR_RODADA)) {
+            conexao.enviar(RECARREGAR);
+            return;
+        }
+        List<EventoCatalogo> perdidos = new ArrayList<>();
+        trava.lock();
+        try {
+            if (desde + 1 <= ultima - historico.length) {
+                conexao.enviar(RECARREGAR); // Saiu do histórico enquanto a conexão esperava.
+                return;
+            }
+            for (long s = desde + 1; s <= ate; s++) {
+                perdidos.add(historico[(int) (s % historico.length)]);
+            }
+        } finally {
+            trava.unlock();
+        }
+        conexao.enviar(montar(perdidos));
+    }
+
+    // Monta os eventos no formato do Server-Sent Events, todos num único bloco de bytes.
+    private byte[] montar(List<EventoCatalogo> eventos) throws IOException {
+        if (eventos.isEmpty()) {
+            return new byte[0];
+        }
+        StringBuilder texto = new StringBuilder(eventos.size() * 600);
+        for (EventoCatalogo evento : eventos) {
+            texto.append("id: ").append(epoca).append(':').append(evento.sequencia).append('\n');
+            if (evento.adicao) {
+                texto.append("event: adicionado\ndata: {\"id\":").append(evento.livro.getId()).append(",\"html\":");
+                Json.escreverTexto(texto, GerarHtmlLivro.card(contextPath, evento.livro));
+                texto.append("}\n\n");
+            } else {
+                texto.append("event: removido\ndata: {\"id\":").append(evento.livro.getId()).append("}\n\n");
+            }
+        }
+        return texto.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Para a thread do canal e encerra as conexões (na descida da aplicação).
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Um evento do histórico: o livro fica guardado, e o card só é montado na hora de enviar.
+     */
+    private static final class EventoCatalogo {
+        final long sequencia;
+        final boolean adicao;
+        final Livro livro;
+
+        EventoCatalogo(long sequencia, boolean adicao, Livro livro) {
+            this.sequencia = sequencia;
+            this.adicao = adicao;
+            this.livro = livro;
+        }
+    }
+}
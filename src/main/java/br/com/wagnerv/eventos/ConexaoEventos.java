@@ -0,0 +1,158 @@
+package br.com.wagnerv.eventos; // Pacote das atualizações "ao vivo" da página (Server-Sent Events).
+
+import jakarta.servlet.AsyncContext;        // A requisição que fica aberta.
+import jakarta.servlet.AsyncEvent;          // Fim, erro ou timeout da requisição assíncrona.
+import jakarta.servlet.AsyncListener;       // Avisado quando o navegador vai embora.
+import jakarta.servlet.ServletOutputStream; // Saída da resposta, em modo não bloqueante.
+import jakarta.servlet.WriteListener;       // Avisado quando dá para escrever de novo.
+
+import java.io.IOException;                         // Erros de escrita (o navegador fechou a conexão).
+import java.util.ArrayDeque;                        // O que ainda falta enviar.
+import java.util.concurrent.atomic.AtomicInteger;   // Contador de conexões abertas do canal.
+
+/**
+ * Uma página conectada ao {@link CanalEventos}.
+ *
+ * A saída fica em modo não bloqueante: {@link #enviar(byte[])} escreve enquanto o Tomcat disser
+ * que dá ({@code isReady()}); o resto espera numa fila e sai no {@link #onWritePossible()}, numa
+ * thread do Tomcat, quando o navegador liberar espaço. Assim a thread do canal nunca fica presa
+ * num navegador lento. Os dois caminhos passam pelo mesmo {@code synchronized}: a especificação
+ * não deixa escrever de duas threads ao mesmo tempo.
+ *
+ * Uma conexão que acumula mais de {@value #MAX_BYTES_PENDENTES} bytes sem conseguir enviar é
+ * encerrada: o navegador reconecta sozinho e recebe o que perdeu (ou "recarregar").
+ */
+final class ConexaoEventos implements WriteListener, AsyncListener {
+
+    private static final int MAX_BYTES_PENDENTES = 1024 * 1024;
+
+    private final AsyncContext contexto;
+    private final ServletOutputStream saida;
+    private final AtomicInteger abertas;
+    private final ArrayDeque<byte[]> pendentes = new ArrayDeque<>();
+    private int bytesPendentes;
+    private boolean semFlush;   // Escreveu desde o último flush.
+    private volatile boolean fechada;
+    private long desde;         // Última sequência que a página já tem (só até entrar no canal).
+
+    ConexaoEventos(AsyncContext contexto, AtomicInteger abertas) throws IOException {
+        this.contexto = contexto;
+        this.abertas = abertas;
+        contexto.setTimeout(0); // Sem prazo: a conexão fica aberta enquanto a página estiver aberta.
+        contexto.addListener(this);
+        this.saida = contexto.getResponse().getOutputStream();
+        this.saida.setWriteListener(this);
+    }
+
+    long getDesde() {
+        return desde;
+    }
+
+    void setDesde(long desde) {
+        this.desde = desde;
+    }
+
+    boolean isFechada() {
+        return fechada;
+    }
+
+    /**
+     * Envia os bytes (ou os guarda para depois, se o navegador ainda não puder receber).
+     * Não bloqueia.
+     */
+    synchronized void enviar(byte[] dados) {
+        if (fechada) {
+            return;
+        }
+        if (bytesPendentes + dados.length > MAX_BYTES_PENDENTES) {
+            fechar(); // Navegador parado ou lento demais: melhor reconectar do que acumular memória.
+            return;
+        }
+        pendentes.add(dados);
+        bytesPendentes += dados.length;
+        escoar();
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        escoar();
+    }
+
+    // Escreve o que estiver na fila enquanto der. Quando o isReady() responde false, o Tomcat
+    // chama o onWritePossible() assim que der para continuar.
+    private void escoar() {
+        if (fechada) {
+            return;
+        }
+        try {
+            while (saida.isReady()) {
+                byte[] dados = pendentes.poll();
+                if (dados == null) {
+                    if (!semFlush) {
+                        return;
+                    }
+                    semFlush = false;
+                    saida.flush(); // Os eventos não podem ficar parados no buffer da resposta.
+                    continue;
+                }
+                bytesPendentes -= dados.length;
+                saida.write(dados);
+                semFlush = true;
+            }
+        } catch (IOException | IllegalStateException e) {
+            fechar(); // O navegador foi embora.
+        }
+    }
+
+    /**
+     * Encerra a conexão (o navegador, se ainda estiver lá, reconecta sozinho).
+     */
+    void fechar() {
+        if (encerrar()) {
+            try {
+                contexto.complete();
+            } catch (IllegalStateException e) {
+                // A requisição já tinha terminado (erro de rede): nada a completar.
+            }
+        }
+    }
+
+    // Marca como fechada uma vez só e libera a vaga no limite de conexões.
+    private boolean encerrar() {
+        synchronized (this) {
+            if (fechada) {
+                return false;
+            }
+            fechada = true;
+            pendentes.clear();
+            bytesPendentes = 0;
+        }
+        abertas.decrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void onError(Throwable erro) {
+        fechar();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent evento) {
+        encerrar();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent evento) {
+        fechar();
+    }
+
+    @Override
+    public void onError(AsyncEvent evento) {
+        fechar();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent evento) {
+        // Nada: a conexão não é reiniciada.
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.wagnerv.exception; // Pacote das exceções da aplicação.
+
+/**
+ * O livro já está no catálogo (mesmo título, autor e ano, sem contar acentos, maiúsculas e
+ * pontuação) ou, no modo aproximado, é muito parecido com um livro que já está lá.
+ *
+ * Continua sendo uma {@link LivroException}: quem já trata os erros de validação mostra a
+ * mensagem do mesmo jeito. Quem quiser mais detalhes (a API, por exemplo) pega o ID do livro
+ * que já existe e se a semelhança é exata ou aproximada.
+ */
+public class LivroDuplicadoException extends LivroException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int idExistente;
+    private final boolean aproximado;
+
+    /**
+     * @param msg         A mensagem para o usuário.
+     * @param idExistente O ID do livro que já está no catálogo, ou -1 se não se sabe qual é.
+     * @param aproximado  {@code true} se o livro só é parecido (o usuário pode confirmar a inclusão).
+     */
+    public LivroDuplicadoException(String msg, int idExistente, boolean aproximado) {
+        super(msg);
+        this.idExistente = idExistente;
+        this.aproximado = aproximado;
+    }
+
+    /**
+     * @return O ID do livro que já está no catálogo, ou -1 se não se sabe qual é.
+     */
+    public int getIdExistente() {
+        return idExistente;
+    }
+
+    /**
+     * @return Se o livro só é parecido com o existente (e não igual).
+     */
+    public boolean isAproximado() {
+        return aproximado;
+    }
+}
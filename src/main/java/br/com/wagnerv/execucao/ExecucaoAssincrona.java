@@ -0,0 +1,56 @@
+package br.com.wagnerv.execucao; // Pacote da execução assíncrona das requisições.
+
+import java.util.concurrent.TimeUnit; // Conversão do tempo máximo de espera.
+
+/**
+ * Os dois executores das requisições assíncronas do {@code LivroServlet} e do {@code ImportacaoServlet}:
+ * um para leituras (listagem e busca) e outro para escritas (inclusão, exclusão e importação).
+ *
+ * Separados, cada um com o seu limite, porque uma listagem grande pode levar muito mais tempo
+ * do que uma inclusão: num pico de listagens, as leituras enchem a fila delas (e passam a receber
+ * 503), mas as escritas continuam com as vagas delas e respondem rápido.
+ */
+public class ExecucaoAssincrona implements AutoCloseable {
+
+    private final ExecutorAdmissao leituras;
+    private final ExecutorAdmissao escritas;
+    private final long esperaMaximaNanos;
+    private final int retryAfterSegundos;
+
+    /**
+     * @param leituras           Executor das leituras.
+     * @param escritas           Executor das escritas.
+     * @param esperaMaximaMillis Tempo máximo que uma requisição pode esperar na fila; passou disso,
+     *                           ela recebe 503 em vez de ser atendida (o usuário provavelmente já desistiu).
+     * @param retryAfterSegundos Valor do cabeçalho Retry-After das respostas 503.
+     */
+    public ExecucaoAssincrona(ExecutorAdmissao leituras, ExecutorAdmissao escritas, long esperaMaximaMillis,
+                              int retryAfterSegundos) {
+        this.leituras = leituras;
+        this.escritas = escritas;
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMillis);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public ExecutorAdmissao getLeituras() {
+        return leituras;
+    }
+
+    public ExecutorAdmissao getEscritas() {
+        return escritas;
+    }
+
+    public long getEsperaMaximaNanos() {
+        return esperaMaximaNanos;
+    }
+
+    public int getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+
+    @Override
+    public void close() {
+        leituras.close();
+        escritas.close();
+    }
+}
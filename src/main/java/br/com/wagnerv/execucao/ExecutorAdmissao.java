@@ -0,0 +1,178 @@
+package br.com.wagnerv.execucao; // Pacote da execução assíncrona das requisições.
+
+import java.lang.reflect.Method;                        // Para criar threads virtuais sem exigir Java 21 na compilação.
+import java.util.concurrent.ExecutorService;            // Quem roda as tarefas.
+import java.util.concurrent.Executors;                  // Fábricas de executores.
+import java.util.concurrent.LinkedBlockingQueue;        // Fila do executor de threads comuns.
+import java.util.concurrent.RejectedExecutionException; // Executor já desligado.
+import java.util.concurrent.Semaphore;                  // Limite de tarefas simultâneas em threads virtuais.
+import java.util.concurrent.ThreadFactory;              // Dá nome às threads comuns.
+import java.util.concurrent.ThreadPoolExecutor;         // Executor de threads comuns (sem threads virtuais).
+import java.util.concurrent.TimeUnit;                   // Unidades de tempo.
+import java.util.concurrent.atomic.AtomicInteger;       // Contadores de ocupação.
+import java.util.concurrent.atomic.LongAdder;           // Contador de recusas.
+
+/**
+ * Executor com "controle de admissão": no máximo {@code limite} tarefas rodando ao mesmo tempo e
+ * no máximo {@code fila} esperando. Passou disso, a tarefa é recusada na hora
+ * ({@link #executar(Runnable)} devolve false) e quem chamou responde "503 - tente de novo", em vez
+ * de deixar a requisição esperando sem fim enquanto o servidor afunda.
+ *
+ * As tarefas rodam em threads virtuais quando a JVM tem (Java 21 ou mais novo): cada tarefa ganha
+ * a sua thread, barata, e um semáforo limita quantas rodam juntas. Em JVMs mais antigas, cai para
+ * um conjunto fixo de {@code limite} threads comuns.
+ */
+public class ExecutorAdmissao implements AutoCloseable {
+
+    private final String nome;
+    private final int limite;
+    private final int fila;
+    private final ExecutorService executor;
+    private final Semaphore vagas; // Só com threads virtuais (as comuns já são 'limite').
+    private final boolean threadsVirtuais;
+
+    private final AtomicInteger ocupacao = new AtomicInteger(); // Rodando + esperando.
+    private final AtomicInteger ativas = new AtomicInteger();    // Rodando.
+    private final LongAdder recusadas = new LongAdder();
+
+    /**
+     * @param nome   Nome do executor (aparece nas threads e nas métricas).
+     * @param limite Quantas tarefas podem rodar ao mesmo tempo.
+     * @param fila   Quantas tarefas podem esperar a vez.
+     */
+    public ExecutorAdmissao(String nome, int limite, int fila) {
+        if (limite <= 0 || fila < 0) {
+            throw new IllegalArgumentException("Limites inválidos para " + nome + ": " + limite + "/" + fila);
+        }
+        this.nome = nome;
+        this.limite = limite;
+        this.fila = fila;
+        ExecutorService virtual = executorThreadsVirtuais();
+        this.threadsVirtuais = virtual != null;
+        if (threadsVirtuais) {
+            this.executor = virtual;
+            this.vagas = new Semaphore(limite, true); // Justo: quem chegou antes roda antes.
+        } else {
+            this.executor = new ThreadPoolExecutor(limite, limite, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), fabricaThreads(nome));
+            this.vagas = null;
+        }
+    }
+
+    /**
+     * Tenta executar a tarefa.
+     *
+     * @param tarefa A tarefa.
+     * @return {@code true} se a tarefa foi aceita (vai rodar agora ou quando houver vaga);
+     *         {@code false} se a fila está cheia e a tarefa foi recusada.
+     */
+    public boolean executar(Runnable tarefa) {
+        if (ocupacao.incrementAndGet() > limite + fila) {
+            ocupacao.decrementAndGet();
+            recusadas.increment();
+            return false;
+        }
+        try {
+            executor.execute(() -> rodar(tarefa));
+            return true;
+        } catch (RejectedExecutionException e) { // Aplicação sendo desligada.
+            ocupacao.decrementAndGet();
+            recusadas.increment();
+            return false;
+        }
+    }
+
+    private void rodar(Runnable tarefa) {
+        try {
+            if (vagas != null) {
+                vagas.acquireUninterruptibly();
+            }
+            ativas.incrementAndGet();
+            try {
+                tarefa.run();
+            } finally {
+                ativas.decrementAndGet();
+                if (vagas != null) {
+                    vagas.release();
+                }
+            }
+        } finally {
+            ocupacao.decrementAndGet();
+        }
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * @return Quantas tarefas estão rodando agora.
+     */
+    public int getAtivas() {
+        return ativas.get();
+    }
+
+    /**
+     * @return Quantas tarefas estão esperando a vez agora.
+     */
+    public int getNaFila() {
+        return Math.max(ocupacao.get() - ativas.get(), 0);
+    }
+
+    /**
+     * @return Quantas tarefas foram recusadas (fila cheia) desde a criação.
+     */
+    public long getRecusadas() {
+        return recusadas.sum();
+    }
+
+    /**
+     * @return Se as tarefas rodam em threads virtuais.
+     */
+    public boolean isThreadsVirtuais() {
+        return threadsVirtuais;
+    }
+
+    /**
+     * Para de aceitar tarefas e espera (um pouco) as que já foram aceitas terminarem.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Tarefas de " + nome + " ainda rodando ao desligar a aplicação.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cria um executor de threads virtuais ("uma thread por tarefa"), se a JVM tiver (Java 21+).
+     * Usa reflexão para o projeto continuar compilando e rodando em Java 17.
+     *
+     * @return O executor, ou {@code null} se a JVM não tem threads virtuais.
+     */
+    private static ExecutorService executorThreadsVirtuais() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // Java 17, ou threads virtuais desligadas.
+        }
+    }
+
+    private static ThreadFactory fabricaThreads(String nome) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, "biblioteca-" + nome + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.wagnerv.identificador; // Pacote da geração de IDs dos livros.
+// Aqui fica quem garante que dois livros nunca recebem o mesmo ID, mesmo com várias
+// requisições ao mesmo tempo, vários servidores (nós) e reinícios.
+
+import java.io.IOException; // Backends que guardam o contador fora da memória podem falhar.
+
+/**
+ * A "fonte" compartilhada de IDs: entrega faixas inteiras de IDs de uma vez.
+ *
+ * O {@link GeradorIds} de cada servidor pede uma faixa (por exemplo, 1000 IDs), distribui os IDs
+ * dela localmente, sem falar com ninguém, e só volta aqui quando ela acaba. Assim o custo de
+ * falar com a fonte compartilhada (lock de arquivo, banco de dados...) é dividido por 1000.
+ *
+ * Implementações:
+ * - {@link AlocadorFaixasMemoria}: só dentro da JVM (um único servidor, sem guardar nada);
+ * - {@link AlocadorFaixasArquivo}: um arquivo com lock, que vale para vários processos na mesma
+ *   máquina e sobrevive a reinícios.
+ * Para vários servidores em máquinas diferentes, basta uma implementação sobre algo que todos
+ * enxerguem (uma sequence de banco de dados, por exemplo) — o resto do sistema não muda.
+ *
+ * Toda implementação precisa ser thread-safe.
+ */
+public interface AlocadorFaixas {
+
+    /**
+     * Reserva uma faixa de IDs que ninguém mais vai receber.
+     *
+     * @param tamanho Quantos IDs a faixa deve ter.
+     * @return O primeiro ID da faixa (a faixa vai de {@code inicio} a {@code inicio + tamanho - 1}).
+     * @throws IOException Se a fonte compartilhada não puder ser acessada.
+     */
+    long alocar(int tamanho) throws IOException;
+
+    /**
+     * Garante que as próximas faixas só comecem em {@code proximo} ou depois.
+     * Usado quando já existem livros com IDs que a fonte não conhece (catálogo restaurado
+     * de um disco antigo, por exemplo).
+     *
+     * @param proximo O menor ID que ainda pode ser entregue.
+     * @return O próximo ID que a fonte entregaria agora (sempre {@code >= proximo}).
+     * @throws IOException Se a fonte compartilhada não puder ser acessada.
+     */
+    long garantirMinimo(long proximo) throws IOException;
+}
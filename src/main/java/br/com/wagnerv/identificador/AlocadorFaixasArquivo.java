@@ -0,0 +1,108 @@
+package br.com.wagnerv.identificador; // Pacote da geração de IDs dos livros.
+
+import java.io.Closeable;                   // O arquivo fica aberto até a aplicação parar.
+import java.io.IOException;                 // Erros de disco.
+import java.nio.ByteBuffer;                 // Os 16 bytes do arquivo.
+import java.nio.channels.FileChannel;       // Acesso ao arquivo com lock e fsync.
+import java.nio.channels.FileLock;          // Lock do sistema operacional, que vale entre processos.
+import java.nio.file.Files;                 // Para criar o diretório do arquivo.
+import java.nio.file.Path;                  // Caminho do arquivo.
+import java.nio.file.StandardOpenOption;    // Modos de abertura do arquivo.
+
+/**
+ * Fonte de IDs guardada num arquivo pequeno, protegida por lock de arquivo.
+ *
+ * O arquivo tem só o próximo ID livre (e uma cópia invertida dele, para detectar arquivo
+ * corrompido). Para entregar uma faixa: trava o arquivo, lê o número, grava o número + tamanho,
+ * força a gravação no disco e destrava. Como o lock é do sistema operacional, vários processos
+ * (vários Tomcats na mesma máquina, apontando para o mesmo arquivo) nunca recebem a mesma faixa;
+ * e como o número vai para o disco antes de a faixa ser usada, um reinício nunca repete IDs
+ * (no máximo pula os que sobraram da última faixa).
+ *
+ * Importante: lock de arquivo em disco de rede (NFS, SMB) não é confiável. Para servidores em
+ * máquinas diferentes, use uma implementação de {@link AlocadorFaixas} sobre um banco de dados.
+ */
+public class AlocadorFaixasArquivo implements AlocadorFaixas, Closeable {
+
+    private static final int TAMANHO_ARQUIVO = 16; // long proximo + long ~proximo.
+
+    private final Path arquivo;
+    private final FileChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_ARQUIVO); // Só usado com o lock do objeto.
+
+    /**
+     * Abre (ou cria) o arquivo de IDs.
+     *
+     * @param arquivo O caminho do arquivo. Servidores que devem compartilhar os IDs usam o mesmo caminho.
+     * @throws IOException Se o arquivo não puder ser aberto.
+     */
+    public AlocadorFaixasArquivo(Path arquivo) throws IOException {
+        this.arquivo = arquivo;
+        Path pasta = arquivo.toAbsolutePath().getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public long alocar(int tamanho) throws IOException {
+        return atualizar(tamanho, 0);
+    }
+
+    @Override
+    public long garantirMinimo(long minimo) throws IOException {
+        return atualizar(0, minimo);
+    }
+
+    /**
+     * Lê o próximo ID, avança (somando {@code tamanho} e/ou subindo até {@code minimo}) e grava.
+     *
+     * @return O próximo ID como estava antes de somar o tamanho (= início da faixa, quando alocando).
+     */
+    // 'synchronized' porque o lock de arquivo não protege threads da mesma JVM umas das outras
+    // (tentar travar duas vezes o mesmo arquivo na mesma JVM dá erro).
+    private synchronized long atualizar(int tamanho, long minimo) throws IOException {
+        FileLock lock = canal.lock(); // Espera outros processos terminarem de usar o arquivo.
+        try {
+            long proximo = Math.max(ler(), minimo);
+            gravar(proximo + tamanho);
+            return proximo;
+        } finally {
+            lock.release();
+        }
+    }
+
+    private long ler() throws IOException {
+        if (canal.size() < TAMANHO_ARQUIVO) {
+            return 1; // Arquivo novo: os IDs começam em 1.
+        }
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                throw new IOException("Arquivo de IDs truncado: " + arquivo);
+            }
+        }
+        buffer.flip();
+        long proximo = buffer.getLong();
+        if (buffer.getLong() != ~proximo) {
+            throw new IOException("Arquivo de IDs corrompido: " + arquivo);
+        }
+        return proximo;
+    }
+
+    private void gravar(long proximo) throws IOException {
+        buffer.clear();
+        buffer.putLong(proximo).putLong(~proximo).flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, buffer.position());
+        }
+        canal.force(false); // O número novo precisa estar no disco antes de qualquer ID da faixa ser usado.
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
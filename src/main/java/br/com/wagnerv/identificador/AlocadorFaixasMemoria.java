@@ -0,0 +1,25 @@
+package br.com.wagnerv.identificador; // Pacote da geração de IDs dos livros.
+
+import java.util.concurrent.atomic.AtomicLong; // Contador que várias threads podem avançar sem lock.
+
+/**
+ * Fonte de IDs que vive só na memória da JVM.
+ *
+ * Serve para rodar com um único servidor e sem persistência (ou em testes). Depois de um
+ * reinício ela começa do 1 de novo; quem restaura livros do disco avisa os IDs já usados
+ * com {@link #garantirMinimo(long)}.
+ */
+public class AlocadorFaixasMemoria implements AlocadorFaixas {
+
+    private final AtomicLong proximo = new AtomicLong(1); // IDs começam em 1, como sempre foi.
+
+    @Override
+    public long alocar(int tamanho) {
+        return proximo.getAndAdd(tamanho);
+    }
+
+    @Override
+    public long garantirMinimo(long minimo) {
+        return proximo.accumulateAndGet(minimo, Math::max);
+    }
+}
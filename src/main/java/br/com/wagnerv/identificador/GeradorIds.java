@@ -0,0 +1,149 @@
+package br.com.wagnerv.identificador; // Pacote da geração de IDs dos livros.
+
+import java.io.IOException;                     // Erros da fonte compartilhada de IDs.
+import java.io.UncheckedIOException;            // Para avisar esses erros de dentro do construtor do Livro.
+import java.util.concurrent.atomic.AtomicLong;  // O próximo ID da faixa, avançado sem lock.
+
+/**
+ * Entrega IDs únicos para os livros, sem lock no caminho normal.
+ *
+ * Como funciona:
+ * - o gerador "aluga" uma faixa de IDs do {@link AlocadorFaixas} (por exemplo, 1000 a 1999);
+ * - cada {@link #proximo()} só faz um incremento atômico dentro da faixa: várias threads podem
+ *   pedir IDs ao mesmo tempo sem se bloquear e sem nunca receber o mesmo número;
+ * - quando a faixa acaba, uma única thread busca a próxima (as outras esperam só esse instante).
+ *
+ * O tamanho da faixa se adapta: se as faixas estão acabando rápido (uma importação em lote,
+ * por exemplo), a próxima é o dobro da anterior, até {@value #FAIXA_MAXIMA}; se a faixa durou
+ * muito, a próxima volta a ser menor. Assim a fonte compartilhada quase nunca é consultada e,
+ * num reinício, poucos IDs ficam "pulados".
+ */
+public class GeradorIds {
+
+    // Maior faixa que o gerador pede de uma vez.
+    public static final int FAIXA_MAXIMA = 1 << 16;
+
+    // Se uma faixa acabou em menos que isso, a próxima é maior.
+    private static final long RENOVACAO_RAPIDA_NANOS = 1_000_000_000L;
+    // Se uma faixa durou mais que isso, a próxima é menor.
+    private static final long RENOVACAO_LENTA_NANOS = 60_000_000_000L;
+
+    private final AlocadorFaixas alocador;
+    private final int faixaInicial;
+
+    // A faixa em uso. Trocada só dentro de 'renovar' (com o lock do objeto).
+    private volatile Faixa atual = new Faixa(0, 0);
+
+    // Campos abaixo só são usados com o lock do objeto.
+    private int tamanhoFaixa;
+    private long ultimaRenovacao;
+    private long reservadoAte; // Maior ID que já existe e que o alocador talvez ainda não conheça.
+    private long alocadorGarantido; // O alocador já garantiu que não entrega nada abaixo disso.
+
+    /**
+     * @param alocador     A fonte compartilhada de faixas.
+     * @param faixaInicial Quantos IDs pedir na primeira faixa.
+     */
+    public GeradorIds(AlocadorFaixas alocador, int faixaInicial) {
+        if (faixaInicial <= 0 || faixaInicial > FAIXA_MAXIMA) {
+            throw new IllegalArgumentException("Tamanho de faixa inválido: " + faixaInicial);
+        }
+        this.alocador = alocador;
+        this.faixaInicial = faixaInicial;
+        this.tamanhoFaixa = faixaInicial;
+    }
+
+    /**
+     * @return Um ID que nenhum outro livro recebeu (nem neste servidor, nem nos outros que
+     *         usam a mesma fonte de faixas).
+     * @throws UncheckedIOException Se for preciso uma faixa nova e a fonte não puder ser acessada.
+     */
+    public int proximo() {
+        for (;;) {
+            Faixa faixa = atual;
+            long id = faixa.proximo.getAndIncrement();
+            if (id < faixa.fim) {
+                return (int) id;
+            }
+            renovar(faixa); // Faixa acabou: busca outra e tenta de novo.
+        }
+    }
+
+    /**
+     * Avisa que o ID informado já pertence a um livro (restaurado do disco, por exemplo),
+     * para que {@link #proximo()} nunca o entregue.
+     *
+     * Não fala com a fonte compartilhada na hora: restaurar um milhão de livros não pode virar
+     * um milhão de acessos ao arquivo de IDs. O aviso é repassado à fonte uma vez só, na próxima
+     * vez que uma faixa for buscada.
+     *
+     * @param id O ID já em uso.
+     */
+    public synchronized void reservarAte(int id) {
+        if (id > reservadoAte) {
+            reservadoAte = id;
+        }
+        atual.pularAte(id); // Se o ID cair dentro da faixa atual, a faixa passa a começar depois dele.
+    }
+
+    private synchronized void renovar(Faixa esgotada) {
+        if (atual != esgotada) {
+            return; // Outra thread já trocou a faixa enquanto esperávamos o lock.
+        }
+        long agora = System.nanoTime();
+        if (ultimaRenovacao != 0) {
+            long duracao = agora - ultimaRenovacao;
+            if (duracao < RENOVACAO_RAPIDA_NANOS) {
+                tamanhoFaixa = Math.min(tamanhoFaixa * 2, FAIXA_MAXIMA);
+            } else if (duracao > RENOVACAO_LENTA_NANOS) {
+                tamanhoFaixa = Math.max(tamanhoFaixa / 2, faixaInicial);
+            }
+        }
+        ultimaRenovacao = agora;
+
+        long inicio;
+        try {
+            if (reservadoAte >= alocadorGarantido) {
+                alocadorGarantido = alocador.garantirMinimo(reservadoAte + 1);
+            }
+            inicio = alocador.alocar(tamanhoFaixa);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível reservar uma nova faixa de IDs.", e);
+        }
+        long fim = inicio + tamanhoFaixa;
+        if (fim - 1 > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Os IDs de livro se esgotaram (limite de int).");
+        }
+        alocadorGarantido = Math.max(alocadorGarantido, fim);
+        atual = new Faixa(inicio, fim);
+    }
+
+    /**
+     * Uma faixa alugada: IDs de {@code proximo} até {@code fim - 1}.
+     */
+    private static final class Faixa {
+
+        final AtomicLong proximo;
+        final long fim;
+
+        Faixa(long inicio, long fim) {
+            this.proximo = new AtomicLong(inicio);
+            this.fim = fim;
+        }
+
+        /**
+         * Se o ID ainda pode sair desta faixa, avança a faixa para depois dele.
+         */
+        void pularAte(long id) {
+            for (;;) {
+                long atual = proximo.get();
+                if (atual > id || id >= fim) {
+                    return; // O ID já passou ou está fora da faixa.
+                }
+                if (proximo.compareAndSet(atual, id + 1)) {
+                    return;
+                }
+            }
+        }
+    }
+}
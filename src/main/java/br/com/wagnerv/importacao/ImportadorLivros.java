@@ -0,0 +1,199 @@
+package br.com.wagnerv.importacao; // Pacote da importação de livros em lote.
+// Aqui fica tudo o que é preciso para cadastrar milhares de livros de uma vez,
+// a partir de um arquivo CSV ou JSON Lines, sem passar pelo formulário livro a livro.
+
+import br.com.wagnerv.exception.LivroException;   // Erros de validação do livro (e de formato do arquivo).
+import br.com.wagnerv.model.Livro;               // O livro montado a partir de cada registro.
+import br.com.wagnerv.repository.LivroRepository; // Onde os livros importados entram.
+import br.com.wagnerv.repository.RegraInclusao;   // Conferência de cada livro (ex: repetidos), com o lock.
+
+import java.io.BufferedReader; // Para "espiar" o começo do arquivo quando o formato não foi informado.
+import java.io.IOException;    // Erros ao ler a entrada.
+import java.io.Reader;         // De onde vêm os caracteres.
+import java.util.ArrayList;    // O lote de livros à espera de entrar no catálogo.
+import java.util.List;         // Interface de lista.
+import java.util.Locale;       // Para comparar nomes de formato sem depender do idioma do servidor.
+
+/**
+ * Importa livros em lote a partir de um arquivo CSV ou JSON Lines.
+ *
+ * Como funciona:
+ * - o arquivo é lido aos pedaços (streaming): nunca fica inteiro na memória;
+ * - cada registro vira um {@link Livro} e passa pelo mesmo {@link Livro#validar()} do formulário;
+ * - os livros válidos são juntados em lotes de {@value #TAMANHO_LOTE} e entram no catálogo com
+ *   {@link LivroRepository#adicionarTodos}, ou seja, um lock de escrita e uma publicação de
+ *   snapshot por lote, e não por livro;
+ * - registros com problema não interrompem a importação: viram uma linha no relatório. Isso vale
+ *   também para os livros recusados pela {@link RegraInclusao} (ex: já cadastrados, ou repetidos
+ *   dentro do próprio arquivo), conferidos com o lock de escrita, no momento em que o lote entra.
+ *
+ * Cada lote entra no catálogo assim que fica pronto. Se a importação for interrompida no meio
+ * (conexão caiu, arquivo truncado), os lotes já gravados continuam no catálogo.
+ */
+public class ImportadorLivros {
+
+    // Quantos livros entram no catálogo de uma vez.
+    public static final int TAMANHO_LOTE = 5_000;
+
+    /**
+     * Formatos de arquivo aceitos.
+     */
+    public enum Formato {
+        CSV,
+        JSON_LINHAS;
+
+        /**
+         * Descobre o formato pelo nome informado pelo usuário, pelo nome do arquivo ou pelo tipo MIME,
+         * nessa ordem de preferência.
+         *
+         * @return O formato, ou {@code null} se nenhuma pista bateu (aí o conteúdo decide).
+         */
+        public static Formato detectar(String nome, String nomeArquivo, String tipoConteudo) {
+            String formato = nome == null ? "" : nome.trim().toLowerCase(Locale.ROOT);
+            if (formato.equals("csv")) {
+                return CSV;
+            }
+            if (formato.equals("jsonl") || formato.equals("ndjson") || formato.equals("json")) {
+                return JSON_LINHAS;
+            }
+            String arquivo = nomeArquivo == null ? "" : nomeArquivo.toLowerCase(Locale.ROOT);
+            if (arquivo.endsWith(".csv")) {
+                return CSV;
+            }
+            if (arquivo.endsWith(".jsonl") || arquivo.endsWith(".ndjson")) {
+                return JSON_LINHAS;
+            }
+            String tipo = tipoConteudo == null ? "" : tipoConteudo.toLowerCase(Locale.ROOT);
+            if (tipo.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (tipo.contains("ndjson") || tipo.contains("jsonl") || tipo.contains("json-seq")) {
+                return JSON_LINHAS;
+            }
+            return null;
+        }
+    }
+
+    private final LivroRepository livros;
+
+    public ImportadorLivros(LivroRepository livros) {
+        this.livros = livros;
+    }
+
+    /**
+     * Lê o arquivo inteiro e coloca no catálogo os livros válidos, sem outra conferência.
+     *
+     * @see #importar(Reader, Formato, RegraInclusao)
+     */
+    public ResultadoImportacao importar(Reader entrada, Formato formato) throws IOException, LivroException {
+        return importar(entrada, formato, livro -> { });
+    }
+
+    /**
+     * Lê o arquivo inteiro e coloca no catálogo os livros válidos.
+     *
+     * @param entrada O conteúdo do arquivo (já decodificado em caracteres).
+     * @param formato O formato, ou {@code null} para descobrir pelo conteúdo
+     *                (começa com '{' = JSON Lines; senão, CSV).
+     * @param regra   Conferência de cada livro na hora de entrar (os recusados vão para o relatório).
+     * @return O resumo da importação, com os erros linha a linha.
+     * @throws IOException Se a leitura da entrada falhar.
+     * @throws LivroException Se o arquivo não puder ser importado (ex: CSV com cabeçalho sem "ano").
+     */
+    public ResultadoImportacao importar(Reader entrada, Formato formato, RegraInclusao regra)
+            throws IOException, LivroException {
+        long inicio = System.nanoTime();
+        if (formato == null) {
+            BufferedReader espiavel = new BufferedReader(entrada);
+            formato = adivinharFormato(espiavel);
+            entrada = espiavel;
+        }
+        LeitorRegistros leitor = formato == Formato.CSV ? new LeitorCsv(entrada) : new LeitorJsonLinhas(entrada);
+
+        ResultadoImportacao resultado = new ResultadoImportacao();
+        RegistroImportacao registro = new RegistroImportacao();
+        List<Livro> lote = new ArrayList<>(TAMANHO_LOTE);
+        int[] linhas = new int[TAMANHO_LOTE]; // Linha do arquivo de cada livro do lote (para o relatório).
+        try {
+            while (leitor.proximo(registro)) {
+                resultado.lido();
+                if (registro.erro != null) {
+                    resultado.rejeitar(registro.linha, registro.erro);
+                    continue;
+                }
+                try {
+                    linhas[lote.size()] = registro.linha;
+                    lote.add(montar(registro));
+                } catch (LivroException e) {
+                    resultado.rejeitar(registro.linha, e.getMessage());
+                    continue;
+                }
+                if (lote.size() == TAMANHO_LOTE) {
+                    adicionarLote(lote, linhas, regra, resultado);
+                }
+            }
+        } finally {
+            // Mesmo que a leitura quebre no meio, o que já foi validado entra no catálogo.
+            if (!lote.isEmpty()) {
+                adicionarLote(lote, linhas, regra, resultado);
+            }
+            resultado.setDuracaoMillis((System.nanoTime() - inicio) / 1_000_000);
+        }
+        return resultado;
+    }
+
+    // Coloca o lote no catálogo (um lock, uma publicação) e esvazia a lista para o próximo.
+    private void adicionarLote(List<Livro> lote, int[] linhas, RegraInclusao regra, ResultadoImportacao resultado) {
+        resultado.importados(livros.adicionarTodos(lote, regra,
+                (posicao, e) -> resultado.rejeitar(linhas[posicao], e.getMessage())));
+        lote.clear();
+    }
+
+    /**
+     * Transforma um registro em livro, com as mesmas regras do formulário de cadastro.
+     */
+    private static Livro montar(RegistroImportacao registro) throws LivroException {
+        // O ano é conferido antes de criar o livro, para não gastar um ID com um registro que vai ser recusado.
+        String anoTexto = registro.ano == null ? "" : registro.ano.trim();
+        if (anoTexto.isEmpty()) {
+            throw new LivroException("Ano obrigatório.");
+        }
+        int ano;
+        try {
+            ano = Integer.parseInt(anoTexto);
+        } catch (NumberFormatException e) {
+            throw new LivroException("Ano deve ser um número.");
+        }
+        Livro livro = new Livro();
+        // Título e autor em maiúsculas, como no formulário.
+        livro.setTitulo(registro.titulo == null ? null : registro.titulo.trim().toUpperCase());
+        livro.setAutor(registro.autor == null ? null : registro.autor.trim().toUpperCase());
+        livro.setAno(ano);
+        if (registro.isbn != null && !registro.isbn.trim().isEmpty()) {
+            livro.setIsbn(registro.isbn.trim());
+        }
+        livro.validar();
+        return livro;
+    }
+
+    /**
+     * Olha o primeiro caractere "de verdade" do arquivo: '{' indica JSON Lines; qualquer outra coisa, CSV.
+     */
+    private static Formato adivinharFormato(BufferedReader entrada) throws IOException {
+        entrada.mark(1024);
+        try {
+            for (int i = 0; i < 1024; i++) {
+                int c = entrada.read();
+                if (c == -1) {
+                    break;
+                }
+                if (!Character.isWhitespace(c) && c != '\uFEFF') {
+                    return c == '{' ? Formato.JSON_LINHAS : Formato.CSV;
+                }
+            }
+            return Formato.CSV;
+        } finally {
+            entrada.reset();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package br.com.wagnerv.importacao; // Pacote da importação de livros em lote.
+
+import br.com.wagnerv.exception.LivroException; // Cabeçalho sem as colunas obrigatórias.
+import br.com.wagnerv.util.NormalizadorTexto;   // Para reconhecer "Título", "titulo", "TITULO"...
+
+import java.io.IOException; // Erros ao ler a entrada.
+import java.io.Reader;      // De onde vêm os caracteres.
+import java.util.ArrayList; // Campos do registro atual.
+import java.util.List;      // Interface de lista.
+
+/**
+ * Lê arquivos CSV (o formato que as planilhas exportam), um registro por vez.
+ *
+ * Regras seguidas (as do RFC 4180, que é o que Excel/LibreOffice geram):
+ * - campos separados por vírgula ou ponto e vírgula (o Excel em português usa ';'):
+ *   o separador é descoberto olhando a primeira linha;
+ * - campos podem vir entre aspas, e aí podem conter separadores, quebras de linha e aspas
+ *   (escritas duplicadas: {@code "O ""Alienista"""});
+ * - a primeira linha pode ser um cabeçalho com os nomes das colunas (titulo, autor, ano, isbn,
+ *   em qualquer ordem, com ou sem acento). Sem cabeçalho, as colunas são lidas nessa ordem.
+ */
+final class LeitorCsv extends LeitorRegistros {
+
+    private char separador;        // ',' ou ';' (descoberto na primeira chamada).
+    private boolean iniciado;      // Já olhamos a primeira linha?
+    // Posição de cada coluna no registro (-1 = coluna não existe no arquivo).
+    private int colunaTitulo = 0, colunaAutor = 1, colunaAno = 2, colunaIsbn = 3;
+    private int camposObrigatorios = 3;
+
+    private final List<String> campos = new ArrayList<>(); // Reaproveitada a cada registro.
+    private final StringBuilder campo = new StringBuilder(); // Reaproveitado a cada campo.
+
+    LeitorCsv(Reader entrada) {
+        super(entrada);
+    }
+
+    @Override
+    boolean proximo(RegistroImportacao registro) throws IOException, LivroException {
+        registro.limpar();
+        if (!iniciado) {
+            iniciado = true;
+            separador = descobrirSeparador(espiarLinha());
+            if (!pularLinhasVazias()) {
+                return false;
+            }
+            registro.linha = linha();
+            String erro = lerCampos();
+            if (erro == null && cabecalho()) {
+                lerCabecalho();
+                return proximo(registro);
+            }
+            preencher(registro, erro);
+            return true;
+        }
+        if (!pularLinhasVazias()) {
+            return false;
+        }
+        registro.linha = linha();
+        preencher(registro, lerCampos());
+        return true;
+    }
+
+    /**
+     * Lê os campos de um registro (que pode ocupar várias linhas, se tiver aspas).
+     *
+     * @return A mensagem de erro, ou {@code null} se o registro foi lido inteiro.
+     */
+    private String lerCampos() throws IOException {
+        campos.clear();
+        campo.setLength(0);
+        String erro = null;
+        boolean entreAspas = false;
+        for (;;) {
+            int c = ler();
+            if (c == -1) {
+                if (entreAspas) {
+                    erro = "Aspas abertas e não fechadas.";
+                }
+                campos.add(campo.toString());
+                return erro;
+            }
+            if (entreAspas) {
+                if (c == '"') {
+                    if (espiar() == '"') {
+                        ler();
+                        campo.append('"'); // "" dentro de aspas é uma aspa de verdade.
+                    } else {
+                        entreAspas = false;
+                    }
+                } else if (c != '\r') {
+                    if (campo.length() < TAMANHO_MAXIMO_CAMPO) {
+                        campo.append((char) c);
+                    } else {
+                        // Provavelmente aspas que nunca fecham: em vez de engolir o resto do arquivo
+                        // num campo só, desistimos deste registro e seguimos a partir da próxima linha.
+                        erro = "Campo grande demais (aspas não fechadas?).";
+                        entreAspas = false;
+                    }
+                }
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                campos.add(campo.toString());
+                return erro;
+            } else if (c == '"' && campo.length() == 0) {
+                entreAspas = true;
+            } else if (c != '\r') {
+                if (campo.length() < TAMANHO_MAXIMO_CAMPO) {
+                    campo.append((char) c);
+                } else if (erro == null) {
+                    erro = "Campo grande demais.";
+                }
+            }
+        }
+    }
+
+    private void preencher(RegistroImportacao registro, String erro) {
+        if (erro != null) {
+            registro.erro = erro;
+            return;
+        }
+        if (campos.size() < camposObrigatorios) {
+            registro.erro = "Esperadas as colunas título, autor e ano; encontrada(s) " + campos.size() + ".";
+            return;
+        }
+        registro.titulo = coluna(colunaTitulo);
+        registro.autor = coluna(colunaAutor);
+        registro.ano = coluna(colunaAno);
+        registro.isbn = coluna(colunaIsbn);
+    }
+
+    private String coluna(int indice) {
+        return indice >= 0 && indice < campos.size() ? campos.get(indice) : null;
+    }
+
+    /**
+     * @return {@code true} se os campos lidos parecem um cabeçalho (alguma coluna se chama "titulo").
+     */
+    private boolean cabecalho() {
+        for (String nome : campos) {
+            if ("TITULO".equals(NormalizadorTexto.normalizar(nome.trim()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void lerCabecalho() throws LivroException {
+        colunaTitulo = colunaAutor = colunaAno = colunaIsbn = -1;
+        for (int i = 0; i < campos.size(); i++) {
+            switch (NormalizadorTexto.normalizar(campos.get(i).trim())) {
+                case "TITULO": colunaTitulo = i; break;
+                case "AUTOR": colunaAutor = i; break;
+                case "ANO": colunaAno = i; break;
+                case "ISBN": colunaIsbn = i; break;
+                default: break; // Colunas que não conhecemos são ignoradas.
+            }
+        }
+        if (colunaAutor < 0 || colunaAno < 0) {
+            throw new LivroException("O cabeçalho do CSV precisa ter as colunas titulo, autor e ano.");
+        }
+        camposObrigatorios = Math.max(colunaTitulo, Math.max(colunaAutor, colunaAno)) + 1;
+    }
+
+    /**
+     * Escolhe o separador que mais aparece fora de aspas na primeira linha.
+     */
+    private static char descobrirSeparador(String primeiraLinha) {
+        int virgulas = 0, pontoEVirgulas = 0;
+        boolean entreAspas = false;
+        for (int i = 0; i < primeiraLinha.length(); i++) {
+            char c = primeiraLinha.charAt(i);
+            if (c == '"') {
+                entreAspas = !entreAspas;
+            } else if (!entreAspas && c == ',') {
+                virgulas++;
+            } else if (!entreAspas && c == ';') {
+                pontoEVirgulas++;
+            }
+        }
+        return pontoEVirgulas > virgulas ? ';' : ',';
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.wagnerv.importacao; // Pacote da importação de livros em lote.
+
+import br.com.wagnerv.util.Json; // Lê o objeto JSON de cada linha.
+
+import java.io.IOException; // Erros ao ler a entrada.
+import java.io.Reader;      // De onde vêm os caracteres.
+import java.util.Map;       // O objeto JSON lido.
+
+/**
+ * Lê arquivos "JSON Lines" (.jsonl / .ndjson): um objeto JSON por linha, por exemplo
+ * <pre>
+ * {"titulo": "Dom Casmurro", "autor": "Machado de Assis", "ano": 1899}
+ * {"titulo": "Iracema", "autor": "José de Alencar", "ano": 1865, "isbn": "9788572326972"}
+ * </pre>
+ * Cada linha é independente: uma linha quebrada vira um erro no relatório e as outras seguem.
+ */
+final class LeitorJsonLinhas extends LeitorRegistros {
+
+    private final StringBuilder linhaAtual = new StringBuilder(); // Reaproveitado a cada linha.
+
+    LeitorJsonLinhas(Reader entrada) {
+        super(entrada);
+    }
+
+    @Override
+    boolean proximo(RegistroImportacao registro) throws IOException {
+        registro.limpar();
+        if (!pularLinhasVazias()) {
+            return false;
+        }
+        registro.linha = linha();
+        linhaAtual.setLength(0);
+        boolean grandeDemais = false;
+        int c;
+        while ((c = ler()) != -1 && c != '\n') {
+            if (linhaAtual.length() < TAMANHO_MAXIMO_LINHA) {
+                linhaAtual.append((char) c);
+            } else {
+                grandeDemais = true; // Continua lendo (sem guardar) só para achar o fim da linha.
+            }
+        }
+        if (grandeDemais) {
+            registro.erro = "Linha grande demais.";
+            return true;
+        }
+        Map<String, Object> objeto;
+        try {
+            objeto = Json.lerObjeto(linhaAtual);
+        } catch (IllegalArgumentException e) {
+            registro.erro = "JSON inválido: " + e.getMessage() + ".";
+            return true;
+        }
+        registro.titulo = texto(objeto.get("titulo"));
+        registro.autor = texto(objeto.get("autor"));
+        registro.ano = texto(objeto.get("ano"));
+        registro.isbn = texto(objeto.get("isbn"));
+        return true;
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? null : valor.toString(); // Números (ex: "ano": 1899) viram texto também.
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.wagnerv.importacao; // Pacote da importação de livros em lote.
+
+import br.com.wagnerv.exception.LivroException; // Erros que impedem a leitura do arquivo inteiro.
+
+import java.io.IOException; // Erros ao ler o corpo da requisição.
+import java.io.Reader;      // De onde vêm os caracteres.
+
+/**
+ * Base dos leitores de arquivo de importação (CSV e JSON Lines).
+ *
+ * Lê os caracteres aos pedaços, num buffer próprio, e nunca guarda o arquivo inteiro:
+ * a memória usada é a mesma para 10 linhas ou para 200 mil. Também conta as linhas,
+ * para que o relatório de erros diga exatamente onde está cada problema.
+ */
+abstract class LeitorRegistros {
+
+    // Tamanho máximo de um campo. Um campo maior que isso quase sempre é um arquivo quebrado
+    // (por exemplo, aspas que nunca fecham), e não um título de verdade.
+    static final int TAMANHO_MAXIMO_CAMPO = 4 * 1024;
+
+    // Tamanho máximo de uma linha JSON. Também protege a memória contra arquivos quebrados.
+    static final int TAMANHO_MAXIMO_LINHA = 64 * 1024;
+
+    private final Reader entrada;
+    private final char[] buffer = new char[16 * 1024];
+    private int posicao;       // Próximo caractere a entregar.
+    private int fim;           // Quantos caracteres válidos há no buffer.
+    private boolean terminou;  // A entrada já acabou.
+    private boolean primeiroBloco = true;
+    private int linha = 1;     // Linha do próximo caractere.
+
+    LeitorRegistros(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * Preenche o próximo registro.
+     *
+     * @param registro O objeto a preencher (é limpo antes).
+     * @return {@code false} quando o arquivo acabou.
+     * @throws IOException Se a leitura da entrada falhar.
+     * @throws LivroException Se o arquivo não puder ser importado de jeito nenhum (ex: cabeçalho errado).
+     */
+    abstract boolean proximo(RegistroImportacao registro) throws IOException, LivroException;
+
+    /**
+     * @return O próximo caractere, ou -1 no fim da entrada.
+     */
+    final int ler() throws IOException {
+        if (posicao == fim && !preencher()) {
+            return -1;
+        }
+        char c = buffer[posicao++];
+        if (c == '\n') {
+            linha++;
+        }
+        return c;
+    }
+
+    /**
+     * @return O próximo caractere sem consumi-lo, ou -1 no fim da entrada.
+     */
+    final int espiar() throws IOException {
+        if (posicao == fim && !preencher()) {
+            return -1;
+        }
+        return buffer[posicao];
+    }
+
+    /**
+     * Pula linhas em branco.
+     *
+     * @return {@code false} se a entrada acabou.
+     */
+    final boolean pularLinhasVazias() throws IOException {
+        int c;
+        while ((c = espiar()) == '\n' || c == '\r') {
+            ler();
+        }
+        return c != -1;
+    }
+
+    /**
+     * Devolve o começo da entrada ainda não lido (até o fim da linha ou do buffer), sem consumir nada.
+     * Serve para "olhar" o cabeçalho antes de decidir como ler o arquivo.
+     */
+    final String espiarLinha() throws IOException {
+        if (posicao == fim && !preencher()) {
+            return "";
+        }
+        int i = posicao;
+        while (i < fim && buffer[i] != '\n') {
+            i++;
+        }
+        return new String(buffer, posicao, i - posicao);
+    }
+
+    /**
+     * @return A linha do arquivo em que está o próximo caractere (começa em 1).
+     */
+    final int linha() {
+        return linha;
+    }
+
+    private boolean preencher() throws IOException {
+        if (terminou) {
+            return false;
+        }
+        int lidos;
+        do {
+            lidos = entrada.read(buffer, 0, buffer.length);
+        } while (lidos == 0);
+        if (lidos < 0) {
+            terminou = true;
+            posicao = fim = 0;
+            return false;
+        }
+        posicao = 0;
+        fim = lidos;
+        // Planilhas salvas "em UTF-8" costumam começar com um BOM invisível: ele não faz parte do conteúdo.
+        if (primeiroBloco) {
+            primeiroBloco = false;
+            if (buffer[0] == '\uFEFF') {
+                posicao = 1;
+                return posicao < fim || preencher();
+            }
+        }
+        return true;
+    }
+}
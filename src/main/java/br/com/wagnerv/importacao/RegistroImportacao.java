@@ -0,0 +1,25 @@
+package br.com.wagnerv.importacao; // Pacote da importação de livros em lote.
+
+/**
+ * Um registro (linha) lido do arquivo de importação, ainda como texto.
+ *
+ * O mesmo objeto é reaproveitado para todos os registros do arquivo: o leitor só
+ * preenche os campos de novo. Com 200 mil linhas, isso evita 200 mil objetos inúteis.
+ */
+final class RegistroImportacao {
+
+    int linha;      // Linha do arquivo onde o registro começa (para o relatório de erros).
+    String titulo;
+    String autor;
+    String ano;     // Ainda texto: a conversão (e o erro, se não for número) fica com o importador.
+    String isbn;    // Opcional.
+    String erro;    // Preenchido quando o registro nem pôde ser lido (aspas abertas, JSON quebrado...).
+
+    void limpar() {
+        titulo = null;
+        autor = null;
+        ano = null;
+        isbn = null;
+        erro = null;
+    }
+}
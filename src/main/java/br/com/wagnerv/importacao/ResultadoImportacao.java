@@ -0,0 +1,88 @@
+package br.com.wagnerv.importacao; // Pacote da importação de livros em lote.
+
+import java.io.IOException; // Erros ao escrever o relatório.
+import java.io.Writer;      // Para onde o relatório vai.
+import java.util.ArrayList; // Erros guardados para o relatório.
+import java.util.Collections; // Para devolver a lista de erros sem deixar alterar.
+import java.util.List;      // Interface de lista.
+
+/**
+ * O que aconteceu numa importação: quantos registros foram lidos, quantos entraram,
+ * quantos foram recusados e por quê (linha a linha).
+ */
+public class ResultadoImportacao {
+
+    // Um arquivo totalmente errado teria 200 mil erros; o relatório lista só os primeiros.
+    public static final int MAXIMO_ERROS_LISTADOS = 1_000;
+
+    private int lidos;
+    private int importados;
+    private int rejeitados;
+    private long duracaoMillis;
+    private final List<String> erros = new ArrayList<>();
+
+    void lido() {
+        lidos++;
+    }
+
+    void importados(int quantidade) {
+        importados += quantidade;
+    }
+
+    void rejeitar(int linha, String motivo) {
+        rejeitados++;
+        if (erros.size() < MAXIMO_ERROS_LISTADOS) {
+            erros.add("linha " + linha + ": " + motivo);
+        }
+    }
+
+    void setDuracaoMillis(long duracaoMillis) {
+        this.duracaoMillis = duracaoMillis;
+    }
+
+    public int getLidos() {
+        return lidos;
+    }
+
+    public int getImportados() {
+        return importados;
+    }
+
+    public int getRejeitados() {
+        return rejeitados;
+    }
+
+    public long getDuracaoMillis() {
+        return duracaoMillis;
+    }
+
+    /**
+     * @return Os primeiros {@value #MAXIMO_ERROS_LISTADOS} erros, no formato "linha N: motivo".
+     */
+    public List<String> getErros() {
+        return Collections.unmodifiableList(erros);
+    }
+
+    /**
+     * Escreve o relatório em texto simples: um resumo e depois um erro por linha.
+     *
+     * @param saida Para onde escrever.
+     * @throws IOException Se a escrita falhar.
+     */
+    public void escreverRelatorio(Writer saida) throws IOException {
+        saida.write("Importação concluída em " + duracaoMillis + " ms.\n");
+        saida.write("Registros lidos: " + lidos + "\n");
+        saida.write("Livros importados: " + importados + "\n");
+        saida.write("Registros rejeitados: " + rejeitados + "\n");
+        if (!erros.isEmpty()) {
+            saida.write("\nErros:\n");
+            for (String erro : erros) {
+                saida.write(erro);
+                saida.write('\n');
+            }
+            if (rejeitados > erros.size()) {
+                saida.write("... e mais " + (rejeitados - erros.size()) + " erro(s) não listado(s).\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package br.com.wagnerv.indice; // Pacote dos índices que aceleram consultas ao catálogo.
+// Um "índice" aqui é como o índice remissivo no fim de um livro: em vez de ler tudo,
+// a gente vai direto nas páginas (livros) que têm a palavra procurada.
+
+import br.com.wagnerv.model.Livro;                  // O livro indexado.
+import br.com.wagnerv.repository.CatalogoListener;  // Para manter o índice em dia a cada inclusão/exclusão.
+import br.com.wagnerv.util.NormalizadorTexto;       // Tira acentos e quebra os textos em palavras.
+
+import java.util.ArrayList;                         // Listas de resultados e termos.
+import java.util.Arrays;                            // Busca binária, ordenação e cópia de arrays.
+import java.util.Collections;                       // Listas vazias.
+import java.util.Comparator;                        // Para escolher o grupo de termos mais seletivo.
+import java.util.HashMap;                           // Palavras de um livro durante a indexação.
+import java.util.List;                              // Interface de lista.
+import java.util.Map;                               // Interface de mapa.
+import java.util.PriorityQueue;                     // Para guardar só os K melhores resultados.
+import java.util.concurrent.ConcurrentSkipListMap;  // Dicionário de termos ordenado (busca por prefixo).
+
+/**
+ * Índice invertido sobre o título e o autor dos livros.
+ *
+ * Para cada palavra (já sem acento e em maiúsculas) o índice guarda quais livros têm
+ * essa palavra e onde (no título, no autor ou nos dois). Uma busca vai direto nas
+ * listas das palavras procuradas, sem percorrer o catálogo.
+ *
+ * Regras da busca:
+ * - todas as palavras da consulta precisam aparecer no livro (título ou autor);
+ * - a ÚLTIMA palavra vale como prefixo, para funcionar enquanto o usuário digita
+ *   ("machado de as" já encontra "MACHADO DE ASSIS");
+ * - palavra no título vale mais que no autor, e palavra inteira vale mais que prefixo.
+ *
+ * O índice é um {@link CatalogoListener}: ele é atualizado pelo próprio repositório, com o
+ * lock de escrita, então só existe um escritor por vez. As buscas não usam lock.
+ *
+ * Cada lista de livros de uma palavra ({@link Postagens}) é um array de IDs em ordem crescente,
+ * sem objetos por livro: a busca só faz buscas binárias e comparações de inteiros.
+ */
+public class IndiceBusca implements CatalogoListener {
+
+    // Onde a palavra aparece (bits): no título, no autor ou nos dois. Zero = livro excluído.
+    private static final byte NO_TITULO = 1;
+    private static final byte NO_AUTOR = 2;
+
+    // Quantos termos no máximo um prefixo pode "expandir". Um prefixo de uma letra
+    // casaria com milhares de termos; os primeiros (em ordem alfabética) já bastam para sugerir.
+    private static final int MAX_TERMOS_PREFIXO = 64;
+
+    // Quantos candidatos no máximo são avaliados por busca. Só consultas muito vagas (uma ou duas
+    // letras) chegam nisso; nelas o resultado é uma sugestão, não a lista completa.
+    private static final int MAX_CANDIDATOS = 20_000;
+
+    // Pesos (inteiros, para não precisar de 'double' no meio da busca): palavra inteira x prefixo.
+    private static final int PESO_EXATO = 10;
+    private static final int PESO_PREFIXO = 6;
+
+    // Palavra -> livros que têm essa palavra.
+    private final ConcurrentSkipListMap<String, Postagens> termos = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        for (Map.Entry<String, Integer> e : palavrasDo(livro).entrySet()) {
+            termos.computeIfAbsent(e.getKey(), k -> new Postagens()).adicionar(livro.getId(), e.getValue().byteValue());
+        }
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        for (String palavra : palavrasDo(livro).keySet()) {
+            Postagens postagens = termos.get(palavra);
+            if (postagens != null && postagens.remover(livro.getId()) == 0) {
+                termos.remove(palavra, postagens); // Palavra sem nenhum livro sai do dicionário.
+            }
+        }
+    }
+
+    // Junta as palavras do título e do autor, marcando onde cada uma aparece.
+    private static Map<String, Integer> palavrasDo(Livro livro) {
+        Map<String, Integer> palavras = new HashMap<>();
+        for (String p : NormalizadorTexto.palavras(livro.getTitulo())) {
+            palavras.merge(p, (int) NO_TITULO, (a, b) -> a | b);
+        }
+        for (String p : NormalizadorTexto.palavras(livro.getAutor())) {
+            palavras.merge(p, (int) NO_AUTOR, (a, b) -> a | b);
+        }
+        return palavras;
+    }
+
+    /**
+     * Busca os livros que casam com a consulta, do mais relevante para o menos relevante.
+     *
+     * @param consulta O texto digitado pelo usuário.
+     * @param limite Quantos IDs devolver no máximo.
+     * @return Os IDs dos livros encontrados, ordenados por relevância (empate: o mais antigo primeiro).
+     */
+    public List<Integer> buscar(String consulta, int limite) {
+        List<String> palavras = NormalizadorTexto.palavras(consulta);
+        if (palavras.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Para cada palavra da consulta, os termos do dicionário que casam com ela.
+        List<Termo[]> grupos = new ArrayList<>(palavras.size());
+        for (int i = 0; i < palavras.size(); i++) {
+            boolean ultima = i == palavras.size() - 1;
+            Termo[] grupo = ultima ? termosComPrefixo(palavras.get(i)) : termoExato(palavras.get(i));
+            if (grupo.length == 0) {
+                return Collections.emptyList(); // Uma palavra sem nenhum livro: nada casa com tudo.
+            }
+            grupos.add(grupo);
+        }
+        // Começamos pelo grupo com menos livros: ele "guia" a busca e os outros só são consultados.
+        grupos.sort(Comparator.comparingLong(IndiceBusca::quantidadeLivros));
+
+        // Candidatos: (ID << 32 | pontos) de cada livro do grupo mais seletivo, em ordem de ID.
+        long[] candidatos = candidatos(grupos.get(0));
+
+        // Mantém só os 'limite' melhores numa fila onde o "pior" fica na frente.
+        // Chave = (pontos << 32) | (MAX - ID): mais pontos ganha; no empate, o menor ID (mais antigo) ganha.
+        PriorityQueue<Long> melhores = new PriorityQueue<>(limite + 1);
+        for (int c = 0; c < candidatos.length; c++) {
+            // Várias linhas com o mesmo ID (vindas de termos diferentes): a última é a de mais pontos.
+            if (c + 1 < candidatos.length && (candidatos[c + 1] >>> 32) == (candidatos[c] >>> 32)) {
+                continue;
+            }
+            int id = (int) (candidatos[c] >>> 32);
+            long pontos = (int) candidatos[c];
+            for (int g = 1; g < grupos.size() && pontos > 0; g++) {
+                int noGrupo = pontuar(grupos.get(g), id);
+                pontos = noGrupo > 0 ? pontos + noGrupo : 0;
+            }
+            if (pontos > 0) {
+                long chave = (pontos << 32) | (Integer.MAX_VALUE - id);
+                if (melhores.size() < limite) {
+                    melhores.add(chave);
+                } else if (chave > melhores.peek()) {
+                    melhores.poll(); // Joga fora o pior.
+                    melhores.add(chave);
+                }
+            }
+        }
+
+        Integer[] ids = new Integer[melhores.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = Integer.MAX_VALUE - (int) (melhores.poll() & 0xFFFFFFFFL); // Sai do pior para o melhor.
+        }
+        return Arrays.asList(ids);
+    }
+
+    // Junta os livros de todos os termos do grupo, já pontuados, ordenados por ID e pontos.
+    private static long[] candidatos(Termo[] grupo) {
+        int total = (int) Math.min(quantidadeLivros(grupo), MAX_CANDIDATOS);
+        long[] candidatos = new long[total];
+        int n = 0;
+        boolean emOrdem = grupo.length == 1;
+        for (Termo termo : grupo) {
+            Postagens.Estado e = termo.estado;
+            for (int i = 0; i < e.n && n < total; i++) {
+                if (e.lugares[i] != 0) {
+                    candidatos[n++] = ((long) e.ids[i] << 32) | termo.peso * pesoDoLugar(e.lugares[i]);
+                }
+            }
+            for (int i = 0; i < e.avulsosIds.length && n < total; i++) {
+                candidatos[n++] = ((long) e.avulsosIds[i] << 32) | termo.peso * pesoDoLugar(e.avulsosLugares[i]);
+                emOrdem = false;
+            }
+        }
+        if (!emOrdem) {
+            Arrays.sort(candidatos, 0, n); // Com um termo só (e nada fora de ordem), os IDs já vêm em ordem.
+        }
+        return n == candidatos.length ? candidatos : Arrays.copyOf(candidatos, n);
+    }
+
+    // A melhor pontuação do livro dentro de um grupo de termos (0 se ele não tem nenhum deles).
+    private static int pontuar(Termo[] grupo, int id) {
+        int melhor = 0;
+        for (Termo termo : grupo) {
+            int lugar = termo.estado.lugar(id);
+            if (lugar != 0) {
+                melhor = Math.max(melhor, termo.peso * pesoDoLugar(lugar));
+            }
+        }
+        return melhor;
+    }
+
+    // Título vale 2, autor vale 1, os dois juntos valem 3.
+    private static int pesoDoLugar(int lugar) {
+        return ((lugar & NO_TITULO) != 0 ? 2 : 0) + ((lugar & NO_AUTOR) != 0 ? 1 : 0);
+    }
+
+    private static long quantidadeLivros(Termo[] grupo) {
+        long total = 0;
+        for (Termo termo : grupo) {
+            total += termo.estado.vivos();
+        }
+        return total;
+    }
+
+    private Termo[] termoExato(String palavra) {
+        Postagens postagens = termos.get(palavra);
+        return postagens == null ? new Termo[0] : new Termo[] {new Termo(postagens.estado, PESO_EXATO)};
+    }
+
+    private Termo[] termosComPrefixo(String prefixo) {
+        // Todos os termos entre "prefixo" e "prefixo" + o maior caractere possível começam com o prefixo.
+        List<Termo> grupo = new ArrayList<>();
+        for (Map.Entry<String, Postagens> e
+                : termos.subMap(prefixo, true, prefixo + Character.MAX_VALUE, false).entrySet()) {
+            // A palavra inteira vale mais do que uma palavra que só começa com o prefixo.
+            grupo.add(new Termo(e.getValue().estado, e.getKey().equals(prefixo) ? PESO_EXATO : PESO_PREFIXO));
+            if (grupo.size() == MAX_TERMOS_PREFIXO) {
+                break;
+            }
+        }
+        return grupo.toArray(new Termo[0]);
+    }
+
+    /**
+     * Um termo do dicionário que casou com uma palavra da consulta, com o peso do casamento.
+     */
+    private static final class Termo {
+        final Postagens.Estado estado;
+        final int peso;
+
+        Termo(Postagens.Estado estado, int peso) {
+            this.estado = estado;
+            this.peso = peso;
+        }
+    }
+
+    /**
+     * Os livros que têm uma palavra: IDs em ordem crescente e, para cada um, onde a palavra aparece.
+     *
+     * Só o escritor (com o lock do repositório) altera; quem busca lê o {@link Estado} publicado.
+     * - Como os IDs novos são sempre maiores, incluir quase sempre é só escrever no fim do array,
+     *   numa posição que nenhum leitor enxerga ainda.
+     * - Um ID fora de ordem (raro: replicação, restauração) vai para uma lista pequena à parte,
+     *   também ordenada, em vez de abrir espaço no meio do array grande (o que copiaria tudo, com o
+     *   lock de escrita). Quando ela passa de ~raiz(n) itens, as duas listas são juntadas de uma vez.
+     * - Excluir só zera o "lugar" do livro (uma lápide). Leitores podem ver o livro por um instante
+     *   a mais ou a menos, o que é inofensivo: os resultados passam depois pelo repositório.
+     * - Quando as lápides passam da metade, o array é reconstruído sem elas.
+     */
+    static final class Postagens {
+
+        private static final int[] SEM_IDS = new int[0];
+        private static final byte[] SEM_LUGARES = new byte[0];
+
+        // Tamanho mínimo da lista de fora de ordem antes de juntar com a principal.
+        private static final int MINIMO_AVULSOS = 32;
+
+        private volatile Estado estado = new Estado(new int[2], new byte[2], 0, 0, SEM_IDS, SEM_LUGARES);
+
+        void adicionar(int id, byte lugar) {
+            Estado e = estado;
+            if (e.n > 0 && e.ids[e.n - 1] >= id) {
+                int pos = Arrays.binarySearch(e.ids, 0, e.n, id);
+                if (pos >= 0) {
+                    // O mesmo ID voltou (ex: replicação): reaproveita a posição.
+                    boolean eraLapide = e.lugares[pos] == 0;
+                    e.lugares[pos] = lugar;
+                    estado = new Estado(e.ids, e.lugares, e.n, eraLapide ? e.mortos - 1 : e.mortos,
+                            e.avulsosIds, e.avulsosLugares);
+                    return;
+                }
+                adicionarAvulso(e, id, lugar);
+                return;
+            }
+            int[] ids = e.ids;
+            byte[] lugares = e.lugares;
+            if (e.n == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                lugares = Arrays.copyOf(lugares, ids.length);
+            }
+            ids[e.n] = id;
+            lugares[e.n] = lugar;
+            estado = new Estado(ids, lugares, e.n + 1, e.mortos, e.avulsosIds, e.avulsosLugares);
+        }
+
+        // ID fora de ordem: entra (numa cópia) na lista pequena; se ela cresceu demais, junta as duas.
+        private void adicionarAvulso(Estado e, int id, byte lugar) {
+            int pos = Arrays.binarySearch(e.avulsosIds, id);
+            if (pos >= 0) {
+                byte[] lugares = e.avulsosLugares.clone();
+                lugares[pos] = lugar;
+                estado = new Estado(e.ids, e.lugares, e.n, e.mortos, e.avulsosIds, lugares);
+                return;
+            }
+            int ponto = -pos - 1;
+            int total = e.avulsosIds.length;
+            int[] ids = new int[total + 1];
+            byte[] lugares = new byte[total + 1];
+            System.arraycopy(e.avulsosIds, 0, ids, 0, ponto);
+            System.arraycopy(e.avulsosLugares, 0, lugares, 0, ponto);
+            ids[ponto] = id;
+            lugares[ponto] = lugar;
+            System.arraycopy(e.avulsosIds, ponto, ids, ponto + 1, total - ponto);
+            System.arraycopy(e.avulsosLugares, ponto, lugares, ponto + 1, total - ponto);
+            Estado novo = new Estado(e.ids, e.lugares, e.n, e.mortos, ids, lugares);
+            // Juntar custa O(n), mas só acontece a cada ~raiz(n) IDs fora de ordem.
+            estado = ids.length > Math.max(MINIMO_AVULSOS, (int) Math.sqrt(e.n)) ? reconstruir(novo) : novo;
+        }
+
+        /**
+         * @return Quantos livros vivos continuam com essa palavra.
+         */
+        int remover(int id) {
+            Estado e = estado;
+            int pos = Arrays.binarySearch(e.ids, 0, e.n, id);
+            if (pos < 0) {
+                return removerAvulso(e, id);
+            }
+            if (e.lugares[pos] == 0) {
+                return e.vivos();
+            }
+            e.lugares[pos] = 0; // Lápide.
+            int mortos = e.mortos + 1;
+            Estado novo = new Estado(e.ids, e.lugares, e.n, mortos, e.avulsosIds, e.avulsosLugares);
+            estado = mortos > 8 && mortos * 2 > e.n ? reconstruir(novo) : novo;
+            return estado.vivos();
+        }
+
+        // Na lista pequena não há lápide: o livro sai numa cópia.
+        private int removerAvulso(Estado e, int id) {
+            int pos = Arrays.binarySearch(e.avulsosIds, id);
+            if (pos < 0) {
+                return e.vivos();
+            }
+            int total = e.avulsosIds.length;
+            int[] ids = new int[total - 1];
+            byte[] lugares = new byte[total - 1];
+            System.arraycopy(e.avulsosIds, 0, ids, 0, pos);
+            System.arraycopy(e.avulsosLugares, 0, lugares, 0, pos);
+            System.arraycopy(e.avulsosIds, pos + 1, ids, pos, total - pos - 1);
+            System.arraycopy(e.avulsosLugares, pos + 1, lugares, pos, total - pos - 1);
+            estado = new Estado(e.ids, e.lugares, e.n, e.mortos, ids, lugares);
+            return estado.vivos();
+        }
+
+        // Um array novo, em ordem, sem as lápides e já com os IDs fora de ordem no lugar certo.
+        private static Estado reconstruir(Estado e) {
+            int vivos = e.vivos();
+            int[] ids = new int[Math.max(2, vivos * 2)];
+            byte[] lugares = new byte[ids.length];
+            int j = 0;
+            int a = 0;
+            for (int i = 0; i < e.n; i++) {
+                if (e.lugares[i] == 0) {
+                    continue;
+                }
+                while (a < e.avulsosIds.length && e.avulsosIds[a] < e.ids[i]) {
+                    ids[j] = e.avulsosIds[a];
+                    lugares[j++] = e.avulsosLugares[a++];
+                }
+                ids[j] = e.ids[i];
+                lugares[j++] = e.lugares[i];
+            }
+            while (a < e.avulsosIds.length) {
+                ids[j] = e.avulsosIds[a];
+                lugares[j++] = e.avulsosLugares[a++];
+            }
+            return new Estado(ids, lugares, j, 0, SEM_IDS, SEM_LUGARES);
+        }
+
+        /**
+         * A lista publicada: só as posições menores que 'n' valem, mais a lista (pequena e
+         * imutável) dos IDs que chegaram fora de ordem.
+         */
+        static final class Estado {
+            final int[] ids;
+            final byte[] lugares;
+            final int n;
+            final int mortos;
+            final int[] avulsosIds;
+            final byte[] avulsosLugares;
+
+            Estado(int[] ids, byte[] lugares, int n, int mortos, int[] avulsosIds, byte[] avulsosLugares) {
+                this.ids = ids;
+                this.lugares = lugares;
+                this.n = n;
+                this.mortos = mortos;
+                this.avulsosIds = avulsosIds;
+                this.avulsosLugares = avulsosLugares;
+            }
+
+            int vivos() {
+                return n - mortos + avulsosIds.length;
+            }
+
+            // Onde a palavra aparece no livro (0 = não aparece).
+            int lugar(int id) {
+                int pos = Arrays.binarySearch(ids, 0, n, id);
+                if (pos >= 0) {
+                    return lugares[pos];
+                }
+                pos = avulsosIds.length == 0 ? -1 : Arrays.binarySearch(avulsosIds, id);
+                return pos >= 0 ? avulsosLugares[pos] : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package br.com.wagnerv.indice; // Pacote dos índices que aceleram consultas ao catálogo.
+
+import br.com.wagnerv.exception.LivroDuplicadoException; // O livro repetido (ou parecido) recusado.
+import br.com.wagnerv.model.Livro;                       // O livro indexado.
+import br.com.wagnerv.repository.CatalogoListener;       // Para manter o índice em dia a cada inclusão/exclusão.
+import br.com.wagnerv.repository.RegraInclusao;          // A conferência feita com o lock, antes de incluir.
+import br.com.wagnerv.util.NormalizadorTexto;            // Tira acentos e quebra os textos em palavras.
+
+import java.util.ArrayList;          // Palavras do título que contam na comparação aproximada.
+import java.util.Collections;        // Ordena as palavras.
+import java.util.List;               // Interface de lista.
+import java.util.Set;                // Palavras ignoradas.
+import java.util.function.IntFunction; // Busca o livro pelo ID (para conferir e para a mensagem).
+
+/**
+ * Índice de unicidade do catálogo: impede que o mesmo livro seja cadastrado duas vezes (o botão
+ * clicado duas vezes, a mesma planilha importada de novo...).
+ *
+ * Cada livro vira uma "chave" com título, autor e ano normalizados como o resto da aplicação já faz
+ * (sem acentos, em maiúsculas, só letras e números: "Dom Casmurro." e "DOM  CASMURRO" são iguais),
+ * e a chave vira um hash de 64 bits numa {@link TabelaChaves}. Conferir um livro novo é uma busca
+ * na tabela: O(1), seja o catálogo de mil ou de milhões de livros. Quando o hash bate, o livro
+ * que já está lá é conferido de verdade, então duas chaves diferentes com o mesmo hash (muito
+ * raro, mas possível) não recusam ninguém.
+ *
+ * Modo aproximado (opcional): também avisa quando o livro é só PARECIDO com um que já existe:
+ * - título com as mesmas palavras, em qualquer ordem, sem contar artigos e preposições
+ *   ("O Cortiço" ~ "Cortiço"; "Memórias Póstumas de Brás Cubas" ~ "Brás Cubas, Memórias Póstumas");
+ * - mesmo sobrenome do autor ("Machado de Assis" ~ "J. M. Machado de Assis");
+ * - ano igual ou vizinho (1899 ~ 1900).
+ * Continua O(1): são três buscas (ano - 1, ano, ano + 1) numa segunda tabela. O parecido pode ser
+ * cadastrado mesmo assim se o usuário confirmar; o repetido exato, não.
+ *
+ * A conferência ({@link #regra(boolean)}) roda com o lock de escrita do repositório, logo antes
+ * da inclusão, e já reserva a chave do livro aceito: dois pedidos iguais ao mesmo tempo, ou dois
+ * livros iguais no mesmo lote da importação, não passam juntos. Livros que entram sem conferência
+ * (restauração do disco, alterações vindas do primário da replicação) são só indexados, mesmo que
+ * repetidos: o catálogo que já existe não é "corrigido".
+ */
+public class IndiceDuplicatas implements CatalogoListener {
+
+    // Palavras que não mudam o livro quando aparecem ou somem do título.
+    private static final Set<String> PALAVRAS_IGNORADAS = Set.of(
+            "A", "O", "AS", "OS", "UM", "UMA", "UNS", "UMAS", "DE", "DA", "DO", "DAS", "DOS", "E", "EM",
+            "NO", "NA", "NOS", "NAS", "THE", "AN", "OF", "AND");
+
+    // Finais de nome que não são o sobrenome ("Jorge Amado Filho" -> AMADO).
+    private static final Set<String> SUFIXOS_NOME = Set.of("JR", "JUNIOR", "FILHO", "NETO", "SOBRINHO");
+
+    private final IntFunction<Livro> buscador;
+    private final TabelaChaves exatas = new TabelaChaves(1024);
+    private final TabelaChaves aproximadas; // null quando o modo aproximado está desligado.
+
+    /**
+     * @param buscador   Busca um livro do catálogo pelo ID (normalmente {@code livros::buscarPorId}).
+     * @param aproximado Se também deve recusar livros parecidos (não só os iguais).
+     */
+    public IndiceDuplicatas(IntFunction<Livro> buscador, boolean aproximado) {
+        this.buscador = buscador;
+        this.aproximadas = aproximado ? new TabelaChaves(1024) : null;
+    }
+
+    /**
+     * @return Se o modo aproximado está ligado.
+     */
+    public boolean isAproximado() {
+        return aproximadas != null;
+    }
+
+    /**
+     * A regra para passar ao repositório na inclusão ({@code livros.adicionar(livro, regra)}).
+     *
+     * @param aceitarParecidos {@code true} quando o usuário já confirmou que o livro não é repetido:
+     *                         só o repetido exato é recusado.
+     * @return A regra (lança {@link LivroDuplicadoException}).
+     */
+    public RegraInclusao regra(boolean aceitarParecidos) {
+        return livro -> verificar(livro, aceitarParecidos);
+    }
+
+    // Roda com o lock de escrita do repositório. Se aceitar, já reserva as chaves com o ID do livro
+    // (o aoAdicionar, logo depois, reconhece a reserva pelo ID e não conta duas vezes).
+    private void verificar(Livro livro, boolean aceitarParecidos) throws LivroDuplicadoException {
+        String exata = chaveExata(livro);
+        long hashExato = hash(exata, livro.getAno());
+        int posicao = exatas.buscar(hashExato);
+        if (posicao >= 0) {
+            int id = exatas.id(posicao);
+            Livro existente = id == TabelaChaves.SEM_ID ? null : buscador.apply(id);
+            if (existente == null || chaveExata(existente).equals(exata) && existente.getAno() == livro.getAno()) {
+                throw new LivroDuplicadoException(mensagem("Livro já cadastrado", existente, id), id, false);
+            }
+            // Hash igual de livros diferentes: o livro entra (a tabela só conta mais uma repetição).
+        }
+
+        String aproximada = aproximadas == null ? null : chaveAproximada(livro);
+        if (aproximada != null && !aceitarParecidos) {
+            for (int ano = livro.getAno() - 1; ano <= livro.getAno() + 1; ano++) {
+                int vizinho = aproximadas.buscar(hash(aproximada, ano));
+                if (vizinho < 0) {
+                    continue;
+                }
+                int id = aproximadas.id(vizinho);
+                Livro existente = id == TabelaChaves.SEM_ID ? null : buscador.apply(id);
+                if (existente == null || aproximada.equals(chaveAproximada(existente))) {
+                    throw new LivroDuplicadoException(mensagem("Parecido com um livro já cadastrado", existente, id)
+                            + " Confirme para cadastrar mesmo assim.", id, true);
+                }
+            }
+        }
+
+        if (posicao < 0) {
+            exatas.adicionar(hashExato, livro.getId());
+        }
+        if (aproximada != null) {
+            long hashAproximado = hash(aproximada, livro.getAno());
+            if (aproximadas.buscar(hashAproximado) < 0) {
+                aproximadas.adicionar(hashAproximado, livro.getId());
+            }
+        }
+    }
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        indexar(exatas, hash(chaveExata(livro), livro.getAno()), livro.getId());
+        String aproximada = aproximadas == null ? null : chaveAproximada(livro);
+        if (aproximada != null) {
+            indexar(aproximadas, hash(aproximada, livro.getAno()), livro.getId());
+        }
+    }
+
+    // Coloca a chave na tabela, a não ser que a conferência já a tenha reservado para este livro.
+    private static void indexar(TabelaChaves tabela, long chave, int id) {
+        int posicao = tabela.buscar(chave);
+        if (posicao < 0 || tabela.id(posicao) != id) {
+            tabela.adicionar(chave, id);
+        }
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        exatas.remover(hash(chaveExata(livro), livro.getAno()), livro.getId());
+        String aproximada = aproximadas == null ? null : chaveAproximada(livro);
+        if (aproximada != null) {
+            aproximadas.remover(hash(aproximada, livro.getAno()), livro.getId());
+        }
+    }
+
+    /**
+     * @return Quantos livros diferentes (pela chave exata) o índice conhece.
+     */
+    public int tamanho() {
+        return exatas.tamanho();
+    }
+
+    /**
+     * @return Memória aproximada das tabelas, em bytes.
+     */
+    public long bytesAproximados() {
+        return exatas.bytes() + (aproximadas == null ? 0 : aproximadas.bytes());
+    }
+
+    // Título e autor como a aplicação compara textos (sem acentos, maiúsculas, só letras e números).
+    // O ano entra no hash, não no texto.
+    static String chaveExata(Livro livro) {
+        return String.join(" ", NormalizadorTexto.palavras(livro.getTitulo())) + '\u0001'
+                + String.join(" ", NormalizadorTexto.palavras(livro.getAutor()));
+    }
+
+    // Palavras do título sem artigos/preposições, em ordem alfabética, e o sobrenome do autor.
+    // Devolve null quando não sobra palavra nenhuma no título (senão todo livro do autor pareceria igual).
+    static String chaveAproximada(Livro livro) {
+        List<String> titulo = new ArrayList<>();
+        for (String palavra : NormalizadorTexto.palavras(livro.getTitulo())) {
+            if (!PALAVRAS_IGNORADAS.contains(palavra)) {
+                titulo.add(palavra);
+            }
+        }
+        if (titulo.isEmpty()) {
+            return null;
+        }
+        Collections.sort(titulo);
+        List<String> autor = NormalizadorTexto.palavras(livro.getAutor());
+        String sobrenome = "";
+        for (int i = autor.size() - 1; i >= 0; i--) {
+            if (!SUFIXOS_NOME.contains(autor.get(i))) {
+                sobrenome = autor.get(i);
+                break;
+            }
+        }
+        return String.join(" ", titulo) + '\u0001' + sobrenome;
+    }
+
+    // FNV-1a de 64 bits sobre os caracteres, com o ano misturado no fim, e a "finalização" do
+    // MurmurHash3 (como no ConjuntoLong) para espalhar bem os bits na tabela.
+    static long hash(String texto, int ano) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= ano;
+        h *= 0x100000001b3L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // "Livro já cadastrado: "DOM CASMURRO", de MACHADO DE ASSIS (1899), ID 42."
+    // Sem o livro (ele está entrando no mesmo lote, ainda não publicado), fica só o ID, se houver.
+    private static String mensagem(String inicio, Livro existente, int id) {
+        if (existente == null) {
+            return id == TabelaChaves.SEM_ID ? inicio + "." : inicio + " (ID " + id + ").";
+        }
+        return inicio + ": \"" + existente.getTitulo() + "\", de " + existente.getAutor() + " ("
+                + existente.getAno() + "), ID " + existente.getId() + ".";
+    }
+}
@@ -0,0 +1,309 @@
+package br.com.wagnerv.indice; // Pacote dos índices que aceleram consultas ao catálogo.
+
+import br.com.wagnerv.model.Livro;                  // O livro indexado.
+import br.com.wagnerv.repository.CatalogoListener;  // Para manter os índices em dia a cada inclusão/exclusão.
+import br.com.wagnerv.util.NormalizadorTexto;       // Tira acentos e quebra o nome do autor em palavras.
+
+import java.util.ArrayList;                         // Listas de resultados.
+import java.util.Comparator;                        // Ordem do ranking de autores.
+import java.util.List;                              // Interface de lista.
+import java.util.Map;                               // Entradas do mapa de anos.
+import java.util.NavigableMap;                      // Faixa de anos.
+import java.util.concurrent.ConcurrentHashMap;      // Autor normalizado -> livros.
+import java.util.concurrent.ConcurrentSkipListMap;  // Ano -> livros, em ordem de ano.
+import java.util.concurrent.ConcurrentSkipListSet;  // Ranking de autores por quantidade de livros.
+
+/**
+ * Índices secundários por ano e por autor, e as "facetas" (contagens) que a tela mostra ao lado
+ * da lista: quantos livros há por década e quais autores têm mais livros.
+ *
+ * - Ano: um mapa ordenado "ano → IDs", então uma faixa de anos ("de 1990 até 1999") é um
+ *   pedaço do mapa, e o total da faixa é a soma dos tamanhos das listas (um número por ano,
+ *   não um por livro).
+ * - Autor: um mapa "autor normalizado → livros", com os livros de cada autor em ordem de
+ *   (ano, ID). A comparação é exata, mas sem diferenciar acentos, maiúsculas e pontuação:
+ *   "Machado de Assis" e "MACHADO DE ASSIS" são o mesmo autor.
+ * - Ranking: os autores ficam num conjunto ordenado pela quantidade de livros, atualizado a
+ *   cada inclusão/exclusão, então os "N autores com mais livros" são os N primeiros.
+ *
+ * Os resultados filtrados vêm sempre em ordem de (ano, ID), e nem a página nem o total varrem
+ * o catálogo.
+ *
+ * Como o {@link IndiceBusca}, é um {@link CatalogoListener}: só o repositório (com o lock de
+ * escrita) altera os índices, um livro por vez; as consultas não usam lock. Uma consulta que
+ * acontece durante uma alteração pode ver o livro um instante antes ou depois, o que é
+ * inofensivo: os IDs devolvidos passam de novo pelo repositório.
+ */
+public class IndiceFacetas implements CatalogoListener {
+
+    // Ano -> IDs dos livros daquele ano.
+    private final ConcurrentSkipListMap<Integer, ListaOrdenada> porAno = new ConcurrentSkipListMap<>();
+
+    // Autor normalizado -> livros do autor.
+    private final ConcurrentHashMap<String, Autor> porAutor = new ConcurrentHashMap<>();
+
+    // Autores do que tem mais livros para o que tem menos (empate: ordem alfabética).
+    private final ConcurrentSkipListSet<Posicao> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt((Posicao p) -> -p.quantidade).thenComparing(p -> p.autor.chave));
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        porAno.computeIfAbsent(livro.getAno(), a -> new ListaOrdenada()).adicionar(livro.getId());
+
+        String chave = chaveAutor(livro.getAutor());
+        if (chave.isEmpty()) {
+            return; // Sem autor: fica só no índice de ano.
+        }
+        Autor autor = porAutor.computeIfAbsent(chave, c -> new Autor(c, livro.getAutor()));
+        autor.livros.adicionar(chaveAnoId(livro.getAno(), livro.getId()));
+        atualizarRanking(autor);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        ListaOrdenada doAno = porAno.get(livro.getAno());
+        if (doAno != null && doAno.remover(livro.getId()) == 0) {
+            porAno.remove(livro.getAno(), doAno); // Ano sem nenhum livro sai do mapa.
+        }
+
+        Autor autor = porAutor.get(chaveAutor(livro.getAutor()));
+        if (autor != null) {
+            autor.livros.remover(chaveAnoId(livro.getAno(), livro.getId()));
+            atualizarRanking(autor);
+            if (autor.livros.tamanho() == 0) {
+                porAutor.remove(autor.chave, autor);
+            }
+        }
+    }
+
+    // Tira a posição antiga do autor no ranking e coloca a nova (só o escritor chama).
+    private void atualizarRanking(Autor autor) {
+        if (autor.posicao != null) {
+            ranking.remove(autor.posicao);
+        }
+        int quantidade = autor.livros.tamanho();
+        autor.posicao = quantidade == 0 ? null : new Posicao(autor, quantidade);
+        if (autor.posicao != null) {
+            ranking.add(autor.posicao);
+        }
+    }
+
+    /**
+     * Uma página dos livros que passam no filtro, em ordem de (ano, ID).
+     *
+     * @param anoDe  Menor ano aceito (null = sem limite).
+     * @param anoAte Maior ano aceito (null = sem limite).
+     * @param autor  Autor exato, sem diferenciar acentos/maiúsculas (null ou vazio = qualquer um).
+     * @param pular  Quantos livros do começo do resultado pular (a paginação).
+     * @param limite Quantos IDs no máximo devolver.
+     * @return O total de livros do filtro e os IDs da página.
+     */
+    public Resultado filtrar(Integer anoDe, Integer anoAte, String autor, int pular, int limite) {
+        int de = anoDe == null ? Integer.MIN_VALUE : anoDe;
+        int ate = anoAte == null ? Integer.MAX_VALUE : anoAte;
+        List<Integer> ids = new ArrayList<>(Math.max(0, Math.min(limite, 1000)));
+        if (de > ate) {
+            return new Resultado(0, ids);
+        }
+
+        String chave = chaveAutor(autor);
+        if (!chave.isEmpty()) {
+            Autor a = porAutor.get(chave);
+            if (a == null) {
+                return new Resultado(0, ids);
+            }
+            // Os livros do autor estão em ordem de (ano, ID): a faixa de anos é um trecho contínuo.
+            ListaOrdenada.Estado e = a.livros.estado();
+            int inicio = e.posicao(chaveAnoId(de, 0));
+            int fim = ate == Integer.MAX_VALUE ? e.n : e.posicao(chaveAnoId(ate + 1, 0));
+            copiar(e, inicio, fim, pular, limite, ids);
+            return new Resultado(e.vivas(inicio, fim), ids);
+        }
+
+        NavigableMap<Integer, ListaOrdenada> anos = porAno.subMap(de, true, ate, true);
+        int total = 0;
+        int restantesPular = pular;
+        for (ListaOrdenada lista : anos.values()) {
+            ListaOrdenada.Estado e = lista.estado();
+            int vivas = e.n - e.mortos;
+            total += vivas;
+            if (ids.size() >= limite) {
+                continue; // Página completa: o resto só entra na contagem.
+            }
+            if (restantesPular >= vivas) {
+                restantesPular -= vivas; // O ano inteiro fica antes da página: pula sem olhar os livros.
+                continue;
+            }
+            restantesPular = copiar(e, 0, e.n, restantesPular, limite, ids);
+        }
+        return new Resultado(total, ids);
+    }
+
+    // Copia os IDs vivos de [inicio, fim) para 'ids', pulando os primeiros 'pular'.
+    // Devolve quantos ainda faltava pular (0 se a cópia começou).
+    private static int copiar(ListaOrdenada.Estado e, int inicio, int fim, int pular, int limite,
+                              List<Integer> ids) {
+        for (int i = inicio; i < fim && ids.size() < limite; i++) {
+            if (e.morta[i]) {
+                continue;
+            }
+            if (pular > 0) {
+                pular--;
+                continue;
+            }
+            ids.add((int) e.chaves[i]); // Nas duas listas o ID está nos 32 bits de baixo.
+        }
+        return pular;
+    }
+
+    /**
+     * @return Quantos livros há em cada década (ex: 1990 → livros de 1990 a 1999), em ordem.
+     *         Custa uma soma por ano, não uma por livro.
+     */
+    public List<Faceta> livrosPorDecada() {
+        List<Faceta> decadas = new ArrayList<>();
+        Faceta atual = null;
+        int decadaAtual = 0;
+        for (Map.Entry<Integer, ListaOrdenada> e : porAno.entrySet()) {
+            int quantidade = e.getValue().tamanho();
+            if (quantidade == 0) {
+                continue;
+            }
+            int decada = Math.floorDiv(e.getKey(), 10) * 10;
+            if (atual != null && decada == decadaAtual) {
+                atual = new Faceta(atual.getRotulo(), atual.getValor(), atual.getQuantidade() + quantidade);
+                decadas.set(decadas.size() - 1, atual);
+            } else {
+                decadaAtual = decada;
+                atual = new Faceta(decada + "s", String.valueOf(decada), quantidade);
+                decadas.add(atual);
+            }
+        }
+        return decadas;
+    }
+
+    /**
+     * @param limite Quantos autores devolver.
+     * @return Os autores com mais livros, do que tem mais para o que tem menos.
+     */
+    public List<Faceta> autoresComMaisLivros(int limite) {
+        List<Faceta> autores = new ArrayList<>(limite);
+        for (Posicao p : ranking) {
+            if (autores.size() >= limite) {
+                break;
+            }
+            autores.add(new Faceta(p.autor.nome, p.autor.nome, p.quantidade));
+        }
+        return autores;
+    }
+
+    /**
+     * @return Quantos livros há no ano (0 se nenhum).
+     */
+    public int quantidadeNoAno(int ano) {
+        ListaOrdenada lista = porAno.get(ano);
+        return lista == null ? 0 : lista.tamanho();
+    }
+
+    /**
+     * @return Quantos livros o autor tem (comparação sem acentos/maiúsculas; 0 se nenhum).
+     */
+    public int quantidadeDoAutor(String autor) {
+        Autor a = porAutor.get(chaveAutor(autor));
+        return a == null ? 0 : a.livros.tamanho();
+    }
+
+    /**
+     * @return Quantos autores diferentes há no catálogo.
+     */
+    public int quantidadeAutores() {
+        return porAutor.size();
+    }
+
+    // O nome do autor "comparável": sem acentos, em maiúsculas e só com as palavras
+    // ("Assis, Machado de" -> "ASSIS MACHADO DE").
+    private static String chaveAutor(String autor) {
+        if (autor == null || autor.isBlank()) {
+            return "";
+        }
+        return String.join(" ", NormalizadorTexto.palavras(autor));
+    }
+
+    // Ano nos 32 bits de cima e ID nos de baixo: ordenar a chave é ordenar por (ano, ID).
+    // Os IDs são positivos, então os 32 bits de baixo nunca "vazam" para o ano.
+    private static long chaveAnoId(int ano, int id) {
+        return ((long) ano << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // Os livros de um autor. O nome de exibição é o do primeiro livro que chegou.
+    private static final class Autor {
+        final String chave;
+        final String nome;
+        final ListaOrdenada livros = new ListaOrdenada();
+        Posicao posicao; // Só o escritor usa.
+
+        Autor(String chave, String nome) {
+            this.chave = chave;
+            this.nome = nome.trim();
+        }
+    }
+
+    // Entrada imutável do ranking: quando a quantidade muda, sai uma e entra outra.
+    private static final class Posicao {
+        final Autor autor;
+        final int quantidade;
+
+        Posicao(Autor autor, int quantidade) {
+            this.autor = autor;
+            this.quantidade = quantidade;
+        }
+    }
+
+    /**
+     * O total de livros de um filtro e os IDs de uma página dele.
+     */
+    public static final class Resultado {
+        private final int total;
+        private final List<Integer> ids;
+
+        Resultado(int total, List<Integer> ids) {
+            this.total = total;
+            this.ids = ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+    }
+
+    /**
+     * Uma contagem da tela de facetas: o que mostrar, o valor usado no filtro e quantos livros.
+     */
+    public static final class Faceta {
+        private final String rotulo;
+        private final String valor;
+        private final int quantidade;
+
+        public Faceta(String rotulo, String valor, int quantidade) {
+            this.rotulo = rotulo;
+            this.valor = valor;
+            this.quantidade = quantidade;
+        }
+
+        public String getRotulo() {
+            return rotulo;
+        }
+
+        public String getValor() {
+            return valor;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+    }
+}
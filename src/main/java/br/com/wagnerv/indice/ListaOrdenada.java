@@ -0,0 +1,144 @@
+package br.com.wagnerv.indice; // Pacote dos índices que aceleram consultas ao catálogo.
+
+import java.util.Arrays; // Busca binária e cópia de arrays.
+
+/**
+ * Lista de chaves {@code long} em ordem crescente, para os índices de ano e de autor
+ * ({@link IndiceFacetas}).
+ *
+ * Segue as mesmas regras das postagens do {@link IndiceBusca}:
+ * - só o escritor (com o lock do repositório) altera; quem lê pega o {@link Estado} publicado;
+ * - chaves novas quase sempre são as maiores (os IDs crescem), então incluir é escrever no fim
+ *   do array, numa posição que nenhum leitor enxerga ainda;
+ * - excluir só marca a posição como "morta" (uma lápide); quando as lápides passam da metade,
+ *   a lista é reconstruída sem elas.
+ */
+final class ListaOrdenada {
+
+    private volatile Estado estado = new Estado(new long[4], new boolean[4], 0, 0);
+
+    /**
+     * @return A lista publicada agora (imutável para quem lê).
+     */
+    Estado estado() {
+        return estado;
+    }
+
+    /**
+     * @return Quantas chaves vivas a lista tem.
+     */
+    int tamanho() {
+        Estado e = estado;
+        return e.n - e.mortos;
+    }
+
+    void adicionar(long chave) {
+        Estado e = estado;
+        if (e.n > 0 && e.chaves[e.n - 1] >= chave) {
+            int pos = Arrays.binarySearch(e.chaves, 0, e.n, chave);
+            if (pos >= 0) {
+                // A mesma chave voltou (ex: replicação): reaproveita a posição.
+                if (e.morta[pos]) {
+                    e.morta[pos] = false;
+                    estado = new Estado(e.chaves, e.morta, e.n, e.mortos - 1);
+                }
+                return;
+            }
+            // Chave fora de ordem (um livro antigo de outro ano entrando no índice de autor, por
+            // exemplo): abre espaço no meio, numa cópia.
+            int ponto = -pos - 1;
+            long[] chaves = new long[Math.max(4, e.n * 2)];
+            boolean[] morta = new boolean[chaves.length];
+            System.arraycopy(e.chaves, 0, chaves, 0, ponto);
+            System.arraycopy(e.morta, 0, morta, 0, ponto);
+            chaves[ponto] = chave;
+            System.arraycopy(e.chaves, ponto, chaves, ponto + 1, e.n - ponto);
+            System.arraycopy(e.morta, ponto, morta, ponto + 1, e.n - ponto);
+            estado = new Estado(chaves, morta, e.n + 1, e.mortos);
+            return;
+        }
+        long[] chaves = e.chaves;
+        boolean[] morta = e.morta;
+        if (e.n == chaves.length) {
+            chaves = Arrays.copyOf(chaves, chaves.length * 2);
+            morta = Arrays.copyOf(morta, chaves.length);
+        }
+        chaves[e.n] = chave;
+        estado = new Estado(chaves, morta, e.n + 1, e.mortos);
+    }
+
+    /**
+     * @return Quantas chaves vivas continuam na lista.
+     */
+    int remover(long chave) {
+        Estado e = estado;
+        int pos = Arrays.binarySearch(e.chaves, 0, e.n, chave);
+        if (pos < 0 || e.morta[pos]) {
+            return e.n - e.mortos;
+        }
+        int mortos = e.mortos + 1;
+        if (mortos > 8 && mortos * 2 > e.n) {
+            // Reconstrói sem as lápides (numa cópia: quem está lendo a lista antiga não percebe).
+            int vivos = e.n - mortos;
+            long[] chaves = new long[Math.max(4, vivos * 2)];
+            int j = 0;
+            for (int i = 0; i < e.n; i++) {
+                if (!e.morta[i] && i != pos) {
+                    chaves[j++] = e.chaves[i];
+                }
+            }
+            estado = new Estado(chaves, new boolean[chaves.length], j, 0);
+            return j;
+        }
+        e.morta[pos] = true; // Lápide.
+        estado = new Estado(e.chaves, e.morta, e.n, mortos);
+        return e.n - mortos;
+    }
+
+    /**
+     * A lista publicada: só as posições menores que 'n' valem.
+     */
+    static final class Estado {
+        final long[] chaves;
+        final boolean[] morta;
+        final int n;
+        final int mortos;
+
+        Estado(long[] chaves, boolean[] morta, int n, int mortos) {
+            this.chaves = chaves;
+            this.morta = morta;
+            this.n = n;
+            this.mortos = mortos;
+        }
+
+        /**
+         * @return A primeira posição com chave maior ou igual a {@code chave}.
+         */
+        int posicao(long chave) {
+            int pos = Arrays.binarySearch(chaves, 0, n, chave);
+            if (pos < 0) {
+                return -pos - 1;
+            }
+            while (pos > 0 && chaves[pos - 1] == chave) {
+                pos--;
+            }
+            return pos;
+        }
+
+        /**
+         * @return Quantas chaves vivas há entre as posições {@code de} (inclusive) e {@code ate} (exclusive).
+         */
+        int vivas(int de, int ate) {
+            if (mortos == 0) {
+                return ate - de;
+            }
+            int total = 0;
+            for (int i = de; i < ate; i++) {
+                if (!morta[i]) {
+                    total++;
+                }
+            }
+            return total;
+        }
+    }
+}
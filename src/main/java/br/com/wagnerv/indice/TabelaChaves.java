@@ -0,0 +1,174 @@
+package br.com.wagnerv.indice; // Pacote dos índices que aceleram consultas ao catálogo.
+
+import java.util.HashMap; // Repetições de uma chave (raras).
+
+/**
+ * Tabela de hash "chave de 64 bits → ID de um livro" para o {@link IndiceDuplicatas}.
+ *
+ * As chaves ficam direto num {@code long[]} e os IDs num {@code int[]} (endereçamento aberto com
+ * sondagem linear): de 16 a 32 bytes por livro, em vez dos ~70 de um {@code HashMap<Long, Integer>}.
+ * A exclusão "puxa para trás" os vizinhos da sequência de sondagem, então não sobram lápides e a
+ * busca continua O(1) mesmo depois de milhões de inclusões e exclusões.
+ *
+ * Uma chave pode aparecer mais de uma vez (livros repetidos que já estavam no disco antes do
+ * índice existir, ou parecidos confirmados pelo usuário). A tabela guarda o ID do primeiro e, à
+ * parte, quantos outros há; a chave só sai quando sai o último.
+ *
+ * Não é thread-safe: o índice só mexe nela com o lock de escrita do repositório.
+ */
+final class TabelaChaves {
+
+    // ID desconhecido: o livro guardado saiu, mas ainda há outro com a mesma chave.
+    static final int SEM_ID = -1;
+
+    private static final long VAZIA = 0L; // Chave 0 marca posição livre (a chave 0 de verdade vira 1).
+
+    private long[] chaves;
+    private int[] ids;
+    private int mascara;
+    private int quantidade;
+    private final HashMap<Long, Integer> repeticoes = new HashMap<>(); // Chave -> quantos além do primeiro.
+
+    TabelaChaves(int capacidadeEsperada) {
+        int capacidade = Integer.highestOneBit(Math.max(16, capacidadeEsperada * 4 / 3) - 1) << 1;
+        chaves = new long[capacidade];
+        ids = new int[capacidade];
+        mascara = capacidade - 1;
+    }
+
+    /**
+     * @return A posição da chave na tabela, ou -1 se ela não está lá.
+     */
+    int buscar(long chave) {
+        chave = ajustar(chave);
+        for (int i = inicio(chave); ; i = (i + 1) & mascara) {
+            long atual = chaves[i];
+            if (atual == chave) {
+                return i;
+            }
+            if (atual == VAZIA) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * @return O ID guardado na posição (ou {@link #SEM_ID}).
+     */
+    int id(int posicao) {
+        return ids[posicao];
+    }
+
+    /**
+     * Guarda a chave com o ID do livro; se ela já estava lá, só conta mais uma repetição.
+     *
+     * @return {@code true} se a chave é nova.
+     */
+    boolean adicionar(long chave, int id) {
+        chave = ajustar(chave);
+        int i = inicio(chave);
+        for (; chaves[i] != VAZIA; i = (i + 1) & mascara) {
+            if (chaves[i] == chave) {
+                repeticoes.merge(chave, 1, Integer::sum);
+                if (ids[i] == SEM_ID) {
+                    ids[i] = id; // Volta a ter um livro conhecido para mostrar na mensagem.
+                }
+                return false;
+            }
+        }
+        chaves[i] = chave;
+        ids[i] = id;
+        if (++quantidade > (chaves.length >>> 2) * 3) {
+            crescer();
+        }
+        return true;
+    }
+
+    /**
+     * Tira uma ocorrência da chave (a do livro {@code id}).
+     */
+    void remover(long chave, int id) {
+        int i = buscar(chave);
+        if (i < 0) {
+            return;
+        }
+        chave = ajustar(chave);
+        Integer outras = repeticoes.get(chave);
+        if (outras != null) {
+            if (outras == 1) {
+                repeticoes.remove(chave);
+            } else {
+                repeticoes.put(chave, outras - 1);
+            }
+            if (ids[i] == id) {
+                ids[i] = SEM_ID; // Sobrou outro livro com a chave, mas não sabemos qual.
+            }
+            return;
+        }
+        apagar(i);
+        quantidade--;
+    }
+
+    /**
+     * @return Quantas chaves diferentes a tabela tem.
+     */
+    int tamanho() {
+        return quantidade;
+    }
+
+    /**
+     * @return Memória aproximada dos arrays, em bytes.
+     */
+    long bytes() {
+        return (long) chaves.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    // Apaga a posição i e puxa para trás as chaves seguintes que só estavam depois dela por causa
+    // dela (sem isso, a busca pararia no buraco e não as acharia).
+    private void apagar(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            long chave = chaves[j];
+            if (chave == VAZIA) {
+                break;
+            }
+            int ideal = inicio(chave);
+            // A chave em j pode ir para i se a posição ideal dela não está no trecho (i, j].
+            boolean ficar = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+            if (!ficar) {
+                chaves[i] = chave;
+                ids[i] = ids[j];
+                i = j;
+            }
+        }
+        chaves[i] = VAZIA;
+        ids[i] = 0;
+    }
+
+    private void crescer() {
+        long[] antigas = chaves;
+        int[] idsAntigos = ids;
+        chaves = new long[antigas.length * 2];
+        ids = new int[antigas.length * 2];
+        mascara = chaves.length - 1;
+        for (int p = 0; p < antigas.length; p++) {
+            if (antigas[p] != VAZIA) {
+                int i = inicio(antigas[p]);
+                while (chaves[i] != VAZIA) {
+                    i = (i + 1) & mascara;
+                }
+                chaves[i] = antigas[p];
+                ids[i] = idsAntigos[p];
+            }
+        }
+    }
+
+    private int inicio(long chave) {
+        return (int) (chave ^ (chave >>> 32)) & mascara;
+    }
+
+    private static long ajustar(long chave) {
+        return chave == VAZIA ? 1L : chave;
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+/**
+ * O que a requisição fez (o rótulo "acao" nas métricas). Quem marca é o Servlet, com
+ * {@link MedicaoRequisicao#marcar(Acao)}; requisições não marcadas contam como {@link #OUTRA}.
+ *
+ * Separar por ação importa porque os tempos são muito diferentes: uma inclusão espera o disco,
+ * uma listagem não; misturar as duas num só p99 esconderia os problemas de ambas.
+ */
+public enum Acao {
+
+    LISTAR("listar"),
+    BUSCAR("buscar"),
+    FILTRAR("filtrar"),       // Listagem filtrada por ano/autor.
+    OBTER("obter"),           // Um livro só (API).
+    ADICIONAR("adicionar"),
+    EXCLUIR("excluir"),
+    EXCLUIR_LOTE("excluir_lote"), // Vários livros de uma vez (lista de IDs ou filtro).
+    IMPORTAR("importar"),
+    EVENTOS("eventos"),       // Conexão de atualizações ao vivo (dura enquanto a página estiver aberta).
+    ERRO_VALIDACAO("erro_validacao"), // Livro recusado (campos vazios, ano inválido...).
+    RECUSADA("recusada"),     // Servidor ocupado: respondida com 503 sem ser atendida.
+    OUTRA("outra");
+
+    private final String rotulo;
+
+    Acao(String rotulo) {
+        this.rotulo = rotulo;
+    }
+
+    /**
+     * @return O valor do rótulo "acao" nas métricas.
+     */
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    // Cópia única de values() (cada chamada a values() cria um array novo).
+    static final Acao[] TODAS = values();
+}
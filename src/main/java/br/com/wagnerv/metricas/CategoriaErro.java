@@ -0,0 +1,69 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+/**
+ * Categorias dos erros de validação (o rótulo "categoria" na métrica de erros).
+ *
+ * As mensagens da {@code LivroException} são textos para o usuário e podem mudar de redação;
+ * aqui elas são agrupadas em poucas categorias estáveis, boas para gráficos e alertas.
+ */
+public enum CategoriaErro {
+
+    CAMPOS_OBRIGATORIOS("campos_obrigatorios"),
+    TITULO("titulo"),
+    AUTOR("autor"),
+    ANO("ano"),
+    ID_INVALIDO("id_invalido"),       // ID de exclusão que não é número.
+    JSON_INVALIDO("json_invalido"),   // Corpo da API que não é JSON.
+    ARQUIVO_INVALIDO("arquivo_invalido"), // Importação com arquivo em formato irreconhecível.
+    DUPLICADO("duplicado"),           // Livro já cadastrado (ou parecido, no modo aproximado).
+    OUTRA("outra");
+
+    private final String rotulo;
+
+    CategoriaErro(String rotulo) {
+        this.rotulo = rotulo;
+    }
+
+    /**
+     * @return O valor do rótulo "categoria" nas métricas.
+     */
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    /**
+     * Classifica a mensagem de uma {@code LivroException}.
+     *
+     * @param mensagem A mensagem da exceção.
+     * @return A categoria (ou {@link #OUTRA}, para mensagens desconhecidas).
+     */
+    public static CategoriaErro deMensagem(String mensagem) {
+        if (mensagem == null) {
+            return OUTRA;
+        }
+        // Comparações simples (sem regex nem cópias do texto) para não alocar nada.
+        if (mensagem.startsWith("Todos os campos") || mensagem.startsWith("Os campos")
+                || mensagem.startsWith("Ano obrigatório")) {
+            return CAMPOS_OBRIGATORIOS;
+        }
+        if (mensagem.startsWith("Título")) {
+            return TITULO;
+        }
+        if (mensagem.startsWith("Autor")) {
+            return AUTOR;
+        }
+        if (mensagem.startsWith("Ano")) {
+            return ANO;
+        }
+        if (mensagem.startsWith("Livro já cadastrado") || mensagem.startsWith("Parecido com")) {
+            return DUPLICADO;
+        }
+        if (mensagem.startsWith("O cabeçalho do CSV")) {
+            return ARQUIVO_INVALIDO;
+        }
+        return OUTRA;
+    }
+
+    // Cópia única de values() (cada chamada a values() cria um array novo).
+    static final CategoriaErro[] TODAS = values();
+}
@@ -0,0 +1,120 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+import br.com.wagnerv.config.CatalogoAplicacao; // Onde as métricas da aplicação ficam guardadas.
+
+import jakarta.servlet.AsyncEvent;                // Eventos do fim de uma requisição assíncrona.
+import jakarta.servlet.AsyncListener;             // Avisado quando a requisição assíncrona termina.
+import jakarta.servlet.Filter;                    // Filtro: roda em volta dos Servlets.
+import jakarta.servlet.FilterChain;               // O resto do caminho (outros filtros e o Servlet).
+import jakarta.servlet.FilterConfig;              // Configuração do filtro.
+import jakarta.servlet.ServletException;          // Erros do Servlet.
+import jakarta.servlet.ServletRequest;            // A requisição.
+import jakarta.servlet.ServletResponse;           // A resposta.
+import jakarta.servlet.annotation.WebFilter;      // Registra o filtro sem precisar do web.xml.
+import jakarta.servlet.http.HttpServletRequest;   // Requisição HTTP (para saber a rota).
+import jakarta.servlet.http.HttpServletResponse;  // Resposta HTTP (para saber o status).
+
+import java.io.IOException; // Erros de I/O.
+
+/**
+ * Mede todas as requisições: quanto tempo levaram, quantos bytes a resposta teve, com que status
+ * terminaram, e o que os Servlets disseram ter feito ({@link MedicaoRequisicao}).
+ *
+ * O filtro roda uma vez por requisição, na chegada (os "forward" para a JSP fazem parte da mesma
+ * medição). Tudo o que ele usa é reaproveitado entre requisições, então medir não gera lixo para
+ * o coletor de memória.
+ *
+ * Requisições assíncronas (o Servlet devolve a thread ao Tomcat e responde depois, em outra thread)
+ * são registradas quando terminam de verdade, com a duração total, fila incluída.
+ */
+@WebFilter(filterName = "filtroMetricas", urlPatterns = "/*", asyncSupported = true)
+public class FiltroMetricas implements Filter {
+
+    private MetricasRequisicoes metricas;
+
+    @Override
+    public void init(FilterConfig configuracao) {
+        metricas = CatalogoAplicacao.de(configuracao.getServletContext()).getMetricas();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        MedicaoRequisicao medicao = response instanceof HttpServletResponse
+                ? MedicaoRequisicao.iniciar((HttpServletResponse) response) : null;
+        if (medicao == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long inicio = System.nanoTime();
+        Rota rota = Rota.de(((HttpServletRequest) request).getServletPath());
+        boolean concluida = false;
+        try {
+            chain.doFilter(request, medicao.getResposta());
+            concluida = true;
+        } finally {
+            if (concluida && request.isAsyncStarted()) {
+                medicao.desprender();
+                if (medicao.fimAssincrono == null) {
+                    medicao.fimAssincrono = new FimAssincrono(medicao);
+                }
+                request.getAsyncContext().addListener(medicao.fimAssincrono.preparar(rota, inicio));
+            } else {
+                // Exceção saindo do Servlet: o Tomcat vai responder 500, mesmo que o status ainda diga 200.
+                registrar(medicao, rota, inicio, concluida ? medicao.getResposta().getStatus()
+                        : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    private void registrar(MedicaoRequisicao medicao, Rota rota, long inicio, int status) {
+        long fim = System.nanoTime();
+        metricas.registrar(rota, medicao.getAcao(), fim - inicio, medicao.getResposta().getBytes(), status,
+                medicao.getErro(), fim);
+        medicao.encerrar();
+    }
+
+    /**
+     * Registra a requisição assíncrona quando ela termina. Cada {@link MedicaoRequisicao} tem o
+     * seu, reaproveitado a cada requisição assíncrona que ela acompanha.
+     */
+    final class FimAssincrono implements AsyncListener {
+
+        private final MedicaoRequisicao medicao;
+        private volatile Rota rota;
+        private volatile long inicio;
+        private volatile boolean falhou;
+
+        FimAssincrono(MedicaoRequisicao medicao) {
+            this.medicao = medicao;
+        }
+
+        FimAssincrono preparar(Rota rota, long inicio) {
+            this.rota = rota;
+            this.inicio = inicio;
+            this.falhou = false;
+            return this;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent evento) {
+            registrar(medicao, rota, inicio, falhou ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                    : medicao.getResposta().getStatus());
+        }
+
+        @Override
+        public void onError(AsyncEvent evento) {
+            falhou = true;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent evento) {
+            // O Tomcat responde o timeout como erro; o registro acontece no onComplete.
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent evento) {
+            // Nada: o mesmo ouvinte continua valendo.
+        }
+    }
+}
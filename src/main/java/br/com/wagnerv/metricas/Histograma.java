@@ -0,0 +1,159 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+// As métricas são lidas pelo Prometheus no endereço "/metrics".
+
+import java.util.concurrent.atomic.AtomicLongArray; // Os baldes, incrementados sem lock.
+import java.util.concurrent.atomic.LongAdder;       // Contagem e soma acumuladas, sem disputa entre threads.
+
+/**
+ * Histograma de valores inteiros (tempos em nanossegundos, tamanhos em bytes...) que responde
+ * quantis como p50, p99 e p999.
+ *
+ * Registrar um valor não aloca memória nem usa lock: o valor cai num "balde" de uma tabela fixa
+ * e o balde é incrementado atomicamente. Os baldes são logarítmicos: cada potência de 2 é dividida
+ * em 16 baldes iguais, então o quantil calculado erra no máximo ~6% (p99 de 1,00 ms pode aparecer
+ * como 1,03 ms), com a mesma precisão para 50 µs e para 5 s.
+ *
+ * Os quantis olham só para o passado recente: os valores são contados em janelas de
+ * {@value #JANELA_SEGUNDOS} segundos e o cálculo usa a janela atual mais a anterior. Assim um p99
+ * ruim de agora não fica "diluído" em horas de tráfego bom. Já a contagem e a soma são desde a
+ * subida da aplicação, como o Prometheus espera.
+ */
+public class Histograma {
+
+    // Duração de cada janela dos quantis.
+    static final int JANELA_SEGUNDOS = 60;
+    private static final long JANELA_NANOS = JANELA_SEGUNDOS * 1_000_000_000L;
+
+    // Cada potência de 2 vira 2^4 = 16 baldes.
+    private static final int BITS_SUB = 4;
+    private static final int SUB = 1 << BITS_SUB;
+    // Valores a partir de 2^41 (~37 minutos em nanossegundos, ~2 TB em bytes) caem todos no último balde.
+    private static final int EXPOENTE_MAXIMO = 40;
+    static final int BALDES = (EXPOENTE_MAXIMO - BITS_SUB + 2) * SUB;
+
+    // Duas janelas: a atual recebe os valores; a outra é a anterior (e é zerada quando vira a atual).
+    private final AtomicLongArray[] janelas = {new AtomicLongArray(BALDES), new AtomicLongArray(BALDES)};
+    private volatile int atual;
+    private volatile long inicioJanela;
+
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+
+    /**
+     * @param agora {@link System#nanoTime()} de agora (quem cria o histograma normalmente já tem esse valor).
+     */
+    public Histograma(long agora) {
+        this.inicioJanela = agora;
+    }
+
+    /**
+     * Registra um valor.
+     *
+     * @param valor O valor (negativos contam como zero).
+     * @param agora {@link System#nanoTime()} de agora, usado para saber se a janela acabou.
+     */
+    public void registrar(long valor, long agora) {
+        if (agora - inicioJanela >= JANELA_NANOS) {
+            girar(agora);
+        }
+        janelas[atual].incrementAndGet(indice(valor));
+        contagem.increment();
+        soma.add(Math.max(valor, 0));
+    }
+
+    /**
+     * Calcula quantis da janela atual mais a anterior.
+     *
+     * @param quantis Os quantis pedidos, entre 0 e 1 (ex: 0.5, 0.99, 0.999).
+     * @param agora   {@link System#nanoTime()} de agora.
+     * @return O valor de cada quantil, ou {@link Double#NaN} se não houve nenhum valor nas janelas.
+     */
+    public double[] quantis(double[] quantis, long agora) {
+        if (agora - inicioJanela >= JANELA_NANOS) {
+            girar(agora); // Sem tráfego há muito tempo: as janelas velhas não podem aparecer nos quantis.
+        }
+        long[] baldes = new long[BALDES];
+        long total = 0;
+        for (AtomicLongArray janela : janelas) {
+            for (int i = 0; i < BALDES; i++) {
+                long quantidade = janela.get(i);
+                baldes[i] += quantidade;
+                total += quantidade;
+            }
+        }
+        double[] valores = new double[quantis.length];
+        for (int q = 0; q < quantis.length; q++) {
+            if (total == 0) {
+                valores[q] = Double.NaN;
+                continue;
+            }
+            long alvo = Math.max(1, (long) Math.ceil(quantis[q] * total)); // Posição do quantil entre os valores.
+            long acumulado = 0;
+            int i = 0;
+            while (i < BALDES - 1 && (acumulado += baldes[i]) < alvo) {
+                i++;
+            }
+            valores[q] = representante(i);
+        }
+        return valores;
+    }
+
+    /**
+     * @return Quantos valores foram registrados desde a criação.
+     */
+    public long getContagem() {
+        return contagem.sum();
+    }
+
+    /**
+     * @return A soma de todos os valores registrados desde a criação.
+     */
+    public long getSoma() {
+        return soma.sum();
+    }
+
+    // Troca de janela. Só uma thread troca; as outras, se chegarem juntas, veem que já foi trocada.
+    private synchronized void girar(long agora) {
+        long passado = agora - inicioJanela;
+        if (passado < JANELA_NANOS) {
+            return;
+        }
+        int proxima = 1 - atual;
+        zerar(janelas[proxima]);
+        if (passado >= 2 * JANELA_NANOS) {
+            zerar(janelas[atual]); // Ficou mais de uma janela sem trocar: a "anterior" também já é velha.
+        }
+        atual = proxima;
+        inicioJanela = agora;
+    }
+
+    private static void zerar(AtomicLongArray janela) {
+        for (int i = 0; i < BALDES; i++) {
+            janela.set(i, 0);
+        }
+    }
+
+    // Em que balde o valor cai: os 16 primeiros valores têm um balde cada; depois, 16 baldes por potência de 2.
+    static int indice(long valor) {
+        if (valor < SUB) {
+            return valor < 0 ? 0 : (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        if (expoente > EXPOENTE_MAXIMO) {
+            return BALDES - 1;
+        }
+        int sub = (int) (valor >>> (expoente - BITS_SUB)) & (SUB - 1);
+        return (expoente - BITS_SUB + 1) * SUB + sub;
+    }
+
+    // O valor que representa um balde nos quantis: o meio do balde.
+    static long representante(int indice) {
+        if (indice < SUB) {
+            return indice;
+        }
+        int deslocamento = indice / SUB - 1; // = expoente - BITS_SUB
+        long inicio = (long) (SUB + indice % SUB) << deslocamento;
+        long largura = 1L << deslocamento;
+        return inicio + (largura - 1) / 2;
+    }
+}
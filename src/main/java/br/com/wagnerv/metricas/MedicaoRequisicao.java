@@ -0,0 +1,149 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+import br.com.wagnerv.exception.LivroException; // Erros de validação, classificados por categoria.
+
+import jakarta.servlet.http.HttpServletResponse; // A resposta que será medida.
+
+import java.util.concurrent.ArrayBlockingQueue;  // Medições livres, vindas de requisições assíncronas.
+
+/**
+ * O que está sendo medido na requisição atual: a ação e, se houve, o erro.
+ *
+ * O {@link FiltroMetricas} começa a medição; os Servlets só dizem o que fizeram
+ * ({@link #marcar(Acao)}, {@link #erro(CategoriaErro)}), sem precisar conhecer as métricas.
+ *
+ * Cada thread do Tomcat tem um objeto destes (em um {@link ThreadLocal}), reaproveitado a cada
+ * requisição: medir não cria nenhum objeto novo. Numa requisição assíncrona a medição segue com
+ * a requisição e a thread pega outra de uma pequena reserva; no fim, a medição volta para a reserva.
+ */
+public final class MedicaoRequisicao {
+
+    private static final ThreadLocal<MedicaoRequisicao> DA_THREAD =
+            ThreadLocal.withInitial(MedicaoRequisicao::new);
+
+    // Medições de requisições assíncronas que já terminaram, prontas para outra thread usar.
+    // Com a reserva cheia, a medição que sobra fica para o coletor de memória.
+    private static final ArrayBlockingQueue<MedicaoRequisicao> LIVRES = new ArrayBlockingQueue<>(256);
+
+    private boolean ativa;
+    // 'volatile': numa requisição assíncrona, quem marca é uma thread e quem lê, no fim, é outra.
+    private volatile Acao acao;
+    private volatile CategoriaErro erro;
+    private RespostaMedida resposta; // Criada na primeira requisição da thread e reaproveitada.
+    private boolean desprendida;     // Seguiu com uma requisição assíncrona (volta para a reserva no fim).
+    // O ouvinte do fim da requisição assíncrona: criado na primeira vez e reaproveitado.
+    FiltroMetricas.FimAssincrono fimAssincrono;
+
+    private MedicaoRequisicao() {
+    }
+
+    /**
+     * Diz o que a requisição atual fez. Fora de uma requisição medida (testes, benchmarks), não faz nada.
+     *
+     * @param acao A ação.
+     */
+    public static void marcar(Acao acao) {
+        MedicaoRequisicao medicao = DA_THREAD.get();
+        if (medicao.ativa) {
+            medicao.acao = acao;
+        }
+    }
+
+    /**
+     * Registra um erro de validação na requisição atual (e marca a ação como erro de validação).
+     *
+     * @param categoria A categoria do erro.
+     */
+    public static void erro(CategoriaErro categoria) {
+        MedicaoRequisicao medicao = DA_THREAD.get();
+        if (medicao.ativa) {
+            medicao.acao = Acao.ERRO_VALIDACAO;
+            medicao.erro = categoria;
+        }
+    }
+
+    /**
+     * Registra uma {@link LivroException} na requisição atual, classificada pela mensagem.
+     *
+     * @param e A exceção.
+     */
+    public static void erro(LivroException e) {
+        erro(CategoriaErro.deMensagem(e.getMessage()));
+    }
+
+    /**
+     * Prepara uma tarefa que vai atender a requisição atual em outra thread (requisição assíncrona):
+     * enquanto a tarefa roda, {@link #marcar(Acao)} e {@link #erro(CategoriaErro)} valem para a
+     * medição desta requisição.
+     *
+     * @param tarefa A tarefa.
+     * @return A tarefa "embrulhada" (ou a própria tarefa, se nada está sendo medido).
+     */
+    public static Runnable naMesmaMedicao(Runnable tarefa) {
+        MedicaoRequisicao medicao = DA_THREAD.get();
+        if (!medicao.ativa) {
+            return tarefa;
+        }
+        return () -> {
+            DA_THREAD.set(medicao);
+            try {
+                tarefa.run();
+            } finally {
+                DA_THREAD.remove();
+            }
+        };
+    }
+
+    /**
+     * Começa a medir uma requisição nesta thread.
+     *
+     * @return A medição, ou {@code null} se esta thread já está medindo uma requisição (não deveria
+     *         acontecer, já que o filtro só roda na chegada da requisição; mas se acontecer, a de
+     *         fora continua sendo a medida).
+     */
+    static MedicaoRequisicao iniciar(HttpServletResponse resposta) {
+        MedicaoRequisicao medicao = DA_THREAD.get();
+        if (medicao.ativa) {
+            return null;
+        }
+        medicao.ativa = true;
+        medicao.acao = Acao.OUTRA;
+        medicao.erro = null;
+        if (medicao.resposta == null) {
+            medicao.resposta = new RespostaMedida(resposta);
+        }
+        medicao.resposta.preparar(resposta);
+        return medicao;
+    }
+
+    /**
+     * A requisição virou assíncrona: esta medição segue com ela até o fim e a thread do Tomcat,
+     * que já vai atender outras requisições, ganha outra (da reserva, se houver).
+     */
+    void desprender() {
+        MedicaoRequisicao livre = LIVRES.poll();
+        DA_THREAD.set(livre != null ? livre : new MedicaoRequisicao());
+        desprendida = true;
+    }
+
+    void encerrar() {
+        ativa = false;
+        resposta.liberar();
+        if (desprendida) {
+            desprendida = false;
+            LIVRES.offer(this);
+        }
+    }
+
+    Acao getAcao() {
+        return acao;
+    }
+
+    CategoriaErro getErro() {
+        return erro;
+    }
+
+    RespostaMedida getResposta() {
+        return resposta;
+    }
+}
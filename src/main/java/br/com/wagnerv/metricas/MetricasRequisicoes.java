@@ -0,0 +1,155 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+import java.io.IOException;                             // Erros ao escrever as métricas.
+import java.util.concurrent.atomic.AtomicReferenceArray; // Histogramas criados sob demanda, sem lock.
+import java.util.concurrent.atomic.LongAdder;            // Contadores sem disputa entre threads.
+
+/**
+ * As métricas das requisições HTTP:
+ * - tempo de resposta (p50/p99/p999, soma e contagem), por rota e ação;
+ * - bytes do corpo da resposta (mesmos quantis), por rota e ação;
+ * - respostas por rota e classe de status (2xx, 4xx, 5xx...);
+ * - erros de validação por rota e categoria.
+ *
+ * Registrar é barato e não aloca memória (contadores e histogramas são criados uma vez, na
+ * primeira requisição de cada combinação de rota e ação), então as métricas podem ficar sempre
+ * ligadas, inclusive no pico. O trabalho pesado (calcular quantis, montar o texto) fica para
+ * {@link #escrever(Appendable, long)}, que roda só quando o Prometheus vem buscar.
+ */
+public class MetricasRequisicoes {
+
+    // Quantis publicados.
+    private static final double[] QUANTIS = {0.5, 0.99, 0.999};
+    private static final String[] ROTULOS_QUANTIS = {"0.5", "0.99", "0.999"};
+
+    private static final int ROTAS = Rota.TODAS.length;
+    private static final int ACOES = Acao.TODAS.length;
+    private static final int CATEGORIAS = CategoriaErro.TODAS.length;
+    private static final int CLASSES_STATUS = 5; // 1xx a 5xx.
+
+    private final AtomicReferenceArray<Histograma> duracoes = new AtomicReferenceArray<>(ROTAS * ACOES);
+    private final AtomicReferenceArray<Histograma> tamanhos = new AtomicReferenceArray<>(ROTAS * ACOES);
+    private final LongAdder[] respostas = contadores(ROTAS * CLASSES_STATUS);
+    private final LongAdder[] erros = contadores(ROTAS * CATEGORIAS);
+
+    /**
+     * Registra uma requisição terminada.
+     *
+     * @param rota          A rota.
+     * @param acao          O que a requisição fez.
+     * @param duracaoNanos  Quanto tempo levou.
+     * @param bytes         Bytes escritos no corpo da resposta.
+     * @param status        O status HTTP da resposta.
+     * @param erro          O erro de validação, ou {@code null}.
+     * @param agora         {@link System#nanoTime()} do fim da requisição.
+     */
+    public void registrar(Rota rota, Acao acao, long duracaoNanos, long bytes, int status, CategoriaErro erro,
+                          long agora) {
+        int posicao = rota.ordinal() * ACOES + acao.ordinal();
+        histograma(duracoes, posicao, agora).registrar(duracaoNanos, agora);
+        histograma(tamanhos, posicao, agora).registrar(bytes, agora);
+        int classe = Math.min(Math.max(status / 100, 1), CLASSES_STATUS) - 1;
+        respostas[rota.ordinal() * CLASSES_STATUS + classe].increment();
+        if (erro != null) {
+            erros[rota.ordinal() * CATEGORIAS + erro.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Escreve as métricas no formato de texto do Prometheus.
+     *
+     * @param saida Para onde escrever.
+     * @param agora {@link System#nanoTime()} de agora (para os quantis olharem só o passado recente).
+     * @throws IOException Se a escrita falhar.
+     */
+    public void escrever(Appendable saida, long agora) throws IOException {
+        cabecalho(saida, "biblioteca_requisicao_duracao_segundos", "summary",
+                "Tempo de resposta das requisições (quantis do último ~" + Histograma.JANELA_SEGUNDOS * 2 + " s).");
+        // Os tempos são medidos em nanossegundos e publicados em segundos, como o Prometheus recomenda.
+        escreverResumos(saida, "biblioteca_requisicao_duracao_segundos", duracoes, agora, 1e9);
+
+        cabecalho(saida, "biblioteca_resposta_bytes", "summary",
+                "Bytes do corpo das respostas (quantis do último ~" + Histograma.JANELA_SEGUNDOS * 2 + " s).");
+        escreverResumos(saida, "biblioteca_resposta_bytes", tamanhos, agora, 1);
+
+        cabecalho(saida, "biblioteca_respostas_total", "counter", "Respostas por rota e classe de status HTTP.");
+        for (Rota rota : Rota.TODAS) {
+            for (int classe = 0; classe < CLASSES_STATUS; classe++) {
+                long quantidade = respostas[rota.ordinal() * CLASSES_STATUS + classe].sum();
+                if (quantidade > 0) {
+                    saida.append("biblioteca_respostas_total{rota=\"").append(rota.getRotulo())
+                            .append("\",status=\"").append(String.valueOf(classe + 1)).append("xx\"} ")
+                            .append(String.valueOf(quantidade)).append('\n');
+                }
+            }
+        }
+
+        cabecalho(saida, "biblioteca_erros_validacao_total", "counter",
+                "Livros recusados pela validação, por rota e categoria do erro.");
+        for (Rota rota : Rota.TODAS) {
+            for (CategoriaErro categoria : CategoriaErro.TODAS) {
+                long quantidade = erros[rota.ordinal() * CATEGORIAS + categoria.ordinal()].sum();
+                if (quantidade > 0) {
+                    saida.append("biblioteca_erros_validacao_total{rota=\"").append(rota.getRotulo())
+                            .append("\",categoria=\"").append(categoria.getRotulo()).append("\"} ")
+                            .append(String.valueOf(quantidade)).append('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Escreve o cabeçalho de uma métrica (descrição e tipo), como o Prometheus espera.
+     *
+     * @param saida Para onde escrever.
+     * @param nome  O nome da métrica.
+     * @param tipo  "counter", "gauge", "summary"...
+     * @param ajuda A descrição.
+     * @throws IOException Se a escrita falhar.
+     */
+    public static void cabecalho(Appendable saida, String nome, String tipo, String ajuda) throws IOException {
+        saida.append("# HELP ").append(nome).append(' ').append(ajuda).append('\n');
+        saida.append("# TYPE ").append(nome).append(' ').append(tipo).append('\n');
+    }
+
+    // Escreve um "summary" por combinação de rota e ação que já teve alguma requisição.
+    private static void escreverResumos(Appendable saida, String nome, AtomicReferenceArray<Histograma> histogramas,
+                                        long agora, double divisor) throws IOException {
+        for (Rota rota : Rota.TODAS) {
+            for (Acao acao : Acao.TODAS) {
+                Histograma histograma = histogramas.get(rota.ordinal() * ACOES + acao.ordinal());
+                if (histograma == null) {
+                    continue;
+                }
+                String rotulos = "rota=\"" + rota.getRotulo() + "\",acao=\"" + acao.getRotulo() + "\"";
+                double[] valores = histograma.quantis(QUANTIS, agora);
+                for (int i = 0; i < QUANTIS.length; i++) {
+                    saida.append(nome).append('{').append(rotulos).append(",quantile=\"").append(ROTULOS_QUANTIS[i])
+                            .append("\"} ").append(String.valueOf(valores[i] / divisor)).append('\n');
+                }
+                saida.append(nome).append("_sum{").append(rotulos).append("} ")
+                        .append(String.valueOf(histograma.getSoma() / divisor)).append('\n');
+                saida.append(nome).append("_count{").append(rotulos).append("} ")
+                        .append(String.valueOf(histograma.getContagem())).append('\n');
+            }
+        }
+    }
+
+    // O histograma da posição, criado na primeira vez que é usado.
+    private static Histograma histograma(AtomicReferenceArray<Histograma> histogramas, int posicao, long agora) {
+        Histograma histograma = histogramas.get(posicao);
+        if (histograma == null) {
+            histogramas.compareAndSet(posicao, null, new Histograma(agora));
+            histograma = histogramas.get(posicao); // Se outra thread criou primeiro, vale o dela.
+        }
+        return histograma;
+    }
+
+    private static LongAdder[] contadores(int quantidade) {
+        LongAdder[] contadores = new LongAdder[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+}
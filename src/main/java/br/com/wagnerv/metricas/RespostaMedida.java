@@ -0,0 +1,189 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+import jakarta.servlet.ServletOutputStream;                 // Saída de bytes da resposta.
+import jakarta.servlet.WriteListener;                       // Escrita assíncrona (repassada ao Tomcat).
+import jakarta.servlet.http.HttpServletResponse;            // A resposta original.
+import jakarta.servlet.http.HttpServletResponseWrapper;     // Base para "embrulhar" a resposta.
+
+import java.io.IOException;  // Erros de escrita.
+import java.io.PrintWriter;  // O que getWriter() devolve.
+import java.io.Writer;       // Saída de caracteres da resposta.
+
+/**
+ * "Embrulho" da resposta que conta quantos bytes foram escritos no corpo.
+ *
+ * Para não alocar nada por requisição, cada thread tem o seu embrulho (guardado em
+ * {@link MedicaoRequisicao}) e ele é reaproveitado: {@link #preparar(HttpServletResponse)}
+ * aponta o embrulho para a resposta da vez e zera o contador.
+ *
+ * O que é escrito como caracteres é contado como bytes UTF-8 (a codificação de todas as páginas
+ * e da API); o que é escrito direto em bytes (o JSON compactado com gzip, por exemplo) é contado
+ * como está, ou seja, o tamanho que realmente vai pela rede.
+ */
+class RespostaMedida extends HttpServletResponseWrapper {
+
+    private final SaidaContada saida = new SaidaContada();
+    private final EscritorContado escritor = new EscritorContado();
+    private final PrintWriter impressora = new ImpressoraReutilizavel(escritor);
+
+    private long bytes;
+
+    RespostaMedida(HttpServletResponse resposta) {
+        super(resposta);
+    }
+
+    /**
+     * Aponta o embrulho para a resposta de uma nova requisição.
+     */
+    void preparar(HttpServletResponse resposta) {
+        setResponse(resposta);
+        bytes = 0;
+        saida.destino = null;
+        escritor.destino = null;
+    }
+
+    /**
+     * Solta as referências à resposta que acabou (a do próprio embrulho fica até a próxima requisição).
+     */
+    void liberar() {
+        saida.destino = null;
+        escritor.destino = null;
+    }
+
+    /**
+     * @return Quantos bytes do corpo foram escritos até agora.
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (saida.destino == null) {
+            saida.destino = super.getOutputStream(); // O Tomcat reclama se o getWriter() já foi usado.
+        }
+        return saida;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (escritor.destino == null) {
+            escritor.destino = super.getWriter();
+        }
+        return impressora;
+    }
+
+    /**
+     * Repassa os bytes para a saída verdadeira, contando.
+     */
+    private final class SaidaContada extends ServletOutputStream {
+
+        ServletOutputStream destino;
+
+        @Override
+        public void write(int b) throws IOException {
+            destino.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) throws IOException {
+            destino.write(b, inicio, tamanho);
+            bytes += tamanho;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            destino.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            destino.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return destino.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener ouvinte) {
+            destino.setWriteListener(ouvinte);
+        }
+    }
+
+    /**
+     * Repassa os caracteres para o escritor verdadeiro, contando os bytes que eles ocupam em UTF-8.
+     */
+    private final class EscritorContado extends Writer {
+
+        Writer destino;
+
+        @Override
+        public void write(int c) throws IOException {
+            destino.write(c);
+            bytes += c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate((char) c) ? 2 : 3;
+        }
+
+        @Override
+        public void write(char[] caracteres, int inicio, int tamanho) throws IOException {
+            destino.write(caracteres, inicio, tamanho);
+            long total = tamanho;
+            for (int i = inicio, fim = inicio + tamanho; i < fim; i++) {
+                total += extras(caracteres[i]);
+            }
+            bytes += total;
+        }
+
+        @Override
+        public void write(String texto, int inicio, int tamanho) throws IOException {
+            destino.write(texto, inicio, tamanho);
+            long total = tamanho;
+            for (int i = inicio, fim = inicio + tamanho; i < fim; i++) {
+                total += extras(texto.charAt(i));
+            }
+            bytes += total;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            destino.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            destino.close();
+        }
+    }
+
+    // Bytes UTF-8 além do primeiro: ASCII ocupa 1; até U+07FF, 2; o resto, 3 (cada metade de um
+    // par surrogate conta 2, e o par inteiro, 4).
+    private static int extras(char c) {
+        return c < 0x80 ? 0 : c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+    }
+
+    /**
+     * PrintWriter que continua utilizável depois do close().
+     *
+     * O close() padrão "desliga" o PrintWriter para sempre; como este é reaproveitado na próxima
+     * requisição da mesma thread, o close() só fecha a resposta da vez.
+     */
+    private static final class ImpressoraReutilizavel extends PrintWriter {
+
+        ImpressoraReutilizavel(Writer saida) {
+            super(saida, false);
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    setError();
+                }
+            }
+        }
+    }
+}
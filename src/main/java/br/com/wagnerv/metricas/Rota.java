@@ -0,0 +1,45 @@
+package br.com.wagnerv.metricas; // Pacote das métricas da aplicação (tempos, tamanhos, erros).
+
+/**
+ * As "rotas" da aplicação que aparecem separadas nas métricas (o rótulo "rota").
+ *
+ * A lista é fixa de propósito: usar a URL pedida como rótulo deixaria qualquer pessoa criar
+ * séries novas no Prometheus só digitando endereços diferentes.
+ */
+public enum Rota {
+
+    LIVROS("/livros"),
+    API_LIVROS("/api/livros"),
+    IMPORTACAO("/livros/importar"),
+    EVENTOS("/livros/eventos"),
+    METRICAS("/metrics"),
+    OUTRA("outra"); // Página inicial, arquivos estáticos, endereços inexistentes...
+
+    private final String rotulo;
+
+    Rota(String rotulo) {
+        this.rotulo = rotulo;
+    }
+
+    /**
+     * @return O valor do rótulo "rota" nas métricas.
+     */
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    /**
+     * Descobre a rota pelo caminho do Servlet ({@code request.getServletPath()}).
+     */
+    static Rota de(String caminhoServlet) {
+        for (Rota rota : TODAS) {
+            if (rota.rotulo.equals(caminhoServlet)) {
+                return rota;
+            }
+        }
+        return OUTRA;
+    }
+
+    // Cópia única de values() (cada chamada a values() cria um array novo).
+    static final Rota[] TODAS = values();
+}
@@ -5,6 +5,9 @@ package br.com.wagnerv.model; // Aqui a gente define onde essa classe "mora" no
 import br.com.wagnerv.exception.LivroException; // Importamos nossa exceção personalizada.
 // Se algo der errado na validação de um Livro,
 // a gente tem um jeito específico de avisar!
+import br.com.wagnerv.identificador.AlocadorFaixasMemoria; // Fonte de IDs padrão (só memória).
+import br.com.wagnerv.identificador.GeradorIds;            // Quem entrega os IDs sem repetir.
+import br.com.wagnerv.util.GeradorISBN; // O serviço que cria (e não repete) os ISBNs.
 
 /**
  * Pensa nessa classe 'Livro' como a "carteira de identidade" de cada livro
@@ -18,10 +21,13 @@ import br.com.wagnerv.exception.LivroException; // Importamos nossa exceção pe
 public class Livro {
     // --- Atributos da Classe (as "características" de um Livro) ---
 
-    // Isso aqui é um contador estático. 'static' significa que ele pertence à CLASSE Livro,
-    // e não a um livro específico. É como um "número de série" geral que a gente usa
-    // pra dar um ID único pra cada novo livro que é criado.
-    private static int contador = 1;
+    // Isso aqui é o "distribuidor de números de série" dos livros. 'static' significa que ele pertence
+    // à CLASSE Livro, e não a um livro específico: todos os livros pegam o ID no mesmo lugar.
+    // Antes era um 'contador++' num int comum, que com duas requisições ao mesmo tempo podia dar
+    // o mesmo ID para dois livros. O GeradorIds entrega IDs sem repetir, mesmo com várias threads
+    // e vários servidores. Por padrão ele só vive na memória; o InicializadorCatalogo troca por um
+    // que guarda as faixas de IDs em disco (veja usarGeradorIds).
+    private static volatile GeradorIds geradorIds = new GeradorIds(new AlocadorFaixasMemoria(), 1000);
 
     // Cada livro vai ter o seu ID único.
     private int id;
@@ -32,7 +38,8 @@ public class Livro {
     // O ano de publicação.
     private int ano;
     // O ISBN é tipo o CPF do livro, um identificador padrão mundial.
-    // Aqui a gente vai gerar um automaticamente pra simplificar.
+    // Se ninguém informar um, o catálogo gera um automaticamente (ISBN-13 válido) quando o livro
+    // entra (veja reservarIsbn).
     private String isbn;
 
     /**
@@ -42,27 +49,81 @@ public class Livro {
      */
     public Livro() {
         // A primeira coisa que fazemos é dar um ID único para esse novo livro.
-        // A gente pega o valor atual do 'contador' e depois incrementa ele para o próximo livro.
-        this.id = contador++;
-        // E também geramos um ISBN automaticamente para ele.
-        this.isbn = gerarIsbn();
+        this.id = geradorIds.proximo();
+        // O ISBN NÃO é gerado aqui: um livro que não passar na validação, ou que for recusado
+        // como repetido, nunca entra no catálogo e não deve "gastar" um ISBN. Quem gera é o
+        // repositório, na hora em que o livro entra (reservarIsbn).
     }
 
     /**
-     * Método privado para gerar um ISBN.
-     * 'private' significa que só a própria classe Livro pode chamar esse método.
-     * Ele cria uma sequência aleatória de números, simulando um ISBN.
-     * Não é um ISBN real de verdade, mas serve pro nosso propósito de trabalho!
-     * @return Uma String que simula um número ISBN.
+     * Construtor "completo", usado quando o livro já existia antes: por exemplo, quando o catálogo
+     * é recarregado do disco depois que o servidor reinicia. O ID e o ISBN são os que o livro
+     * já tinha; nada é gerado de novo.
+     *
+     * @param id O ID original do livro.
+     * @param titulo O título.
+     * @param autor O autor.
+     * @param ano O ano de publicação.
+     * @param isbn O ISBN original.
      */
-    private String gerarIsbn() {
-        // Começa com "123" pra parecer um ISBN.
-        StringBuilder sb = new StringBuilder("123");
-        // Adiciona 9 dígitos aleatórios de 0 a 9.
-        for (int i = 0; i < 9; i++) {
-            sb.append((int)(Math.random() * 10)); // Math.random() gera entre 0.0 e 1.0. Multiplica por 10 e pega a parte inteira.
-        }
-        return sb.toString(); // Converte o StringBuilder para String.
+    public Livro(int id, String titulo, String autor, int ano, String isbn) {
+        this.id = id;
+        this.titulo = titulo;
+        this.autor = autor;
+        this.ano = ano;
+        this.isbn = isbn;
+        reservarIdsAte(id); // Garante que nenhum livro novo vai "herdar" esse ID.
+        // O ISBN é reservado pelo repositório, quando o livro entra no catálogo (reservarIsbn).
+    }
+
+    /**
+     * Monta um livro que já está guardado no catálogo, a partir dos dados que o armazenamento
+     * guardou (por exemplo, o {@code LivroRepositoryCompacto}, que não guarda objetos Livro).
+     * Diferente do construtor completo, não reserva o ID nem o ISBN de novo: isso já foi feito
+     * quando o livro entrou no catálogo, e repetir a cada leitura custaria caro.
+     *
+     * Alterar o livro devolvido não altera o catálogo: ele é só uma "vista" dos dados guardados.
+     *
+     * @param id O ID do livro.
+     * @param titulo O título.
+     * @param autor O autor.
+     * @param ano O ano de publicação.
+     * @param isbn O ISBN.
+     * @return O livro.
+     */
+    public static Livro armazenado(int id, String titulo, String autor, int ano, String isbn) {
+        Livro livro = new Livro(id);
+        livro.titulo = titulo;
+        livro.autor = autor;
+        livro.ano = ano;
+        livro.isbn = isbn;
+        return livro;
+    }
+
+    // Construtor usado por 'armazenado': só guarda o ID, sem pedir um novo ao gerador nem reservar nada.
+    private Livro(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Avisa o gerador que os IDs até o informado já estão em uso, para que o próximo
+     * 'new Livro()' receba um ID diferente. Sem isso, depois de recarregar o catálogo do disco,
+     * os livros novos voltariam a ganhar os IDs 1, 2, 3... que já pertencem a outros livros.
+     *
+     * @param id Um ID que já está em uso.
+     */
+    public static void reservarIdsAte(int id) {
+        geradorIds.reservarAte(id);
+    }
+
+    /**
+     * Troca o gerador de IDs usado pelos livros novos. Deve ser chamado na subida da aplicação,
+     * antes de qualquer livro ser criado ou restaurado.
+     *
+     * @param gerador O novo gerador.
+     */
+    public static void usarGeradorIds(GeradorIds gerador) {
+        geradorIds = gerador;
     }
 
     /**
@@ -122,6 +183,30 @@ public class Livro {
 
     // Adicione este getter:
     public String getIsbn() {
-        return isbn; // Retorna o ISBN gerado automaticamente.
+        return isbn; // Retorna o ISBN (gerado automaticamente ou informado).
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn; // O ISBN de verdade (ex: vindo de uma importação); reservado quando o livro entra no catálogo.
+    }
+
+    /**
+     * Chamado pelo repositório, com o lock de escrita, quando o livro entra no catálogo: gera o
+     * ISBN se o livro ainda não tem um, ou reserva o informado, para que o {@link GeradorISBN}
+     * não o entregue a outro livro. Só os livros que estão no catálogo ocupam o gerador.
+     */
+    public void reservarIsbn() {
+        if (isbn == null) {
+            isbn = GeradorISBN.gerar();
+        } else {
+            GeradorISBN.reservar(isbn);
+        }
+    }
+
+    /**
+     * Chamado pelo repositório quando o livro sai do catálogo: devolve o ISBN ao {@link GeradorISBN}.
+     */
+    public void liberarIsbn() {
+        GeradorISBN.liberar(isbn);
     }
 }
\ No newline at end of file
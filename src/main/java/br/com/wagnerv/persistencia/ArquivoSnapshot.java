@@ -0,0 +1,293 @@
+package br.com.wagnerv.persistencia; // Pacote que guarda o catálogo no disco.
+
+import br.com.wagnerv.model.Livro;                  // Os livros gravados/lidos.
+
+import java.io.IOException;                         // Erros de disco.
+import java.nio.ByteBuffer;                         // Cabeçalho do arquivo.
+import java.nio.MappedByteBuffer;                   // Arquivo "mapeado" direto na memória.
+import java.nio.channels.FileChannel;               // Acesso ao arquivo.
+import java.nio.file.DirectoryStream;               // Para listar os snapshots.
+import java.nio.file.Files;                         // Operações com arquivos.
+import java.nio.file.Path;                          // Caminhos de arquivos.
+import java.nio.file.StandardCopyOption;            // Troca atômica do arquivo temporário pelo definitivo.
+import java.nio.file.StandardOpenOption;            // Modos de abertura dos arquivos.
+import java.util.ArrayList;                         // Lote de livros lidos.
+import java.util.Collections;                       // Para ordenar os snapshots.
+import java.util.List;                              // Interface de lista.
+import java.util.function.Consumer;                 // Quem recebe os livros lidos.
+import java.util.zip.CRC32;                         // Verificação de integridade do arquivo.
+
+/**
+ * Snapshot compacto do catálogo: todos os livros num único arquivo, gravado e lido através
+ * de arquivos mapeados em memória (memory-mapped files), sem passar por streams.
+ *
+ * O arquivo "snapshot-&lt;F&gt;.dat" contém todas as alterações com sequência menor que F;
+ * a recuperação carrega o snapshot e reproduz o diário a partir de F.
+ *
+ * Formato:
+ * <pre>
+ * cabeçalho: int mágica | int versão | long F | long quantidade | long tamanho do corpo | long crc32 do corpo
+ * corpo:     (int tamanho | livro codificado) repetido 'quantidade' vezes
+ * </pre>
+ *
+ * O arquivo é escrito primeiro com extensão ".tmp", relido e conferido (CRC), e só depois
+ * renomeado (de forma atômica), então um snapshot pela metade nunca é confundido com um válido.
+ * O tamanho exato do arquivo é calculado antes: nenhuma janela mapeada passa do fim, e o arquivo
+ * não precisa ser cortado depois (cortar um arquivo ainda mapeado falha em alguns sistemas).
+ */
+final class ArquivoSnapshot {
+
+    private static final String PREFIXO = "snapshot-";
+    private static final String SUFIXO = ".dat";
+    private static final int MAGICA = 0x42494253; // "BIBS"
+    private static final int VERSAO = 1;
+    private static final int CABECALHO = 4 + 4 + 8 + 8 + 8 + 8;
+
+    // Tamanho de cada "janela" mapeada do arquivo. Catálogos grandes usam várias janelas em sequência.
+    private static final int JANELA = 64 * 1024 * 1024;
+
+    // Quantos livros são entregues de uma vez na carga (cada lote entra no repositório com um único lock).
+    static final int LOTE_CARGA = 10_000;
+
+    private ArquivoSnapshot() {
+        // Só métodos estáticos.
+    }
+
+    /**
+     * Grava um snapshot e só volta depois que ele está no disco e foi conferido.
+     *
+     * @param diretorio Onde gravar.
+     * @param sequencia F: o snapshot cobre todas as alterações com sequência menor que F.
+     * @param livros Os livros (uma fotografia do repositório: ela é percorrida duas vezes, uma
+     *               para calcular o tamanho do arquivo e outra para gravar).
+     * @return Quantos livros foram gravados.
+     * @throws IOException Se o disco falhar ou o arquivo gravado não passar na conferência.
+     */
+    static long gravar(Path diretorio, long sequencia, Iterable<Livro> livros) throws IOException {
+        Path definitivo = diretorio.resolve(nome(sequencia));
+        Path temporario = diretorio.resolve(nome(sequencia) + ".tmp");
+        long fim = CABECALHO;
+        for (Livro livro : livros) {
+            fim += 4 + CodificadorLivro.tamanho(livro);
+        }
+        long quantidade = 0;
+        CRC32 crc = new CRC32();
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Janela janela = new Janela(canal, FileChannel.MapMode.READ_WRITE, CABECALHO, fim);
+            for (Livro livro : livros) {
+                byte[] bytes = CodificadorLivro.codificar(livro);
+                MappedByteBuffer destino = janela.garantir(4 + bytes.length);
+                destino.putInt(bytes.length);
+                destino.put(bytes);
+                janela.avancar(4 + bytes.length);
+                crc.update(bytes);
+                quantidade++;
+            }
+            janela.forcar();
+            if (janela.posicao != fim) {
+                throw new IOException("O catálogo mudou durante a gravação do snapshot " + temporario + ".");
+            }
+            long tamanhoCorpo = janela.posicao - CABECALHO;
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+            cabecalho.putInt(MAGICA).putInt(VERSAO).putLong(sequencia).putLong(quantidade)
+                    .putLong(tamanhoCorpo).putLong(crc.getValue()).flip();
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+            }
+            canal.force(true);
+        }
+        if (!integro(temporario)) {
+            Files.deleteIfExists(temporario);
+            throw new IOException("O snapshot gravado em " + temporario + " não passou na conferência.");
+        }
+        Files.move(temporario, definitivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizarDiretorio(diretorio);
+        return quantidade;
+    }
+
+    /**
+     * Carrega o snapshot mais recente que estiver íntegro. Se o último estiver corrompido, usa o
+     * anterior, que continua no disco (com o diário desde ele) até o seguinte ser gravado.
+     *
+     * @param diretorio Onde procurar.
+     * @param destino Recebe os livros em lotes de até {@value #LOTE_CARGA}, na ordem do catálogo.
+     * @return A sequência F do snapshot carregado (0 se não houver nenhum).
+     * @throws IOException Se o disco falhar.
+     */
+    static long carregar(Path diretorio, Consumer<List<Livro>> destino) throws IOException {
+        List<Path> snapshots = snapshots(diretorio);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path arquivo = snapshots.get(i);
+            if (!integro(arquivo)) {
+                System.err.println("Snapshot corrompido ignorado: " + arquivo);
+                continue;
+            }
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+                canal.read(cabecalho, 0);
+                cabecalho.flip();
+                cabecalho.getInt(); // Mágica e versão já conferidas em 'integro'.
+                cabecalho.getInt();
+                long sequencia = cabecalho.getLong();
+                long quantidade = cabecalho.getLong();
+
+                Janela janela = new Janela(canal, FileChannel.MapMode.READ_ONLY, CABECALHO, canal.size());
+                List<Livro> lote = new ArrayList<>(LOTE_CARGA);
+                for (long n = 0; n < quantidade; n++) {
+                    int tamanho = janela.garantir(4).getInt(janela.relativa());
+                    MappedByteBuffer origem = janela.garantir(4 + tamanho);
+                    origem.position(janela.relativa() + 4);
+                    lote.add(CodificadorLivro.ler(origem));
+                    janela.avancar(4 + tamanho);
+                    if (lote.size() == LOTE_CARGA) {
+                        destino.accept(lote);
+                        lote = new ArrayList<>(LOTE_CARGA);
+                    }
+                }
+                if (!lote.isEmpty()) {
+                    destino.accept(lote);
+                }
+                return sequencia;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Apaga os snapshots mais antigos que o informado (e temporários que tenham sobrado).
+     */
+    static void apagarAnterioresA(Path diretorio, long sequencia) throws IOException {
+        for (Path arquivo : snapshots(diretorio)) {
+            if (sequenciaDe(arquivo) < sequencia) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+        try (DirectoryStream<Path> temporarios = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO + ".tmp")) {
+            for (Path arquivo : temporarios) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    // Confere mágica, versão, tamanho e CRC do corpo inteiro antes de confiar no arquivo.
+    private static boolean integro(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() < CABECALHO) {
+                return false;
+            }
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+            canal.read(cabecalho, 0);
+            cabecalho.flip();
+            if (cabecalho.getInt() != MAGICA || cabecalho.getInt() != VERSAO) {
+                return false;
+            }
+            cabecalho.getLong();
+            long quantidade = cabecalho.getLong();
+            long tamanhoCorpo = cabecalho.getLong();
+            long crcEsperado = cabecalho.getLong();
+            if (canal.size() != CABECALHO + tamanhoCorpo) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            Janela janela = new Janela(canal, FileChannel.MapMode.READ_ONLY, CABECALHO, canal.size());
+            for (long n = 0; n < quantidade; n++) {
+                if (canal.size() - janela.posicao < 4) {
+                    return false;
+                }
+                int tamanho = janela.garantir(4).getInt(janela.relativa());
+                if (tamanho < 0 || canal.size() - janela.posicao - 4 < tamanho) {
+                    return false;
+                }
+                MappedByteBuffer origem = janela.garantir(4 + tamanho);
+                ByteBuffer livro = origem.duplicate();
+                livro.position(janela.relativa() + 4).limit(janela.relativa() + 4 + tamanho);
+                crc.update(livro);
+                janela.avancar(4 + tamanho);
+            }
+            return crc.getValue() == crcEsperado;
+        }
+    }
+
+    private static List<Path> snapshots(Path diretorio) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+            for (Path arquivo : arquivos) {
+                snapshots.add(arquivo);
+            }
+        }
+        Collections.sort(snapshots); // 20 dígitos: ordem alfabética = ordem numérica.
+        return snapshots;
+    }
+
+    private static String nome(long sequencia) {
+        return String.format("%s%020d%s", PREFIXO, sequencia, SUFIXO);
+    }
+
+    private static long sequenciaDe(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    // Garante que a renomeação do arquivo também foi para o disco (no Linux, isso exige 'fsync' do diretório).
+    private static void sincronizarDiretorio(Path diretorio) {
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // Alguns sistemas (ex: Windows) não deixam abrir diretórios; lá a renomeação já é durável.
+        }
+    }
+
+    /**
+     * Uma "janela" mapeada do arquivo que vai andando conforme a leitura/escrita avança.
+     * Nenhum registro fica dividido entre duas janelas: se não couber, uma nova janela é
+     * mapeada começando exatamente nele. Nenhuma janela passa do fim informado.
+     */
+    private static final class Janela {
+        private final FileChannel canal;
+        private final FileChannel.MapMode modo;
+        private final long fim;          // Tamanho final do arquivo.
+        private MappedByteBuffer mapa;   // A janela atual.
+        private long inicioMapa;         // Posição do arquivo onde a janela começa.
+        long posicao;                    // Posição absoluta no arquivo.
+
+        Janela(FileChannel canal, FileChannel.MapMode modo, long posicao, long fim) {
+            this.canal = canal;
+            this.modo = modo;
+            this.posicao = posicao;
+            this.fim = fim;
+        }
+
+        // Devolve a janela já cobrindo [posicao, posicao + bytes).
+        MappedByteBuffer garantir(int bytes) throws IOException {
+            if (mapa == null || posicao + bytes > inicioMapa + mapa.capacity()) {
+                if (mapa != null && modo == FileChannel.MapMode.READ_WRITE) {
+                    mapa.force();
+                }
+                if (posicao + bytes > fim) {
+                    throw new IOException("Registro passa do fim do snapshot (posição " + posicao + ").");
+                }
+                long tamanho = Math.min(Math.max(JANELA, bytes), fim - posicao); // Nunca passa do fim.
+                mapa = canal.map(modo, posicao, tamanho);
+                inicioMapa = posicao;
+            }
+            mapa.position(relativa());
+            return mapa;
+        }
+
+        int relativa() {
+            return (int) (posicao - inicioMapa);
+        }
+
+        void avancar(int bytes) {
+            posicao += bytes;
+        }
+
+        void forcar() {
+            if (mapa != null) {
+                mapa.force();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.wagnerv.persistencia; // Pacote que guarda o catálogo no disco.
+
+import br.com.wagnerv.model.Livro; // O livro que vira bytes (e volta a ser livro).
+
+import java.nio.ByteBuffer;                 // Buffer onde os bytes são lidos/escritos.
+import java.nio.charset.StandardCharsets;   // Os textos são gravados em UTF-8.
+
+/**
+ * Transforma um {@link Livro} em bytes e vice-versa, no formato usado pelo diário, pelos
+ * snapshots e pela replicação entre servidores:
+ *
+ * <pre>
+ * int id | int ano | texto isbn | texto titulo | texto autor
+ * </pre>
+ *
+ * onde "texto" é um int com o tamanho em bytes (-1 = null) seguido dos bytes em UTF-8.
+ */
+public final class CodificadorLivro {
+
+    private CodificadorLivro() {
+        // Só métodos estáticos.
+    }
+
+    /**
+     * @return Os bytes do livro codificado (cada texto é convertido para UTF-8 uma vez só).
+     */
+    public static byte[] codificar(Livro livro) {
+        byte[] isbn = bytes(livro.getIsbn());
+        byte[] titulo = bytes(livro.getTitulo());
+        byte[] autor = bytes(livro.getAutor());
+        ByteBuffer destino = ByteBuffer.allocate(4 + 4 + tamanho(isbn) + tamanho(titulo) + tamanho(autor));
+        destino.putInt(livro.getId());
+        destino.putInt(livro.getAno());
+        escrever(destino, isbn);
+        escrever(destino, titulo);
+        escrever(destino, autor);
+        return destino.array();
+    }
+
+    /**
+     * @return Quantos bytes {@link #codificar(Livro)} produziria para o livro, sem codificar.
+     */
+    public static int tamanho(Livro livro) {
+        return 4 + 4 + 4 + bytesUtf8(livro.getIsbn()) + 4 + bytesUtf8(livro.getTitulo())
+                + 4 + bytesUtf8(livro.getAutor());
+    }
+
+    /**
+     * @return O livro lido da posição atual do buffer (o buffer avança até o fim do livro).
+     */
+    public static Livro ler(ByteBuffer origem) {
+        int id = origem.getInt();
+        int ano = origem.getInt();
+        String isbn = lerTexto(origem);
+        String titulo = lerTexto(origem);
+        String autor = lerTexto(origem);
+        return new Livro(id, titulo, autor, ano, isbn);
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Tamanho do texto em UTF-8, contado como o getBytes faz (surrogate sozinho vira '?', 1 byte).
+    private static int bytesUtf8(String texto) {
+        if (texto == null) {
+            return 0;
+        }
+        int bytes = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static int tamanho(byte[] texto) {
+        return 4 + (texto == null ? 0 : texto.length);
+    }
+
+    private static void escrever(ByteBuffer destino, byte[] texto) {
+        if (texto == null) {
+            destino.putInt(-1);
+            return;
+        }
+        destino.putInt(texto.length);
+        destino.put(texto);
+    }
+
+    private static String lerTexto(ByteBuffer origem) {
+        int tamanho = origem.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        origem.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,504 @@
+package br.com.wagnerv.persistencia; // Pacote que guarda o catálogo no disco.
+
+import br.com.wagnerv.model.Livro; // O livro adicionado ou removido.
+
+import java.io.BufferedInputStream;         // Leitura do diário em blocos grandes.
+import java.io.Closeable;                   // O diário precisa ser fechado ao desligar a aplicação.
+import java.io.DataInputStream;             // Leitura de int/long/bytes do diário.
+import java.io.EOFException;                // Fim do arquivo no meio de um registro (registro incompleto).
+import java.io.IOException;                 // Erros de disco.
+import java.io.InterruptedIOException;      // Quem esperava a gravação foi interrompido.
+import java.io.UncheckedIOException;        // Falha do diário avisada de dentro dos ouvintes do catálogo.
+import java.nio.ByteBuffer;                 // Buffer do lote de registros.
+import java.nio.channels.Channels;          // Converte o canal do arquivo em InputStream.
+import java.nio.channels.FileChannel;       // Escrita e 'fsync' do arquivo.
+import java.nio.file.DirectoryStream;       // Para listar os segmentos do diário.
+import java.nio.file.Files;                 // Operações com arquivos.
+import java.nio.file.Path;                  // Caminhos de arquivos.
+import java.nio.file.StandardOpenOption;    // Modos de abertura dos arquivos.
+import java.util.ArrayList;                 // Lote de registros e lista de segmentos.
+import java.util.Collections;               // Para ordenar os segmentos.
+import java.util.List;                      // Interface de lista.
+import java.util.concurrent.CompletableFuture;      // Resposta do pedido de "virar a página".
+import java.util.concurrent.ExecutionException;     // Falha ao virar a página.
+import java.util.concurrent.LinkedBlockingQueue;    // Fila de registros à espera da gravação.
+import java.util.concurrent.TimeUnit;               // Espera pela vaga na fila.
+import java.util.concurrent.locks.Condition;        // "Gravou": acorda quem espera o 'fsync'.
+import java.util.concurrent.locks.ReentrantLock;    // Trava da espera pelo 'fsync'.
+import java.util.function.Consumer;         // Quem recebe os registros na recuperação.
+import java.util.zip.CRC32;                 // "Dígito verificador" de cada registro.
+
+/**
+ * Diário (journal) do catálogo: um arquivo onde cada inclusão e exclusão é anotada no fim,
+ * nunca reescrevendo o que já está lá (append-only).
+ *
+ * Formato de cada registro:
+ * <pre>
+ * int tamanho | int crc32 | byte tipo | long sequência | (livro codificado | int id | int n, n x int id)
+ * </pre>
+ * O CRC permite descobrir, na recuperação, um registro que ficou pela metade (queda de energia
+ * no meio da escrita): tudo a partir dele é descartado. Por isso uma exclusão em lote vai num
+ * registro só (REMOCAO_LOTE): depois de uma queda, ou o lote inteiro foi excluído, ou nenhum livro.
+ *
+ * Gravação em grupo (group commit): os registros entram numa fila e uma única thread grava
+ * tudo o que acumulou de uma vez, com um único 'fsync' para o lote inteiro. Com muitas
+ * requisições simultâneas, centenas de inclusões "pegam carona" no mesmo 'fsync'.
+ *
+ * A fila tem tamanho limitado: se o disco ficar para trás, quem registra espera a fila andar, em
+ * vez de a memória crescer sem limite. Se a gravação falhar, o diário para de aceitar registros
+ * ({@link #verificar()} e os métodos de registro lançam exceção): o catálogo em memória não pode
+ * seguir mudando sem que as mudanças cheguem ao disco.
+ *
+ * O diário é dividido em segmentos ("diario-&lt;primeira sequência&gt;.log"). A cada snapshot
+ * o diário "vira a página" ({@link #rolar()}) e os segmentos anteriores podem ser apagados.
+ */
+public final class DiarioCatalogo implements Closeable {
+
+    private static final String PREFIXO = "diario-";
+    private static final String SUFIXO = ".log";
+
+    // Quantos registros no máximo vão num mesmo 'fsync'.
+    private static final int MAX_LOTE = 8192;
+
+    // Quantos registros podem esperar a gravação. Acima disso, quem registra espera o disco.
+    private static final int CAPACIDADE_FILA = 8 * MAX_LOTE;
+
+    // Aviso para a thread escritora encerrar.
+    private static final Object PARAR = new Object();
+
+    private final Path diretorio;
+    private final LinkedBlockingQueue<Object> fila = new LinkedBlockingQueue<>(CAPACIDADE_FILA);
+    private final Thread escritor;
+
+    // Quem espera a gravação dorme nesta condição até a thread escritora avisar. Uma trava explícita
+    // (e não 'synchronized' + wait) para que threads virtuais esperando o disco liberem a thread de
+    // verdade que as carrega, em vez de ocupá-la até o 'fsync' terminar.
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition gravado = trava.newCondition();
+
+    private long proximaSequencia;          // Só é usado dentro dos métodos 'synchronized' de registro.
+    private volatile long ultimaRegistrada; // Última sequência que entrou na fila.
+    private volatile long ultimaDuravel;    // Última sequência que já passou pelo 'fsync'.
+    private volatile IOException falha;     // Se o disco falhou, todo mundo fica sabendo.
+
+    // Só a thread escritora mexe nestes dois.
+    private FileChannel segmento;
+    private long ultimaEscrita;
+
+    /**
+     * Abre um segmento novo do diário e começa a aceitar registros.
+     * Chame {@link #reproduzir(Path, long, Consumer)} antes, para saber a próxima sequência.
+     *
+     * @param diretorio Onde ficam os arquivos do diário.
+     * @param proximaSequencia A sequência do próximo registro.
+     * @throws IOException Se o segmento não puder ser criado.
+     */
+    public DiarioCatalogo(Path diretorio, long proximaSequencia) throws IOException {
+        this.diretorio = diretorio;
+        this.proximaSequencia = proximaSequencia;
+        this.ultimaRegistrada = proximaSequencia - 1;
+        this.ultimaDuravel = proximaSequencia - 1;
+        this.ultimaEscrita = proximaSequencia - 1;
+        this.segmento = abrirSegmento(proximaSequencia);
+        this.escritor = new Thread(this::gravarLotes, "diario-catalogo");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Anota no diário que um livro foi adicionado. Não espera o disco: veja {@link #aguardarDurabilidade()}.
+     *
+     * @param livro O livro adicionado.
+     * @return A sequência do registro.
+     * @throws UncheckedIOException Se a gravação do diário já falhou.
+     */
+    public synchronized long registrarAdicao(Livro livro) {
+        return registrar(new RegistroDiario(RegistroDiario.ADICAO, proximaSequencia, livro.getId(), livro));
+    }
+
+    /**
+     * Anota no diário que um livro foi removido. Não espera o disco: veja {@link #aguardarDurabilidade()}.
+     *
+     * @param id O ID do livro removido.
+     * @return A sequência do registro.
+     * @throws UncheckedIOException Se a gravação do diário já falhou.
+     */
+    public synchronized long registrarRemocao(int id) {
+        return registrar(new RegistroDiario(RegistroDiario.REMOCAO, proximaSequencia, id, null));
+    }
+
+    /**
+     * Anota no diário que vários livros foram removidos numa única escrita do catálogo, num
+     * registro só. Não espera o disco: veja {@link #aguardarDurabilidade()}.
+     *
+     * @param ids Os IDs dos livros removidos.
+     * @return A sequência do registro.
+     * @throws UncheckedIOException Se a gravação do diário já falhou.
+     */
+    public synchronized long registrarRemocoes(int[] ids) {
+        return registrar(new RegistroDiario(proximaSequencia, ids));
+    }
+
+    // A sequência só avança depois que o registro entrou na fila: um registro recusado não deixa
+    // buraco na numeração (a recuperação trataria o buraco como diário incompleto).
+    private long registrar(RegistroDiario registro) {
+        try {
+            enfileirar(registro);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        proximaSequencia++;
+        ultimaRegistrada = registro.sequencia;
+        return registro.sequencia;
+    }
+
+    /**
+     * Confere se o diário ainda está gravando. O catálogo chama antes de cada alteração, para
+     * recusá-la (e não aplicar na memória uma mudança que não vai chegar ao disco).
+     *
+     * @throws UncheckedIOException Se a gravação do diário já falhou.
+     */
+    public void verificar() {
+        IOException f = falha;
+        if (f != null) {
+            throw new UncheckedIOException("O diário do catálogo falhou; o catálogo não aceita alterações.", f);
+        }
+    }
+
+    // Põe o item na fila, esperando enquanto ela estiver cheia (o disco ficou para trás). A espera
+    // não é interrompível: o registro descreve uma alteração já feita na memória e não pode se
+    // perder. Só desiste se a gravação falhar (aí a fila nunca mais anda).
+    private void enfileirar(Object item) throws IOException {
+        boolean interrompida = false;
+        try {
+            for (;;) {
+                if (falha != null) {
+                    throw new IOException("Falha ao gravar o diário do catálogo.", falha);
+                }
+                try {
+                    if (fila.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+        } finally {
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Espera até que tudo o que foi registrado até agora esteja gravado no disco (após o 'fsync').
+     *
+     * @throws IOException Se a gravação falhou (agora ou antes) ou a espera foi interrompida.
+     */
+    public void aguardarDurabilidade() throws IOException {
+        long alvo = ultimaRegistrada;
+        trava.lock();
+        try {
+            if (falha != null) {
+                throw new IOException("Falha ao gravar o diário do catálogo.", falha);
+            }
+            while (ultimaDuravel < alvo) {
+                if (falha != null) {
+                    throw new IOException("Falha ao gravar o diário do catálogo.", falha);
+                }
+                try {
+                    gravado.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrompido esperando a gravação do diário.");
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * "Vira a página": grava o que estiver pendente, fecha o segmento atual e abre um novo.
+     *
+     * @return A sequência F do primeiro registro do novo segmento. Todo registro com sequência
+     *         menor que F está nos segmentos anteriores.
+     * @throws IOException Se o disco falhar.
+     */
+    public long rolar() throws IOException {
+        CompletableFuture<Long> resposta = new CompletableFuture<>();
+        enfileirar(resposta);
+        if (falha != null) {
+            // A escritora pode ter parado logo depois de o pedido entrar na fila: ninguém o atenderia.
+            descartarPendentes();
+        }
+        try {
+            return resposta.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido virando a página do diário.");
+        } catch (ExecutionException e) {
+            throw new IOException("Falha ao virar a página do diário.", e.getCause());
+        }
+    }
+
+    /**
+     * Apaga os segmentos que só têm registros com sequência menor que F (já cobertos por um snapshot).
+     *
+     * @param sequencia A sequência F devolvida por {@link #rolar()}.
+     * @throws IOException Se não der para listar o diretório.
+     */
+    public void apagarAnterioresA(long sequencia) throws IOException {
+        for (Path arquivo : segmentos(diretorio)) {
+            if (primeiraSequencia(arquivo) < sequencia) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente e encerra a thread escritora.
+     */
+    @Override
+    public void close() throws IOException {
+        if (falha == null) {
+            try {
+                enfileirar(PARAR);
+            } catch (IOException e) {
+                // A escritora já parou por causa da falha, contada logo abaixo.
+            }
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (falha != null) {
+            throw new IOException("O diário do catálogo terminou com erro.", falha);
+        }
+    }
+
+    // Laço da thread escritora: pega tudo o que estiver na fila, grava e faz um 'fsync' só.
+    private void gravarLotes() {
+        List<Object> lote = new ArrayList<>(MAX_LOTE);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        boolean continuar = true;
+        while (continuar) {
+            try {
+                lote.add(fila.take()); // Dorme até chegar alguma coisa.
+                fila.drainTo(lote, MAX_LOTE - 1); // E pega tudo o que chegou enquanto isso.
+                for (Object item : lote) {
+                    if (item instanceof RegistroDiario) {
+                        buffer = acrescentar(buffer, (RegistroDiario) item);
+                    } else if (item instanceof CompletableFuture) {
+                        descarregar(buffer);
+                        segmento.close();
+                        segmento = abrirSegmento(ultimaEscrita + 1);
+                        @SuppressWarnings("unchecked")
+                        CompletableFuture<Long> resposta = (CompletableFuture<Long>) item;
+                        resposta.complete(ultimaEscrita + 1);
+                    } else if (item == PARAR) {
+                        continuar = false;
+                    }
+                }
+                descarregar(buffer);
+                if (!continuar) {
+                    segmento.close();
+                }
+            } catch (InterruptedException e) {
+                continuar = false;
+            } catch (IOException | RuntimeException e) {
+                falha = e instanceof IOException ? (IOException) e : new IOException(e);
+                continuar = false;
+                System.err.println("Erro gravando o diário do catálogo: " + e.getMessage()
+                        + " (o catálogo não aceita mais alterações até a aplicação ser reiniciada)");
+                falhar(lote);
+                descartarPendentes();
+            } finally {
+                lote.clear();
+                trava.lock();
+                try {
+                    gravado.signalAll(); // Acorda quem estava esperando a gravação (ou a falha).
+                } finally {
+                    trava.unlock();
+                }
+            }
+        }
+    }
+
+    // Esvazia a fila depois de uma falha: ninguém mais vai gravar o que está nela.
+    private void descartarPendentes() {
+        List<Object> pendentes = new ArrayList<>();
+        fila.drainTo(pendentes);
+        falhar(pendentes);
+    }
+
+    // Avisa quem pediu para "virar a página" que o pedido não vai ser atendido.
+    private void falhar(List<Object> itens) {
+        for (Object item : itens) {
+            if (item instanceof CompletableFuture) {
+                ((CompletableFuture<?>) item).completeExceptionally(falha);
+            }
+        }
+    }
+
+    // Codifica o registro no fim do buffer, aumentando o buffer se precisar.
+    private ByteBuffer acrescentar(ByteBuffer buffer, RegistroDiario registro) {
+        byte[] livro = registro.livro != null ? CodificadorLivro.codificar(registro.livro) : null;
+        int tamanho = 1 + 8 + (livro != null ? livro.length : registro.ids != null ? 4 + 4 * registro.ids.length : 4);
+        if (buffer.remaining() < 8 + tamanho) {
+            ByteBuffer maior = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + 8 + tamanho));
+            buffer.flip();
+            maior.put(buffer);
+            buffer = maior;
+        }
+        int inicio = buffer.position();
+        buffer.putInt(tamanho);
+        buffer.putInt(0); // O CRC entra aqui depois que o conteúdo estiver escrito.
+        buffer.put(registro.tipo);
+        buffer.putLong(registro.sequencia);
+        if (livro != null) {
+            buffer.put(livro);
+        } else if (registro.ids != null) {
+            buffer.putInt(registro.ids.length);
+            for (int id : registro.ids) {
+                buffer.putInt(id);
+            }
+        } else {
+            buffer.putInt(registro.id);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), inicio + 8, tamanho);
+        buffer.putInt(inicio + 4, (int) crc.getValue());
+        ultimaEscrita = registro.sequencia;
+        return buffer;
+    }
+
+    // Escreve o lote no arquivo, faz o 'fsync' e avisa até onde já está seguro.
+    private void descarregar(ByteBuffer buffer) throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmento.write(buffer);
+        }
+        buffer.clear();
+        segmento.force(false); // O 'fsync': só depois disso o registro sobrevive a uma queda de energia.
+        ultimaDuravel = ultimaEscrita;
+    }
+
+    private FileChannel abrirSegmento(long primeiraSequencia) throws IOException {
+        // Se já existir um segmento com esse nome, ele não tem nenhum registro válido (senão a
+        // próxima sequência seria maior), então pode ser sobrescrito.
+        return FileChannel.open(diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeiraSequencia, SUFIXO)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Relê o diário do disco, entregando em ordem os registros com sequência a partir de
+     * 'aPartirDe'. Um registro incompleto ou com CRC errado no fim do último segmento é o
+     * rastro de uma queda no meio da escrita: o arquivo é cortado ali e a leitura termina.
+     * As sequências precisam vir sem buracos a partir de 'aPartirDe': um buraco quer dizer que
+     * faltam segmentos (o snapshot usado é mais antigo que o diário) e a leitura falha.
+     *
+     * @param diretorio Onde ficam os arquivos do diário.
+     * @param aPartirDe A primeira sequência que interessa (as anteriores já estão no snapshot).
+     * @param destino Quem recebe cada registro.
+     * @return A sequência que o próximo registro deve usar.
+     * @throws IOException Se o disco falhar, um segmento que não é o último estiver corrompido
+     *                     ou faltarem registros.
+     */
+    static long reproduzir(Path diretorio, long aPartirDe, Consumer<RegistroDiario> destino) throws IOException {
+        long proxima = aPartirDe;
+        List<Path> segmentos = segmentos(diretorio);
+        for (int i = 0; i < segmentos.size(); i++) {
+            Path arquivo = segmentos.get(i);
+            boolean ultimo = i == segmentos.size() - 1;
+            long posicao = 0;
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                DataInputStream entrada = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal), 1 << 16));
+                long tamanhoArquivo = canal.size();
+                while (posicao < tamanhoArquivo) {
+                    byte[] conteudo = lerConteudo(entrada, tamanhoArquivo - posicao);
+                    if (conteudo == null) {
+                        if (!ultimo) {
+                            throw new IOException("Diário corrompido em " + arquivo + " na posição " + posicao + ".");
+                        }
+                        System.err.println("Registro incompleto no fim do diário " + arquivo
+                                + " (posição " + posicao + "); descartando o restante.");
+                        canal.truncate(posicao);
+                        break;
+                    }
+                    posicao += 8 + conteudo.length;
+                    RegistroDiario registro = decodificar(conteudo);
+                    if (registro.sequencia >= aPartirDe) {
+                        if (registro.sequencia != proxima) {
+                            throw new IOException("Diário incompleto: esperava o registro " + proxima
+                                    + " e encontrou o " + registro.sequencia + " em " + arquivo + ".");
+                        }
+                        destino.accept(registro);
+                        proxima = Math.max(proxima, registro.sequencia + 1);
+                    }
+                }
+            }
+        }
+        return proxima;
+    }
+
+    // Lê o conteúdo de um registro; devolve null se ele estiver incompleto ou com o CRC errado.
+    private static byte[] lerConteudo(DataInputStream entrada, long restante) throws IOException {
+        if (restante < 8) {
+            return null;
+        }
+        int tamanho = entrada.readInt();
+        int crcEsperado = entrada.readInt();
+        if (tamanho < 9 || tamanho > restante - 8) {
+            return null;
+        }
+        byte[] conteudo = new byte[tamanho];
+        try {
+            entrada.readFully(conteudo);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(conteudo);
+        return (int) crc.getValue() == crcEsperado ? conteudo : null;
+    }
+
+    private static RegistroDiario decodificar(byte[] conteudo) {
+        ByteBuffer dados = ByteBuffer.wrap(conteudo);
+        byte tipo = dados.get();
+        long sequencia = dados.getLong();
+        if (tipo == RegistroDiario.ADICAO) {
+            Livro livro = CodificadorLivro.ler(dados);
+            return new RegistroDiario(tipo, sequencia, livro.getId(), livro);
+        }
+        if (tipo == RegistroDiario.REMOCAO_LOTE) {
+            int[] ids = new int[dados.getInt()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = dados.getInt();
+            }
+            return new RegistroDiario(sequencia, ids);
+        }
+        return new RegistroDiario(tipo, sequencia, dados.getInt(), null);
+    }
+
+    // Lista os segmentos do diário em ordem de sequência.
+    private static List<Path> segmentos(Path diretorio) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+            for (Path arquivo : arquivos) {
+                segmentos.add(arquivo);
+            }
+        }
+        Collections.sort(segmentos); // O número tem sempre 20 dígitos, então a ordem alfabética é a numérica.
+        return segmentos;
+    }
+
+    private static long primeiraSequencia(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+}
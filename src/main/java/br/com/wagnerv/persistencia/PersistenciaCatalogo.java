@@ -0,0 +1,204 @@
+package br.com.wagnerv.persistencia; // Pacote que guarda o catálogo no disco.
+
+import br.com.wagnerv.model.Livro;                  // Os livros persistidos.
+import br.com.wagnerv.repository.CatalogoListener;  // Para anotar no diário cada alteração do catálogo.
+import br.com.wagnerv.repository.LivroRepository;   // O catálogo que é restaurado e salvo.
+
+import java.io.Closeable;                           // Precisa ser fechado ao desligar a aplicação.
+import java.io.IOException;                         // Erros de disco.
+import java.nio.file.Files;                         // Para criar o diretório de dados.
+import java.nio.file.Path;                          // Caminho do diretório de dados.
+import java.util.ArrayList;                         // Lote de inclusões na reprodução do diário.
+import java.util.List;                              // Interface de lista.
+import java.util.concurrent.Executors;              // Cria o agendador de snapshots.
+import java.util.concurrent.ScheduledExecutorService; // Verifica de tempos em tempos se vale tirar um snapshot.
+import java.util.concurrent.TimeUnit;               // Unidades de tempo do agendador.
+import java.util.concurrent.atomic.AtomicLong;      // Registros gravados desde o último snapshot.
+
+/**
+ * Motor de persistência local do catálogo: junta o {@link DiarioCatalogo} (cada alteração,
+ * gravada com 'fsync' em grupo) e o {@link ArquivoSnapshot} (fotografia compacta de tempos em tempos).
+ *
+ * Na subida da aplicação ({@link #restaurar(LivroRepository)}): carrega o snapshot mais recente,
+ * reproduz o diário a partir dele e só então passa a "ouvir" o catálogo para anotar as novas
+ * alterações. Quando o diário acumula registros demais, um novo snapshot é gravado e os
+ * segmentos antigos do diário são apagados, então a recuperação nunca precisa reler tudo.
+ *
+ * O disco guarda sempre duas "gerações": o snapshot novo e o anterior, com o diário desde o
+ * anterior. Se o snapshot novo aparecer corrompido na subida, a recuperação volta para o
+ * anterior e reproduz o diário a partir dele, sem perder nada.
+ */
+public class PersistenciaCatalogo implements CatalogoListener, Closeable {
+
+    private final Path diretorio;
+    private final long registrosPorSnapshot;    // Depois de quantos registros no diário vale tirar um snapshot.
+    private final AtomicLong registrosDesdeSnapshot = new AtomicLong();
+    private long snapshotAnterior;              // F do último snapshot bom (carregado ou gravado).
+
+    private LivroRepository repositorio;
+    private DiarioCatalogo diario;
+    private ScheduledExecutorService agendador;
+
+    /**
+     * @param diretorio Onde ficam o diário e os snapshots.
+     * @param registrosPorSnapshot Depois de quantos registros no diário um snapshot é gravado.
+     */
+    public PersistenciaCatalogo(Path diretorio, long registrosPorSnapshot) {
+        this.diretorio = diretorio;
+        this.registrosPorSnapshot = registrosPorSnapshot;
+    }
+
+    /**
+     * Coloca no repositório (que deve estar vazio) tudo o que estava no disco e começa a
+     * anotar as novas alterações.
+     *
+     * @param repositorio O catálogo a restaurar.
+     * @return Quantos livros o catálogo tem depois da restauração.
+     * @throws IOException Se o disco falhar ou o diário estiver corrompido.
+     */
+    public int restaurar(LivroRepository repositorio) throws IOException {
+        this.repositorio = repositorio;
+        Files.createDirectories(diretorio);
+
+        // 1) O snapshot entra em lotes grandes, cada lote com uma única aquisição do lock de escrita.
+        long aPartirDe = ArquivoSnapshot.carregar(diretorio, repositorio::adicionarTodos);
+        snapshotAnterior = aPartirDe;
+
+        // 2) O diário é reproduzido na ordem. Inclusões seguidas também vão em lote; uma exclusão
+        //    "fecha" o lote antes, para manter a ordem exata dos acontecimentos.
+        List<Livro> inclusoes = new ArrayList<>();
+        long[] reproduzidos = new long[1];
+        long proxima = DiarioCatalogo.reproduzir(diretorio, aPartirDe, registro -> {
+            reproduzidos[0]++;
+            if (registro.tipo == RegistroDiario.ADICAO) {
+                inclusoes.add(registro.livro);
+                if (inclusoes.size() == ArquivoSnapshot.LOTE_CARGA) {
+                    repositorio.adicionarTodos(inclusoes);
+                    inclusoes.clear();
+                }
+            } else {
+                repositorio.adicionarTodos(inclusoes);
+                inclusoes.clear();
+                if (registro.tipo == RegistroDiario.REMOCAO_LOTE) {
+                    repositorio.removerTodos(paraLista(registro.ids)); // O lote inteiro, como foi feito.
+                } else {
+                    repositorio.remover(registro.id);
+                }
+            }
+        });
+        repositorio.adicionarTodos(inclusoes);
+
+        // 3) Daqui pra frente, toda alteração vai para o diário.
+        diario = new DiarioCatalogo(diretorio, proxima);
+        registrosDesdeSnapshot.set(reproduzidos[0]);
+        repositorio.adicionarListener(this);
+
+        // 4) De tempos em tempos, vê se o diário cresceu o bastante para valer um snapshot novo.
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-catalogo");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(this::snapshotSeNecessario, 0, 30, TimeUnit.SECONDS);
+        return repositorio.tamanho();
+    }
+
+    // Se o diário falhou, nenhuma alteração entra na memória: ela não chegaria ao disco, e o
+    // catálogo voltaria ao que era na próxima subida sem ninguém saber.
+    @Override
+    public void antesDeAlterar() {
+        diario.verificar();
+    }
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        diario.registrarAdicao(livro);
+        registrosDesdeSnapshot.incrementAndGet();
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        diario.registrarRemocao(livro.getId());
+        registrosDesdeSnapshot.incrementAndGet();
+    }
+
+    // Exclusão em lote: um registro só no diário, para que uma queda no meio da gravação não
+    // deixe o lote "pela metade" na recuperação.
+    @Override
+    public void aoRemoverTodos(List<Livro> livros) {
+        int[] ids = new int[livros.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = livros.get(i).getId();
+        }
+        diario.registrarRemocoes(ids);
+        registrosDesdeSnapshot.addAndGet(ids.length);
+    }
+
+    private static List<Integer> paraLista(int[] ids) {
+        List<Integer> lista = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            lista.add(id);
+        }
+        return lista;
+    }
+
+    /**
+     * Espera até que todas as alterações feitas até agora estejam gravadas no disco.
+     * Chame depois de adicionar/remover e antes de responder ao usuário.
+     *
+     * @throws IOException Se a gravação falhar.
+     */
+    public void aguardarDurabilidade() throws IOException {
+        diario.aguardarDurabilidade();
+    }
+
+    /**
+     * Grava um snapshot do catálogo e apaga o que ficou duas gerações para trás: o snapshot
+     * anterior a este continua no disco, com o diário desde ele, como reserva.
+     *
+     * @throws IOException Se o disco falhar.
+     */
+    public synchronized void gravarSnapshot() throws IOException {
+        long desde = registrosDesdeSnapshot.get();
+        // Primeiro "vira a página" do diário: tudo antes de F está nos segmentos antigos...
+        long f = diario.rolar();
+        // ...e já está publicado no repositório, então entra nesta fotografia. A fotografia pode
+        // conter também alterações posteriores a F; reproduzi-las de novo não muda nada.
+        // 'gravar' só volta depois de reler e conferir o arquivo novo: só então a reserva antiga sai.
+        ArquivoSnapshot.gravar(diretorio, f, repositorio.snapshot());
+        diario.apagarAnterioresA(snapshotAnterior);
+        ArquivoSnapshot.apagarAnterioresA(diretorio, snapshotAnterior);
+        snapshotAnterior = f;
+        registrosDesdeSnapshot.addAndGet(-desde);
+    }
+
+    private void snapshotSeNecessario() {
+        if (registrosDesdeSnapshot.get() < registrosPorSnapshot) {
+            return;
+        }
+        try {
+            gravarSnapshot();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao gravar o snapshot do catálogo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Grava um último snapshot (para a próxima subida ser rápida) e fecha o diário.
+     */
+    @Override
+    public void close() throws IOException {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+        if (diario != null) {
+            try {
+                if (registrosDesdeSnapshot.get() > 0) {
+                    gravarSnapshot();
+                }
+            } finally {
+                diario.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.wagnerv.persistencia; // Pacote que guarda o catálogo no disco.
+
+import br.com.wagnerv.model.Livro; // O livro adicionado (só nos registros de adição).
+
+/**
+ * Uma linha do diário: "o livro X foi adicionado", "o livro de ID Y foi removido" ou "os livros
+ * de IDs Y1, Y2... foram removidos de uma vez", com o número de sequência que dá a ordem exata
+ * dos acontecimentos.
+ */
+final class RegistroDiario {
+
+    static final byte ADICAO = 1;
+    static final byte REMOCAO = 2;
+    static final byte REMOCAO_LOTE = 3;
+
+    final byte tipo;      // ADICAO, REMOCAO ou REMOCAO_LOTE.
+    final long sequencia; // Ordem do registro no diário (cresce de 1 em 1).
+    final int id;         // ID do livro.
+    final Livro livro;    // O livro completo (null nas remoções).
+    final int[] ids;      // IDs dos livros (só na remoção em lote).
+
+    RegistroDiario(byte tipo, long sequencia, int id, Livro livro) {
+        this.tipo = tipo;
+        this.sequencia = sequencia;
+        this.id = id;
+        this.livro = livro;
+        this.ids = null;
+    }
+
+    // Remoção em lote: um registro só, que a recuperação aplica inteiro ou não aplica.
+    RegistroDiario(long sequencia, int[] ids) {
+        this.tipo = REMOCAO_LOTE;
+        this.sequencia = sequencia;
+        this.id = 0;
+        this.livro = null;
+        this.ids = ids;
+    }
+}
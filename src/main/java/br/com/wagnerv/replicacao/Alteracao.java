@@ -0,0 +1,25 @@
+package br.com.wagnerv.replicacao; // Pacote da replicação do catálogo entre servidores.
+
+import br.com.wagnerv.model.Livro; // O livro adicionado (só nas adições).
+
+/**
+ * Uma alteração do catálogo, com o número de sequência que dá a ordem exata dos acontecimentos:
+ * "o livro X foi adicionado" ou "o livro de ID Y foi removido".
+ */
+final class Alteracao {
+
+    static final byte ADICAO = 1;
+    static final byte REMOCAO = 2;
+
+    final byte tipo;      // ADICAO ou REMOCAO.
+    final long sequencia; // Ordem da alteração (cresce de 1 em 1).
+    final int id;         // ID do livro.
+    final Livro livro;    // O livro completo (null nas remoções).
+
+    Alteracao(byte tipo, long sequencia, int id, Livro livro) {
+        this.tipo = tipo;
+        this.sequencia = sequencia;
+        this.id = id;
+        this.livro = livro;
+    }
+}
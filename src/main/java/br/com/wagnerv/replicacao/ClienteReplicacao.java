@@ -0,0 +1,304 @@
+package br.com.wagnerv.replicacao; // Pacote da replicação do catálogo entre servidores.
+
+import br.com.wagnerv.model.Livro;                       // Os livros recebidos do primário.
+import br.com.wagnerv.persistencia.PersistenciaCatalogo; // Para a posição só ser salva depois do diário.
+import br.com.wagnerv.repository.LivroRepository;        // O catálogo da réplica.
+
+import java.io.BufferedInputStream;    // Leitura dos quadros em blocos grandes.
+import java.io.BufferedOutputStream;   // Escrita da apresentação.
+import java.io.Closeable;              // Precisa ser fechado ao desligar a aplicação.
+import java.io.DataInputStream;        // Leitura de int/long/bytes.
+import java.io.DataOutputStream;       // Escrita de int/long.
+import java.io.IOException;            // Erros de rede e de disco.
+import java.net.InetSocketAddress;     // Endereço do primário.
+import java.net.Socket;                // A conexão com o primário.
+import java.nio.ByteBuffer;            // Os 16 bytes do arquivo de posição.
+import java.nio.file.Files;            // Leitura/gravação do arquivo de posição.
+import java.nio.file.Path;             // Caminho do arquivo de posição.
+import java.nio.file.StandardCopyOption; // Troca atômica do arquivo de posição.
+import java.util.ArrayList;            // Inclusões seguidas, aplicadas em lote.
+import java.util.BitSet;               // IDs que vieram no catálogo completo.
+import java.util.List;                 // Interface de lista.
+import java.util.Objects;              // Comparação de campos que podem ser nulos.
+
+/**
+ * Lado da réplica: conecta no primário, recebe as alterações e as aplica no catálogo local.
+ *
+ * A réplica guarda a posição (época + última sequência aplicada). Ao reconectar (rede caiu, primário
+ * reiniciou, a própria réplica reiniciou), pede "tudo depois da posição" e só recebe o que perdeu;
+ * se o primário já não tem esse trecho, recebe o catálogo inteiro e fica igual a ele (o que só
+ * existia na réplica sai, e o livro local com o mesmo ID de um do primário, mas outro conteúdo, é trocado).
+ *
+ * Com persistência, a posição vai para um arquivo no diretório de dados, sempre DEPOIS de as
+ * alterações estarem no diário da réplica. Se a réplica cair entre uma coisa e outra, ela pede de
+ * novo algumas alterações que já tinha; como aplicar inclusões e exclusões repetidas, na ordem,
+ * não muda o resultado, o catálogo continua certo.
+ */
+public class ClienteReplicacao implements Closeable {
+
+    // Espera entre tentativas de conexão: começa em 1 s e dobra até 30 s.
+    private static final long ESPERA_INICIAL_MS = 1_000;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+    // Salva a posição no disco no máximo uma vez por...
+    private static final long INTERVALO_POSICAO_NANOS = 1_000_000_000L;
+
+    private final String host;
+    private final int porta;
+    private final LivroRepository livros;
+    private final PersistenciaCatalogo persistencia; // null sem persistência.
+    private final Path arquivoPosicao;               // null sem persistência.
+    private final Thread leitor;
+
+    private volatile boolean ativo = true;
+    private volatile Socket conexao;
+    private volatile boolean conectado;
+    private volatile long epoca;
+    private volatile long sequencia;          // Última alteração aplicada.
+    private volatile long ultimaDoPrimario;   // Última alteração que o primário tinha no último lote.
+    private long posicaoSalvaEm;              // Só a thread leitora usa.
+
+    /**
+     * Lê a posição salva (se houver) e começa a replicar.
+     *
+     * @param host           O endereço do primário.
+     * @param porta          A porta de replicação do primário.
+     * @param livros         O catálogo da réplica.
+     * @param persistencia   A persistência da réplica, ou {@code null}.
+     * @param arquivoPosicao Onde guardar a posição, ou {@code null} (sem persistência: começa do zero).
+     * @throws IOException Se o arquivo de posição existir e não puder ser lido.
+     */
+    public ClienteReplicacao(String host, int porta, LivroRepository livros, PersistenciaCatalogo persistencia,
+                             Path arquivoPosicao) throws IOException {
+        this.host = host;
+        this.porta = porta;
+        this.livros = livros;
+        this.persistencia = persistencia;
+        this.arquivoPosicao = arquivoPosicao;
+        if (arquivoPosicao != null && Files.exists(arquivoPosicao)) {
+            ByteBuffer posicao = ByteBuffer.wrap(Files.readAllBytes(arquivoPosicao));
+            if (posicao.remaining() == 16) {
+                epoca = posicao.getLong();
+                sequencia = posicao.getLong();
+            }
+        }
+        this.leitor = new Thread(this::replicar, "replicacao-leitura-" + host + ":" + porta);
+        this.leitor.setDaemon(true);
+        this.leitor.start();
+    }
+
+    /**
+     * @return Se a réplica está conectada ao primário agora.
+     */
+    public boolean isConectado() {
+        return conectado;
+    }
+
+    /**
+     * @return A última sequência aplicada nesta réplica.
+     */
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    /**
+     * @return Quantas alterações o primário tinha (no último contato) que a réplica ainda não aplicou.
+     */
+    public long getAtraso() {
+        return Math.max(ultimaDoPrimario - sequencia, 0);
+    }
+
+    // Laço principal: conecta, replica até a conexão cair, espera um pouco e tenta de novo.
+    private void replicar() {
+        long espera = ESPERA_INICIAL_MS;
+        while (ativo) {
+            try (Socket socket = new Socket()) {
+                conexao = socket;
+                socket.connect(new InetSocketAddress(host, porta), 5_000);
+                socket.setSoTimeout(ProtocoloReplicacao.SILENCIO_MAXIMO_MS);
+                socket.setTcpNoDelay(true);
+                espera = ESPERA_INICIAL_MS;
+                receber(socket);
+            } catch (IOException | RuntimeException e) {
+                if (ativo) {
+                    System.err.println("Replicação com " + host + ":" + porta + " interrompida: "
+                            + (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage())
+                            + " (nova tentativa em " + espera / 1000 + " s)");
+                }
+            } finally {
+                conectado = false;
+                conexao = null;
+            }
+            if (!ativo) {
+                break;
+            }
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                break;
+            }
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+        }
+        salvarPosicao(true);
+    }
+
+    private void receber(Socket socket) throws IOException {
+        DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        saida.writeInt(ProtocoloReplicacao.MAGICA);
+        saida.writeInt(ProtocoloReplicacao.VERSAO);
+        saida.writeLong(epoca);
+        saida.writeLong(sequencia);
+        saida.flush();
+
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        if (entrada.readByte() != ProtocoloReplicacao.OLA) {
+            throw new IOException("Resposta inesperada do primário.");
+        }
+        long epocaPrimario = entrada.readLong();
+        conectado = true;
+        BitSet recebidos = null; // Não nulo durante o recebimento do catálogo completo.
+        long baseCatalogo = 0;
+        List<Livro> inclusoes = new ArrayList<>();
+        while (ativo) {
+            byte tipo = entrada.readByte();
+            switch (tipo) {
+                case ProtocoloReplicacao.CATALOGO_INICIO:
+                    baseCatalogo = entrada.readLong();
+                    recebidos = new BitSet();
+                    break;
+                case ProtocoloReplicacao.CATALOGO_BLOCO: {
+                    if (recebidos == null) {
+                        throw new IOException("Bloco de catálogo fora de ordem.");
+                    }
+                    int quantidade = entrada.readInt();
+                    List<Integer> diferentes = new ArrayList<>();
+                    for (int i = 0; i < quantidade; i++) {
+                        Livro livro = ProtocoloReplicacao.lerLivro(entrada);
+                        inclusoes.add(livro);
+                        recebidos.set(livro.getId());
+                        Livro local = livros.buscarPorId(livro.getId());
+                        if (local != null && !mesmoConteudo(local, livro)) {
+                            diferentes.add(livro.getId());
+                        }
+                    }
+                    // O mesmo ID com outro conteúdo (a réplica se desviou, ou o primário reiniciou sem
+                    // persistência e reaproveitou o ID): sai a versão local e entra a do primário.
+                    // Os livros iguais ficam como estão.
+                    if (!diferentes.isEmpty()) {
+                        livros.removerTodos(diferentes);
+                    }
+                    livros.adicionarTodos(inclusoes);
+                    inclusoes.clear();
+                    break;
+                }
+                case ProtocoloReplicacao.CATALOGO_FIM:
+                    if (recebidos == null) {
+                        throw new IOException("Fim de catálogo fora de ordem.");
+                    }
+                    removerAusentes(recebidos);
+                    recebidos = null;
+                    epoca = epocaPrimario;
+                    sequencia = baseCatalogo;
+                    ultimaDoPrimario = Math.max(ultimaDoPrimario, baseCatalogo);
+                    salvarPosicao(true);
+                    break;
+                case ProtocoloReplicacao.ALTERACOES:
+                    aplicarAlteracoes(entrada, inclusoes);
+                    epoca = epocaPrimario; // Mesma época: o primário continuou de onde estávamos.
+                    salvarPosicao(false);
+                    break;
+                default:
+                    throw new IOException("Quadro desconhecido no fluxo de replicação: " + tipo);
+            }
+        }
+    }
+
+    private void aplicarAlteracoes(DataInputStream entrada, List<Livro> inclusoes) throws IOException {
+        long ultimaNoPrimario = entrada.readLong();
+        int quantidade = entrada.readInt();
+        long aplicada = sequencia;
+        for (int i = 0; i < quantidade; i++) {
+            byte tipo = entrada.readByte();
+            long numero = entrada.readLong();
+            if (tipo == Alteracao.ADICAO) {
+                inclusoes.add(ProtocoloReplicacao.lerLivro(entrada));
+            } else if (tipo == Alteracao.REMOCAO) {
+                // Uma exclusão "fecha" o lote de inclusões antes, para manter a ordem exata.
+                livros.adicionarTodos(inclusoes);
+                inclusoes.clear();
+                livros.remover(entrada.readInt());
+            } else {
+                throw new IOException("Tipo de alteração desconhecido: " + tipo);
+            }
+            aplicada = numero;
+        }
+        livros.adicionarTodos(inclusoes);
+        inclusoes.clear();
+        sequencia = aplicada;
+        ultimaDoPrimario = ultimaNoPrimario;
+    }
+
+    private static boolean mesmoConteudo(Livro a, Livro b) {
+        return a.getAno() == b.getAno() && Objects.equals(a.getTitulo(), b.getTitulo())
+                && Objects.equals(a.getAutor(), b.getAutor()) && Objects.equals(a.getIsbn(), b.getIsbn());
+    }
+
+    // Tira da réplica os livros que não vieram no catálogo completo (foram excluídos no primário).
+    // Uma exclusão em lote só: um lock, uma fotografia nova e um aviso aos ouvintes, em vez de um
+    // de cada por livro (depois de muito tempo desconectada, podem ser milhares).
+    private void removerAusentes(BitSet recebidos) {
+        List<Integer> ausentes = new ArrayList<>();
+        for (Livro livro : livros.snapshot()) {
+            if (!recebidos.get(livro.getId())) {
+                ausentes.add(livro.getId());
+            }
+        }
+        if (!ausentes.isEmpty()) {
+            livros.removerTodos(ausentes);
+        }
+    }
+
+    /**
+     * Grava a posição no disco (no máximo uma vez por segundo, a não ser que {@code agora}).
+     * Antes, espera o diário da réplica gravar as alterações aplicadas até aqui.
+     */
+    private void salvarPosicao(boolean agora) {
+        if (arquivoPosicao == null) {
+            return;
+        }
+        long instante = System.nanoTime();
+        if (!agora && instante - posicaoSalvaEm < INTERVALO_POSICAO_NANOS) {
+            return;
+        }
+        posicaoSalvaEm = instante;
+        try {
+            long epocaSalva = epoca;
+            long sequenciaSalva = sequencia;
+            if (persistencia != null) {
+                persistencia.aguardarDurabilidade();
+            }
+            Path temporario = arquivoPosicao.resolveSibling(arquivoPosicao.getFileName() + ".tmp");
+            Files.write(temporario, ByteBuffer.allocate(16).putLong(epocaSalva).putLong(sequenciaSalva).array());
+            Files.move(temporario, arquivoPosicao, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar a posição da replicação: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Desconecta do primário e salva a posição.
+     */
+    @Override
+    public void close() throws IOException {
+        ativo = false;
+        leitor.interrupt();
+        Socket socket = conexao;
+        if (socket != null) {
+            socket.close();
+        }
+        try {
+            leitor.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.wagnerv.replicacao; // Pacote da replicação do catálogo entre servidores.
+// Um servidor "primário" recebe as inclusões e exclusões e as repassa, em ordem, para os
+// servidores "réplica", que só atendem leituras. Assim dá para colocar mais servidores para
+// aguentar mais listagens e buscas, todos mostrando o mesmo catálogo.
+
+import br.com.wagnerv.model.Livro;                  // O livro adicionado ou removido.
+import br.com.wagnerv.repository.CatalogoListener;  // Para ser avisado de cada alteração do catálogo.
+
+import java.util.concurrent.ThreadLocalRandom;      // Para sortear a "época" do feed.
+import java.util.concurrent.TimeUnit;               // Unidades de tempo da espera.
+import java.util.concurrent.locks.Condition;        // "Chegou alteração nova": acorda quem está esperando.
+import java.util.concurrent.locks.ReentrantLock;    // Protege o histórico.
+
+/**
+ * O "feed" de alterações do catálogo: cada inclusão e exclusão recebe um número de sequência
+ * (1, 2, 3...) e fica num histórico circular com as últimas N alterações, de onde o
+ * {@link ServidorReplicacao} as envia para as réplicas.
+ *
+ * Uma réplica que caiu e voltou pede "tudo depois da sequência S". Se S ainda está no histórico,
+ * ela recebe só o que perdeu; se já saiu (a réplica ficou fora tempo demais), ela recebe o
+ * catálogo inteiro e continua dali.
+ *
+ * A "época" identifica a numeração: ela muda quando o primário sobe com um histórico que não
+ * continua o anterior. A sequência S de uma réplica só vale na mesma época.
+ */
+public class FeedAlteracoes implements CatalogoListener {
+
+    private final long epoca;
+    private final Alteracao[] historico; // Circular: a sequência S fica na posição S % tamanho.
+    private final long primeiraDestaSubida; // Alterações antes desta não estão no histórico (nem nunca estiveram).
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition novas = trava.newCondition();
+    private volatile long ultima; // Escrita só com a trava.
+
+    /**
+     * Cria um feed com época nova, começando da sequência 1.
+     *
+     * @param capacidade Quantas alterações o histórico guarda.
+     */
+    public FeedAlteracoes(int capacidade) {
+        this(ThreadLocalRandom.current().nextLong(), 0, capacidade);
+    }
+
+    /**
+     * Cria um feed que continua uma numeração anterior (o primário foi desligado direitinho,
+     * com tudo gravado, e as réplicas que estavam em dia podem continuar de onde pararam).
+     *
+     * @param epoca           A época que continua.
+     * @param ultimaSequencia A última sequência já entregue nessa época.
+     * @param capacidade      Quantas alterações o histórico guarda.
+     */
+    public FeedAlteracoes(long epoca, long ultimaSequencia, int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida para o histórico de alterações: " + capacidade);
+        }
+        this.epoca = epoca;
+        this.historico = new Alteracao[capacidade];
+        this.ultima = ultimaSequencia;
+        this.primeiraDestaSubida = ultimaSequencia + 1;
+    }
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        publicar(Alteracao.ADICAO, livro.getId(), livro);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        publicar(Alteracao.REMOCAO, livro.getId(), null);
+    }
+
+    // Chamado com o lock de escrita do repositório: a ordem das sequências é a ordem das alterações.
+    private void publicar(byte tipo, int id, Livro livro) {
+        trava.lock();
+        try {
+            long sequencia = ultima + 1;
+            historico[(int) (sequencia % historico.length)] = new Alteracao(tipo, sequencia, id, livro);
+            ultima = sequencia;
+            novas.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public long getEpoca() {
+        return epoca;
+    }
+
+    /**
+     * @return A sequência da última alteração publicada.
+     */
+    public long getUltimaSequencia() {
+        return ultima;
+    }
+
+    /**
+     * @return Se as alterações depois de {@code sequencia} ainda estão todas no histórico.
+     */
+    boolean disponivelDesde(long sequencia) {
+        trava.lock();
+        try {
+            return sequencia <= ultima && sequencia + 1 >= primeiraDisponivel();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Copia as alterações seguintes a {@code desde}, esperando chegar alguma se ainda não houver.
+     *
+     * @param desde  A última sequência que quem pede já tem.
+     * @param destino Onde copiar (copia no máximo o tamanho do array).
+     * @param espera Quanto esperar, no máximo, por uma alteração nova.
+     * @param unidade A unidade de {@code espera}.
+     * @return Quantas alterações foram copiadas (0 se o tempo acabou sem novidade), ou -1 se
+     *         parte das alterações pedidas já saiu do histórico.
+     * @throws InterruptedException Se a thread for interrompida esperando.
+     */
+    int copiar(long desde, Alteracao[] destino, long espera, TimeUnit unidade) throws InterruptedException {
+        long esperaNanos = unidade.toNanos(espera);
+        trava.lock();
+        try {
+            if (desde > ultima) {
+                return -1; // Sequência de outra numeração.
+            }
+            while (ultima == desde) {
+                if (esperaNanos <= 0) {
+                    return 0;
+                }
+                esperaNanos = novas.awaitNanos(esperaNanos);
+            }
+            if (desde + 1 < primeiraDisponivel()) {
+                return -1;
+            }
+            int quantidade = (int) Math.min(destino.length, ultima - desde);
+            for (int i = 0; i < quantidade; i++) {
+                destino[i] = historico[(int) ((desde + 1 + i) % historico.length)];
+            }
+            return quantidade;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // A mais antiga alteração que ainda está no histórico.
+    private long primeiraDisponivel() {
+        return Math.max(primeiraDestaSubida, ultima - historico.length + 1);
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.wagnerv.replicacao; // Pacote da replicação do catálogo entre servidores.
+
+import br.com.wagnerv.persistencia.PersistenciaCatalogo; // Persistência da réplica (posição só depois do diário).
+import br.com.wagnerv.repository.LivroRepository;        // O catálogo.
+
+import java.io.Closeable;          // Precisa ser fechado ao desligar a aplicação.
+import java.io.IOException;        // Erros de rede e de disco.
+import java.nio.ByteBuffer;        // Os 16 bytes do arquivo do feed.
+import java.nio.file.Files;        // Leitura/gravação do arquivo do feed.
+import java.nio.file.Path;         // Caminhos dos arquivos.
+
+/**
+ * O papel deste servidor na replicação: primário (recebe as alterações e as envia) ou réplica
+ * (recebe do primário e só atende leituras). Junta as peças de cada papel e cuida de ligá-las e
+ * desligá-las.
+ */
+public class NoReplicacao implements Closeable {
+
+    // Arquivo (no diretório de dados do primário) com a época e a última sequência do feed,
+    // gravado só num desligamento normal.
+    private static final String ARQUIVO_FEED = "replicacao-feed.pos";
+    // Arquivo (no diretório de dados da réplica) com a posição da réplica.
+    private static final String ARQUIVO_POSICAO = "replicacao.pos";
+
+    private final FeedAlteracoes feed;            // Só no primário.
+    private final ServidorReplicacao servidor;    // Só no primário.
+    private final ClienteReplicacao cliente;      // Só na réplica.
+    private final Path diretorio;                 // null sem persistência.
+
+    private NoReplicacao(FeedAlteracoes feed, ServidorReplicacao servidor, ClienteReplicacao cliente, Path diretorio) {
+        this.feed = feed;
+        this.servidor = servidor;
+        this.cliente = cliente;
+        this.diretorio = diretorio;
+    }
+
+    /**
+     * Liga este servidor como primário: passa a numerar as alterações do catálogo e a enviá-las
+     * para as réplicas que conectarem na porta. Chame depois de restaurar o catálogo (a restauração
+     * não é alteração nova: as réplicas recebem esses livros no catálogo completo).
+     *
+     * @param porta      A porta TCP da replicação.
+     * @param capacidade Quantas alterações o histórico guarda para réplicas que reconectam.
+     * @param livros     O catálogo.
+     * @param diretorio  O diretório de dados, ou {@code null} sem persistência.
+     * @return O nó primário.
+     * @throws IOException Se não der para escutar na porta.
+     */
+    public static NoReplicacao primario(int porta, int capacidade, LivroRepository livros, Path diretorio)
+            throws IOException {
+        FeedAlteracoes feed = null;
+        Path arquivo = diretorio == null ? null : diretorio.resolve(ARQUIVO_FEED);
+        if (arquivo != null && Files.exists(arquivo)) {
+            // Desligamento normal: tudo o que foi numerado está no disco, então quem estava em dia
+            // continua válido. O arquivo é apagado já: se este processo cair, a próxima subida
+            // começa uma época nova (as réplicas recebem o catálogo completo, por segurança).
+            ByteBuffer dados = ByteBuffer.wrap(Files.readAllBytes(arquivo));
+            Files.delete(arquivo);
+            if (dados.remaining() == 16) {
+                feed = new FeedAlteracoes(dados.getLong(), dados.getLong(), capacidade);
+            }
+        }
+        if (feed == null) {
+            feed = new FeedAlteracoes(capacidade);
+        }
+        livros.adicionarListener(feed);
+        return new NoReplicacao(feed, new ServidorReplicacao(porta, feed, livros), null, diretorio);
+    }
+
+    /**
+     * Liga este servidor como réplica do primário informado.
+     *
+     * @param host         O endereço do primário.
+     * @param porta        A porta de replicação do primário.
+     * @param livros       O catálogo (já restaurado do disco, se houver persistência).
+     * @param persistencia A persistência, ou {@code null}.
+     * @param diretorio    O diretório de dados, ou {@code null} sem persistência.
+     * @return O nó réplica.
+     * @throws IOException Se o arquivo de posição não puder ser lido.
+     */
+    public static NoReplicacao replica(String host, int porta, LivroRepository livros,
+                                       PersistenciaCatalogo persistencia, Path diretorio) throws IOException {
+        Path posicao = diretorio == null ? null : diretorio.resolve(ARQUIVO_POSICAO);
+        return new NoReplicacao(null, null, new ClienteReplicacao(host, porta, livros, persistencia, posicao), null);
+    }
+
+    /**
+     * @return Se este servidor é uma réplica (e portanto não aceita inclusões nem exclusões).
+     */
+    public boolean isReplica() {
+        return cliente != null;
+    }
+
+    /**
+     * @return O feed de alterações (só no primário; {@code null} na réplica).
+     */
+    public FeedAlteracoes getFeed() {
+        return feed;
+    }
+
+    /**
+     * @return O servidor de replicação (só no primário; {@code null} na réplica).
+     */
+    public ServidorReplicacao getServidor() {
+        return servidor;
+    }
+
+    /**
+     * @return O cliente de replicação (só na réplica; {@code null} no primário).
+     */
+    public ClienteReplicacao getCliente() {
+        return cliente;
+    }
+
+    /**
+     * Desliga a replicação. Chame antes de fechar a persistência.
+     */
+    @Override
+    public void close() throws IOException {
+        if (servidor != null) {
+            servidor.close();
+        }
+        if (cliente != null) {
+            cliente.close();
+        }
+    }
+
+    /**
+     * Primário com persistência: anota a época e a última sequência, para as réplicas em dia
+     * continuarem de onde pararam depois que este servidor voltar. Chame só depois que a
+     * persistência fechou sem erro (todas as alterações numeradas estão no disco).
+     *
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    public void registrarDesligamentoNormal() throws IOException {
+        if (feed != null && diretorio != null) {
+            Files.write(diretorio.resolve(ARQUIVO_FEED),
+                    ByteBuffer.allocate(16).putLong(feed.getEpoca()).putLong(feed.getUltimaSequencia()).array());
+        }
+    }
+}
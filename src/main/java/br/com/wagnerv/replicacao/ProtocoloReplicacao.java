@@ -0,0 +1,74 @@
+package br.com.wagnerv.replicacao; // Pacote da replicação do catálogo entre servidores.
+
+import br.com.wagnerv.model.Livro;                       // Os livros que vão pela rede.
+import br.com.wagnerv.persistencia.CodificadorLivro;     // Mesmo formato binário do diário e dos snapshots.
+
+import java.io.DataInputStream;  // Leitura dos quadros.
+import java.io.DataOutputStream; // Escrita dos quadros.
+import java.io.IOException;      // Erros de rede.
+import java.nio.ByteBuffer;      // Para decodificar o livro.
+
+/**
+ * O protocolo (binário, sobre TCP) entre o primário e as réplicas.
+ *
+ * A réplica abre a conexão e se apresenta:
+ * <pre>
+ * int MAGICA | int VERSAO | long época | long última sequência que ela já tem (0 = nenhuma)
+ * </pre>
+ * Daí em diante só o primário fala, em "quadros" que começam com um byte de tipo:
+ * <pre>
+ * 'O' long época                      resposta à apresentação (a época do primário)
+ * 'S' long sequência                  início do catálogo completo (vale até essa sequência)
+ * 'C' int n, n × livro                um bloco do catálogo completo
+ * 'F'                                 fim do catálogo completo (apague o que não veio)
+ * 'E' long última do primário, int n, n × alteração
+ * </pre>
+ * onde "livro" é {@code int tamanho | bytes do CodificadorLivro} e "alteração" é
+ * {@code byte tipo | long sequência | (livro, se adição | int id, se remoção)}.
+ *
+ * O primário não espera resposta entre um lote e outro ("pipeline"): vai mandando enquanto houver
+ * alteração. Sem novidades, manda de tempos em tempos um 'E' vazio, que serve de sinal de vida.
+ */
+final class ProtocoloReplicacao {
+
+    static final int MAGICA = 0x42494252; // "BIBR"
+    static final int VERSAO = 1;
+
+    static final byte OLA = 'O';
+    static final byte CATALOGO_INICIO = 'S';
+    static final byte CATALOGO_BLOCO = 'C';
+    static final byte CATALOGO_FIM = 'F';
+    static final byte ALTERACOES = 'E';
+
+    // Sem alterações, o primário manda um sinal de vida a cada...
+    static final int SINAL_DE_VIDA_MS = 5_000;
+    // Sem receber nada por esse tempo, a réplica considera a conexão perdida e reconecta.
+    static final int SILENCIO_MAXIMO_MS = 3 * SINAL_DE_VIDA_MS;
+
+    // Maior livro aceito num quadro (protege a réplica de um quadro corrompido).
+    private static final int TAMANHO_MAXIMO_LIVRO = 1 << 20;
+
+    private ProtocoloReplicacao() {
+        // Só constantes e métodos estáticos.
+    }
+
+    static void escreverLivro(DataOutputStream saida, Livro livro) throws IOException {
+        byte[] bytes = CodificadorLivro.codificar(livro);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    static Livro lerLivro(DataInputStream entrada) throws IOException {
+        int tamanho = entrada.readInt();
+        if (tamanho < 0 || tamanho > TAMANHO_MAXIMO_LIVRO) {
+            throw new IOException("Livro com tamanho inválido no fluxo de replicação: " + tamanho);
+        }
+        byte[] bytes = new byte[tamanho];
+        entrada.readFully(bytes);
+        try {
+            return CodificadorLivro.ler(ByteBuffer.wrap(bytes));
+        } catch (RuntimeException e) {
+            throw new IOException("Livro inválido no fluxo de replicação.", e);
+        }
+    }
+}
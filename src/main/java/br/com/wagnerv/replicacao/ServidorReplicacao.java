@@ -0,0 +1,218 @@
+package br.com.wagnerv.replicacao; // Pacote da replicação do catálogo entre servidores.
+
+import br.com.wagnerv.model.Livro;                   // Os livros enviados no catálogo completo.
+import br.com.wagnerv.repository.CatalogoSnapshot;   // Fotografia do catálogo para o envio completo.
+import br.com.wagnerv.repository.LivroRepository;    // O catálogo do primário.
+
+import java.io.BufferedInputStream;    // Leitura da apresentação da réplica.
+import java.io.BufferedOutputStream;   // Junta vários quadros num só envio pela rede.
+import java.io.Closeable;              // Precisa ser fechado ao desligar a aplicação.
+import java.io.DataInputStream;        // Leitura de int/long.
+import java.io.DataOutputStream;       // Escrita de int/long/bytes.
+import java.io.IOException;            // Erros de rede.
+import java.net.InetSocketAddress;     // Endereço onde o primário escuta.
+import java.net.ServerSocket;          // Recebe as conexões das réplicas.
+import java.net.Socket;                // Uma conexão com uma réplica.
+import java.net.SocketException;       // Socket fechado ao desligar.
+import java.util.Set;                  // Conexões abertas.
+import java.util.concurrent.ConcurrentHashMap; // Conjunto de conexões usado por várias threads.
+import java.util.concurrent.TimeUnit;  // Unidades de tempo da espera por alterações.
+
+/**
+ * Lado do primário: escuta numa porta TCP e envia o feed de alterações para cada réplica conectada.
+ *
+ * Cada réplica tem a sua thread de envio, que:
+ * 1. lê a apresentação (época e última sequência que a réplica já tem);
+ * 2. se o histórico do {@link FeedAlteracoes} cobre o que falta, manda só as alterações seguintes;
+ *    senão, manda o catálogo inteiro primeiro;
+ * 3. fica mandando os lotes de alterações conforme elas acontecem, sem esperar resposta.
+ *
+ * Uma réplica lenta não atrasa as outras nem o primário: quem espera é só a thread dela. Se ela
+ * ficar tão para trás que o histórico já não cobre, recebe o catálogo inteiro de novo.
+ */
+public class ServidorReplicacao implements Closeable {
+
+    // Máximo de alterações por quadro 'E'.
+    private static final int LOTE = 1024;
+    // Livros por quadro 'C' no envio do catálogo completo.
+    private static final int BLOCO_CATALOGO = 1000;
+
+    private final FeedAlteracoes feed;
+    private final LivroRepository livros;
+    private final ServerSocket servidor;
+    private final Thread aceitador;
+    private final Set<Socket> conexoes = ConcurrentHashMap.newKeySet();
+    private volatile boolean ativo = true;
+
+    /**
+     * Começa a escutar na porta e a aceitar réplicas.
+     *
+     * @param porta  A porta TCP.
+     * @param feed   O feed de alterações do catálogo.
+     * @param livros O catálogo (para o envio completo).
+     * @throws IOException Se não der para escutar na porta.
+     */
+    public ServidorReplicacao(int porta, FeedAlteracoes feed, LivroRepository livros) throws IOException {
+        this.feed = feed;
+        this.livros = livros;
+        this.servidor = new ServerSocket();
+        this.servidor.setReuseAddress(true);
+        this.servidor.bind(new InetSocketAddress(porta));
+        this.aceitador = new Thread(this::aceitar, "replicacao-aceitar-" + porta);
+        this.aceitador.setDaemon(true);
+        this.aceitador.start();
+    }
+
+    /**
+     * @return Quantas réplicas estão conectadas agora.
+     */
+    public int getReplicasConectadas() {
+        return conexoes.size();
+    }
+
+    private void aceitar() {
+        while (ativo) {
+            try {
+                Socket conexao = servidor.accept();
+                conexao.setTcpNoDelay(true); // Quadros pequenos (uma inclusão) não esperam juntar mais dados.
+                conexao.setKeepAlive(true);
+                conexoes.add(conexao);
+                Thread envio = new Thread(() -> atender(conexao), "replicacao-envio-" + conexao.getRemoteSocketAddress());
+                envio.setDaemon(true);
+                envio.start();
+            } catch (IOException e) {
+                if (ativo) {
+                    System.err.println("Erro aceitando conexão de réplica: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void atender(Socket conexao) {
+        try (Socket fechar = conexao) {
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(fechar.getInputStream()));
+            DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(fechar.getOutputStream(), 1 << 16));
+
+            if (entrada.readInt() != ProtocoloReplicacao.MAGICA || entrada.readInt() != ProtocoloReplicacao.VERSAO) {
+                System.err.println("Conexão de replicação recusada (protocolo desconhecido): "
+                        + conexao.getRemoteSocketAddress());
+                return;
+            }
+            long epocaReplica = entrada.readLong();
+            long sequenciaReplica = entrada.readLong();
+            fechar.shutdownInput(); // A réplica não manda mais nada.
+
+            saida.writeByte(ProtocoloReplicacao.OLA);
+            saida.writeLong(feed.getEpoca());
+            long desde = epocaReplica == feed.getEpoca() && feed.disponivelDesde(sequenciaReplica)
+                    ? sequenciaReplica
+                    : enviarCatalogo(saida);
+            saida.flush();
+            enviarAlteracoes(saida, desde);
+        } catch (SocketException e) {
+            // Réplica desligada ou rede caiu: ela reconecta e pede a partir de onde parou.
+        } catch (IOException e) {
+            if (ativo) {
+                System.err.println("Conexão de replicação com " + conexao.getRemoteSocketAddress()
+                        + " encerrada: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            conexoes.remove(conexao);
+        }
+    }
+
+    /**
+     * Manda o catálogo inteiro.
+     *
+     * @return A sequência a partir da qual as alterações devem continuar.
+     */
+    private long enviarCatalogo(DataOutputStream saida) throws IOException {
+        // A sequência é lida ANTES da fotografia: a fotografia pode já conter alterações seguintes a
+        // ela, que a réplica vai receber de novo. Sem problema: aplicar uma inclusão ou exclusão
+        // repetida, na ordem, dá no mesmo resultado.
+        long base = feed.getUltimaSequencia();
+        CatalogoSnapshot snapshot = livros.snapshot();
+        saida.writeByte(ProtocoloReplicacao.CATALOGO_INICIO);
+        saida.writeLong(base);
+        Livro[] bloco = new Livro[BLOCO_CATALOGO];
+        int quantidade = 0;
+        for (Livro livro : snapshot) {
+            bloco[quantidade++] = livro;
+            if (quantidade == bloco.length) {
+                enviarBloco(saida, bloco, quantidade);
+                quantidade = 0;
+            }
+        }
+        enviarBloco(saida, bloco, quantidade);
+        saida.writeByte(ProtocoloReplicacao.CATALOGO_FIM);
+        return base;
+    }
+
+    private static void enviarBloco(DataOutputStream saida, Livro[] bloco, int quantidade) throws IOException {
+        if (quantidade == 0) {
+            return;
+        }
+        saida.writeByte(ProtocoloReplicacao.CATALOGO_BLOCO);
+        saida.writeInt(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            ProtocoloReplicacao.escreverLivro(saida, bloco[i]);
+        }
+    }
+
+    // Laço de envio: manda o que houver de novo; sem novidade por um tempo, manda um sinal de vida.
+    private void enviarAlteracoes(DataOutputStream saida, long desde) throws IOException, InterruptedException {
+        Alteracao[] lote = new Alteracao[LOTE];
+        while (ativo) {
+            int quantidade = feed.copiar(desde, lote, ProtocoloReplicacao.SINAL_DE_VIDA_MS, TimeUnit.MILLISECONDS);
+            if (quantidade < 0) {
+                // A réplica ficou para trás além do histórico: recomeça pelo catálogo completo.
+                desde = enviarCatalogo(saida);
+                saida.flush();
+                continue;
+            }
+            saida.writeByte(ProtocoloReplicacao.ALTERACOES);
+            saida.writeLong(feed.getUltimaSequencia());
+            saida.writeInt(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                Alteracao alteracao = lote[i];
+                saida.writeByte(alteracao.tipo);
+                saida.writeLong(alteracao.sequencia);
+                if (alteracao.tipo == Alteracao.ADICAO) {
+                    ProtocoloReplicacao.escreverLivro(saida, alteracao.livro);
+                } else {
+                    saida.writeInt(alteracao.id);
+                }
+                lote[i] = null;
+            }
+            desde += quantidade; // As sequências são seguidas: o lote vai de desde+1 a desde+quantidade.
+            // Lote cheio: provavelmente há mais na fila, então continua escrevendo (o buffer vai
+            // para a rede sozinho quando enche). Senão, a réplica está em dia: envia já.
+            if (quantidade < lote.length) {
+                saida.flush();
+            }
+        }
+    }
+
+    /**
+     * Para de aceitar réplicas e fecha as conexões abertas.
+     */
+    @Override
+    public void close() throws IOException {
+        ativo = false;
+        servidor.close();
+        for (Socket conexao : conexoes) {
+            try {
+                conexao.close();
+            } catch (IOException e) {
+                // Já estamos fechando; nada a fazer.
+            }
+        }
+        try {
+            aceitador.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
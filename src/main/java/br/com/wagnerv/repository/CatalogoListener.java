@@ -0,0 +1,56 @@
+package br.com.wagnerv.repository; // Pacote do "acervo" da biblioteca.
+
+import br.com.wagnerv.model.Livro; // O livro que entrou ou saiu do catálogo.
+
+import java.util.List; // Os livros de uma exclusão em lote.
+
+/**
+ * "Ouvinte" das alterações do catálogo.
+ *
+ * Estruturas que dependem do conteúdo do catálogo (caches, índices...) se registram com
+ * {@link LivroRepository#adicionarListener(CatalogoListener)} e são avisadas a cada inclusão
+ * e exclusão, em vez de varrer o catálogo de novo.
+ *
+ * Os avisos chegam com o lock de escrita do repositório, um de cada vez e na mesma ordem
+ * das alterações. Por isso a implementação precisa ser rápida e não pode lançar exceções
+ * (a alteração já aconteceu). Quem precisa recusar uma alteração faz isso antes, em
+ * {@link #antesDeAlterar()}.
+ */
+public interface CatalogoListener {
+
+    /**
+     * Chamado com o lock de escrita, antes de qualquer inclusão ou exclusão. Lançar uma exceção
+     * (não checada) recusa a alteração: ela chega a quem chamou o repositório e o catálogo fica
+     * como estava. O padrão é não fazer nada.
+     */
+    default void antesDeAlterar() {
+    }
+
+    /**
+     * Chamado logo depois que um livro entra no catálogo.
+     *
+     * @param livro O livro adicionado.
+     */
+    void aoAdicionar(Livro livro);
+
+    /**
+     * Chamado logo depois que um livro sai do catálogo.
+     *
+     * @param livro O livro removido.
+     */
+    void aoRemover(Livro livro);
+
+    /**
+     * Chamado logo depois que vários livros saem do catálogo numa única escrita
+     * ({@link LivroRepository#removerTodos}). O padrão é avisar um por um, pelo
+     * {@link #aoRemover(Livro)}; quem precisa tratar o lote como uma coisa só (o diário, que o
+     * grava num único registro) sobrescreve.
+     *
+     * @param livros Os livros removidos, na ordem em que saíram.
+     */
+    default void aoRemoverTodos(List<Livro> livros) {
+        for (Livro livro : livros) {
+            aoRemover(livro);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.wagnerv.repository; // Pacote que guarda o "acervo" da biblioteca.
+// 'repository' é onde ficam as classes responsáveis por armazenar e recuperar os livros,
+// escondendo do resto do sistema COMO eles estão guardados.
+
+import br.com.wagnerv.model.Livro; // O modelo que o snapshot entrega para quem lê.
+
+import java.util.List; // Usado para devolver uma página de livros.
+
+/**
+ * Uma "fotografia" imutável do catálogo em um instante do tempo.
+ *
+ * Quem lê o catálogo (por exemplo, a geração do HTML da listagem) pega um snapshot e
+ * percorre ele com calma: inclusões e exclusões feitas depois disso por outras requisições
+ * não aparecem nem somem "no meio" da leitura, e a leitura nunca precisa esperar por um lock.
+ *
+ * A ordem de iteração é sempre a ordem de inserção dos livros no catálogo.
+ */
+public interface CatalogoSnapshot extends Iterable<Livro> {
+
+    /**
+     * @return Quantos livros existem nesta fotografia.
+     */
+    int tamanho();
+
+    /**
+     * Número que cresce a cada alteração do catálogo. Duas fotografias com a mesma
+     * versão têm exatamente o mesmo conteúdo.
+     *
+     * @return A versão do catálogo no momento em que a fotografia foi tirada.
+     */
+    long versao();
+
+    /**
+     * Devolve um "pedaço" da fotografia, na ordem de inserção.
+     *
+     * @param inicio Quantos livros pular a partir do começo (0 = primeiro livro).
+     * @param limite Quantos livros devolver no máximo.
+     * @return Uma lista imutável com no máximo {@code limite} livros.
+     */
+    List<Livro> pagina(int inicio, int limite);
+}
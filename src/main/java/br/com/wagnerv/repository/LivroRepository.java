@@ -0,0 +1,126 @@
+package br.com.wagnerv.repository; // Pacote do "acervo" da biblioteca.
+
+import br.com.wagnerv.exception.LivroException; // Motivo da recusa de uma regra de inclusão.
+import br.com.wagnerv.model.Livro;              // O modelo que o repositório armazena.
+
+import java.util.Collection;           // Para receber vários livros de uma vez.
+import java.util.function.BiConsumer; // Avisado de cada livro recusado por uma regra.
+import java.util.function.Supplier;   // Seleção dos livros a excluir, feita com o lock.
+
+/**
+ * Contrato do catálogo de livros da biblioteca.
+ *
+ * O Servlet (e qualquer outra parte do sistema) conversa só com esta interface, sem saber
+ * se os livros estão numa lista, num mapa ou em outro lugar. Assim dá pra trocar a forma de
+ * armazenamento sem mexer no controlador.
+ *
+ * Toda implementação precisa ser thread-safe: várias requisições chegam ao mesmo tempo.
+ *
+ * Qualquer inclusão ou exclusão pode ser recusada por um ouvinte antes de acontecer (veja
+ * {@link CatalogoListener#antesDeAlterar()}): a exceção dele chega a quem chamou, e o catálogo
+ * fica como estava. É o que acontece quando o diário em disco falhou.
+ */
+public interface LivroRepository {
+
+    /**
+     * Adiciona um livro ao final do catálogo.
+     *
+     * @param livro O livro a ser guardado (o ID já vem preenchido pelo próprio Livro).
+     * @return {@code true} se o livro entrou; {@code false} se já existia um livro com o mesmo ID.
+     */
+    boolean adicionar(Livro livro);
+
+    /**
+     * Adiciona vários livros de uma vez, com uma única aquisição do lock de escrita e uma única
+     * publicação de snapshot. Bem mais barato do que chamar {@link #adicionar(Livro)} em loop
+     * quando são milhares de livros (carga do disco, importação em lote...).
+     *
+     * @param livros Os livros, na ordem em que devem entrar.
+     * @return Quantos livros entraram (os que tinham ID repetido ficam de fora).
+     */
+    int adicionarTodos(Collection<Livro> livros);
+
+    /**
+     * Como {@link #adicionar(Livro)}, mas antes a regra confere o livro, já com o lock de escrita:
+     * entre a conferência e a inclusão ninguém mais altera o catálogo (ex: dois cadastros iguais
+     * ao mesmo tempo não passam juntos pela conferência de repetidos).
+     *
+     * @param livro O livro a ser guardado.
+     * @param regra A conferência (roda com o lock).
+     * @return {@code true} se o livro entrou; {@code false} se já existia um livro com o mesmo ID.
+     * @throws LivroException O motivo da regra para recusar o livro (que não entra).
+     */
+    boolean adicionar(Livro livro, RegraInclusao regra) throws LivroException;
+
+    /**
+     * Como {@link #adicionarTodos(Collection)}, mas cada livro passa pela regra antes, tudo com uma
+     * única aquisição do lock. Os livros recusados não impedem os outros: cada recusa é informada
+     * com a posição do livro na coleção. A regra também vê os livros aceitos antes no mesmo lote.
+     *
+     * @param livros    Os livros, na ordem em que devem entrar.
+     * @param regra     A conferência (roda com o lock, uma vez por livro).
+     * @param recusados Recebe a posição (a partir de 0) e o motivo de cada livro recusado.
+     * @return Quantos livros entraram.
+     */
+    int adicionarTodos(Collection<Livro> livros, RegraInclusao regra, BiConsumer<Integer, LivroException> recusados);
+
+    /**
+     * Remove o livro com o ID informado.
+     *
+     * @param id O ID do livro.
+     * @return {@code true} se algum livro foi removido.
+     */
+    boolean remover(int id);
+
+    /**
+     * Remove vários livros de uma vez, com uma única aquisição do lock de escrita e uma única
+     * publicação de snapshot: quem lê vê ou o catálogo de antes, ou o de depois de todas as
+     * exclusões, nunca um meio-termo. Bem mais barato do que chamar {@link #remover(int)} em loop
+     * quando são milhares de livros (descarte de uma coleção inteira, por exemplo). Os ouvintes
+     * recebem o lote inteiro num único {@link CatalogoListener#aoRemoverTodos}.
+     *
+     * @param ids Os IDs dos livros (IDs que não existem, ou repetidos, são ignorados).
+     * @return Quantos livros foram removidos.
+     */
+    int removerTodos(Collection<Integer> ids);
+
+    /**
+     * Como {@link #removerTodos(Collection)}, mas a lista de IDs é montada já com o lock de
+     * escrita: nenhum livro entra ou sai entre a escolha e a exclusão. Serve para excluir "tudo o
+     * que casa com um filtro" consultando um índice mantido por {@link CatalogoListener} (que,
+     * com o lock, está exatamente em dia com o catálogo).
+     *
+     * @param selecao Monta os IDs a excluir (roda com o lock: precisa ser rápida e não pode
+     *                alterar o catálogo).
+     * @return Quantos livros foram removidos.
+     */
+    int removerSelecionados(Supplier<? extends Collection<Integer>> selecao);
+
+    /**
+     * Procura um livro pelo ID, sem percorrer o catálogo.
+     *
+     * @param id O ID do livro.
+     * @return O livro encontrado ou {@code null} se não existir.
+     */
+    Livro buscarPorId(int id);
+
+    /**
+     * Tira uma "fotografia" consistente do catálogo para leitura.
+     * Nunca bloqueia e nunca é bloqueado por quem está escrevendo.
+     *
+     * @return O snapshot atual do catálogo.
+     */
+    CatalogoSnapshot snapshot();
+
+    /**
+     * @return Quantos livros existem no catálogo neste momento.
+     */
+    int tamanho();
+
+    /**
+     * Registra um "ouvinte" que será avisado de cada inclusão e exclusão daqui pra frente.
+     *
+     * @param listener O ouvinte.
+     */
+    void adicionarListener(CatalogoListener listener);
+}
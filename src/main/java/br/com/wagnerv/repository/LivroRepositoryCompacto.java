@@ -0,0 +1,698 @@
+package br.com.wagnerv.repository; // Pacote do "acervo" da biblioteca.
+
+import br.com.wagnerv.exception.LivroException; // Motivo da recusa de uma regra de inclusão.
+import br.com.wagnerv.model.Livro;              // O modelo que o repositório entrega (montado na hora).
+
+import java.nio.charset.StandardCharsets;           // Os títulos ficam guardados em UTF-8.
+import java.util.ArrayList;                         // Para montar páginas de livros.
+import java.util.Arrays;                            // Para copiar e crescer arrays.
+import java.util.Collection;                        // Para receber vários livros de uma vez.
+import java.util.Collections;                       // Para devolver listas imutáveis.
+import java.util.Iterator;                          // Para percorrer um snapshot.
+import java.util.List;                              // Interface de lista.
+import java.util.NoSuchElementException;            // Lançada quando o iterador acaba.
+import java.util.concurrent.CopyOnWriteArrayList;   // Lista de ouvintes (quase nunca muda, é lida a cada escrita).
+import java.util.concurrent.locks.ReentrantLock;    // Lock que serializa apenas as escritas.
+import java.util.function.BiConsumer;               // Avisado de cada livro recusado por uma regra.
+import java.util.function.Supplier;                 // Seleção dos livros a excluir, feita com o lock.
+
+/**
+ * Implementação do {@link LivroRepository} que guarda o catálogo em "colunas" de tipos primitivos,
+ * em vez de um objeto {@link Livro} (com três Strings) por livro. Feita para catálogos de
+ * milhões de livros: ocupa uma fração da memória e quase não dá trabalho ao coletor de lixo.
+ *
+ * Como os dados ficam guardados, em blocos de {@value #TAMANHO_BLOCO} posições:
+ * - ID e ano: um {@code int[]} cada;
+ * - autor: o código do autor num dicionário sem repetições. Como título e autor são gravados
+ *   em maiúsculas, o mesmo autor aparece idêntico em milhares de livros e é guardado uma vez só;
+ * - ISBN: um {@code long[]}, já que os 13 dígitos cabem num long. ISBNs em outro formato (com
+ *   hífens, ISBN-10...) ficam como texto, à parte, para voltar exatamente como foram informados;
+ * - título: os bytes em UTF-8, um atrás do outro num {@code byte[]} do bloco, e um {@code int[]}
+ *   com onde cada título termina.
+ *
+ * Os objetos {@link Livro} que as leituras devolvem são montados na hora, a partir das colunas
+ * ({@link Livro#armazenado}), e jogados fora logo depois. São objetos de vida curtíssima, que o
+ * coletor de lixo recolhe quase de graça; o que pesa para ele são os milhões de objetos que
+ * ficam vivos para sempre, e esses deixam de existir.
+ *
+ * A concorrência segue o {@link LivroRepositoryMemoria}: leitores pegam uma {@link Fotografia}
+ * imutável publicada num campo 'volatile' (sem lock); escritas são serializadas por um
+ * {@link ReentrantLock}; incluir escreve em posições que nenhuma fotografia antiga enxerga e
+ * excluir copia só a coluna de IDs do bloco afetado. Os {@link CatalogoListener}s recebem o
+ * próprio livro incluído e, na exclusão, um livro montado a partir das colunas.
+ *
+ * Cuidado: dois livros lidos do catálogo com o mesmo ID não são o mesmo objeto (cada leitura
+ * monta o seu), e alterar um livro lido não altera o catálogo.
+ */
+public class LivroRepositoryCompacto implements LivroRepository {
+
+    // Quantas posições cada bloco tem (o mesmo tamanho do repositório de objetos, pelos mesmos motivos).
+    static final int TAMANHO_BLOCO = LivroRepositoryMemoria.TAMANHO_BLOCO;
+
+    // Espaço inicial para os títulos de um bloco (cresce dobrando quando precisa).
+    private static final int BYTES_TITULOS_INICIAL = TAMANHO_BLOCO * 24;
+
+    // ID de uma posição cujo livro foi excluído (IDs de livro são sempre positivos).
+    private static final int EXCLUIDO = Integer.MIN_VALUE;
+    // Código de "sem autor" no dicionário.
+    private static final int AUTOR_NULO = -1;
+    // Valores especiais da coluna de ISBN: sem ISBN, ou ISBN guardado como texto.
+    private static final long ISBN_NULO = -1;
+    private static final long ISBN_TEXTO = -2;
+
+    // Só quem escreve pega esse lock. Leitores nunca encostam nele.
+    private final ReentrantLock escrita = new ReentrantLock();
+
+    // Os campos abaixo só são usados com o lock de escrita.
+    private TabelaIds posicaoPorId = new TabelaIds(TAMANHO_BLOCO);
+    private DicionarioAutores autores = new DicionarioAutores(256);
+
+    // A fotografia mais recente do catálogo.
+    private volatile Fotografia atual = new Fotografia(new Bloco[0], 0, new int[0], 0, 0,
+            autores.textos, posicaoPorId);
+
+    // Quem quer ser avisado das alterações (caches, índices...).
+    private final List<CatalogoListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public boolean adicionar(Livro livro) {
+        return adicionarTodos(Collections.singletonList(livro)) == 1;
+    }
+
+    @Override
+    public int adicionarTodos(Collection<Livro> livros) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            Fotografia f = atual;
+            Bloco[] blocos = f.blocos;
+            int[] vivosPorBloco = f.vivosPorBloco;
+            int slot = f.slots;
+            List<Livro> adicionados = new ArrayList<>(livros.size());
+
+            for (Livro livro : livros) {
+                if (posicaoPorId.buscar(livro.getId()) >= 0) {
+                    continue; // Já existe um livro com esse ID: não duplicamos.
+                }
+                livro.reservarIsbn(); // Gera (ou reserva) o ISBN só agora que o livro entra de fato.
+                int b = slot / TAMANHO_BLOCO;
+                if (b == blocos.length) {
+                    blocos = Arrays.copyOf(blocos, Math.max(4, blocos.length * 2));
+                }
+                Bloco bloco = blocos[b] == null ? new Bloco(BYTES_TITULOS_INICIAL) : blocos[b];
+                String titulo = livro.getTitulo();
+                byte[] bytesTitulo = titulo == null ? null : titulo.getBytes(StandardCharsets.UTF_8);
+                Bloco gravado = bloco.gravar(slot % TAMANHO_BLOCO, livro.getId(), livro.getAno(),
+                        autores.codigo(livro.getAutor()), livro.getIsbn(),
+                        bytesTitulo, 0, bytesTitulo == null ? 0 : bytesTitulo.length);
+                if (gravado != blocos[b]) {
+                    // O bloco foi trocado (título não coube, primeiro ISBN em texto...). Se o diretório
+                    // ainda é o da fotografia publicada, trocamos numa cópia dele.
+                    if (blocos[b] != null && blocos == f.blocos) {
+                        blocos = blocos.clone();
+                    }
+                    blocos[b] = gravado;
+                }
+                if (vivosPorBloco == f.vivosPorBloco || vivosPorBloco.length < blocos.length) {
+                    vivosPorBloco = Arrays.copyOf(vivosPorBloco, blocos.length); // Copia uma vez só por lote.
+                }
+                vivosPorBloco[b]++;
+
+                posicaoPorId.colocar(livro.getId(), slot);
+                if (posicaoPorId.cheia()) {
+                    posicaoPorId = posicaoPorId.reconstruida();
+                }
+                adicionados.add(livro);
+                slot++;
+            }
+            if (adicionados.isEmpty()) {
+                return 0;
+            }
+            atual = new Fotografia(blocos, slot, vivosPorBloco, f.vivos + adicionados.size(), f.versao + 1,
+                    autores.textos, posicaoPorId);
+            for (Livro livro : adicionados) {
+                for (CatalogoListener listener : listeners) {
+                    listener.aoAdicionar(livro);
+                }
+            }
+            return adicionados.size();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public boolean adicionar(Livro livro, RegraInclusao regra) throws LivroException {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            if (buscarPorId(livro.getId()) != null) {
+                return false;
+            }
+            regra.verificar(livro);
+            return adicionarTodos(Collections.singletonList(livro)) == 1; // O lock é reentrante.
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public int adicionarTodos(Collection<Livro> livros, RegraInclusao regra,
+                              BiConsumer<Integer, LivroException> recusados) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            List<Livro> aceitos = new ArrayList<>(livros.size());
+            int posicao = 0;
+            for (Livro livro : livros) {
+                try {
+                    if (buscarPorId(livro.getId()) == null) {
+                        regra.verificar(livro);
+                        aceitos.add(livro);
+                    }
+                } catch (LivroException e) {
+                    recusados.accept(posicao, e);
+                }
+                posicao++;
+            }
+            return adicionarTodos(aceitos); // O lock é reentrante: adicionarTodos pega o mesmo lock de novo.
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public boolean remover(int id) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            int slot = posicaoPorId.buscar(id);
+            if (slot < 0) {
+                return false; // Nada pra remover.
+            }
+            posicaoPorId.remover(id);
+
+            Fotografia f = atual;
+            int b = slot / TAMANHO_BLOCO;
+            Livro removido = f.blocos[b].livro(slot % TAMANHO_BLOCO, f.autores); // Para avisar os ouvintes.
+
+            // Copy-on-write só da coluna de IDs do bloco afetado.
+            Bloco[] blocos = f.blocos.clone();
+            blocos[b] = f.blocos[b].semLivro(slot % TAMANHO_BLOCO);
+
+            int[] vivosPorBloco = f.vivosPorBloco.clone();
+            vivosPorBloco[b]--;
+
+            Fotografia nova = new Fotografia(blocos, f.slots, vivosPorBloco, f.vivos - 1, f.versao + 1,
+                    f.autores, posicaoPorId);
+            int buracos = nova.slots - nova.vivos;
+            if (buracos > TAMANHO_BLOCO && buracos > nova.vivos) {
+                nova = compactar(nova);
+            }
+            atual = nova;
+            removido.liberarIsbn(); // O ISBN pode voltar a ser usado.
+            for (CatalogoListener listener : listeners) {
+                listener.aoRemover(removido);
+            }
+            return true;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public int removerTodos(Collection<Integer> ids) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            Fotografia f = atual;
+            Bloco[] blocos = null;      // Copiados só no primeiro livro removido.
+            int[] vivosPorBloco = null;
+            List<Livro> removidos = new ArrayList<>();
+
+            for (Integer id : ids) {
+                int slot = id == null ? -1 : posicaoPorId.buscar(id);
+                if (slot < 0) {
+                    continue; // Não existe (ou já saiu neste mesmo lote).
+                }
+                posicaoPorId.remover(id);
+                int b = slot / TAMANHO_BLOCO;
+                int i = slot % TAMANHO_BLOCO;
+                removidos.add(f.blocos[b].livro(i, f.autores)); // Para avisar os ouvintes.
+                if (blocos == null) {
+                    blocos = f.blocos.clone();
+                    vivosPorBloco = f.vivosPorBloco.clone();
+                }
+                if (blocos[b] == f.blocos[b]) {
+                    blocos[b] = f.blocos[b].semLivro(i); // Copy-on-write da coluna de IDs, uma vez por bloco.
+                } else {
+                    blocos[b].ids[i] = EXCLUIDO; // Bloco já copiado neste lote: ninguém o enxerga ainda.
+                }
+                vivosPorBloco[b]--;
+            }
+            if (removidos.isEmpty()) {
+                return 0;
+            }
+
+            Fotografia nova = new Fotografia(blocos, f.slots, vivosPorBloco, f.vivos - removidos.size(), f.versao + 1,
+                    f.autores, posicaoPorId);
+            int buracos = nova.slots - nova.vivos;
+            if (buracos > TAMANHO_BLOCO && buracos > nova.vivos) {
+                nova = compactar(nova);
+            }
+            atual = nova;
+            for (Livro removido : removidos) {
+                removido.liberarIsbn();
+            }
+            for (CatalogoListener listener : listeners) {
+                listener.aoRemoverTodos(removidos); // O lote inteiro de uma vez (o diário grava um registro só).
+            }
+            return removidos.size();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public int removerSelecionados(Supplier<? extends Collection<Integer>> selecao) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            return removerTodos(selecao.get()); // O lock é reentrante: removerTodos pega o mesmo lock de novo.
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public Livro buscarPorId(int id) {
+        Fotografia f = atual;
+        // A tabela pode estar sendo alterada pelo escritor agora: a posição é conferida na fotografia.
+        // Se não bater, o livro está entrando ou saindo neste instante, e "não encontrado" é uma
+        // resposta tão correta quanto a outra.
+        int slot = f.posicaoPorId.buscar(id);
+        if (slot < 0 || slot >= f.slots) {
+            return null;
+        }
+        Bloco bloco = f.blocos[slot / TAMANHO_BLOCO];
+        int i = slot % TAMANHO_BLOCO;
+        return bloco.ids[i] == id ? bloco.livro(i, f.autores) : null;
+    }
+
+    @Override
+    public CatalogoSnapshot snapshot() {
+        return atual;
+    }
+
+    @Override
+    public int tamanho() {
+        return atual.vivos;
+    }
+
+    @Override
+    public void adicionarListener(CatalogoListener listener) {
+        listeners.add(listener);
+    }
+
+    // Com o lock de escrita, antes de mexer em qualquer coisa: um ouvinte pode recusar a alteração
+    // (o diário, quando o disco falhou), e aí o catálogo fica exatamente como estava.
+    private void antesDeAlterar() {
+        for (CatalogoListener listener : listeners) {
+            listener.antesDeAlterar();
+        }
+    }
+
+    /**
+     * Quanto o catálogo ocupa na memória, aproximadamente (colunas, títulos, dicionário de autores
+     * e tabela de IDs). Serve para acompanhar o ganho em relação ao repositório de objetos.
+     *
+     * @return O tamanho aproximado, em bytes.
+     */
+    public long bytesAproximados() {
+        Fotografia f = atual;
+        long total = f.posicaoPorId.bytes() + 4L * f.vivosPorBloco.length;
+        for (Bloco bloco : f.blocos) {
+            if (bloco != null) {
+                total += bloco.bytes();
+            }
+        }
+        for (String autor : f.autores) {
+            if (autor != null) {
+                total += 40 + autor.length(); // Objeto String + array (Latin-1: um byte por caractere).
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reescreve os blocos sem os buracos deixados pelas exclusões, mantendo a ordem de inserção.
+     * Aproveita para refazer o dicionário de autores só com os que ainda têm livros.
+     * Deve ser chamado com o lock de escrita.
+     */
+    private Fotografia compactar(Fotografia f) {
+        int quantidadeBlocos = Math.max(4, (f.vivos + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO);
+        Bloco[] blocos = new Bloco[quantidadeBlocos];
+        int[] vivosPorBloco = new int[quantidadeBlocos];
+        DicionarioAutores novosAutores = new DicionarioAutores(autores.quantidade);
+        int[] novoCodigo = new int[autores.quantidade];
+        Arrays.fill(novoCodigo, -2); // -2 = ainda não visto.
+        TabelaIds novaTabela = new TabelaIds(f.vivos + f.vivos / 2);
+        int slot = 0;
+        for (int s = 0; s < f.slots; s++) {
+            Bloco origem = f.blocos[s / TAMANHO_BLOCO];
+            int i = s % TAMANHO_BLOCO;
+            if (origem.ids[i] == EXCLUIDO) {
+                continue;
+            }
+            int autor = origem.autores[i];
+            if (autor != AUTOR_NULO) {
+                if (novoCodigo[autor] == -2) {
+                    novoCodigo[autor] = novosAutores.codigo(f.autores[autor]);
+                }
+                autor = novoCodigo[autor];
+            }
+            int b = slot / TAMANHO_BLOCO;
+            Bloco destino = blocos[b] == null ? new Bloco(origem.titulos.length) : blocos[b];
+            // Os bytes do título são copiados direto, sem virar String no meio do caminho.
+            int inicio = origem.inicioTitulo(i);
+            int fim = origem.fimTitulo[i];
+            long isbn = origem.isbns[i];
+            blocos[b] = destino.gravarColunas(slot % TAMANHO_BLOCO, origem.ids[i], origem.anos[i], autor, isbn,
+                    isbn == ISBN_TEXTO ? origem.isbnsTexto[i] : null,
+                    fim < 0 ? null : origem.titulos, inicio, fim < 0 ? 0 : fim - inicio);
+            vivosPorBloco[b]++;
+            novaTabela.colocar(origem.ids[i], slot);
+            slot++;
+        }
+        autores = novosAutores;
+        posicaoPorId = novaTabela;
+        return new Fotografia(blocos, slot, vivosPorBloco, f.vivos, f.versao, novosAutores.textos, novaTabela);
+    }
+
+    /**
+     * Transforma o ISBN em número quando ele é exatamente 13 dígitos (o formato que o
+     * {@code GeradorISBN} produz); qualquer outro formato fica como texto.
+     */
+    private static long isbnComoNumero(String isbn) {
+        if (isbn == null) {
+            return ISBN_NULO;
+        }
+        if (isbn.length() != 13) {
+            return ISBN_TEXTO;
+        }
+        long numero = 0;
+        for (int i = 0; i < 13; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return ISBN_TEXTO;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+
+    // O inverso de 'isbnComoNumero': 13 dígitos, com os zeros à esquerda.
+    private static String isbnComoTexto(long numero) {
+        char[] digitos = new char[13];
+        for (int i = 12; i >= 0; i--) {
+            digitos[i] = (char) ('0' + numero % 10);
+            numero /= 10;
+        }
+        return new String(digitos);
+    }
+
+    /**
+     * As colunas de até {@value #TAMANHO_BLOCO} livros.
+     *
+     * Os arrays são compartilhados entre versões do bloco (um bloco "trocado" reaproveita as
+     * colunas que não mudaram). Isso é seguro porque o escritor só escreve em posições que as
+     * fotografias já publicadas não enxergam, e a única coluna que muda em posições já publicadas
+     * (a de IDs, numa exclusão) é sempre copiada antes.
+     */
+    static final class Bloco {
+
+        final int[] ids;           // EXCLUIDO = posição de um livro excluído.
+        final int[] anos;
+        final int[] autores;       // Código no dicionário de autores (AUTOR_NULO = sem autor).
+        final long[] isbns;        // O ISBN como número, ou ISBN_NULO / ISBN_TEXTO.
+        final int[] fimTitulo;     // Onde o título termina em 'titulos'; negativo (~inicio) = título nulo.
+        final byte[] titulos;      // Os títulos em UTF-8, um atrás do outro.
+        final String[] isbnsTexto; // Só existe se algum ISBN do bloco não coube num long.
+
+        Bloco(int bytesTitulos) {
+            this(new int[TAMANHO_BLOCO], new int[TAMANHO_BLOCO], new int[TAMANHO_BLOCO], new long[TAMANHO_BLOCO],
+                    new int[TAMANHO_BLOCO], new byte[bytesTitulos], null);
+        }
+
+        private Bloco(int[] ids, int[] anos, int[] autores, long[] isbns, int[] fimTitulo, byte[] titulos,
+                      String[] isbnsTexto) {
+            this.ids = ids;
+            this.anos = anos;
+            this.autores = autores;
+            this.isbns = isbns;
+            this.fimTitulo = fimTitulo;
+            this.titulos = titulos;
+            this.isbnsTexto = isbnsTexto;
+        }
+
+        /**
+         * Grava um livro na posição {@code i} (que nenhuma fotografia publicada enxerga ainda).
+         *
+         * @return Este bloco, ou um bloco novo se alguma coluna precisou crescer.
+         */
+        Bloco gravar(int i, int id, int ano, int autor, String isbn, byte[] titulo, int inicio, int tamanho) {
+            long numero = isbnComoNumero(isbn);
+            return gravarColunas(i, id, ano, autor, numero, numero == ISBN_TEXTO ? isbn : null, titulo, inicio, tamanho);
+        }
+
+        // Como 'gravar', com o ISBN já separado em número/texto.
+        Bloco gravarColunas(int i, int id, int ano, int autor, long isbn, String isbnTexto,
+                            byte[] titulo, int inicio, int tamanho) {
+            int comeco = inicioTitulo(i);
+            Bloco b = this;
+            if (comeco + tamanho > titulos.length) {
+                b = new Bloco(ids, anos, autores, isbns, fimTitulo,
+                        Arrays.copyOf(titulos, Math.max(titulos.length * 2, comeco + tamanho)), isbnsTexto);
+            }
+            if (isbnTexto != null && b.isbnsTexto == null) {
+                b = new Bloco(b.ids, b.anos, b.autores, b.isbns, b.fimTitulo, b.titulos, new String[TAMANHO_BLOCO]);
+            }
+            if (titulo != null) {
+                System.arraycopy(titulo, inicio, b.titulos, comeco, tamanho);
+                b.fimTitulo[i] = comeco + tamanho;
+            } else {
+                b.fimTitulo[i] = ~comeco;
+            }
+            b.anos[i] = ano;
+            b.autores[i] = autor;
+            b.isbns[i] = isbn;
+            if (b.isbnsTexto != null) {
+                b.isbnsTexto[i] = isbnTexto;
+            }
+            b.ids[i] = id;
+            return b;
+        }
+
+        /**
+         * @return Um bloco igual a este, mas com a posição {@code i} vazia (só a coluna de IDs é copiada).
+         */
+        Bloco semLivro(int i) {
+            int[] novosIds = ids.clone();
+            novosIds[i] = EXCLUIDO;
+            return new Bloco(novosIds, anos, autores, isbns, fimTitulo, titulos, isbnsTexto);
+        }
+
+        // Onde começa o título da posição i (= onde termina o da anterior).
+        int inicioTitulo(int i) {
+            if (i == 0) {
+                return 0;
+            }
+            int fim = fimTitulo[i - 1];
+            return fim < 0 ? ~fim : fim;
+        }
+
+        /**
+         * @return O livro da posição {@code i}, montado a partir das colunas, ou {@code null} se foi excluído.
+         */
+        Livro livro(int i, String[] dicionario) {
+            int id = ids[i];
+            if (id == EXCLUIDO) {
+                return null;
+            }
+            int fim = fimTitulo[i];
+            String titulo = null;
+            if (fim >= 0) {
+                int inicio = inicioTitulo(i);
+                titulo = new String(titulos, inicio, fim - inicio, StandardCharsets.UTF_8);
+            }
+            int autor = autores[i];
+            long isbn = isbns[i];
+            return Livro.armazenado(id, titulo, autor == AUTOR_NULO ? null : dicionario[autor], anos[i],
+                    isbn == ISBN_NULO ? null : isbn == ISBN_TEXTO ? isbnsTexto[i] : isbnComoTexto(isbn));
+        }
+
+        long bytes() {
+            long total = TAMANHO_BLOCO * (4L + 4 + 4 + 8 + 4) + titulos.length;
+            if (isbnsTexto != null) {
+                total += 4L * TAMANHO_BLOCO;
+                for (String isbn : isbnsTexto) {
+                    if (isbn != null) {
+                        total += 40 + isbn.length();
+                    }
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Dicionário de autores: cada nome diferente ganha um código (a posição dele em {@link #textos}).
+     *
+     * Os leitores só usam o array {@link #textos} publicado na fotografia; o escritor só escreve
+     * depois da última posição usada e, quando o array enche, troca por uma cópia maior. A busca
+     * de nome para código (só do escritor) usa uma tabela de {@code int} com os códigos, sem
+     * objetos por entrada.
+     */
+    static final class DicionarioAutores {
+
+        String[] textos;   // Código -> nome.
+        int quantidade;    // Quantos códigos já foram dados.
+        private int[] tabela;      // Hash do nome -> código + 1 (0 = livre).
+
+        DicionarioAutores(int capacidade) {
+            textos = new String[Math.max(16, capacidade)];
+            tabela = new int[Integer.highestOneBit(Math.max(16, capacidade) * 2 - 1) << 1];
+        }
+
+        /**
+         * @return O código do autor (dando um novo, se for a primeira vez que ele aparece).
+         */
+        int codigo(String autor) {
+            if (autor == null) {
+                return AUTOR_NULO;
+            }
+            int mascara = tabela.length - 1;
+            int i = autor.hashCode() & mascara;
+            for (int c; (c = tabela[i]) != 0; i = (i + 1) & mascara) {
+                if (textos[c - 1].equals(autor)) {
+                    return c - 1;
+                }
+            }
+            int codigo = quantidade++;
+            if (codigo == textos.length) {
+                textos = Arrays.copyOf(textos, textos.length * 2);
+            }
+            textos[codigo] = autor;
+            tabela[i] = codigo + 1;
+            if (quantidade * 2 > tabela.length) {
+                refazerTabela();
+            }
+            return codigo;
+        }
+
+        private void refazerTabela() {
+            tabela = new int[tabela.length * 2];
+            int mascara = tabela.length - 1;
+            for (int codigo = 0; codigo < quantidade; codigo++) {
+                int i = textos[codigo].hashCode() & mascara;
+                while (tabela[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                tabela[i] = codigo + 1;
+            }
+        }
+    }
+
+    /**
+     * A fotografia imutável do catálogo. Os blocos podem ser compartilhados com fotografias
+     * mais novas, mas cada fotografia só lê as posições menores que o seu próprio 'slots'.
+     */
+    static final class Fotografia implements CatalogoSnapshot {
+
+        private final Bloco[] blocos;
+        private final int slots;            // Quantas posições já foram usadas (vivas + buracos).
+        private final int[] vivosPorBloco;  // Quantos livros vivos há em cada bloco (para paginar sem varrer).
+        private final int vivos;            // Total de livros vivos.
+        private final long versao;          // Versão do catálogo.
+        private final String[] autores;     // O dicionário de autores no momento da publicação.
+        private final TabelaIds posicaoPorId; // A tabela de IDs em uso no momento da publicação.
+
+        Fotografia(Bloco[] blocos, int slots, int[] vivosPorBloco, int vivos, long versao, String[] autores,
+                   TabelaIds posicaoPorId) {
+            this.blocos = blocos;
+            this.slots = slots;
+            this.vivosPorBloco = vivosPorBloco;
+            this.vivos = vivos;
+            this.versao = versao;
+            this.autores = autores;
+            this.posicaoPorId = posicaoPorId;
+        }
+
+        @Override
+        public int tamanho() {
+            return vivos;
+        }
+
+        @Override
+        public long versao() {
+            return versao;
+        }
+
+        @Override
+        public List<Livro> pagina(int inicio, int limite) {
+            if (inicio < 0 || limite <= 0 || inicio >= vivos) {
+                return Collections.emptyList();
+            }
+            List<Livro> pagina = new ArrayList<>(Math.min(limite, vivos - inicio));
+            int pular = inicio;
+            int b = 0;
+            // Pula blocos inteiros usando o contador de vivos, sem olhar livro por livro.
+            while (b < vivosPorBloco.length && vivosPorBloco[b] <= pular) {
+                pular -= vivosPorBloco[b];
+                b++;
+            }
+            for (int slot = b * TAMANHO_BLOCO; slot < slots && pagina.size() < limite; slot++) {
+                Bloco bloco = blocos[slot / TAMANHO_BLOCO];
+                int i = slot % TAMANHO_BLOCO;
+                if (bloco.ids[i] == EXCLUIDO) {
+                    continue;
+                }
+                if (pular > 0) {
+                    pular--;
+                } else {
+                    pagina.add(bloco.livro(i, autores)); // Só os livros da página são montados.
+                }
+            }
+            return Collections.unmodifiableList(pagina);
+        }
+
+        @Override
+        public Iterator<Livro> iterator() {
+            return new Iterator<Livro>() {
+                private int slot = avancar(0); // Próxima posição com livro.
+
+                private int avancar(int s) {
+                    while (s < slots && blocos[s / TAMANHO_BLOCO].ids[s % TAMANHO_BLOCO] == EXCLUIDO) {
+                        s++;
+                    }
+                    return s;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return slot < slots;
+                }
+
+                @Override
+                public Livro next() {
+                    if (slot >= slots) {
+                        throw new NoSuchElementException();
+                    }
+                    Livro livro = blocos[slot / TAMANHO_BLOCO].livro(slot % TAMANHO_BLOCO, autores);
+                    slot = avancar(slot + 1);
+                    return livro;
+                }
+            };
+        }
+    }
+}
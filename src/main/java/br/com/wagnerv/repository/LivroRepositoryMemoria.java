@@ -0,0 +1,391 @@
+package br.com.wagnerv.repository; // Pacote do "acervo" da biblioteca.
+
+import br.com.wagnerv.exception.LivroException; // Motivo da recusa de uma regra de inclusão.
+import br.com.wagnerv.model.Livro;              // O modelo que o repositório armazena.
+
+import java.util.ArrayList;                         // Para montar páginas de livros.
+import java.util.Arrays;                            // Para copiar e crescer arrays.
+import java.util.Collection;                        // Para receber vários livros de uma vez.
+import java.util.Collections;                       // Para devolver listas imutáveis.
+import java.util.HashMap;                           // Mapa ID -> posição (só usado por quem escreve).
+import java.util.Iterator;                          // Para percorrer um snapshot.
+import java.util.List;                              // Interface de lista.
+import java.util.NoSuchElementException;            // Lançada quando o iterador acaba.
+import java.util.concurrent.ConcurrentHashMap;      // Mapa ID -> Livro para consultas sem lock.
+import java.util.concurrent.CopyOnWriteArrayList;   // Lista de ouvintes (quase nunca muda, é lida a cada escrita).
+import java.util.concurrent.locks.ReentrantLock;    // Lock que serializa apenas as escritas.
+import java.util.function.BiConsumer;               // Avisado de cada livro recusado por uma regra.
+import java.util.function.Supplier;                 // Seleção dos livros a excluir, feita com o lock.
+
+/**
+ * Implementação em memória do {@link LivroRepository}.
+ *
+ * Como funciona por dentro:
+ * - Os livros ficam em "blocos" de {@value #TAMANHO_BLOCO} posições, na ordem de inserção.
+ *   Cada leitura trabalha sobre uma {@link Fotografia} imutável desses blocos, publicada
+ *   num campo 'volatile'. Ler é só pegar a referência: não existe lock na leitura.
+ * - Escritas (adicionar/remover) são serializadas por um {@link ReentrantLock}. Adicionar escreve
+ *   numa posição que nenhuma fotografia antiga enxerga; remover copia só o bloco afetado
+ *   (copy-on-write), então as fotografias antigas continuam intactas.
+ * - Um mapa ID -> posição permite excluir em O(1), sem o 'removeIf' que varria a lista toda.
+ * - Quando os "buracos" deixados pelas exclusões passam da quantidade de livros vivos,
+ *   os blocos são compactados de uma vez (custo amortizado constante por exclusão).
+ * - Os {@link CatalogoListener}s são avisados ainda com o lock de escrita, logo após a publicação
+ *   da nova fotografia, então enxergam as alterações exatamente na ordem em que aconteceram.
+ */
+public class LivroRepositoryMemoria implements LivroRepository {
+
+    // Quantas posições cada bloco tem. Excluir copia um bloco inteiro, então ele não pode ser grande demais;
+    // a fotografia guarda um contador por bloco, então ele também não pode ser pequeno demais.
+    static final int TAMANHO_BLOCO = 1024;
+
+    // Só quem escreve pega esse lock. Leitores nunca encostam nele.
+    private final ReentrantLock escrita = new ReentrantLock();
+
+    // Consulta por ID sem lock e sem varrer o catálogo.
+    private final ConcurrentHashMap<Integer, Livro> porId = new ConcurrentHashMap<>();
+
+    // Em qual posição (slot) de qual bloco cada livro está. Só é acessado com o lock de escrita.
+    private final HashMap<Integer, Integer> posicaoPorId = new HashMap<>();
+
+    // A fotografia mais recente do catálogo. 'volatile' garante que quem lê enxerga tudo o que foi escrito antes da publicação.
+    private volatile Fotografia atual = Fotografia.VAZIA;
+
+    // Quem quer ser avisado das alterações (caches, índices...).
+    private final List<CatalogoListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public boolean adicionar(Livro livro) {
+        return adicionarTodos(Collections.singletonList(livro)) == 1;
+    }
+
+    @Override
+    public int adicionarTodos(Collection<Livro> livros) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            Fotografia f = atual;
+            Livro[][] blocos = f.blocos;
+            int[] vivosPorBloco = f.vivosPorBloco;
+            int slot = f.slots;
+            List<Livro> adicionados = new ArrayList<>(livros.size());
+
+            for (Livro livro : livros) {
+                if (porId.containsKey(livro.getId())) {
+                    continue; // Já existe um livro com esse ID: não duplicamos.
+                }
+                livro.reservarIsbn(); // Gera (ou reserva) o ISBN só agora que o livro entra de fato.
+                int b = slot / TAMANHO_BLOCO;
+                // Se o "diretório" de blocos encheu, criamos um maior (as fotografias antigas ficam com o antigo).
+                if (b == blocos.length) {
+                    blocos = Arrays.copyOf(blocos, Math.max(4, blocos.length * 2));
+                }
+                if (blocos[b] == null) {
+                    blocos[b] = new Livro[TAMANHO_BLOCO];
+                }
+                // Escrever "depois do fim" é seguro: nenhuma fotografia já publicada lê essa posição.
+                blocos[b][slot % TAMANHO_BLOCO] = livro;
+                if (vivosPorBloco == f.vivosPorBloco || vivosPorBloco.length < blocos.length) {
+                    vivosPorBloco = Arrays.copyOf(vivosPorBloco, blocos.length); // Copia uma vez só por lote.
+                }
+                vivosPorBloco[b]++;
+
+                posicaoPorId.put(livro.getId(), slot);
+                porId.put(livro.getId(), livro);
+                adicionados.add(livro);
+                slot++;
+            }
+            if (adicionados.isEmpty()) {
+                return 0;
+            }
+            atual = new Fotografia(blocos, slot, vivosPorBloco, f.vivos + adicionados.size(), f.versao + 1);
+            for (Livro livro : adicionados) {
+                for (CatalogoListener listener : listeners) {
+                    listener.aoAdicionar(livro);
+                }
+            }
+            return adicionados.size();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public boolean adicionar(Livro livro, RegraInclusao regra) throws LivroException {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            if (buscarPorId(livro.getId()) != null) {
+                return false;
+            }
+            regra.verificar(livro);
+            return adicionarTodos(Collections.singletonList(livro)) == 1; // O lock é reentrante.
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public int adicionarTodos(Collection<Livro> livros, RegraInclusao regra,
+                              BiConsumer<Integer, LivroException> recusados) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            List<Livro> aceitos = new ArrayList<>(livros.size());
+            int posicao = 0;
+            for (Livro livro : livros) {
+                try {
+                    if (buscarPorId(livro.getId()) == null) {
+                        regra.verificar(livro);
+                        aceitos.add(livro);
+                    }
+                } catch (LivroException e) {
+                    recusados.accept(posicao, e);
+                }
+                posicao++;
+            }
+            return adicionarTodos(aceitos); // O lock é reentrante: adicionarTodos pega o mesmo lock de novo.
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public boolean remover(int id) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            Integer slot = posicaoPorId.remove(id);
+            if (slot == null) {
+                return false; // Nada pra remover.
+            }
+            Livro removido = porId.remove(id);
+
+            Fotografia f = atual;
+            int b = slot / TAMANHO_BLOCO;
+
+            // Copy-on-write só do bloco afetado: quem está lendo a fotografia antiga não percebe nada.
+            Livro[][] blocos = f.blocos.clone();
+            Livro[] bloco = blocos[b].clone();
+            bloco[slot % TAMANHO_BLOCO] = null;
+            blocos[b] = bloco;
+
+            int[] vivosPorBloco = f.vivosPorBloco.clone();
+            vivosPorBloco[b]--;
+
+            Fotografia nova = new Fotografia(blocos, f.slots, vivosPorBloco, f.vivos - 1, f.versao + 1);
+            int buracos = nova.slots - nova.vivos;
+            if (buracos > TAMANHO_BLOCO && buracos > nova.vivos) {
+                nova = compactar(nova);
+            }
+            atual = nova;
+            removido.liberarIsbn(); // O ISBN pode voltar a ser usado.
+            for (CatalogoListener listener : listeners) {
+                listener.aoRemover(removido);
+            }
+            return true;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public int removerTodos(Collection<Integer> ids) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            Fotografia f = atual;
+            Livro[][] blocos = null;    // Copiados só no primeiro livro removido.
+            int[] vivosPorBloco = null;
+            List<Livro> removidos = new ArrayList<>();
+
+            for (Integer id : ids) {
+                Integer slot = id == null ? null : posicaoPorId.remove(id);
+                if (slot == null) {
+                    continue; // Não existe (ou já saiu neste mesmo lote).
+                }
+                removidos.add(porId.remove(id));
+                if (blocos == null) {
+                    blocos = f.blocos.clone();
+                    vivosPorBloco = f.vivosPorBloco.clone();
+                }
+                int b = slot / TAMANHO_BLOCO;
+                // Copy-on-write de cada bloco afetado, uma vez só por lote.
+                if (blocos[b] == f.blocos[b]) {
+                    blocos[b] = blocos[b].clone();
+                }
+                blocos[b][slot % TAMANHO_BLOCO] = null;
+                vivosPorBloco[b]--;
+            }
+            if (removidos.isEmpty()) {
+                return 0;
+            }
+
+            Fotografia nova = new Fotografia(blocos, f.slots, vivosPorBloco, f.vivos - removidos.size(), f.versao + 1);
+            int buracos = nova.slots - nova.vivos;
+            if (buracos > TAMANHO_BLOCO && buracos > nova.vivos) {
+                nova = compactar(nova);
+            }
+            atual = nova;
+            for (Livro removido : removidos) {
+                removido.liberarIsbn();
+            }
+            for (CatalogoListener listener : listeners) {
+                listener.aoRemoverTodos(removidos); // O lote inteiro de uma vez (o diário grava um registro só).
+            }
+            return removidos.size();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public int removerSelecionados(Supplier<? extends Collection<Integer>> selecao) {
+        escrita.lock();
+        try {
+            antesDeAlterar();
+            return removerTodos(selecao.get()); // O lock é reentrante: removerTodos pega o mesmo lock de novo.
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    public Livro buscarPorId(int id) {
+        return porId.get(id);
+    }
+
+    @Override
+    public CatalogoSnapshot snapshot() {
+        return atual;
+    }
+
+    @Override
+    public int tamanho() {
+        return atual.vivos;
+    }
+
+    @Override
+    public void adicionarListener(CatalogoListener listener) {
+        listeners.add(listener);
+    }
+
+    // Com o lock de escrita, antes de mexer em qualquer coisa: um ouvinte pode recusar a alteração
+    // (o diário, quando o disco falhou), e aí o catálogo fica exatamente como estava.
+    private void antesDeAlterar() {
+        for (CatalogoListener listener : listeners) {
+            listener.antesDeAlterar();
+        }
+    }
+
+    /**
+     * Reescreve os blocos sem os buracos deixados pelas exclusões, mantendo a ordem de inserção.
+     * Deve ser chamado com o lock de escrita.
+     */
+    private Fotografia compactar(Fotografia f) {
+        int quantidadeBlocos = Math.max(4, (f.vivos + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO);
+        Livro[][] blocos = new Livro[quantidadeBlocos][];
+        int[] vivosPorBloco = new int[quantidadeBlocos];
+        int slot = 0;
+        for (Livro livro : f) {
+            int b = slot / TAMANHO_BLOCO;
+            if (blocos[b] == null) {
+                blocos[b] = new Livro[TAMANHO_BLOCO];
+            }
+            blocos[b][slot % TAMANHO_BLOCO] = livro;
+            vivosPorBloco[b]++;
+            posicaoPorId.put(livro.getId(), slot);
+            slot++;
+        }
+        return new Fotografia(blocos, slot, vivosPorBloco, f.vivos, f.versao);
+    }
+
+    /**
+     * A fotografia imutável do catálogo. Os blocos podem ser compartilhados com fotografias
+     * mais novas, mas cada fotografia só lê as posições menores que o seu próprio 'slots'.
+     */
+    static final class Fotografia implements CatalogoSnapshot {
+
+        static final Fotografia VAZIA = new Fotografia(new Livro[0][], 0, new int[0], 0, 0);
+
+        private final Livro[][] blocos;     // Os blocos de livros (posições vazias = livros excluídos).
+        private final int slots;            // Quantas posições já foram usadas (vivas + buracos).
+        private final int[] vivosPorBloco;  // Quantos livros vivos há em cada bloco (para paginar sem varrer).
+        private final int vivos;            // Total de livros vivos.
+        private final long versao;          // Versão do catálogo.
+
+        Fotografia(Livro[][] blocos, int slots, int[] vivosPorBloco, int vivos, long versao) {
+            this.blocos = blocos;
+            this.slots = slots;
+            this.vivosPorBloco = vivosPorBloco;
+            this.vivos = vivos;
+            this.versao = versao;
+        }
+
+        @Override
+        public int tamanho() {
+            return vivos;
+        }
+
+        @Override
+        public long versao() {
+            return versao;
+        }
+
+        @Override
+        public List<Livro> pagina(int inicio, int limite) {
+            if (inicio < 0 || limite <= 0 || inicio >= vivos) {
+                return Collections.emptyList();
+            }
+            List<Livro> pagina = new ArrayList<>(Math.min(limite, vivos - inicio));
+            int pular = inicio;
+            int b = 0;
+            // Pula blocos inteiros usando o contador de vivos, sem olhar livro por livro.
+            while (b < vivosPorBloco.length && vivosPorBloco[b] <= pular) {
+                pular -= vivosPorBloco[b];
+                b++;
+            }
+            for (int slot = b * TAMANHO_BLOCO; slot < slots && pagina.size() < limite; slot++) {
+                Livro livro = blocos[slot / TAMANHO_BLOCO][slot % TAMANHO_BLOCO];
+                if (livro == null) {
+                    continue;
+                }
+                if (pular > 0) {
+                    pular--;
+                } else {
+                    pagina.add(livro);
+                }
+            }
+            return Collections.unmodifiableList(pagina);
+        }
+
+        @Override
+        public Iterator<Livro> iterator() {
+            return new Iterator<Livro>() {
+                private int slot = avancar(0); // Próxima posição com livro.
+
+                private int avancar(int s) {
+                    while (s < slots && blocos[s / TAMANHO_BLOCO][s % TAMANHO_BLOCO] == null) {
+                        s++;
+                    }
+                    return s;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return slot < slots;
+                }
+
+                @Override
+                public Livro next() {
+                    if (slot >= slots) {
+                        throw new NoSuchElementException();
+                    }
+                    Livro livro = blocos[slot / TAMANHO_BLOCO][slot % TAMANHO_BLOCO];
+                    slot = avancar(slot + 1);
+                    return livro;
+                }
+            };
+        }
+    }
+}
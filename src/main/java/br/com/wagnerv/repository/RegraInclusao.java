@@ -0,0 +1,23 @@
+package br.com.wagnerv.repository; // Pacote do "acervo" da biblioteca.
+
+import br.com.wagnerv.exception.LivroException; // O motivo da recusa.
+import br.com.wagnerv.model.Livro;              // O livro que quer entrar.
+
+/**
+ * Uma regra conferida com o lock de escrita do repositório, logo antes de um livro entrar no
+ * catálogo: entre a conferência e a inclusão ninguém mais altera o catálogo. É o que permite a
+ * um índice mantido por {@link CatalogoListener} (que, com o lock, está exatamente em dia com o
+ * catálogo) recusar um livro repetido sem que dois pedidos iguais, ao mesmo tempo, passem juntos.
+ *
+ * A regra roda com o lock: precisa ser rápida e não pode alterar o catálogo. Se ela não lançar
+ * exceção, o livro entra.
+ */
+@FunctionalInterface
+public interface RegraInclusao {
+
+    /**
+     * @param livro O livro que vai entrar.
+     * @throws LivroException Se o livro não pode entrar (a mensagem vai para o usuário).
+     */
+    void verificar(Livro livro) throws LivroException;
+}
@@ -0,0 +1,135 @@
+package br.com.wagnerv.repository; // Pacote do "acervo" da biblioteca.
+
+import java.util.Arrays; // Para marcar a tabela nova como toda livre.
+
+/**
+ * Mapa "ID do livro → posição no catálogo" feito só de dois {@code int[]}, para o
+ * {@link LivroRepositoryCompacto}.
+ *
+ * Um {@code HashMap<Integer, Integer>} gasta perto de 60 bytes por livro (nó da tabela + dois
+ * {@code Integer}); aqui são 8 bytes por posição da tabela (endereçamento aberto com sondagem
+ * linear), com a tabela no máximo 3/4 cheia.
+ *
+ * Só um escritor por vez (o lock de escrita do repositório) altera a tabela. Leitores podem
+ * consultar ao mesmo tempo, sem lock, mas a resposta é só uma "dica": a posição devolvida
+ * precisa ser conferida na fotografia (o ID que está lá é o procurado?). Enquanto o escritor
+ * mexe, um leitor pode enxergar a chave sem o valor novo, mas nunca entra em laço infinito,
+ * porque sempre sobram posições livres.
+ */
+final class TabelaIds {
+
+    // Chaves especiais. IDs de livro são positivos, então nunca se confundem com elas.
+    private static final int LIVRE = Integer.MIN_VALUE;       // Posição nunca usada: a sondagem para aqui.
+    private static final int APAGADA = Integer.MIN_VALUE + 1; // "Lápide": a sondagem continua.
+
+    private final int[] chaves;
+    private final int[] valores;
+    private final int mascara;
+    private int ocupadas;   // Chaves + lápides (só o escritor usa).
+    private int quantidade; // Só chaves.
+
+    /**
+     * @param capacidadeEsperada Quantos IDs se espera guardar.
+     */
+    TabelaIds(int capacidadeEsperada) {
+        // A menor potência de 2 que guarda a capacidade sem passar de 3/4 cheia.
+        int tamanho = Integer.highestOneBit(Math.max(16, (int) (capacidadeEsperada * 4L / 3)) - 1) << 1;
+        chaves = new int[tamanho];
+        valores = new int[tamanho];
+        mascara = tamanho - 1;
+        Arrays.fill(chaves, LIVRE);
+    }
+
+    /**
+     * @return A posição guardada para o ID, ou -1 se não houver.
+     */
+    int buscar(int id) {
+        for (int i = espalhar(id) & mascara, passos = 0; passos <= mascara; i = (i + 1) & mascara, passos++) {
+            int chave = chaves[i];
+            if (chave == id) {
+                return valores[i];
+            }
+            if (chave == LIVRE) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Guarda (ou troca) a posição do ID. Depois, confira {@link #cheia()}.
+     */
+    void colocar(int id, int posicao) {
+        int destino = -1;
+        for (int i = espalhar(id) & mascara; ; i = (i + 1) & mascara) {
+            int chave = chaves[i];
+            if (chave == id) {
+                valores[i] = posicao;
+                return;
+            }
+            if (chave == APAGADA && destino < 0) {
+                destino = i; // Reaproveita a primeira lápide, mas continua procurando o ID.
+            } else if (chave == LIVRE) {
+                if (destino < 0) {
+                    destino = i;
+                    ocupadas++;
+                }
+                break;
+            }
+        }
+        valores[destino] = posicao; // Primeiro o valor, depois a chave.
+        chaves[destino] = id;
+        quantidade++;
+    }
+
+    /**
+     * @return Se o ID estava na tabela.
+     */
+    boolean remover(int id) {
+        for (int i = espalhar(id) & mascara; ; i = (i + 1) & mascara) {
+            int chave = chaves[i];
+            if (chave == id) {
+                chaves[i] = APAGADA;
+                quantidade--;
+                return true;
+            }
+            if (chave == LIVRE) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return Se passou de 3/4 (contando as lápides) e precisa ser trocada por {@link #reconstruida()}.
+     */
+    boolean cheia() {
+        return ocupadas > chaves.length / 4 * 3;
+    }
+
+    /**
+     * @return Uma tabela nova, sem lápides e com folga, com os mesmos IDs. Esta continua intacta
+     *         para os leitores que ainda a usam.
+     */
+    TabelaIds reconstruida() {
+        TabelaIds nova = new TabelaIds(quantidade + quantidade / 2); // Folga para crescer 50% sem reconstruir.
+        for (int i = 0; i < chaves.length; i++) {
+            if (chaves[i] != LIVRE && chaves[i] != APAGADA) {
+                nova.colocar(chaves[i], valores[i]);
+            }
+        }
+        return nova;
+    }
+
+    /**
+     * @return Bytes ocupados pelos arrays (para estimar o uso de memória).
+     */
+    long bytes() {
+        return 8L * chaves.length;
+    }
+
+    // IDs costumam ser sequenciais: a multiplicação espalha os vizinhos pela tabela.
+    private static int espalhar(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,235 @@
+package br.com.wagnerv.util; // Pacote de "ferramentas" auxiliares.
+
+import br.com.wagnerv.model.Livro;                  // O livro cujo card fica guardado.
+import br.com.wagnerv.repository.CatalogoListener;  // Para ser avisado quando livros entram ou saem.
+
+import java.util.Iterator;                          // "Ponteiro do relógio" do algoritmo de despejo.
+import java.util.Map;                               // Entradas do mapa percorridas no despejo.
+import java.util.Objects;                           // Comparação de textos que podem ser nulos.
+import java.util.concurrent.ConcurrentHashMap;      // Onde os cards ficam guardados, por ID.
+import java.util.concurrent.atomic.AtomicLong;      // Tamanho total ocupado.
+import java.util.concurrent.atomic.LongAdder;       // Contadores baratos mesmo com muitas threads.
+import java.util.concurrent.locks.ReentrantLock;    // Garante um único "faxineiro" por vez.
+import java.util.function.IntFunction;              // Busca o livro no catálogo, para conferir se ele ainda está lá.
+
+/**
+ * Cache dos cards HTML já montados, um por livro.
+ *
+ * O card de um livro só muda quando o próprio livro entra ou sai do catálogo, então não faz
+ * sentido remontar as ~20 partes do HTML a cada listagem. Este cache:
+ * - é preenchido quando o livro é adicionado e invalidado quando ele é excluído
+ *   (ele é um {@link CatalogoListener} do repositório). Uma listagem que montou o card de um livro
+ *   que foi excluído enquanto isso confere o catálogo depois de guardar e tira o card de volta;
+ * - é indexado pelo ID do livro e pela "versão" dele: a própria instância de {@link Livro} ou,
+ *   se for outra instância (o repositório compacto monta um objeto novo a cada leitura), um livro
+ *   com os mesmos dados. Se um livro com o mesmo ID for recriado com outros dados (recarga,
+ *   replicação...), o card antigo é ignorado;
+ * - tem tamanho máximo. Quando passa do limite, um "faxineiro" usa o algoritmo do relógio
+ *   (CLOCK, uma aproximação barata do LRU) para despejar os cards que não foram lidos recentemente.
+ *
+ * Os cards ficam guardados como String. Desde o Java 9 uma String com caracteres do Latin-1
+ * (o caso do português) ocupa um byte por caractere, e a JSP escreve caracteres, não bytes;
+ * guardar byte[] em UTF-8 obrigaria a decodificar tudo de novo a cada listagem.
+ *
+ * Os contadores de acerto/falha/despejo ficam disponíveis via JMX ({@link CacheFragmentosHtmlMBean}).
+ */
+public class CacheFragmentosHtml implements CatalogoListener, CacheFragmentosHtmlMBean {
+
+    // Nome do atributo do ServletContext onde o cache fica disponível para a JSP.
+    public static final String ATRIBUTO = CacheFragmentosHtml.class.getName();
+
+    // Custo aproximado de cada entrada além do próprio HTML (objetos do mapa, referências...).
+    private static final int CUSTO_ENTRADA = 64;
+
+    private final String contextPath;       // Os cards têm o caminho da aplicação dentro do formulário de exclusão.
+    private final long tamanhoMaximo;       // Limite aproximado em bytes.
+    private final IntFunction<Livro> buscador; // O livro que está no catálogo agora, pelo ID.
+    private final ConcurrentHashMap<Integer, Fragmento> fragmentos = new ConcurrentHashMap<>();
+    private final AtomicLong tamanhoAtual = new AtomicLong();
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    // Só uma thread faz faxina por vez; as outras seguem a vida sem esperar.
+    private final ReentrantLock faxina = new ReentrantLock();
+    // Posição atual do "ponteiro do relógio". Só é usado com o lock de faxina.
+    private Iterator<Map.Entry<Integer, Fragmento>> ponteiro;
+
+    /**
+     * @param contextPath O caminho base da aplicação (ex: "/biblioteca").
+     * @param tamanhoMaximoBytes Quanto o cache pode ocupar, aproximadamente, em bytes.
+     * @param buscador Busca um livro do catálogo pelo ID (normalmente {@code livros::buscarPorId}).
+     */
+    public CacheFragmentosHtml(String contextPath, long tamanhoMaximoBytes, IntFunction<Livro> buscador) {
+        this.contextPath = contextPath;
+        this.tamanhoMaximo = tamanhoMaximoBytes;
+        this.buscador = buscador;
+    }
+
+    /**
+     * Devolve o card HTML do livro, montando e guardando se ainda não estiver no cache.
+     *
+     * @param livro O livro.
+     * @return O HTML do card.
+     */
+    public String card(Livro livro) {
+        Fragmento f = fragmentos.get(livro.getId());
+        if (f != null && f.mesmoLivro(livro)) {
+            if (!f.usado) {
+                f.usado = true; // Só escreve se precisar, pra não "sujar" a memória compartilhada a cada leitura.
+            }
+            acertos.increment();
+            return f.html;
+        }
+        falhas.increment();
+        Fragmento novo = guardar(livro);
+        // A listagem pode estar lendo uma fotografia antiga: se o livro foi excluído (ou trocado)
+        // enquanto o card era montado, o aoRemover pode ter rodado antes do 'put' e este card ficaria
+        // no cache para sempre. O repositório publica a exclusão antes de avisar os ouvintes, então
+        // conferir o catálogo DEPOIS de guardar sempre enxerga a exclusão que o aoRemover não pegou.
+        Livro noCatalogo = buscador.apply(livro.getId());
+        if (noCatalogo == null || !novo.mesmoLivro(noCatalogo)) {
+            descartar(livro.getId(), novo);
+        }
+        return novo.html;
+    }
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        guardar(livro); // Preenche na inclusão: a primeira listagem já encontra o card pronto.
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        Fragmento f = fragmentos.remove(livro.getId());
+        if (f != null) {
+            tamanhoAtual.addAndGet(-f.tamanho());
+            invalidacoes.increment();
+        }
+    }
+
+    // Tira o card guardado por engano, a não ser que outro (mais novo) já tenha tomado o lugar.
+    private void descartar(int id, Fragmento f) {
+        if (fragmentos.remove(id, f)) {
+            tamanhoAtual.addAndGet(-f.tamanho());
+            invalidacoes.increment();
+        }
+    }
+
+    // Monta o card, guarda no mapa e chama a faxina se o limite estourou.
+    private Fragmento guardar(Livro livro) {
+        String html = GerarHtmlLivro.card(contextPath, livro);
+        Fragmento novo = new Fragmento(livro, html);
+        Fragmento antigo = fragmentos.put(livro.getId(), novo);
+        long tamanho = tamanhoAtual.addAndGet(novo.tamanho() - (antigo == null ? 0 : antigo.tamanho()));
+        if (tamanho > tamanhoMaximo) {
+            despejar();
+        }
+        return novo;
+    }
+
+    /**
+     * Algoritmo do relógio: o ponteiro gira pelas entradas; quem foi lido recentemente ganha
+     * uma "segunda chance" (a marca é apagada), quem não foi é despejado. Para quando o cache
+     * volta a 90% do limite, para não precisar fazer faxina a cada inserção.
+     */
+    private void despejar() {
+        if (!faxina.tryLock()) {
+            return; // Alguém já está fazendo faxina.
+        }
+        try {
+            long alvo = tamanhoMaximo - tamanhoMaximo / 10;
+            // Duas voltas completas bastam: na primeira todo mundo perde a marca, na segunda sai.
+            int passos = 2 * fragmentos.size() + 1;
+            while (tamanhoAtual.get() > alvo && passos-- > 0) {
+                if (ponteiro == null || !ponteiro.hasNext()) {
+                    ponteiro = fragmentos.entrySet().iterator();
+                    if (!ponteiro.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<Integer, Fragmento> entrada = ponteiro.next();
+                Fragmento f = entrada.getValue();
+                if (f.usado) {
+                    f.usado = false; // Segunda chance.
+                } else if (fragmentos.remove(entrada.getKey(), f)) {
+                    tamanhoAtual.addAndGet(-f.tamanho());
+                    despejos.increment();
+                }
+            }
+        } finally {
+            faxina.unlock();
+        }
+    }
+
+    @Override
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    @Override
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    @Override
+    public long getDespejos() {
+        return despejos.sum();
+    }
+
+    @Override
+    public long getInvalidacoes() {
+        return invalidacoes.sum();
+    }
+
+    @Override
+    public int getQuantidade() {
+        return fragmentos.size();
+    }
+
+    @Override
+    public long getTamanhoBytes() {
+        return tamanhoAtual.get();
+    }
+
+    @Override
+    public long getTamanhoMaximoBytes() {
+        return tamanhoMaximo;
+    }
+
+    @Override
+    public double getTaxaAcerto() {
+        long a = acertos.sum();
+        long total = a + falhas.sum();
+        return total == 0 ? 0.0 : (double) a / total;
+    }
+
+    /**
+     * Um card guardado no cache.
+     */
+    private static final class Fragmento {
+        final Livro livro;        // A "versão" do livro que gerou este card.
+        final String html;        // O card pronto.
+        volatile boolean usado;   // Marca do algoritmo do relógio: foi lido desde a última volta?
+
+        Fragmento(Livro livro, String html) {
+            this.livro = livro;
+            this.html = html;
+        }
+
+        long tamanho() {
+            return html.length() + CUSTO_ENTRADA;
+        }
+
+        // Mesma instância (o caso comum) ou os mesmos dados que aparecem no card.
+        boolean mesmoLivro(Livro outro) {
+            return livro == outro
+                    || (livro.getAno() == outro.getAno()
+                        && Objects.equals(livro.getTitulo(), outro.getTitulo())
+                        && Objects.equals(livro.getAutor(), outro.getAutor())
+                        && Objects.equals(livro.getIsbn(), outro.getIsbn()));
+        }
+    }
+}
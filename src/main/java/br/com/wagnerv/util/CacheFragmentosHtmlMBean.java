@@ -0,0 +1,24 @@
+package br.com.wagnerv.util; // Pacote de "ferramentas" auxiliares.
+
+/**
+ * O que o {@link CacheFragmentosHtml} mostra via JMX (JConsole, VisualVM, agentes de monitoração...).
+ * Permite confirmar em produção, sem reiniciar nada, se o cache está realmente sendo usado.
+ */
+public interface CacheFragmentosHtmlMBean {
+
+    long getAcertos();          // Quantas vezes o card já estava pronto no cache.
+
+    long getFalhas();           // Quantas vezes o card teve que ser montado de novo.
+
+    long getDespejos();         // Quantos cards saíram do cache por falta de espaço.
+
+    long getInvalidacoes();     // Quantos cards saíram do cache porque o livro foi excluído.
+
+    int getQuantidade();        // Quantos cards estão no cache agora.
+
+    long getTamanhoBytes();     // Tamanho aproximado ocupado pelos cards.
+
+    long getTamanhoMaximoBytes(); // Limite de tamanho configurado.
+
+    double getTaxaAcerto();     // acertos / (acertos + falhas).
+}
@@ -0,0 +1,205 @@
+package br.com.wagnerv.util; // Pacote de "ferramentas" auxiliares.
+
+/**
+ * Conjunto de números {@code long} feito para guardar milhões de valores gastando pouco.
+ *
+ * Um {@code HashSet<Long>} guarda cada número num objeto {@code Long} separado, mais um "nó" da
+ * tabela: passa de 40 bytes por valor. Aqui os valores ficam direto num {@code long[]}
+ * (endereçamento aberto com sondagem linear), com 8 a 16 bytes por valor.
+ *
+ * Para várias threads poderem usar ao mesmo tempo sem brigar por um único lock, o conjunto é
+ * dividido em {@value #FAIXAS} "faixas" independentes, cada uma com o seu próprio lock; o hash do
+ * valor escolhe a faixa. Duas threads só se esperam se caírem na mesma faixa no mesmo instante.
+ *
+ * A remoção "puxa para trás" os vizinhos da sequência de sondagem (sem lápides), então o conjunto
+ * pode acompanhar algo que cresce e diminui, como os ISBNs dos livros que estão no catálogo.
+ */
+public final class ConjuntoLong {
+
+    // Quantidade de faixas (potência de 2). 64 deixa a chance de duas threads se esbarrarem bem pequena.
+    private static final int FAIXAS = 64;
+
+    private final Faixa[] faixas = new Faixa[FAIXAS];
+
+    /**
+     * @param capacidadeEsperada Quantos valores se espera guardar (só evita crescimentos no começo).
+     */
+    public ConjuntoLong(int capacidadeEsperada) {
+        int porFaixa = Math.max(16, capacidadeEsperada / FAIXAS);
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new Faixa(porFaixa);
+        }
+    }
+
+    /**
+     * Adiciona o valor, se ainda não estiver no conjunto.
+     *
+     * @param valor O valor.
+     * @return {@code true} se o valor entrou agora; {@code false} se já estava lá.
+     */
+    public boolean adicionar(long valor) {
+        long h = misturar(valor);
+        return faixas[(int) (h >>> 58)].adicionar(valor, h); // Os 6 bits mais altos escolhem a faixa.
+    }
+
+    /**
+     * Tira o valor do conjunto.
+     *
+     * @param valor O valor.
+     * @return {@code true} se o valor estava no conjunto.
+     */
+    public boolean remover(long valor) {
+        long h = misturar(valor);
+        return faixas[(int) (h >>> 58)].remover(valor, h);
+    }
+
+    /**
+     * @param valor O valor.
+     * @return {@code true} se o valor está no conjunto.
+     */
+    public boolean contem(long valor) {
+        long h = misturar(valor);
+        return faixas[(int) (h >>> 58)].contem(valor, h);
+    }
+
+    /**
+     * @return Quantos valores o conjunto tem (soma das faixas; aproximado se houver escritas ao mesmo tempo).
+     */
+    public long tamanho() {
+        long total = 0;
+        for (Faixa faixa : faixas) {
+            total += faixa.tamanho();
+        }
+        return total;
+    }
+
+    /**
+     * Espalha os bits do valor (a "finalização" do MurmurHash3). ISBNs sequenciais ou parecidos
+     * viram hashes bem diferentes, e a tabela não forma "engarrafamentos".
+     */
+    private static long misturar(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Uma faixa: uma tabela de endereçamento aberto protegida pelo seu próprio lock.
+     * A posição 0 da tabela marca "vazio", então o valor 0 é guardado à parte.
+     */
+    private static final class Faixa {
+
+        private long[] tabela;
+        private int tamanho;
+        private boolean temZero;
+
+        Faixa(int capacidade) {
+            tabela = new long[Integer.highestOneBit(capacidade * 2 - 1) << 1];
+        }
+
+        synchronized boolean adicionar(long valor, long h) {
+            if (valor == 0) {
+                if (temZero) {
+                    return false;
+                }
+                temZero = true;
+                tamanho++;
+                return true;
+            }
+            int mascara = tabela.length - 1;
+            for (int i = (int) h & mascara; ; i = (i + 1) & mascara) {
+                long atual = tabela[i];
+                if (atual == valor) {
+                    return false;
+                }
+                if (atual == 0) {
+                    tabela[i] = valor;
+                    // Mantém a tabela no máximo meio cheia: as sondagens continuam curtas.
+                    if (++tamanho * 2 > tabela.length) {
+                        crescer();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        synchronized boolean contem(long valor, long h) {
+            if (valor == 0) {
+                return temZero;
+            }
+            int mascara = tabela.length - 1;
+            for (int i = (int) h & mascara; ; i = (i + 1) & mascara) {
+                long atual = tabela[i];
+                if (atual == valor) {
+                    return true;
+                }
+                if (atual == 0) {
+                    return false;
+                }
+            }
+        }
+
+        synchronized boolean remover(long valor, long h) {
+            if (valor == 0) {
+                if (!temZero) {
+                    return false;
+                }
+                temZero = false;
+                tamanho--;
+                return true;
+            }
+            int mascara = tabela.length - 1;
+            int i = (int) h & mascara;
+            while (tabela[i] != valor) {
+                if (tabela[i] == 0) {
+                    return false;
+                }
+                i = (i + 1) & mascara;
+            }
+            // Apaga a posição i e puxa para trás os valores seguintes que só estavam depois dela
+            // por causa dela (sem isso, a busca pararia no buraco e não os acharia).
+            int j = i;
+            while (true) {
+                j = (j + 1) & mascara;
+                long atual = tabela[j];
+                if (atual == 0) {
+                    break;
+                }
+                int ideal = (int) misturar(atual) & mascara;
+                // O valor em j pode ir para i se a posição ideal dele não está no trecho (i, j].
+                boolean ficar = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+                if (!ficar) {
+                    tabela[i] = atual;
+                    i = j;
+                }
+            }
+            tabela[i] = 0;
+            tamanho--;
+            return true;
+        }
+
+        synchronized int tamanho() {
+            return tamanho;
+        }
+
+        private void crescer() {
+            long[] antiga = tabela;
+            long[] nova = new long[antiga.length * 2];
+            int mascara = nova.length - 1;
+            for (long valor : antiga) {
+                if (valor != 0) {
+                    int i = (int) misturar(valor) & mascara;
+                    while (nova[i] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    nova[i] = valor;
+                }
+            }
+            tabela = nova;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.wagnerv.util; // Mais uma "ferramenta" auxiliar do pacote 'util'.
+
+import jakarta.servlet.http.HttpServletRequest; // De onde lemos os parâmetros do filtro.
+
+import java.net.URLEncoder;               // Para montar os links das páginas com o filtro.
+import java.nio.charset.StandardCharsets; // Os parâmetros da URL vão em UTF-8.
+
+/**
+ * O filtro da listagem por ano e por autor, lido da URL
+ * (ex: "/livros?anoDe=1990&anoAte=1999&autor=Machado+de+Assis").
+ *
+ * Parâmetros aceitos:
+ * - 'anoDe': menor ano de publicação (inclusive);
+ * - 'anoAte': maior ano de publicação (inclusive);
+ * - 'autor': o autor exato, sem diferenciar acentos e maiúsculas.
+ *
+ * Valores inválidos (ex: "anoDe=abc") são ignorados, como na {@link Paginacao}.
+ * Quem executa o filtro é o {@link br.com.wagnerv.indice.IndiceFacetas}.
+ */
+public class FiltroLivros {
+
+    private final Integer anoDe;  // null = sem limite.
+    private final Integer anoAte; // null = sem limite.
+    private final String autor;   // null = qualquer autor.
+
+    public FiltroLivros(Integer anoDe, Integer anoAte, String autor) {
+        this.anoDe = anoDe;
+        this.anoAte = anoAte;
+        this.autor = autor == null || autor.trim().isEmpty() ? null : autor.trim();
+    }
+
+    /**
+     * Lê 'anoDe', 'anoAte' e 'autor' da requisição.
+     *
+     * @param request A requisição HTTP.
+     * @return O filtro (que pode estar vazio: veja {@link #isAtivo()}).
+     */
+    public static FiltroLivros de(HttpServletRequest request) {
+        return new FiltroLivros(lerAno(request.getParameter("anoDe")), lerAno(request.getParameter("anoAte")),
+                request.getParameter("autor"));
+    }
+
+    // Converte o texto em ano, devolvendo null se não der.
+    private static Integer lerAno(String valor) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Se algum parâmetro do filtro foi informado.
+     */
+    public boolean isAtivo() {
+        return anoDe != null || anoAte != null || autor != null;
+    }
+
+    public Integer getAnoDe() {
+        return anoDe;
+    }
+
+    public Integer getAnoAte() {
+        return anoAte;
+    }
+
+    public String getAutor() {
+        return autor;
+    }
+
+    /**
+     * @return Os parâmetros do filtro para emendar num link ("&anoDe=1990&autor=..."), já
+     *         codificados para a URL, ou "" se o filtro está vazio.
+     */
+    public String getParametrosUrl() {
+        StringBuilder sb = new StringBuilder();
+        if (anoDe != null) {
+            sb.append("&anoDe=").append(anoDe);
+        }
+        if (anoAte != null) {
+            sb.append("&anoAte=").append(anoAte);
+        }
+        if (autor != null) {
+            sb.append("&autor=").append(URLEncoder.encode(autor, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return O filtro em português, para mostrar na tela (ex: "Machado de Assis, de 1990 até 1999").
+     */
+    public String getDescricao() {
+        StringBuilder sb = new StringBuilder();
+        if (autor != null) {
+            sb.append(autor);
+        }
+        if (anoDe != null || anoAte != null) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            if (anoDe != null && anoDe.equals(anoAte)) {
+                sb.append("de ").append(anoDe);
+            } else {
+                if (anoDe != null) {
+                    sb.append("de ").append(anoDe);
+                }
+                if (anoAte != null) {
+                    sb.append(anoDe != null ? " " : "").append("até ").append(anoAte);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -4,50 +4,206 @@ package br.com.wagnerv.util; // Aqui a gente define o "endereço" dessa classe n
 // ou um "controlador", mas que ajudam em alguma funcionalidade.
 // Nesse caso, ela nos ajuda a gerar um ISBN.
 
-import java.util.Random; // Importamos a classe 'Random' do Java.
-// Essa classe é nossa "máquina de sortear números", essencial
-// pra gente conseguir gerar números aleatórios para o ISBN.
+import java.util.HashMap;                      // Contagem dos ISBNs repetidos (raros).
+import java.util.Map;                          // Interface de mapa.
+import java.util.concurrent.ThreadLocalRandom; // Sorteador de números com uma "máquina" própria por thread.
 
 /**
- * Pensa nessa classe 'GeradorISBN' como um pequeno "serviço" ou "ferramenta"
- * que a gente tem na nossa biblioteca. A única coisa que ela faz é criar
- * um código ISBN para um livro de forma automática e aleatória.
+ * Pensa nessa classe 'GeradorISBN' como um pequeno "serviço" da nossa biblioteca:
+ * é o único lugar do sistema que cria códigos ISBN para os livros.
  *
- * A ideia é simplificar, já que gerar um ISBN real é algo bem complexo
- * e envolveria regras internacionais. Para o nosso trabalho, essa ferramenta
- * que gera um número "parecido" já resolve o problema!
+ * O que ela garante:
+ * - o ISBN é um ISBN-13 de verdade: prefixo 978, 9 dígitos sorteados e o dígito verificador
+ *   calculado pela regra oficial (pesos 1 e 3). Qualquer validador de ISBN aceita;
+ * - nunca sai um ISBN que pertence a outro livro do catálogo: cada livro que entra no catálogo
+ *   "reserva" o seu ISBN ({@link #reservar}, ou {@link #gerar} se ele ainda não tem um) e cada
+ *   livro que sai o "libera" ({@link #liberar}). Quem chama é o repositório, com o lock de escrita.
+ *   Assim o conjunto acompanha o catálogo: livros recusados (validação, repetidos) nunca
+ *   reservam nada, e os excluídos devolvem o número, então a memória não cresce sem parar.
+ *
+ * E por que ela é rápida mesmo com muitas requisições ao mesmo tempo:
+ * - o sorteio usa {@link ThreadLocalRandom}: cada thread tem o seu próprio sorteador, então
+ *   ninguém disputa um {@code Random} global (como acontecia com {@code Math.random()}) e ninguém
+ *   cria um {@code Random} novo a cada chamada;
+ * - os ISBNs já usados ficam num {@link ConjuntoLong}: cada ISBN é um número {@code long} (13 dígitos
+ *   cabem folgado), sem objetos {@code String} na memória, e o conjunto é dividido em faixas com
+ *   locks independentes.
  */
-public class GeradorISBN {
+public final class GeradorISBN {
+
+    // Prefixo "Bookland" dos ISBN-13 (o mesmo de todo livro com ISBN antigo de 10 dígitos).
+    private static final long PREFIXO = 978_000_000_000L;
+
+    // Quantos números diferentes cabem nos 9 dígitos sorteados.
+    private static final int FAIXA_SORTEIO = 1_000_000_000;
+
+    // Os ISBNs (13 dígitos, como número) dos livros que estão no catálogo.
+    private static final ConjuntoLong USADOS = new ConjuntoLong(1 << 16);
+
+    // ISBNs de mais de um livro (um arquivo importado com o mesmo ISBN duas vezes, por exemplo):
+    // quantos livros além do primeiro. O número só sai de USADOS quando sai o último livro.
+    private static final Map<Long, Integer> REPETIDOS = new HashMap<>();
+
+    private GeradorISBN() {
+        // Só métodos estáticos: ninguém precisa criar um objeto desta classe.
+    }
 
     /**
-     * Esse é o método principal dessa classe, o "botão de ligar" do nosso gerador.
-     * Ele é 'public static', o que significa que a gente pode chamar ele de qualquer lugar
-     * do nosso código sem precisar criar um objeto 'GeradorISBN' primeiro.
-     * É só usar 'GeradorISBN.gerar()' e ele já te devolve um ISBN prontinho!
+     * Esse é o "botão de ligar" do nosso gerador: é só chamar 'GeradorISBN.gerar()'
+     * que ele devolve um ISBN novinho, já reservado. O repositório chama quando um livro sem
+     * ISBN entra no catálogo; quem gerar um ISBN para outra coisa deve {@link #liberar} depois.
      *
-     * @return Uma String que representa um ISBN (um código identificador único para o livro),
-     * gerado de forma simulada.
+     * @return Um ISBN-13 com 13 dígitos, sem hífens (ex: "9781234567897"), que nenhum livro do catálogo usa.
      */
     public static String gerar() {
-        // Primeiro, a gente cria um objeto 'Random'. Ele é o cara que vai nos dar os números aleatórios.
-        Random gerador = new Random();
+        ThreadLocalRandom sorteio = ThreadLocalRandom.current();
+        for (;;) {
+            // 978 + 9 dígitos sorteados = os 12 primeiros dígitos do ISBN.
+            long corpo = PREFIXO + sorteio.nextInt(FAIXA_SORTEIO);
+            long isbn = corpo * 10 + digitoVerificador(corpo);
+            // Se (muito raramente) o número já foi usado, sorteia de novo.
+            if (USADOS.adicionar(isbn)) {
+                return formatar(isbn);
+            }
+        }
+    }
+
+    /**
+     * Marca um ISBN que já existe (de um livro recarregado do disco ou importado) como usado,
+     * para que {@link #gerar()} não o entregue para outro livro enquanto ele estiver no catálogo.
+     * Aceita ISBN-13 e ISBN-10, com ou sem hífens; qualquer outra coisa é ignorada.
+     *
+     * @param isbn O ISBN existente.
+     * @return {@code true} se o ISBN ainda não era usado por nenhum livro.
+     */
+    public static synchronized boolean reservar(String isbn) {
+        long numero = paraNumero(isbn);
+        if (numero < 0) {
+            return false;
+        }
+        if (USADOS.adicionar(numero)) {
+            return true;
+        }
+        REPETIDOS.merge(numero, 1, Integer::sum); // Mais um livro com o mesmo ISBN.
+        return false;
+    }
+
+    /**
+     * Devolve o ISBN de um livro que saiu do catálogo: {@link #gerar()} pode voltar a entregá-lo
+     * (se nenhum outro livro usa o mesmo número).
+     *
+     * @param isbn O ISBN do livro que saiu ({@code null} e textos que não são ISBN são ignorados).
+     */
+    public static synchronized void liberar(String isbn) {
+        long numero = paraNumero(isbn);
+        if (numero < 0) {
+            return;
+        }
+        Integer outros = REPETIDOS.get(numero);
+        if (outros == null) {
+            USADOS.remover(numero);
+        } else if (outros == 1) {
+            REPETIDOS.remove(numero); // O número continua em USADOS: ainda há um livro com ele.
+        } else {
+            REPETIDOS.put(numero, outros - 1);
+        }
+    }
+
+    /**
+     * @return Quantos ISBNs diferentes estão reservados (para conferir que acompanha o catálogo).
+     */
+    public static long reservados() {
+        return USADOS.tamanho();
+    }
 
-        // Depois, a gente cria um 'StringBuilder'. Pensa nele como um "caderno de rascunho"
-        // onde a gente vai montando o nosso ISBN. Começamos com "123" pra ele já ter uma cara
-        // de ISBN, que normalmente começa com números específicos do grupo.
-        StringBuilder ISBN = new StringBuilder("123");
+    /**
+     * Confere se o texto é um ISBN-13 válido (13 dígitos com o dígito verificador certo; hífens e
+     * espaços são ignorados).
+     *
+     * @param isbn O texto a conferir.
+     * @return {@code true} se for um ISBN-13 válido.
+     */
+    public static boolean valido(String isbn) {
+        long numero = somenteDigitos(isbn, 13);
+        return numero >= 0 && numero % 10 == digitoVerificador(numero / 10);
+    }
+
+    /**
+     * Calcula o dígito verificador do ISBN-13: os 12 primeiros dígitos são multiplicados,
+     * alternadamente, por 1 e por 3; o dígito é o que falta para a soma chegar a um múltiplo de 10.
+     *
+     * @param corpo Os 12 primeiros dígitos, como número.
+     * @return O 13º dígito.
+     */
+    static int digitoVerificador(long corpo) {
+        int soma = 0;
+        // Percorre do último dígito (posição 12, peso 3) para o primeiro (posição 1, peso 1).
+        for (int posicao = 12; posicao >= 1; posicao--) {
+            int digito = (int) (corpo % 10);
+            corpo /= 10;
+            soma += (posicao % 2 == 0) ? digito * 3 : digito;
+        }
+        return (10 - soma % 10) % 10;
+    }
+
+    /**
+     * Converte o ISBN-13 (como número) para texto, sem passar por {@code Long.toString} + formatação.
+     */
+    private static String formatar(long isbn) {
+        char[] digitos = new char[13];
+        for (int i = 12; i >= 0; i--) {
+            digitos[i] = (char) ('0' + isbn % 10);
+            isbn /= 10;
+        }
+        return new String(digitos);
+    }
 
-        // Agora, a gente vai adicionar 9 números aleatórios a esse "rascunho".
-        // Um ISBN real tem 13 dígitos, então a gente começa com 3 e adiciona mais 9,
-        // totalizando 12 dígitos para o nosso exemplo.
-        for (int i = 0; i < 9; i++) {
-            // gerador.nextInt(10) nos dá um número inteiro aleatório entre 0 e 9.
-            // A gente adiciona esse número ao nosso StringBuilder.
-            ISBN.append(gerador.nextInt(10));
+    /**
+     * Transforma um ISBN-13 ou ISBN-10 em número de 13 dígitos (ISBN-10 ganha o prefixo 978 e
+     * um novo dígito verificador, como manda a regra de conversão).
+     *
+     * @return O número, ou -1 se o texto não for um ISBN.
+     */
+    private static long paraNumero(String isbn) {
+        long numero = somenteDigitos(isbn, 13);
+        if (numero >= 0) {
+            return numero;
+        }
+        // ISBN-10: 9 dígitos + verificador (que pode ser 'X'). O verificador antigo é descartado.
+        long dez = somenteDigitos(isbn, 10);
+        if (dez < 0) {
+            return -1;
         }
+        long corpo = PREFIXO + dez / 10;
+        return corpo * 10 + digitoVerificador(corpo);
+    }
 
-        // No final, quando o ISBN está todo montado no nosso "rascunho",
-        // a gente transforma ele em uma String final e devolve pra quem pediu.
-        return ISBN.toString();
+    /**
+     * Lê exatamente {@code quantidade} dígitos do texto, ignorando hífens e espaços.
+     * No ISBN-10, o último "dígito" pode ser 'X' (vale 10); aqui ele conta como 0, pois é descartado.
+     *
+     * @return O número formado, ou -1 se o texto tiver outra quantidade de dígitos ou outros caracteres.
+     */
+    private static long somenteDigitos(String texto, int quantidade) {
+        if (texto == null) {
+            return -1;
+        }
+        long numero = 0;
+        int lidos = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            boolean xFinal = quantidade == 10 && lidos == 9 && (c == 'X' || c == 'x');
+            if ((c < '0' || c > '9') && !xFinal) {
+                return -1;
+            }
+            if (++lidos > quantidade) {
+                return -1;
+            }
+            numero = numero * 10 + (xFinal ? 0 : c - '0');
+        }
+        return lidos == quantidade ? numero : -1;
     }
-}
\ No newline at end of file
+}
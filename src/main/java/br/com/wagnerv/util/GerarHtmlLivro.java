@@ -10,7 +10,8 @@ import jakarta.servlet.http.HttpServletRequest; // Importamos isso porque, para
 // (especialmente para o botão de exclusão),
 // precisamos de informações da requisição HTTP atual.
 
-import java.util.List; // Precisamos disso para saber que vamos receber uma "lista" de livros.
+import java.io.IOException;   // Escrever na resposta pode falhar (ex: o navegador fechou a conexão).
+import java.io.Writer;        // Para onde os cards são "despejados" na versão em streaming.
 
 /**
  * Pensa nessa classe 'GerarHtmlLivro' como um "montador de cards" ou um "gerador de relatórios"
@@ -24,74 +25,189 @@ import java.util.List; // Precisamos disso para saber que vamos receber uma "lis
  */
 public class GerarHtmlLivro {
 
+    // De quantos em quantos cards a gente "empurra" (flush) o que já foi escrito para o navegador.
+    // Assim o usuário começa a ver os primeiros livros enquanto o resto ainda está sendo montado.
+    private static final int CARDS_POR_FLUSH = 64;
+
     /**
-     * Esse é o coração da nossa classe. É o método que faz toda a mágica de
-     * pegar os livros e transformar em HTML.
+     * Esse é o método "clássico" da nossa classe: pega os livros e devolve o HTML
+     * de todos eles numa String só.
      *
      * Ele é 'public static', o que significa que podemos chamá-lo diretamente
      * usando 'GerarHtmlLivro.gerar(...)', sem precisar criar um objeto GerarHtmlLivro.
      * É como uma função utilitária que está sempre à disposição.
      *
+     * Atenção: a String ocupa memória proporcional a TODOS os livros recebidos. Para a
+     * listagem da página, prefira {@link #escrever(String, Iterable, Writer)}, que manda
+     * os cards direto para a resposta.
+     *
      * @param request O objeto de requisição HTTP. Usamos ele para construir a URL
      * do formulário de exclusão de forma correta, garantindo que
      * funcione em qualquer ambiente.
-     * @param livros Uma "lista" de objetos 'Livro'. Esses são os livros que
-     * a gente quer que apareçam na nossa página.
+     * @param livros Os livros que a gente quer que apareçam na nossa página. Pode ser
+     * qualquer coisa "percorrível" (Iterable): uma lista ou um snapshot do catálogo.
      * @return Uma String gigante que é o HTML completo dos cards de todos os livros
      * que foram passados na lista.
      */
-    public static String gerar(HttpServletRequest request, List<Livro> livros) {
+    public static String gerar(HttpServletRequest request, Iterable<Livro> livros) {
         // A gente usa um 'StringBuilder' porque vamos montar essa String HTML em pedaços.
-        // É muito mais eficiente (rápido!) do que ficar usando o operador '+' para concatenar strings
-        // repetidamente dentro de um loop.
+        // É muito mais eficiente (rápido!) do que ficar usando o operador '+' dentro de um loop.
         StringBuilder html = new StringBuilder();
+        for (Livro livro : livros) {
+            // Cada card é montado pelo mesmo código usado na versão em streaming.
+            html.append(card(request.getContextPath(), livro));
+        }
+        return html.toString();
+    }
 
-        // Aqui começa a mágica! A gente vai passar por CADA livro que está na lista.
-        // Para cada livro, a gente vai "desenhar" um card HTML.
+    /**
+     * Versão em "streaming" da geração do HTML: em vez de montar uma String gigante,
+     * cada card é escrito direto no {@link Writer} da resposta e, de tempos em tempos,
+     * a gente dá um 'flush' para o navegador já ir recebendo a página.
+     *
+     * A memória usada fica do tamanho de um card, não do tamanho do catálogo.
+     *
+     * @param contextPath O caminho base da aplicação (ex: "/biblioteca"), usado no formulário de exclusão.
+     * @param livros Os livros a escrever (normalmente só uma página do catálogo).
+     * @param out Para onde o HTML vai (na JSP, é o próprio 'out').
+     * @return Quantos caracteres foram escritos.
+     * @throws IOException Se a conexão com o navegador falhar no meio do caminho.
+     */
+    public static long escrever(String contextPath, Iterable<Livro> livros, Writer out) throws IOException {
+        return escrever(contextPath, livros, out, null);
+    }
+
+    /**
+     * Igual ao {@link #escrever(String, Iterable, Writer)}, mas pega os cards prontos do
+     * {@link CacheFragmentosHtml}: a listagem vira só uma "colagem" de pedaços já montados.
+     *
+     * @param contextPath O caminho base da aplicação.
+     * @param livros Os livros a escrever.
+     * @param out Para onde o HTML vai.
+     * @param cache O cache de cards, ou {@code null} para montar tudo na hora.
+     * @return Quantos caracteres foram escritos.
+     * @throws IOException Se a conexão com o navegador falhar no meio do caminho.
+     */
+    public static long escrever(String contextPath, Iterable<Livro> livros, Writer out,
+                                CacheFragmentosHtml cache) throws IOException {
+        long escritos = 0;
+        int desdeUltimoFlush = 0;
         for (Livro livro : livros) {
-            // A gente começa abrindo uma 'div' com a classe 'livro-card'.
-            // É essa 'div' que o nosso CSS vai usar pra estilizar o card, dar a ele aquela aparência legal.
-            html.append("<div class='livro-card'>");
+            String card = cache != null ? cache.card(livro) : card(contextPath, livro);
+            out.write(card);
+            escritos += card.length();
+            if (++desdeUltimoFlush == CARDS_POR_FLUSH) {
+                out.flush(); // Manda o "pedaço" pronto para o navegador.
+                desdeUltimoFlush = 0;
+            }
+        }
+        return escritos;
+    }
 
-            // --- O Botão de Excluir ---
-            // Aqui a gente cria um formulário HTML para o botão de exclusão.
-            // É um formulário separado porque, quando a gente clica em "Excluir",
-            // queremos enviar uma requisição específica para o servidor (para o nosso LivroServlet).
-            html.append("<form class='delete-form' method='post' action='").append(request.getContextPath()).append("/livros'>");
-            // O 'request.getContextPath()' é importante! Ele pega o caminho base da sua aplicação no servidor,
-            // garantindo que a URL 'action' do formulário esteja sempre correta, não importa onde seu app esteja instalado.
-            // Por exemplo: se seu app rodar em 'localhost:8080/biblioteca', ele adiciona '/biblioteca' automaticamente.
+    /**
+     * Monta o HTML do card de UM livro.
+     * É usado também pelo {@link CacheFragmentosHtml} e pelos eventos "ao vivo" da página
+     * (por isso é 'public'): o card que chega pelo evento é igual ao da listagem.
+     *
+     * @param contextPath O caminho base da aplicação.
+     * @param livro O livro a "desenhar".
+     * @return O HTML do card.
+     */
+    public static String card(String contextPath, Livro livro) {
+        // A gente usa um 'StringBuilder' porque vamos montar essa String HTML em pedaços.
+        // É muito mais eficiente (rápido!) do que ficar usando o operador '+' para concatenar strings.
+        StringBuilder html = new StringBuilder(512);
+
+        // A gente começa abrindo uma 'div' com a classe 'livro-card'.
+        // É essa 'div' que o nosso CSS vai usar pra estilizar o card, dar a ele aquela aparência legal.
+        // O 'data-id' é por onde o JavaScript da página acha o card para tirá-lo quando o livro é excluído.
+        html.append("<div class='livro-card' data-id='").append(livro.getId()).append("'>");
 
-            // Esse campo 'hidden' (escondido) é importante. Ele diz para o LivroServlet
-            // que a "ação" que a gente quer fazer é 'delete' (excluir).
-            html.append("<input type='hidden' name='action' value='delete'/>");
-            // E esse outro campo 'hidden' passa o ID do livro que a gente quer excluir.
-            // O LivroServlet vai usar esse ID para saber qual livro remover da lista.
-            html.append("<input type='hidden' name='id' value='").append(livro.getId()).append("'/>");
-            // Finalmente, o botão em si! Ele tem um 'title' para aparecer um texto ao passar o mouse,
-            // e o '<i class='fas fa-trash'></i>' é o código para mostrar o ícone da lixeira
-            // (graças ao Font Awesome que a gente importou no CSS!).
-            html.append("<button type='submit' title='Excluir'><i class='fas fa-trash'></i></button>");
-            html.append("</form>"); // Fecha o formulário do botão de exclusão.
+        // --- O Botão de Excluir ---
+        // Aqui a gente cria um formulário HTML para o botão de exclusão.
+        // É um formulário separado porque, quando a gente clica em "Excluir",
+        // queremos enviar uma requisição específica para o servidor (para o nosso LivroServlet).
+        html.append("<form class='delete-form' method='post' action='").append(contextPath).append("/livros'>");
+        // O 'contextPath' é importante! Ele é o caminho base da sua aplicação no servidor,
+        // garantindo que a URL 'action' do formulário esteja sempre correta, não importa onde seu app esteja instalado.
+        // Por exemplo: se seu app rodar em 'localhost:8080/biblioteca', ele adiciona '/biblioteca' automaticamente.
 
-            // --- As Informações do Livro ---
-            // Agora a gente começa a adicionar os parágrafos com as informações do livro.
-            // Usamos tags <p> para cada informação (Título, Autor, etc.) e <strong> para deixar o rótulo em negrito.
-            // E aqui a gente pega os dados de cada 'livro' da lista usando os métodos 'get' (getTitulo(), getAutor(), etc.).
-            // Essa linha é crucial: ela exibe o título! Se não aparecer, o problema não é aqui,
-            // mas sim de como o 'titulo' está sendo setado no objeto Livro, ou se há um CSS que o esconde.
-            html.append("<p><strong>Título:</strong> ").append(livro.getTitulo()).append("</p>");
-            html.append("<p><strong>Autor:</strong> ").append(livro.getAutor()).append("</p>");
-            html.append("<p><strong>Ano:</strong> ").append(livro.getAno()).append("</p>");
-            html.append("<p><strong>ISBN:</strong> ").append(livro.getIsbn()).append("</p>");
-            html.append("<p><strong>ID:</strong> ").append(livro.getId()).append("</p>");
+        // Esse campo 'hidden' (escondido) é importante. Ele diz para o LivroServlet
+        // que a "ação" que a gente quer fazer é 'delete' (excluir).
+        html.append("<input type='hidden' name='action' value='delete'/>");
+        // E esse outro campo 'hidden' passa o ID do livro que a gente quer excluir.
+        // O LivroServlet vai usar esse ID para saber qual livro remover da lista.
+        html.append("<input type='hidden' name='id' value='").append(livro.getId()).append("'/>");
+        // Finalmente, o botão em si! Ele tem um 'title' para aparecer um texto ao passar o mouse,
+        // e o '<i class='fas fa-trash'></i>' é o código para mostrar o ícone da lixeira
+        // (graças ao Font Awesome que a gente importou no CSS!).
+        html.append("<button type='submit' title='Excluir'><i class='fas fa-trash'></i></button>");
+        html.append("</form>"); // Fecha o formulário do botão de exclusão.
+
+        // --- As Informações do Livro ---
+        // Agora a gente começa a adicionar os parágrafos com as informações do livro.
+        // Usamos tags <p> para cada informação (Título, Autor, etc.) e <strong> para deixar o rótulo em negrito.
+        // E aqui a gente pega os dados de cada 'livro' usando os métodos 'get' (getTitulo(), getAutor(), etc.).
+        // Essa linha é crucial: ela exibe o título! Se não aparecer, o problema não é aqui,
+        // mas sim de como o 'titulo' está sendo setado no objeto Livro, ou se há um CSS que o esconde.
+        // Título, autor e ISBN são texto digitado por alguém (formulário, API, importação): passam
+        // pelo 'escapar' para que um "<script>" no título apareça como texto, e não rode na página.
+        // O card é o mesmo na listagem, no cache e nos eventos "ao vivo", então basta escapar aqui.
+        html.append("<p><strong>Título:</strong> ");
+        escapar(livro.getTitulo(), html);
+        html.append("</p>");
+        html.append("<p><strong>Autor:</strong> ");
+        escapar(livro.getAutor(), html);
+        html.append("</p>");
+        html.append("<p><strong>Ano:</strong> ").append(livro.getAno()).append("</p>");
+        html.append("<p><strong>ISBN:</strong> ");
+        escapar(livro.getIsbn(), html);
+        html.append("</p>");
+        html.append("<p><strong>ID:</strong> ").append(livro.getId()).append("</p>");
+
+        html.append("</div>"); // Fecha a 'div' do card do livro.
+        return html.toString();
+    }
 
-            html.append("</div>"); // Fecha a 'div' do card do livro.
+    /**
+     * Escreve o texto trocando os caracteres especiais do HTML ({@code & < > " '}) pelas
+     * "entidades" correspondentes. Serve tanto para o conteúdo de uma tag quanto para o valor
+     * de um atributo (entre aspas simples ou duplas).
+     *
+     * @param texto O texto (se for {@code null}, escreve "null", como o {@code append} faria).
+     * @param html  Onde escrever.
+     */
+    public static void escapar(String texto, StringBuilder html) {
+        if (texto == null) {
+            html.append("null");
+            return;
+        }
+        int inicio = 0; // Trechos sem nada para escapar são copiados de uma vez.
+        for (int i = 0; i < texto.length(); i++) {
+            String entidade;
+            switch (texto.charAt(i)) {
+                case '&': entidade = "&amp;"; break;
+                case '<': entidade = "&lt;"; break;
+                case '>': entidade = "&gt;"; break;
+                case '"': entidade = "&quot;"; break;
+                case '\'': entidade = "&#39;"; break;
+                default: continue;
+            }
+            html.append(texto, inicio, i).append(entidade);
+            inicio = i + 1;
         }
+        html.append(texto, inicio, texto.length());
+    }
 
-        // Depois de passar por todos os livros e montar o HTML de cada um,
-        // a gente transforma o nosso 'StringBuilder' em uma String final e a devolve.
-        // Essa String vai ser inserida lá no nosso JSP para ser exibida na página.
+    /**
+     * Versão de {@link #escapar(String, StringBuilder)} que devolve uma String (para a JSP).
+     *
+     * @param texto O texto.
+     * @return O texto pronto para ir no HTML.
+     */
+    public static String escapar(String texto) {
+        StringBuilder html = new StringBuilder(texto == null ? 4 : texto.length() + 16);
+        escapar(texto, html);
         return html.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package br.com.wagnerv.util; // Mais uma "ferramenta" auxiliar do pacote 'util'.
+
+import br.com.wagnerv.model.Livro; // O livro que vira JSON.
+
+import java.io.IOException; // Escrever pode falhar (ex: o cliente fechou a conexão).
+
+/**
+ * Faz para a API o que o {@link GerarHtmlLivro} faz para a página: transforma um livro em texto,
+ * só que em JSON, por exemplo:
+ * <pre>
+ * {"id":7,"titulo":"DOM CASMURRO","autor":"MACHADO DE ASSIS","ano":1899,"isbn":"9788535910667"}
+ * </pre>
+ * Escreve direto no destino (a resposta, um StringBuilder...), sem montar objetos intermediários.
+ */
+public final class GerarJsonLivro {
+
+    private GerarJsonLivro() {
+        // Só métodos estáticos: ninguém precisa criar um objeto desta classe.
+    }
+
+    /**
+     * Escreve o livro como um objeto JSON.
+     *
+     * @param livro O livro.
+     * @param saida Para onde escrever.
+     * @throws IOException Se a escrita falhar.
+     */
+    public static void escrever(Livro livro, Appendable saida) throws IOException {
+        saida.append("{\"id\":").append(String.valueOf(livro.getId()));
+        saida.append(",\"titulo\":");
+        Json.escreverTexto(saida, livro.getTitulo());
+        saida.append(",\"autor\":");
+        Json.escreverTexto(saida, livro.getAutor());
+        saida.append(",\"ano\":").append(String.valueOf(livro.getAno()));
+        saida.append(",\"isbn\":");
+        Json.escreverTexto(saida, livro.getIsbn());
+        saida.append('}');
+    }
+
+    /**
+     * Escreve os livros como um array JSON.
+     *
+     * @param livros Os livros.
+     * @param saida Para onde escrever.
+     * @throws IOException Se a escrita falhar.
+     */
+    public static void escreverTodos(Iterable<Livro> livros, Appendable saida) throws IOException {
+        saida.append('[');
+        boolean primeiro = true;
+        for (Livro livro : livros) {
+            if (!primeiro) {
+                saida.append(',');
+            }
+            escrever(livro, saida);
+            primeiro = false;
+        }
+        saida.append(']');
+    }
+}
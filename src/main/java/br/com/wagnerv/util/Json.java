@@ -0,0 +1,294 @@
+package br.com.wagnerv.util; // Pacote de "ferramentas" auxiliares.
+
+import java.io.IOException;     // Escrever pode falhar (ex: o cliente fechou a conexão).
+import java.util.ArrayList;     // Arrays JSON viram listas.
+import java.util.LinkedHashMap; // Objetos JSON viram mapas (mantendo a ordem das chaves).
+import java.util.List;          // Interface de lista.
+import java.util.Map;           // Interface de mapa.
+
+/**
+ * Leitor (e escritor de textos) JSON bem pequeno, sem dependências externas.
+ *
+ * O projeto não usa nenhuma biblioteca de JSON, e o que a gente precisa ler é simples
+ * (um livro por objeto), então um analisador "descendente recursivo" de uma página resolve.
+ * O resultado usa tipos comuns do Java:
+ * - objeto → {@code Map<String, Object>} (na ordem em que as chaves aparecem);
+ * - array → {@code List<Object>};
+ * - texto → {@code String};
+ * - número → {@code Long} (se for inteiro) ou {@code Double};
+ * - true/false → {@code Boolean}; null → {@code null}.
+ */
+public final class Json {
+
+    // Objetos/arrays dentro de objetos/arrays além disso são recusados (protege a pilha de chamadas).
+    private static final int PROFUNDIDADE_MAXIMA = 64;
+
+    private final CharSequence texto; // O texto sendo lido.
+    private int posicao;              // Onde a leitura está.
+
+    private Json(CharSequence texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Lê um valor JSON qualquer.
+     *
+     * @param texto O texto JSON.
+     * @return O valor lido (veja os tipos na descrição da classe).
+     * @throws IllegalArgumentException Se o texto não for um JSON válido (a mensagem diz onde).
+     */
+    public static Object ler(CharSequence texto) {
+        Json leitor = new Json(texto);
+        leitor.pularEspacos();
+        Object valor = leitor.valor(0);
+        leitor.pularEspacos();
+        if (leitor.posicao < texto.length()) {
+            throw leitor.erro("conteúdo depois do fim do JSON");
+        }
+        return valor;
+    }
+
+    /**
+     * Lê um texto que precisa ser um objeto JSON ({@code {...}}).
+     *
+     * @param texto O texto JSON.
+     * @return As chaves e valores do objeto.
+     * @throws IllegalArgumentException Se o texto não for um objeto JSON válido.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> lerObjeto(CharSequence texto) {
+        Object valor = ler(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("esperado um objeto JSON ({...})");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    /**
+     * Escreve um texto como string JSON: entre aspas e com os caracteres especiais "escapados".
+     * {@code null} vira {@code null} (sem aspas).
+     *
+     * @param saida Para onde escrever.
+     * @param texto O texto.
+     * @throws IOException Se a escrita falhar.
+     */
+    public static void escreverTexto(Appendable saida, String texto) throws IOException {
+        if (texto == null) {
+            saida.append("null");
+            return;
+        }
+        saida.append('"');
+        int inicio = 0; // Trechos sem nada para escapar são copiados de uma vez.
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            saida.append(texto, inicio, i);
+            switch (c) {
+                case '"': saida.append("\\\""); break;
+                case '\\': saida.append("\\\\"); break;
+                case '\n': saida.append("\\n"); break;
+                case '\r': saida.append("\\r"); break;
+                case '\t': saida.append("\\t"); break;
+                default:
+                    // Outros caracteres de controle (e os separadores de linha que quebram JavaScript) viram o escape "barra-u" com 4 dígitos.
+                    saida.append(String.format("\\u%04x", (int) c));
+            }
+            inicio = i + 1;
+        }
+        saida.append(texto, inicio, texto.length());
+        saida.append('"');
+    }
+
+    private Object valor(int profundidade) {
+        if (posicao >= texto.length()) {
+            throw erro("fim inesperado");
+        }
+        char c = texto.charAt(posicao);
+        switch (c) {
+            case '{':
+                return objeto(profundidade + 1);
+            case '[':
+                return array(profundidade + 1);
+            case '"':
+                return string();
+            case 't':
+                return palavra("true", Boolean.TRUE);
+            case 'f':
+                return palavra("false", Boolean.FALSE);
+            case 'n':
+                return palavra("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return numero();
+                }
+                throw erro("caractere inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> objeto(int profundidade) {
+        if (profundidade > PROFUNDIDADE_MAXIMA) {
+            throw erro("JSON aninhado demais");
+        }
+        posicao++; // '{'
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        pularEspacos();
+        if (consumir('}')) {
+            return mapa;
+        }
+        do {
+            pularEspacos();
+            if (posicao >= texto.length() || texto.charAt(posicao) != '"') {
+                throw erro("esperado o nome de um campo entre aspas");
+            }
+            String chave = string();
+            pularEspacos();
+            if (!consumir(':')) {
+                throw erro("esperado ':'");
+            }
+            pularEspacos();
+            mapa.put(chave, valor(profundidade));
+            pularEspacos();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw erro("esperado ',' ou '}'");
+        }
+        return mapa;
+    }
+
+    private List<Object> array(int profundidade) {
+        if (profundidade > PROFUNDIDADE_MAXIMA) {
+            throw erro("JSON aninhado demais");
+        }
+        posicao++; // '['
+        List<Object> lista = new ArrayList<>();
+        pularEspacos();
+        if (consumir(']')) {
+            return lista;
+        }
+        do {
+            pularEspacos();
+            lista.add(valor(profundidade));
+            pularEspacos();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw erro("esperado ',' ou ']'");
+        }
+        return lista;
+    }
+
+    private String string() {
+        posicao++; // Aspas de abertura.
+        StringBuilder sb = null; // Só é criado se aparecer algum escape (\n, \", ç...).
+        int inicio = posicao;
+        while (posicao < texto.length()) {
+            char c = texto.charAt(posicao);
+            if (c == '"') {
+                String valor = sb == null
+                        ? texto.subSequence(inicio, posicao).toString()
+                        : sb.append(texto, inicio, posicao).toString();
+                posicao++;
+                return valor;
+            }
+            if (c < 0x20) {
+                throw erro("caractere de controle dentro de texto");
+            }
+            if (c != '\\') {
+                posicao++;
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder();
+            }
+            sb.append(texto, inicio, posicao);
+            if (posicao + 1 >= texto.length()) {
+                throw erro("escape incompleto");
+            }
+            char escape = texto.charAt(posicao + 1);
+            posicao += 2;
+            switch (escape) {
+                case '"': sb.append('"'); break;
+                case '\\': sb.append('\\'); break;
+                case '/': sb.append('/'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (posicao + 4 > texto.length()) {
+                        throw erro("escape \\u incompleto");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(texto.subSequence(posicao, posicao + 4).toString(), 16));
+                    } catch (NumberFormatException e) {
+                        throw erro("escape \\u inválido");
+                    }
+                    posicao += 4;
+                    break;
+                default:
+                    throw erro("escape inválido '\\" + escape + "'");
+            }
+            inicio = posicao;
+        }
+        throw erro("texto sem aspas de fechamento");
+    }
+
+    private Object numero() {
+        int inicio = posicao;
+        boolean decimal = false;
+        if (texto.charAt(posicao) == '-') {
+            posicao++;
+        }
+        while (posicao < texto.length()) {
+            char c = texto.charAt(posicao);
+            if (c >= '0' && c <= '9') {
+                posicao++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                decimal = true;
+                posicao++;
+            } else {
+                break;
+            }
+        }
+        String numero = texto.subSequence(inicio, posicao).toString();
+        try {
+            return decimal ? (Object) Double.valueOf(numero) : (Object) Long.valueOf(numero);
+        } catch (NumberFormatException e) {
+            posicao = inicio;
+            throw erro("número inválido '" + numero + "'");
+        }
+    }
+
+    private Object palavra(String palavra, Object valor) {
+        int fim = posicao + palavra.length();
+        if (fim > texto.length() || !palavra.contentEquals(texto.subSequence(posicao, fim))) {
+            throw erro("valor inválido");
+        }
+        posicao = fim;
+        return valor;
+    }
+
+    private boolean consumir(char c) {
+        if (posicao < texto.length() && texto.charAt(posicao) == c) {
+            posicao++;
+            return true;
+        }
+        return false;
+    }
+
+    private void pularEspacos() {
+        while (posicao < texto.length()) {
+            char c = texto.charAt(posicao);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            posicao++;
+        }
+    }
+
+    private IllegalArgumentException erro(String motivo) {
+        return new IllegalArgumentException(motivo + " (posição " + (posicao + 1) + ")");
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.wagnerv.util; // Pacote de "ferramentas" auxiliares.
+
+import java.text.Normalizer;  // Separa as letras dos acentos (ex: "ã" vira "a" + "~").
+import java.util.ArrayList;   // Lista de palavras encontradas.
+import java.util.List;        // Interface de lista.
+import java.util.Locale;      // Para converter para maiúsculas sem depender do idioma do servidor.
+import java.util.regex.Pattern; // Expressão regular dos acentos, compilada uma vez só.
+
+/**
+ * Deixa textos "comparáveis": tira acentos, passa para maiúsculas e quebra em palavras.
+ *
+ * Assim "São Paulo", "SAO PAULO" e "sao paulo" viram a mesma coisa, o que é essencial
+ * para buscar títulos e autores em português sem exigir que o usuário digite os acentos.
+ */
+public final class NormalizadorTexto {
+
+    // Marcas de acento que sobram depois da decomposição NFD.
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+
+    private NormalizadorTexto() {
+        // Só métodos estáticos: ninguém precisa criar um objeto desta classe.
+    }
+
+    /**
+     * Tira os acentos e passa o texto para maiúsculas.
+     * Ex: "Memórias Póstumas" vira "MEMORIAS POSTUMAS".
+     *
+     * @param texto O texto original (pode ser {@code null}).
+     * @return O texto normalizado (vazio se a entrada for {@code null}).
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        if (apenasAscii(texto)) {
+            return texto.toUpperCase(Locale.ROOT); // Caminho rápido: não há acento nenhum pra tirar.
+        }
+        // NFD separa cada letra acentuada em "letra + acento"; depois apagamos os acentos (\p{M}).
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        // Os ordinais "ª" e "º" não são letra + acento, então o NFD não mexe neles: viram A e O na mão,
+        // para que "2ª edição" e "2a edicao" deem as mesmas palavras.
+        return semAcento.replace('ª', 'a').replace('º', 'o').toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean apenasAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normaliza o texto e quebra em palavras (tudo que não é letra ou número separa palavras).
+     * Ex: "Dom Casmurro (2ª edição)" vira [DOM, CASMURRO, 2A, EDICAO].
+     *
+     * @param texto O texto original.
+     * @return As palavras normalizadas, na ordem em que aparecem.
+     */
+    public static List<String> palavras(String texto) {
+        String normalizado = normalizar(texto);
+        List<String> palavras = new ArrayList<>();
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean letraOuNumero = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (letraOuNumero && inicio < 0) {
+                inicio = i; // Começou uma palavra.
+            } else if (!letraOuNumero && inicio >= 0) {
+                palavras.add(normalizado.substring(inicio, i)); // Terminou uma palavra.
+                inicio = -1;
+            }
+        }
+        return palavras;
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.wagnerv.util; // Mais uma "ferramenta" auxiliar do pacote 'util'.
+
+import jakarta.servlet.http.HttpServletRequest; // De onde lemos os parâmetros 'pagina' e 'limite'.
+
+/**
+ * Guarda as contas da paginação da listagem de livros: qual página está sendo vista,
+ * quantos livros por página e quantas páginas existem.
+ *
+ * Com ela a listagem nunca precisa montar o catálogo inteiro de uma vez: só a página pedida
+ * é lida do catálogo e escrita na resposta.
+ *
+ * Parâmetros aceitos na URL (ex: "/livros?pagina=3&limite=50"):
+ * - 'pagina': número da página, começando em 1 (padrão: 1).
+ * - 'limite': quantos livros por página (padrão: {@value #LIMITE_PADRAO}, máximo: {@value #LIMITE_MAXIMO}).
+ */
+public class Paginacao {
+
+    // Quantos livros mostramos por página quando o usuário não diz nada.
+    public static final int LIMITE_PADRAO = 100;
+    // O máximo que aceitamos por página, para ninguém pedir "limite=10000000" e derrubar o servidor.
+    public static final int LIMITE_MAXIMO = 1000;
+
+    private final int pagina;        // Página atual (começa em 1).
+    private final int limite;        // Livros por página.
+    private final int totalLivros;   // Quantos livros existem no total.
+    private final int totalPaginas;  // Quantas páginas isso dá (no mínimo 1).
+
+    /**
+     * Cria a paginação já "ajustada": páginas fora do intervalo viram a primeira ou a última.
+     *
+     * @param pagina A página pedida (começando em 1).
+     * @param limite Quantos livros por página.
+     * @param totalLivros Quantos livros existem no catálogo.
+     */
+    public Paginacao(int pagina, int limite, int totalLivros) {
+        this.limite = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        this.totalLivros = Math.max(0, totalLivros);
+        // Em 'long' para não estourar quando o total ainda é desconhecido (Integer.MAX_VALUE).
+        this.totalPaginas = (int) Math.max(1, (this.totalLivros + (long) this.limite - 1) / this.limite);
+        this.pagina = Math.max(1, Math.min(pagina, totalPaginas));
+    }
+
+    /**
+     * Lê 'pagina' e 'limite' da requisição. Valores ausentes ou inválidos usam o padrão.
+     *
+     * @param request A requisição HTTP.
+     * @param totalLivros Quantos livros existem no catálogo.
+     * @return A paginação pronta para uso.
+     */
+    public static Paginacao de(HttpServletRequest request, int totalLivros) {
+        int pagina = lerInteiro(request.getParameter("pagina"), 1);
+        int limite = lerInteiro(request.getParameter("limite"), LIMITE_PADRAO);
+        return new Paginacao(pagina, limite, totalLivros);
+    }
+
+    /**
+     * Lê só o parâmetro 'limite' (já limitado a {@value #LIMITE_MAXIMO}), para consultas que
+     * não têm páginas, como a busca, que devolve os N resultados mais relevantes.
+     *
+     * @param request A requisição HTTP.
+     * @return Quantos itens devolver.
+     */
+    public static int limiteDe(HttpServletRequest request) {
+        return Math.max(1, Math.min(lerInteiro(request.getParameter("limite"), LIMITE_PADRAO), LIMITE_MAXIMO));
+    }
+
+    // Converte o texto em número, devolvendo o padrão se não der.
+    private static int lerInteiro(String valor, int padrao) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            return padrao;
+        }
+    }
+
+    /**
+     * @return Quantos livros pular a partir do começo do catálogo para chegar nesta página.
+     */
+    public int getInicio() {
+        return (pagina - 1) * limite;
+    }
+
+    public int getPagina() {
+        return pagina;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public int getTotalLivros() {
+        return totalLivros;
+    }
+
+    public int getTotalPaginas() {
+        return totalPaginas;
+    }
+
+    public boolean isTemAnterior() {
+        return pagina > 1;
+    }
+
+    public boolean isTemProxima() {
+        return pagina < totalPaginas;
+    }
+}
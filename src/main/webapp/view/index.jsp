@@ -1,4 +1,14 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page import="br.com.wagnerv.config.CatalogoAplicacao" %>
+<%@ page import="br.com.wagnerv.indice.IndiceFacetas" %>
+<%@ page import="br.com.wagnerv.model.Livro" %>
+<%@ page import="br.com.wagnerv.util.FiltroLivros" %>
+<%@ page import="br.com.wagnerv.util.CacheFragmentosHtml" %>
+<%@ page import="br.com.wagnerv.util.GerarHtmlLivro" %>
+<%@ page import="br.com.wagnerv.util.Paginacao" %>
+<%@ page import="java.net.URLEncoder" %>
+<%@ page import="java.nio.charset.StandardCharsets" %>
+<%@ page import="java.util.List" %>
 <!DOCTYPE html>
 <html lang="pt-BR">
 <head>
@@ -63,6 +73,13 @@
             font-size: 1.1rem;
         }
 
+        /* Caixa "Cadastrar mesmo se parecer repetido" (só no modo de repetidos aproximado). */
+        label.confirmacao {
+            font-weight: 400;
+            font-size: 0.95rem;
+            margin-bottom: 1rem;
+        }
+
         input[type="text"] {
             width: 100%;
             padding: 12px 15px;
@@ -89,6 +106,13 @@
             font-weight: 600;
         }
 
+        /* Campo de arquivo da importação em lote */
+        input[type="file"] {
+            width: 100%;
+            font-size: 1rem;
+            color: #e0e6f8;
+        }
+
         /* Botão de Adicionar Livro */
         /* Use um seletor mais específico para não conflitar com o botão de excluir */
         button[type="submit"]:not(.delete-form button) {
@@ -126,6 +150,46 @@
             user-select: none;
         }
 
+        /* Aviso de sucesso (ex: quantos livros a exclusão em lote removeu) */
+        .aviso {
+            background: #2e9e6b;
+            color: white;
+            padding: 14px 20px;
+            border-radius: 12px;
+            max-width: 480px;
+            width: 100%;
+            margin-bottom: 2rem;
+            font-weight: 600;
+            text-align: center;
+            box-shadow: 0 0 15px rgba(46, 158, 107, 0.8);
+        }
+
+        /* Campo com a lista de IDs da exclusão em lote */
+        textarea {
+            width: 100%;
+            min-height: 70px;
+            padding: 12px 15px;
+            border-radius: 10px;
+            border: none;
+            font-size: 1rem;
+            font-family: inherit;
+            background: rgba(255, 255, 255, 0.15);
+            color: #e0e6f8;
+            box-shadow: inset 0 2px 5px rgba(0,0,0,0.3);
+            resize: vertical;
+        }
+
+        /* Botões que excluem vários livros: vermelhos, para não confundir com os de cadastro */
+        button[type="submit"].excluir-lote {
+            background: #ff6b6b;
+            box-shadow: 0 6px 15px rgba(255, 107, 107, 0.6);
+        }
+
+        button[type="submit"].excluir-lote:hover {
+            background: #e84141;
+            box-shadow: 0 8px 22px rgba(232, 65, 65, 0.8);
+        }
+
         /* Lista de livros (container para os cards) */
         .livros-lista {
             width: 100%;
@@ -211,6 +275,104 @@
             font-size: 1.1em;
         }
 
+        /* Campo de busca (não usa o visual de "cartão" do formulário de cadastro) */
+        form.busca {
+            width: 100%;
+            max-width: 960px;
+            margin-bottom: 1.5rem;
+            padding: 0;
+            background: transparent;
+            box-shadow: none;
+            backdrop-filter: none;
+        }
+
+        form.busca:hover {
+            transform: none;
+        }
+
+        .busca input[type="search"] {
+            width: 100%;
+            padding: 12px 15px;
+            border-radius: 10px;
+            border: none;
+            font-size: 1rem;
+            background: rgba(255, 255, 255, 0.15);
+            color: #e0e6f8;
+            box-shadow: inset 0 2px 5px rgba(0,0,0,0.3);
+        }
+
+        .busca input[type="search"]:focus {
+            outline: none;
+            box-shadow: 0 0 12px 3px #5db9ff;
+        }
+
+        .busca p {
+            margin-top: 10px;
+        }
+
+        .busca a {
+            color: #5db9ff;
+        }
+
+        /* Navegação entre páginas da listagem */
+        .paginacao {
+            display: flex;
+            align-items: center;
+            gap: 20px;
+            margin: 1.5rem 0;
+            font-weight: 600;
+        }
+
+        .paginacao a {
+            color: #5db9ff;
+            text-decoration: none;
+        }
+
+        .paginacao a:hover {
+            color: #3a8ddd;
+        }
+
+        /* Facetas: livros por década e autores com mais livros (links que aplicam o filtro) */
+        .facetas {
+            width: 100%;
+            max-width: 960px;
+            margin-bottom: 1.5rem;
+        }
+
+        .facetas h2 {
+            font-size: 1rem;
+            font-weight: 600;
+            margin: 0.8rem 0 0.4rem;
+        }
+
+        .facetas ul {
+            list-style: none;
+            display: flex;
+            flex-wrap: wrap;
+            gap: 8px;
+        }
+
+        .facetas a {
+            display: inline-block;
+            padding: 4px 12px;
+            border-radius: 12px;
+            background: rgba(255, 255, 255, 0.12);
+            color: #e0e6f8;
+            text-decoration: none;
+            font-size: 0.9rem;
+        }
+
+        .facetas a:hover,
+        .facetas a.ativa {
+            background: #5db9ff;
+            color: #141e30;
+        }
+
+        .facetas p a {
+            padding: 0;
+            background: transparent;
+            color: #5db9ff;
+        }
 
         /* Responsive */
         @media (max-width: 600px) {
@@ -241,10 +403,16 @@
 <h1>Biblioteca Virtual - Cadastro de Livros</h1>
 
 <% if (request.getAttribute("mensagemErro") != null) { %>
-<div class="error"><%= request.getAttribute("mensagemErro") %></div>
+<%-- A mensagem pode trazer o título e o autor de um livro do catálogo (livro repetido): sempre escapada. --%>
+<div class="error"><%= GerarHtmlLivro.escapar(String.valueOf(request.getAttribute("mensagemErro"))) %></div>
+<% } %>
+<%-- Volta da exclusão em lote: o Servlet redireciona com "?removidos=N". --%>
+<% if (request.getParameter("removidos") != null && request.getParameter("removidos").matches("\\d{1,9}")) { %>
+<div class="aviso"><%= request.getParameter("removidos") %> livro(s) excluído(s).</div>
 <% } %>
 
-<form method="post" action="<%= request.getContextPath() %>/livros">
+<% boolean conferenciaAproximada = CatalogoAplicacao.de(application).isConferenciaAproximada(); %>
+<form id="form-adicionar" method="post" action="<%= request.getContextPath() %>/livros">
     <input type="hidden" name="action" value="add" />
     <label for="titulo">Título</label>
     <input type="text" id="titulo" name="titulo" placeholder="Digite o título do livro" required />
@@ -255,12 +423,273 @@
     <label for="ano">Ano</label>
     <input type="text" id="ano" name="ano" placeholder="Ano de publicação" required />
 
+    <%-- No modo aproximado, um livro só parecido com outro é recusado até o usuário confirmar aqui. --%>
+    <% if (conferenciaAproximada) { %>
+    <label class="confirmacao"><input type="checkbox" name="aceitarParecidos" value="1" />
+        Cadastrar mesmo se parecer repetido</label>
+    <% } %>
+
     <button type="submit"><i class="fas fa-plus-circle"></i> Adicionar Livro</button>
 </form>
 
-<div class="livros-lista">
-    <%= request.getAttribute("htmlLivros") %>
+<%-- Importação em lote: um arquivo CSV (titulo,autor,ano[,isbn]) ou JSON Lines, com vários livros de uma vez. --%>
+<form class="importacao" method="post" action="<%= request.getContextPath() %>/livros/importar" enctype="multipart/form-data">
+    <label for="arquivo">Importar livros (CSV ou JSON Lines)</label>
+    <input type="file" id="arquivo" name="arquivo" accept=".csv,.jsonl,.ndjson,.txt" required />
+    <% if (conferenciaAproximada) { %>
+    <label class="confirmacao"><input type="checkbox" name="aceitarParecidos" value="1" />
+        Importar também os livros parecidos com os já cadastrados</label>
+    <% } %>
+
+    <button type="submit"><i class="fas fa-file-import"></i> Importar</button>
+</form>
+
+<%-- Exclusão em lote: vários IDs de uma vez (separados por vírgula, espaço ou um por linha). --%>
+<form class="exclusao-lote" method="post" action="<%= request.getContextPath() %>/livros"
+      onsubmit="return confirm('Excluir todos os livros destes IDs?');">
+    <input type="hidden" name="action" value="deleteMany" />
+    <label for="ids">Excluir vários livros (IDs)</label>
+    <textarea id="ids" name="ids" placeholder="Ex: 12, 15, 31" required></textarea>
+
+    <button type="submit" class="excluir-lote"><i class="fas fa-trash"></i> Excluir os IDs informados</button>
+</form>
+
+<%
+    // Texto da busca atual (null quando estamos só listando o catálogo).
+    String busca = (String) request.getAttribute("busca");
+    String buscaHtml = busca == null ? "" : GerarHtmlLivro.escapar(busca);
+%>
+<form class="busca" method="get" action="<%= request.getContextPath() %>/livros" role="search">
+    <input type="search" id="q" name="q" value="<%= buscaHtml %>" placeholder="Buscar por título ou autor" autocomplete="off" />
+    <% if (busca != null) { %>
+    <p>Resultados para "<%= buscaHtml %>" &middot; <a href="<%= request.getContextPath() %>/livros">ver todos</a></p>
+    <% } %>
+</form>
+
+<%
+    // Filtro por ano/autor (null quando a listagem não está filtrada) e as contagens da lateral.
+    FiltroLivros filtro = (FiltroLivros) request.getAttribute("filtro");
+    String parametrosFiltro = filtro == null ? "" : GerarHtmlLivro.escapar(filtro.getParametrosUrl());
+    @SuppressWarnings("unchecked")
+    List<IndiceFacetas.Faceta> decadas = (List<IndiceFacetas.Faceta>) request.getAttribute("decadas");
+    @SuppressWarnings("unchecked")
+    List<IndiceFacetas.Faceta> autoresMaisLivros = (List<IndiceFacetas.Faceta>) request.getAttribute("autoresMaisLivros");
+%>
+<% if (decadas != null && busca == null) { %>
+<section class="facetas">
+    <% if (filtro != null) { %>
+    <p>Filtro: <%= GerarHtmlLivro.escapar(filtro.getDescricao()) %> &middot; <a href="<%= request.getContextPath() %>/livros">ver todos</a></p>
+    <%
+        // Exclui de uma vez todos os livros do filtro (não só os da página), com os mesmos parâmetros.
+        long totalFiltro = ((Paginacao) request.getAttribute("paginacao")).getTotalLivros();
+        if (totalFiltro > 0) { %>
+    <form class="exclusao-lote" method="post" action="<%= request.getContextPath() %>/livros"
+          onsubmit="return confirm('Excluir os <%= totalFiltro %> livros deste filtro?');">
+        <input type="hidden" name="action" value="deleteFilter" />
+        <% if (filtro.getAnoDe() != null) { %><input type="hidden" name="anoDe" value="<%= filtro.getAnoDe() %>" /><% } %>
+        <% if (filtro.getAnoAte() != null) { %><input type="hidden" name="anoAte" value="<%= filtro.getAnoAte() %>" /><% } %>
+        <% if (filtro.getAutor() != null) { %><input type="hidden" name="autor" value="<%= GerarHtmlLivro.escapar(filtro.getAutor()) %>" /><% } %>
+        <button type="submit" class="excluir-lote"><i class="fas fa-trash"></i> Excluir os <%= totalFiltro %> livros deste filtro</button>
+    </form>
+    <% } %>
+    <% } %>
+    <h2>Por década</h2>
+    <ul>
+        <% for (IndiceFacetas.Faceta decada : decadas) {
+            int inicio = Integer.parseInt(decada.getValor());
+            boolean ativa = filtro != null && Integer.valueOf(inicio).equals(filtro.getAnoDe())
+                    && Integer.valueOf(inicio + 9).equals(filtro.getAnoAte()); %>
+        <li><a class="<%= ativa ? "ativa" : "" %>" href="<%= request.getContextPath() %>/livros?anoDe=<%= inicio %>&amp;anoAte=<%= inicio + 9 %>"><%= decada.getRotulo() %> (<%= decada.getQuantidade() %>)</a></li>
+        <% } %>
+    </ul>
+    <h2>Autores com mais livros</h2>
+    <ul>
+        <% for (IndiceFacetas.Faceta autor : autoresMaisLivros) {
+            boolean ativa = filtro != null && autor.getValor().equalsIgnoreCase(filtro.getAutor()); %>
+        <li><a class="<%= ativa ? "ativa" : "" %>" href="<%= request.getContextPath() %>/livros?autor=<%= URLEncoder.encode(autor.getValor(), StandardCharsets.UTF_8) %>"><%= GerarHtmlLivro.escapar(autor.getRotulo()) %> (<%= autor.getQuantidade() %>)</a></li>
+        <% } %>
+    </ul>
+</section>
+<% } %>
+
+<%
+    // Manda já para o navegador o cabeçalho e o formulário, antes de começar a listar os livros.
+    out.flush();
+    Paginacao paginacao = (Paginacao) request.getAttribute("paginacao");
+    @SuppressWarnings("unchecked")
+    Iterable<Livro> livrosPagina = (Iterable<Livro>) request.getAttribute("livrosPagina");
+    // Os livros novos só entram direto na lista quando ela mostra o fim do catálogo sem filtro
+    // (é lá que eles aparecem na listagem); nas outras páginas, só um aviso.
+    boolean fimDoCatalogo = busca == null && filtro == null && paginacao != null && !paginacao.isTemProxima();
+%>
+
+<%-- Avisos das atualizações ao vivo (preenchidos pelo JavaScript). --%>
+<div class="error" id="erro-ao-vivo" hidden></div>
+<div class="aviso" id="aviso-ao-vivo" hidden></div>
+
+<div class="livros-lista" id="livros-lista" data-fim="<%= fimDoCatalogo %>"
+     data-limite="<%= paginacao == null ? 0 : paginacao.getLimite() %>">
+    <%
+        // Os cards são escritos direto na resposta, em pedaços, em vez de virar uma String gigante.
+        // Quando o cache existe, cada card já vem pronto dele.
+        if (livrosPagina != null) {
+            CacheFragmentosHtml cache = (CacheFragmentosHtml) application.getAttribute(CacheFragmentosHtml.ATRIBUTO);
+            GerarHtmlLivro.escrever(request.getContextPath(), livrosPagina, out, cache);
+        }
+    %>
 </div>
 
+<% if (paginacao != null && paginacao.getTotalPaginas() > 1) { %>
+<nav class="paginacao">
+    <% if (paginacao.isTemAnterior()) { %>
+    <a href="<%= request.getContextPath() %>/livros?pagina=<%= paginacao.getPagina() - 1 %>&amp;limite=<%= paginacao.getLimite() %><%= parametrosFiltro %>"><i class="fas fa-chevron-left"></i> Anterior</a>
+    <% } %>
+    <span>Página <%= paginacao.getPagina() %> de <%= paginacao.getTotalPaginas() %> (<%= paginacao.getTotalLivros() %> livros)</span>
+    <% if (paginacao.isTemProxima()) { %>
+    <a href="<%= request.getContextPath() %>/livros?pagina=<%= paginacao.getPagina() + 1 %>&amp;limite=<%= paginacao.getLimite() %><%= parametrosFiltro %>">Próxima <i class="fas fa-chevron-right"></i></a>
+    <% } %>
+</nav>
+<% } %>
+
+<script>
+    // Busca "enquanto digita": depois de uma pausa na digitação, pede só os cards ao servidor
+    // ("parcial=1") e troca a lista. O último pedaço digitado vale como prefixo.
+    (function () {
+        var campo = document.getElementById('q');
+        var lista = document.getElementById('livros-lista');
+        var espera = null;
+        campo.addEventListener('input', function () {
+            clearTimeout(espera);
+            espera = setTimeout(function () {
+                var termo = campo.value.trim();
+                if (termo === '') {
+                    return;
+                }
+                fetch('<%= request.getContextPath() %>/livros?parcial=1&q=' + encodeURIComponent(termo))
+                    .then(function (resposta) { return resposta.text(); })
+                    .then(function (html) {
+                        lista.innerHTML = html;
+                        lista.dataset.fim = 'false'; // Agora é um resultado de busca: livro novo não entra aqui.
+                    });
+            }, 200);
+        });
+    })();
+</script>
+
+<script>
+    // Atualizações ao vivo (Server-Sent Events): quando alguém adiciona ou exclui um livro, em
+    // qualquer navegador, o servidor manda só aquele card (ou o ID que saiu) e a lista é corrigida
+    // aqui, sem recarregar a página. O "desde" é o último evento que esta página já tem.
+    (function () {
+        var ultimoEvento = '<%= request.getAttribute("ultimoEvento") == null ? "" : request.getAttribute("ultimoEvento") %>';
+        var lista = document.getElementById('livros-lista');
+        var aviso = document.getElementById('aviso-ao-vivo');
+        var novos = 0;
+        if (!window.EventSource || ultimoEvento === '') {
+            return;
+        }
+        function avisar(texto) {
+            aviso.innerHTML = texto + ' <a href="">Atualizar a página</a>';
+            aviso.hidden = false;
+        }
+        function card(id) {
+            return lista.querySelector('.livro-card[data-id="' + id + '"]');
+        }
+        var fonte = new EventSource('<%= request.getContextPath() %>/livros/eventos?desde=' + encodeURIComponent(ultimoEvento));
+        fonte.addEventListener('adicionado', function (e) {
+            var evento = JSON.parse(e.data);
+            if (card(evento.id)) {
+                return; // Repetido (reenvio depois de reconectar).
+            }
+            if (lista.dataset.fim === 'true' && lista.children.length < Number(lista.dataset.limite)) {
+                lista.insertAdjacentHTML('beforeend', evento.html);
+            } else {
+                novos++;
+                avisar(novos + ' livro(s) novo(s) no catálogo.');
+            }
+        });
+        fonte.addEventListener('removido', function (e) {
+            var removido = card(JSON.parse(e.data).id);
+            if (removido) {
+                removido.remove();
+            }
+        });
+        fonte.addEventListener('recarregar', function () {
+            avisar('O catálogo mudou bastante desde que esta página foi aberta.');
+        });
+    })();
+
+    // Incluir e excluir sem recarregar a página: os formulários vão pela API JSON e o card aparece
+    // (ou some) pelo evento acima, como nas outras páginas abertas. Se o pedido nem chegar ao
+    // servidor (rede fora), o formulário é enviado do jeito normal; sem JavaScript, tudo funciona
+    // como antes. Uma resposta de erro NUNCA reenvia o formulário: o servidor pode já ter incluído
+    // ou excluído o livro, e o reenvio faria a operação duas vezes.
+    (function () {
+        var api = '<%= request.getContextPath() %>/api/livros';
+        var erro = document.getElementById('erro-ao-vivo');
+        if (!window.fetch) {
+            return;
+        }
+        function mostrarErro(mensagem) {
+            erro.textContent = mensagem || '';
+            erro.hidden = !mensagem;
+        }
+        // O corpo do erro é JSON quando vem da API; uma página de erro do Tomcat ou do proxy
+        // (500, 413, 502...) não é, e aí vai uma mensagem genérica.
+        function tratarErro(resposta) {
+            return resposta.json()
+                .then(function (corpo) {
+                    if (!corpo || !corpo.erro) {
+                        throw new Error();
+                    }
+                    mostrarErro(corpo.erro);
+                })
+                .catch(function () {
+                    mostrarErro('Não foi possível concluir a operação (erro ' + resposta.status
+                            + '). Atualize a página para conferir o catálogo antes de tentar de novo.');
+                });
+        }
+
+        var formulario = document.getElementById('form-adicionar');
+        formulario.addEventListener('submit', function (e) {
+            e.preventDefault();
+            var livro = {titulo: formulario.titulo.value, autor: formulario.autor.value, ano: formulario.ano.value};
+            var confirmacao = formulario.elements['aceitarParecidos'];
+            if (confirmacao && confirmacao.checked) {
+                livro.aceitarParecidos = true;
+            }
+            fetch(api, {method: 'POST', headers: {'Content-Type': 'application/json'}, body: JSON.stringify(livro)})
+                .then(function (resposta) {
+                    if (resposta.status === 201) {
+                        formulario.reset();
+                        mostrarErro(null);
+                        return;
+                    }
+                    return tratarErro(resposta);
+                }, function () { formulario.submit(); });
+        });
+
+        document.getElementById('livros-lista').addEventListener('submit', function (e) {
+            var form = e.target;
+            if (!form.classList.contains('delete-form')) {
+                return;
+            }
+            e.preventDefault();
+            fetch(api + '/' + encodeURIComponent(form.elements['id'].value), {method: 'DELETE'})
+                .then(function (resposta) {
+                    if (resposta.status === 204 || resposta.status === 404) {
+                        var card = form.closest('.livro-card'); // Some já aqui; o evento só confirma.
+                        if (card) {
+                            card.remove();
+                        }
+                        mostrarErro(null);
+                        return;
+                    }
+                    return tratarErro(resposta);
+                }, function () { form.submit(); });
+        });
+    })();
+</script>
+
 </body>
 </html>
@@ -0,0 +1,123 @@
+package br.com.wagnerv.importacao; // Mesmo pacote do importador testado.
+
+import br.com.wagnerv.exception.LivroException;          // Arquivo que não pode ser importado.
+import br.com.wagnerv.importacao.ImportadorLivros.Formato; // CSV ou JSON Lines.
+import br.com.wagnerv.model.Livro;                        // Os livros importados.
+import br.com.wagnerv.repository.LivroRepository;         // O catálogo que recebe os livros.
+import br.com.wagnerv.repository.LivroRepositoryMemoria;  // Implementação simples para o teste.
+
+import org.junit.jupiter.api.Test; // Marca os testes.
+
+import java.io.IOException;        // Erros de leitura.
+import java.io.StringReader;       // O "arquivo" vem de uma String.
+import java.util.ArrayList;        // Livros do catálogo, em ordem de ID.
+import java.util.Comparator;       // Ordena pelo ID (a ordem de entrada).
+import java.util.List;             // Interface de lista.
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Importação de planilhas CSV: aspas, separador, cabeçalho e o relatório de erros linha a linha.
+ */
+class ImportadorLivrosTest {
+
+    private final LivroRepository livros = new LivroRepositoryMemoria();
+    private final ImportadorLivros importador = new ImportadorLivros(livros);
+
+    @Test
+    void camposEntreAspasPodemTerSeparadorAspasEQuebraDeLinha() throws Exception {
+        ResultadoImportacao resultado = importar(
+                "\"Memórias Póstumas, de Brás Cubas\",Machado de Assis,1881\r\n"
+                + "\"O \"\"Alienista\"\"\",Machado de Assis,1882,9788508133037\r\n"
+                + "\"Uma\r\nlinha a mais\",\"Autor\",1900\r\n", Formato.CSV);
+
+        assertEquals(3, resultado.getImportados());
+        assertEquals(List.of(), resultado.getErros());
+        List<Livro> importados = catalogo();
+        assertEquals("MEMÓRIAS PÓSTUMAS, DE BRÁS CUBAS", importados.get(0).getTitulo());
+        assertEquals("MACHADO DE ASSIS", importados.get(0).getAutor());
+        assertEquals(1881, importados.get(0).getAno());
+        assertEquals("O \"ALIENISTA\"", importados.get(1).getTitulo());
+        assertEquals("9788508133037", importados.get(1).getIsbn());
+        assertEquals("UMA\nLINHA A MAIS", importados.get(2).getTitulo()); // O \r some, o \n fica.
+    }
+
+    @Test
+    void pontoEVirgulaComCabecalhoEmOutraOrdem() throws Exception {
+        // Excel em português: ';' separa, e a vírgula do título é só texto.
+        ResultadoImportacao resultado = importar(
+                "Ano;Título;AUTOR;isbn\n"
+                + "1899;Dom Casmurro, edição anotada;Machado de Assis;\n"
+                + "\n"
+                + "1890;O Cortiço;Aluísio Azevedo;9788508133037\n", null);
+
+        assertEquals(2, resultado.getLidos());
+        assertEquals(2, resultado.getImportados());
+        List<Livro> importados = catalogo();
+        assertEquals("DOM CASMURRO, EDIÇÃO ANOTADA", importados.get(0).getTitulo());
+        assertEquals(1899, importados.get(0).getAno());
+        assertEquals("ALUÍSIO AZEVEDO", importados.get(1).getAutor());
+        assertEquals("9788508133037", importados.get(1).getIsbn());
+    }
+
+    @Test
+    void virgulaGanhaQuandoAparecemMaisVirgulasForaDeAspas() throws Exception {
+        // Os ';' entre aspas não contam na escolha do separador.
+        ResultadoImportacao resultado = importar("\"Contos; crônicas; ensaios\",Autor,1950\n", Formato.CSV);
+
+        assertEquals(1, resultado.getImportados());
+        assertEquals("CONTOS; CRÔNICAS; ENSAIOS", catalogo().get(0).getTitulo());
+    }
+
+    @Test
+    void errosSaemComALinhaDoArquivo() throws Exception {
+        ResultadoImportacao resultado = importar(
+                "titulo,autor,ano\n"                // linha 1
+                + "Dom Casmurro,Machado,1899\n"     // linha 2
+                + "Sem ano,Fulano,\n"               // linha 3
+                + "Ano errado,Fulano,mil\n"         // linha 4
+                + "Só título e autor,Fulano\n"      // linha 5
+                + "\"Duas\nlinhas\",Fulano,1900\n"  // linhas 6 e 7
+                + "\"Aberta,Fulano,1900\n"          // linha 8 (engole o resto)
+                + "Nunca lido,Fulano,1901\n", Formato.CSV);
+
+        assertEquals(6, resultado.getLidos());
+        assertEquals(2, resultado.getImportados());
+        assertEquals(4, resultado.getRejeitados());
+        assertEquals(List.of(
+                "linha 3: Ano obrigatório.",
+                "linha 4: Ano deve ser um número.",
+                "linha 5: Esperadas as colunas título, autor e ano; encontrada(s) 2.",
+                "linha 8: Aspas abertas e não fechadas."), resultado.getErros());
+    }
+
+    @Test
+    void cabecalhoSemAnoRecusaOArquivo() {
+        assertThrows(LivroException.class, () -> importar("titulo;autor;isbn\nDom Casmurro;Machado;\n", null));
+        assertEquals(0, livros.tamanho());
+    }
+
+    @Test
+    void formatoPeloNomePeloArquivoOuPeloTipo() {
+        assertEquals(Formato.CSV, Formato.detectar(" CSV ", "livros.jsonl", null));
+        assertEquals(Formato.JSON_LINHAS, Formato.detectar("ndjson", null, "text/csv"));
+        assertEquals(Formato.CSV, Formato.detectar(null, "Planilha.CSV", "application/octet-stream"));
+        assertEquals(Formato.JSON_LINHAS, Formato.detectar("", "livros.jsonl", null));
+        assertEquals(Formato.CSV, Formato.detectar(null, null, "text/csv; charset=UTF-8"));
+        assertEquals(Formato.JSON_LINHAS, Formato.detectar(null, "dados", "application/x-ndjson"));
+        assertNull(Formato.detectar(null, "dados.txt", "text/plain"));
+    }
+
+    private ResultadoImportacao importar(String conteudo, Formato formato) throws IOException, LivroException {
+        return importador.importar(new StringReader(conteudo), formato);
+    }
+
+    private List<Livro> catalogo() {
+        List<Livro> lista = new ArrayList<>();
+        livros.snapshot().forEach(lista::add);
+        lista.sort(Comparator.comparingInt(Livro::getId));
+        return lista;
+    }
+}
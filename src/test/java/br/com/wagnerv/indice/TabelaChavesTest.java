@@ -0,0 +1,96 @@
+package br.com.wagnerv.indice; // Mesmo pacote: a tabela é do pacote.
+
+import org.junit.jupiter.api.Test; // Marca os testes.
+
+import java.util.ArrayList;        // IDs de cada chave no modelo.
+import java.util.HashMap;          // O modelo "óbvio" para comparar.
+import java.util.List;             // Interface de lista.
+import java.util.Map;              // Interface de mapa.
+import java.util.Random;           // Sequência de operações (com semente fixa).
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chaves repetidas (a mesma chave para vários livros) e a exclusão que puxa os vizinhos para trás.
+ */
+class TabelaChavesTest {
+
+    private static final long CHAVE = 0x1234_5678_9abc_def0L;
+
+    @Test
+    void chaveRepetidaSoSaiComOUltimoLivro() {
+        TabelaChaves tabela = new TabelaChaves(16);
+        assertTrue(tabela.adicionar(CHAVE, 1));
+        assertFalse(tabela.adicionar(CHAVE, 2));
+        assertFalse(tabela.adicionar(CHAVE, 3));
+        assertTrue(tabela.adicionar(CHAVE + 1, 10));
+        assertEquals(2, tabela.tamanho());
+        assertEquals(1, idDe(tabela, CHAVE)); // A tabela mostra o primeiro.
+
+        tabela.remover(CHAVE, 2);
+        assertEquals(1, idDe(tabela, CHAVE));
+        tabela.remover(CHAVE, 1);
+        // Ainda há o livro 3 com a chave, mas a tabela não sabe qual é.
+        assertEquals(TabelaChaves.SEM_ID, idDe(tabela, CHAVE));
+
+        assertFalse(tabela.adicionar(CHAVE, 4)); // Volta a ter um livro conhecido.
+        assertEquals(4, idDe(tabela, CHAVE));
+        tabela.remover(CHAVE, 3);
+        assertEquals(4, idDe(tabela, CHAVE));
+        tabela.remover(CHAVE, 4);
+        assertTrue(tabela.buscar(CHAVE) < 0);
+
+        assertEquals(1, tabela.tamanho());
+        assertEquals(10, idDe(tabela, CHAVE + 1));
+        tabela.remover(CHAVE, 4); // Chave que não está lá: nada muda.
+        assertEquals(1, tabela.tamanho());
+    }
+
+    @Test
+    void confereComUmMapaEmMuitasOperacoes() {
+        // Capacidade pequena para a tabela crescer várias vezes. Metade das chaves tem a mesma
+        // posição ideal ((x << 32 | x) cai sempre na posição 0), para forçar sondagens longas que
+        // dão a volta no fim do array; a outra metade é espalhada.
+        TabelaChaves tabela = new TabelaChaves(1);
+        Map<Long, List<Integer>> modelo = new HashMap<>();
+        Random aleatorio = new Random(42);
+        long[] chaves = new long[600];
+        for (int i = 0; i < chaves.length; i++) {
+            long x = i + 2;
+            chaves[i] = i % 2 == 0 ? x << 32 | x : aleatorio.nextLong() | 2;
+        }
+        int proximoId = 1;
+        for (int passo = 0; passo < 200_000; passo++) {
+            long chave = chaves[aleatorio.nextInt(chaves.length)];
+            List<Integer> ids = modelo.computeIfAbsent(chave, c -> new ArrayList<>());
+            if (ids.isEmpty() || aleatorio.nextInt(5) < 2) {
+                assertEquals(ids.isEmpty(), tabela.adicionar(chave, proximoId));
+                ids.add(proximoId++);
+            } else {
+                tabela.remover(chave, ids.remove(aleatorio.nextInt(ids.size())));
+            }
+
+            int posicao = tabela.buscar(chave);
+            assertEquals(!ids.isEmpty(), posicao >= 0);
+            if (posicao >= 0) {
+                int id = tabela.id(posicao);
+                assertTrue(id == TabelaChaves.SEM_ID || ids.contains(id), "passo " + passo);
+            }
+            if (passo % 1_000 == 0) {
+                long distintas = modelo.values().stream().filter(l -> !l.isEmpty()).count();
+                assertEquals(distintas, tabela.tamanho());
+                for (Map.Entry<Long, List<Integer>> e : modelo.entrySet()) {
+                    assertEquals(!e.getValue().isEmpty(), tabela.buscar(e.getKey()) >= 0, "passo " + passo);
+                }
+            }
+        }
+    }
+
+    private static int idDe(TabelaChaves tabela, long chave) {
+        int posicao = tabela.buscar(chave);
+        assertTrue(posicao >= 0);
+        return tabela.id(posicao);
+    }
+}
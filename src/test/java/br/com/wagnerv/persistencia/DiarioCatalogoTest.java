@@ -0,0 +1,116 @@
+package br.com.wagnerv.persistencia; // Mesmo pacote: 'reproduzir' e os registros são do pacote.
+
+import br.com.wagnerv.model.Livro; // Os livros anotados no diário.
+
+import org.junit.jupiter.api.Test;          // Marca os testes.
+import org.junit.jupiter.api.io.TempDir;    // Diretório temporário, apagado no fim.
+
+import java.io.IOException;                 // Erros de disco.
+import java.nio.file.Files;                 // Cópia dos pedaços do diário.
+import java.nio.file.Path;                  // Caminhos dos arquivos.
+import java.util.ArrayList;                 // Registros reproduzidos.
+import java.util.Arrays;                    // Corte dos bytes do diário.
+import java.util.HashMap;                   // Tamanho do arquivo para cada quantidade de registros.
+import java.util.List;                      // Interface de lista.
+import java.util.Map;                       // Interface de mapa.
+import java.util.stream.Collectors;         // Junta os segmentos numa lista.
+import java.util.stream.Stream;             // Para achar o segmento no diretório.
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recuperação do diário depois de uma queda no meio da escrita: o arquivo pode terminar em
+ * qualquer byte, e a reprodução precisa entregar exatamente os registros inteiros, em ordem.
+ */
+class DiarioCatalogoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void corteEmQualquerPosicaoEntregaSoOsRegistrosInteiros() throws IOException {
+        DiarioCatalogo diario = new DiarioCatalogo(diretorio, 0);
+        diario.registrarAdicao(new Livro(1, "DOM CASMURRO", "MACHADO DE ASSIS", 1899, "9788535910663"));
+        diario.registrarAdicao(new Livro(2, "MEMÓRIAS PÓSTUMAS", "MACHADO DE ASSIS", 1881, null));
+        diario.registrarRemocao(1);
+        diario.registrarRemocoes(new int[] {2, 7, 9});
+        diario.registrarAdicao(new Livro(3, "O CORTIÇO", "ALUÍSIO AZEVEDO", 1890, "9788508133037"));
+        diario.close();
+
+        Path segmento = unicoSegmento(diretorio);
+        byte[] completo = Files.readAllBytes(segmento);
+        List<RegistroDiario> todos = reproduzir(diretorio, 0);
+        assertEquals(5, todos.size());
+
+        // Para cada quantidade de registros recuperados, o tamanho em que o arquivo foi cortado.
+        Map<Integer, Long> fimPorQuantidade = new HashMap<>();
+        for (int corte = 0; corte <= completo.length; corte++) {
+            Path copia = Files.createDirectories(diretorio.resolve("corte-" + corte));
+            Path arquivo = copia.resolve(segmento.getFileName());
+            Files.write(arquivo, Arrays.copyOf(completo, corte));
+
+            List<RegistroDiario> recuperados = reproduzir(copia, 0);
+            int n = recuperados.size();
+            for (int i = 0; i < n; i++) {
+                assertMesmoRegistro(todos.get(i), recuperados.get(i));
+            }
+            // O resto incompleto é cortado do arquivo: ele termina no fim do último registro inteiro.
+            long tamanho = Files.size(arquivo);
+            assertTrue(tamanho <= corte, "corte " + corte);
+            Long anterior = fimPorQuantidade.putIfAbsent(n, tamanho);
+            assertEquals(anterior == null ? tamanho : anterior, tamanho, "corte " + corte);
+            // E um diário novo continua a numeração exatamente de onde a recuperação parou.
+            assertEquals(n, DiarioCatalogo.reproduzir(copia, 0, r -> { }));
+        }
+        assertEquals(todos.size() + 1, fimPorQuantidade.size()); // De 0 a 5 registros, todos vistos.
+        assertEquals(completo.length, (long) fimPorQuantidade.get(todos.size()));
+    }
+
+    @Test
+    void buracoNaSequenciaFazAReproducaoFalhar() throws IOException {
+        DiarioCatalogo diario = new DiarioCatalogo(diretorio, 0);
+        diario.registrarRemocao(1);
+        diario.registrarRemocao(2);
+        long f = diario.rolar();
+        diario.registrarRemocao(3);
+        // Os segmentos anteriores a F foram apagados: só um snapshot em F pode usar este diário.
+        diario.apagarAnterioresA(f);
+        diario.close();
+
+        assertEquals(1, reproduzir(diretorio, f).size());
+        assertThrows(IOException.class, () -> reproduzir(diretorio, 0));
+    }
+
+    private static List<RegistroDiario> reproduzir(Path diretorio, long aPartirDe) throws IOException {
+        List<RegistroDiario> registros = new ArrayList<>();
+        DiarioCatalogo.reproduzir(diretorio, aPartirDe, registros::add);
+        return registros;
+    }
+
+    private static void assertMesmoRegistro(RegistroDiario esperado, RegistroDiario obtido) {
+        assertEquals(esperado.tipo, obtido.tipo);
+        assertEquals(esperado.sequencia, obtido.sequencia);
+        assertEquals(esperado.id, obtido.id);
+        assertArrayEquals(esperado.ids, obtido.ids);
+        if (esperado.livro != null) {
+            assertEquals(esperado.livro.getTitulo(), obtido.livro.getTitulo());
+            assertEquals(esperado.livro.getIsbn(), obtido.livro.getIsbn());
+        }
+    }
+
+    private static Path unicoSegmento(Path diretorio) throws IOException {
+        List<Path> segmentos = segmentos(diretorio);
+        assertEquals(1, segmentos.size());
+        return segmentos.get(0);
+    }
+
+    private static List<Path> segmentos(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(p -> p.getFileName().toString().startsWith("diario-")).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
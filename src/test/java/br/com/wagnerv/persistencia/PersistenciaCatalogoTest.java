@@ -0,0 +1,104 @@
+package br.com.wagnerv.persistencia; // Mesmo pacote da persistência testada.
+
+import br.com.wagnerv.model.Livro;                        // Os livros do catálogo.
+import br.com.wagnerv.repository.LivroRepository;         // O catálogo restaurado.
+import br.com.wagnerv.repository.LivroRepositoryMemoria;  // Implementação simples para o teste.
+
+import org.junit.jupiter.api.Test;          // Marca os testes.
+import org.junit.jupiter.api.io.TempDir;    // Diretório temporário, apagado no fim.
+
+import java.io.IOException;                 // Erros de disco.
+import java.io.UncheckedIOException;        // Alteração recusada depois que o diário falhou.
+import java.nio.file.Files;                 // Para estragar o snapshot.
+import java.nio.file.Path;                  // Caminhos dos arquivos.
+import java.util.List;                      // IDs da exclusão em lote.
+import java.util.stream.Stream;             // Para achar o snapshot mais novo.
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Subida depois de uma queda: o snapshot mais novo pode estar estragado, e a geração anterior
+ * (snapshot + diário) precisa bastar para recuperar o catálogo inteiro. E, com o servidor no ar,
+ * uma falha do diário não pode deixar a memória seguir mudando sem o disco.
+ */
+class PersistenciaCatalogoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void snapshotNovoCorrompidoVoltaParaOAnterior() throws IOException {
+        LivroRepository livros = new LivroRepositoryMemoria();
+        PersistenciaCatalogo persistencia = new PersistenciaCatalogo(diretorio, Long.MAX_VALUE);
+        persistencia.restaurar(livros);
+        int id = 1;
+        for (int geracao = 0; geracao < 3; geracao++) {
+            for (int i = 0; i < 50; i++, id++) {
+                livros.adicionar(new Livro(id, "LIVRO " + id, "AUTOR " + geracao, 1900 + i, null));
+            }
+            persistencia.aguardarDurabilidade();
+            persistencia.gravarSnapshot();
+        }
+        // Depois do último snapshot: uma exclusão em lote e um livro novo, só no diário.
+        livros.removerTodos(List.of(2, 60, 149));
+        livros.adicionar(new Livro(id, "DEPOIS DO SNAPSHOT", "AUTOR", 2024, null));
+        persistencia.aguardarDurabilidade();
+        // Queda: sem close(), o que está no disco é o que o diário já garantiu.
+
+        estragarSnapshotMaisNovo();
+        LivroRepository restaurado = new LivroRepositoryMemoria();
+        PersistenciaCatalogo outra = new PersistenciaCatalogo(diretorio, Long.MAX_VALUE);
+        try {
+            assertEquals(livros.tamanho(), outra.restaurar(restaurado));
+            assertNull(restaurado.buscarPorId(2));
+            assertNull(restaurado.buscarPorId(60));
+            assertNull(restaurado.buscarPorId(149));
+            assertNotNull(restaurado.buscarPorId(id));
+            assertEquals("LIVRO 150", restaurado.buscarPorId(150).getTitulo());
+        } finally {
+            outra.close();
+        }
+    }
+
+    @Test
+    void falhaNoDiarioRecusaAsAlteracoesSeguintes() throws IOException {
+        LivroRepository livros = new LivroRepositoryMemoria();
+        PersistenciaCatalogo persistencia = new PersistenciaCatalogo(diretorio, Long.MAX_VALUE);
+        persistencia.restaurar(livros);
+        livros.adicionar(new Livro(1, "DOM CASMURRO", "MACHADO DE ASSIS", 1899, null));
+        persistencia.aguardarDurabilidade();
+
+        // Um livro que não pode ser gravado faz o papel de um disco com defeito.
+        livros.adicionar(new Livro(2, "QUEBRADO", "AUTOR", 2000, null) {
+            @Override
+            public String getTitulo() {
+                throw new IllegalStateException("Falha simulada na gravação.");
+            }
+        });
+        assertThrows(IOException.class, persistencia::aguardarDurabilidade);
+
+        // Daqui para frente, nada muda na memória sem poder chegar ao disco.
+        assertThrows(UncheckedIOException.class,
+                () -> livros.adicionar(new Livro(3, "O CORTIÇO", "ALUÍSIO AZEVEDO", 1890, null)));
+        assertThrows(UncheckedIOException.class, () -> livros.remover(1));
+        assertThrows(UncheckedIOException.class, () -> livros.removerTodos(List.of(1)));
+        assertNull(livros.buscarPorId(3));
+        assertNotNull(livros.buscarPorId(1));
+        assertThrows(IOException.class, persistencia::aguardarDurabilidade);
+        assertThrows(IOException.class, persistencia::close);
+    }
+
+    private void estragarSnapshotMaisNovo() throws IOException {
+        Path novo;
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            novo = arquivos.filter(p -> p.getFileName().toString().startsWith("snapshot-")).sorted()
+                    .reduce((a, b) -> b).orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(novo);
+        bytes[bytes.length - 3] ^= 0x55;
+        Files.write(novo, bytes);
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.wagnerv.replicacao; // Mesmo pacote da replicação testada.
+
+import br.com.wagnerv.model.Livro;                        // Os livros replicados.
+import br.com.wagnerv.repository.LivroRepository;         // Os catálogos do primário e da réplica.
+import br.com.wagnerv.repository.LivroRepositoryMemoria;  // Implementação simples para o teste.
+
+import org.junit.jupiter.api.AfterEach;     // Desliga o primário no fim.
+import org.junit.jupiter.api.BeforeEach;    // Liga o primário antes de cada teste.
+import org.junit.jupiter.api.Test;          // Marca os testes.
+import org.junit.jupiter.api.io.TempDir;    // Diretório temporário para o arquivo de posição.
+
+import java.io.IOException;                 // Erros de rede e de disco.
+import java.net.ServerSocket;               // Para achar uma porta livre.
+import java.nio.file.Files;                 // Para ver se a posição já foi salva.
+import java.nio.file.Path;                  // Arquivo de posição da réplica.
+import java.util.Map;                       // Catálogo como ID -> título.
+import java.util.TreeMap;                   // Em ordem de ID, para comparar e mostrar.
+import java.util.function.BooleanSupplier;  // Condição esperada.
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Réplica contra um primário de verdade (na mesma JVM, por TCP): o envio do catálogo completo na
+ * primeira conexão, a continuação só com as alterações quando a réplica volta a tempo, e o envio
+ * completo de novo quando ela ficou para trás demais.
+ *
+ * Um livro que só existe na réplica mostra qual caminho foi seguido: o envio completo o apaga
+ * (a réplica fica igual ao primário), a continuação não mexe nele.
+ */
+class ReplicacaoTest {
+
+    private static final int CAPACIDADE_HISTORICO = 8;
+
+    @TempDir
+    Path diretorio;
+
+    private final LivroRepository primario = new LivroRepositoryMemoria();
+    private final LivroRepository replica = new LivroRepositoryMemoria();
+    private FeedAlteracoes feed;
+    private ServidorReplicacao servidor;
+    private int porta;
+
+    @BeforeEach
+    void ligarPrimario() throws IOException {
+        for (int id = 1; id <= 5; id++) {
+            primario.adicionar(livro(id));
+        }
+        feed = new FeedAlteracoes(CAPACIDADE_HISTORICO);
+        primario.adicionarListener(feed);
+        try (ServerSocket livre = new ServerSocket(0)) {
+            porta = livre.getLocalPort();
+        }
+        servidor = new ServidorReplicacao(porta, feed, primario);
+    }
+
+    @AfterEach
+    void desligarPrimario() throws IOException {
+        servidor.close();
+    }
+
+    @Test
+    void primeiraConexaoRecebeOCatalogoCompleto() throws IOException {
+        replica.adicionar(livro(9001)); // Só na réplica: o envio completo tira.
+        replica.adicionar(new Livro(3, "OUTRO LIVRO", "OUTRO AUTOR", 1950, null)); // ID 3 com outro conteúdo: é trocado.
+        replica.adicionar(livro(4)); // Igual ao do primário: fica.
+        try (ClienteReplicacao cliente = conectar()) {
+            aguardar(() -> catalogo(replica).equals(catalogo(primario)));
+            assertEquals("AUTOR 3", replica.buscarPorId(3).getAutor());
+            primario.remover(3);
+            primario.adicionar(livro(6));
+            aguardar(() -> cliente.getSequencia() == feed.getUltimaSequencia());
+            assertEquals(catalogo(primario), catalogo(replica));
+        }
+    }
+
+    @Test
+    void reconexaoATempoRecebeSoAsAlteracoes() throws IOException {
+        sincronizar();
+        replica.adicionar(livro(9002));
+        // Menos alterações do que o histórico guarda: a réplica continua de onde parou.
+        primario.adicionar(livro(6));
+        primario.adicionar(livro(7));
+        primario.remover(1);
+
+        try (ClienteReplicacao cliente = conectar()) {
+            aguardar(() -> cliente.getSequencia() == feed.getUltimaSequencia());
+            assertNull(replica.buscarPorId(1));
+            assertNotNull(replica.buscarPorId(6));
+            assertNotNull(replica.buscarPorId(7));
+            assertNotNull(replica.buscarPorId(9002)); // Não houve envio completo.
+            assertEquals(0, cliente.getAtraso());
+        }
+    }
+
+    @Test
+    void reconexaoAtrasadaRecebeOCatalogoCompletoDeNovo() throws IOException {
+        sincronizar();
+        replica.adicionar(livro(9003));
+        // Mais alterações do que o histórico guarda: as primeiras já saíram dele.
+        for (int id = 10; id < 10 + CAPACIDADE_HISTORICO; id++) {
+            primario.adicionar(livro(id));
+        }
+        primario.remover(2);
+        primario.remover(4);
+
+        try (ClienteReplicacao cliente = conectar()) {
+            aguardar(() -> catalogo(replica).equals(catalogo(primario)));
+            assertEquals(feed.getUltimaSequencia(), cliente.getSequencia());
+        }
+    }
+
+    // Primeira conexão: espera o catálogo completo chegar (e a posição ser salva no fim dele) e desconecta.
+    private void sincronizar() throws IOException {
+        try (ClienteReplicacao cliente = conectar()) {
+            aguardar(() -> cliente.isConectado() && Files.exists(posicao())
+                    && catalogo(replica).equals(catalogo(primario)));
+        }
+    }
+
+    // O mesmo arquivo de posição em todas as conexões do teste: é ele que diz de onde continuar.
+    private ClienteReplicacao conectar() throws IOException {
+        return new ClienteReplicacao("127.0.0.1", porta, replica, null, posicao());
+    }
+
+    private Path posicao() {
+        return diretorio.resolve("replicacao.pos");
+    }
+
+    private static Livro livro(int id) {
+        return new Livro(id, "LIVRO " + id, "AUTOR " + id, 1900 + id % 100, null);
+    }
+
+    private static Map<Integer, String> catalogo(LivroRepository livros) {
+        Map<Integer, String> titulos = new TreeMap<>();
+        for (Livro livro : livros.snapshot()) {
+            titulos.put(livro.getId(), livro.getTitulo());
+        }
+        return titulos;
+    }
+
+    // A réplica aplica as alterações na thread dela: espera a condição valer, com limite.
+    private void aguardar(BooleanSupplier condicao) {
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                fail("A réplica não alcançou o primário. Primário: " + catalogo(primario)
+                        + "; réplica: " + catalogo(replica));
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrompido esperando a réplica.");
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.wagnerv.util; // Mesmo pacote do normalizador.
+
+import org.junit.jupiter.api.Test; // Marca os testes.
+
+import java.util.List;             // As palavras esperadas.
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Acentos e ordinais: o que o usuário digita sem eles tem que dar as mesmas palavras do título.
+ */
+class NormalizadorTextoTest {
+
+    @Test
+    void tiraAcentosEPassaParaMaiusculas() {
+        assertEquals("MEMORIAS POSTUMAS", NormalizadorTexto.normalizar("Memórias Póstumas"));
+        assertEquals("SAO PAULO", NormalizadorTexto.normalizar("são paulo"));
+        assertEquals("", NormalizadorTexto.normalizar(null));
+    }
+
+    @Test
+    void ordinaisViramLetras() {
+        // O NFD não decompõe "ª" e "º": sem o tratamento próprio, "2ª" não casaria com "2a".
+        assertEquals(List.of("DOM", "CASMURRO", "2A", "EDICAO"),
+                NormalizadorTexto.palavras("Dom Casmurro (2ª edição)"));
+        assertEquals(NormalizadorTexto.palavras("2a edicao"), NormalizadorTexto.palavras("2ª edição"));
+        assertEquals(List.of("1O", "VOLUME"), NormalizadorTexto.palavras("1º volume"));
+    }
+}